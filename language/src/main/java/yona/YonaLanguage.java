@@ -13,11 +13,15 @@ import com.oracle.truffle.regex.RegexLanguage;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.TokenStreamRewriter;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
 import yona.ast.ExpressionNode;
 import yona.ast.FunctionRootNode;
 import yona.parser.*;
 import yona.runtime.Context;
 import yona.runtime.Function;
+import yona.runtime.SymbolTable;
 import yona.runtime.Unit;
 
 import java.nio.file.Path;
@@ -31,35 +35,81 @@ public class YonaLanguage extends TruffleLanguage<Context> {
   public static final String NAME = "Yona";
   public static final String MIME_TYPE = "application/x-yona";
 
+  @Option(name = "scheduler", help = "Scheduler of async tasks: ring_buffer (single shared ring buffer) or work_stealing (per-worker queues).", category = OptionCategory.USER)
+  public static final OptionKey<String> SCHEDULER = new OptionKey<>("ring_buffer");
+
+  @Option(name = "io_threads", help = "Threads running blocking operations of builtins: platform (cached thread pool) or virtual (a virtual thread per operation, requires JDK 21 or newer).", category = OptionCategory.USER)
+  public static final OptionKey<String> IO_THREADS = new OptionKey<>("platform");
+
+  @Option(name = "http_server", help = "Engine of the http Server module: jdk (com.sun.net.httpserver, a thread per exchange) or nio (non-blocking, on the socket selector, with keep-alive and pipelining).", category = OptionCategory.USER)
+  public static final OptionKey<String> HTTP_SERVER = new OptionKey<>("jdk");
+
+  @Option(name = "http_idle_timeout_millis", help = "Connections of the nio http Server engine with no request in flight are closed after this many milliseconds.", category = OptionCategory.USER)
+  public static final OptionKey<Integer> HTTP_IDLE_TIMEOUT_MILLIS = new OptionKey<>(30_000);
+
+  @Option(name = "http_max_body_size", help = "Largest request body in bytes accepted by the nio http Server engine, requests with larger bodies get a 413 response.", category = OptionCategory.USER)
+  public static final OptionKey<Integer> HTTP_MAX_BODY_SIZE = new OptionKey<>(8 * 1024 * 1024);
+
+  @Option(name = "socket_read_buffer_size", help = "Size in bytes of the direct buffer sockets are read into.", category = OptionCategory.EXPERT)
+  public static final OptionKey<Integer> SOCKET_READ_BUFFER_SIZE = new OptionKey<>(64 * 1024);
+
+  @Option(name = "timer_tick_millis", help = "Tick duration of the timer wheel of sleep, timeout, schedule and interval, in milliseconds. Delays are rounded up to whole ticks.", category = OptionCategory.EXPERT)
+  public static final OptionKey<Integer> TIMER_TICK_MILLIS = new OptionKey<>(1);
+
+  /**
+   * Symbols of all contexts, as they are cached in the shared AST.
+   */
+  public final SymbolTable symbols = new SymbolTable();
+
   public YonaLanguage() {
     super();
   }
 
+  @Override
+  protected OptionDescriptors getOptionDescriptors() {
+    return new YonaLanguageOptionDescriptors();
+  }
+
   @Override
   protected Context createContext(Env env) {
-    String languageHome = getLanguageHome();
-    Path languageHomePath, stdlibHomePath;
+    Path languageHomePath = languageHomePath(env);
+    return new Context(this, env, languageHomePath, stdlibHomePath(env, languageHomePath));
+  }
 
-    if (languageHome == null) {
-      if (env.getEnvironment().containsKey("JAVA_HOME")) {
-        languageHomePath = Paths.get(env.getEnvironment().get("JAVA_HOME"), "languages", ID);
-      } else {
-        languageHomePath = Paths.get(".");
-        // TODO this should print some warning probably
-        env.getLogger(getClass()).severe("JAVA_HOME environment variable must be set, otherwise stdlib from current directory is loaded. This is a potential security risk.");
-      }
+  /**
+   * Context pre-initialized during a native image build (-Dpolyglot.image-build-time.PreinitializeContexts=yona) is
+   * reused, with the stdlib already loaded.
+   */
+  @Override
+  protected boolean patchContext(Context context, Env newEnv) {
+    try {
+      return context.patch(newEnv, stdlibHomePath(newEnv, languageHomePath(newEnv)));
+    } catch (Exception e) {
+      return false;
+    }
+  }
 
-      if (env.getEnvironment().containsKey("YONA_STDLIB_HOME")) {
-        stdlibHomePath = Paths.get(env.getEnvironment().get("YONA_STDLIB_HOME"));
-      } else {
-        stdlibHomePath = Paths.get(languageHomePath.toFile().getAbsolutePath(), "lib-yona");
-      }
+  private Path languageHomePath(Env env) {
+    String languageHome = getLanguageHome();
+    if (languageHome != null) {
+      return Path.of(languageHome);
+    } else if (env.getEnvironment().containsKey("JAVA_HOME")) {
+      return Paths.get(env.getEnvironment().get("JAVA_HOME"), "languages", ID);
     } else {
-      languageHomePath = Path.of(languageHome);
-      stdlibHomePath = Paths.get(languageHome, "lib-yona");
+      // TODO this should print some warning probably
+      env.getLogger(getClass()).severe("JAVA_HOME environment variable must be set, otherwise stdlib from current directory is loaded. This is a potential security risk.");
+      return Paths.get(".");
     }
+  }
 
-    return new Context(this, env, languageHomePath, stdlibHomePath);
+  private Path stdlibHomePath(Env env, Path languageHomePath) {
+    if (getLanguageHome() != null) {
+      return Paths.get(getLanguageHome(), "lib-yona");
+    } else if (env.getEnvironment().containsKey("YONA_STDLIB_HOME")) {
+      return Paths.get(env.getEnvironment().get("YONA_STDLIB_HOME"));
+    } else {
+      return Paths.get(languageHomePath.toFile().getAbsolutePath(), "lib-yona");
+    }
   }
 
   @Override
@@ -1,12 +1,16 @@
 package yona.ast;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.*;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.source.SourceSection;
 import yona.YonaLanguage;
 
+import java.util.List;
+
 /**
  * The root of all YonaLanguage execution trees. It is a Truffle requirement that the tree root extends the
  * class {@link RootNode}. This class is used for both builtin and user-defined functions. For
@@ -29,16 +33,42 @@ public class ClosureRootNode extends YonaRootNode {
 
   private final SourceSection sourceSection;
 
-  private final MaterializedFrame lexicalScope;
+  /*
+   * The call target is shared by all closures of a lambda, which may run on several threads at once, so the cached slots
+   * are replaced as a whole.
+   */
+  @CompilerDirectives.CompilationFinal
+  private ScopeSlots cachedSlots;
+
+  /*
+   * Slots of the lexical scope copied into the frame of the closure, and the corresponding slots of the closure frame.
+   * They are cached for the frame descriptor of the lexical scope, as long as neither descriptor changes.
+   */
+  private static final class ScopeSlots {
+    final FrameDescriptor scopeDescriptor;
+    @CompilerDirectives.CompilationFinal(dimensions = 1)
+    final FrameSlot[] scopeSlots;
+    @CompilerDirectives.CompilationFinal(dimensions = 1)
+    final FrameSlot[] closureSlots;
+    final Assumption scopeSlotsUnchanged;
+    final Assumption closureSlotsUnchanged;
+
+    ScopeSlots(FrameDescriptor scopeDescriptor, FrameSlot[] scopeSlots, FrameSlot[] closureSlots, Assumption scopeSlotsUnchanged, Assumption closureSlotsUnchanged) {
+      this.scopeDescriptor = scopeDescriptor;
+      this.scopeSlots = scopeSlots;
+      this.closureSlots = closureSlots;
+      this.scopeSlotsUnchanged = scopeSlotsUnchanged;
+      this.closureSlotsUnchanged = closureSlotsUnchanged;
+    }
+  }
 
   public ClosureRootNode(YonaLanguage language, FrameDescriptor frameDescriptor, ExpressionNode bodyNode,
-                         SourceSection sourceSection, String moduleFQN, String name, MaterializedFrame lexicalScope) {
+                         SourceSection sourceSection, String moduleFQN, String name) {
     super(language, frameDescriptor);
     this.bodyNode = bodyNode;
     this.name = name;
     this.moduleFQN = moduleFQN;
     this.sourceSection = sourceSection;
-    this.lexicalScope = lexicalScope;
   }
 
   @Override
@@ -46,34 +76,61 @@ public class ClosureRootNode extends YonaRootNode {
     return sourceSection;
   }
 
+  /**
+   * The frame the closure was created in is the last argument, see {@link yona.runtime.Function#applyArguments}.
+   */
   @Override
   public Object execute(VirtualFrame frame) {
-    final FrameDescriptor fd = lexicalScope.getFrameDescriptor();
-    CompilerDirectives.transferToInterpreterAndInvalidate();
-    for (Object identifier : fd.getIdentifiers()) {
-      FrameSlot oldFrameSlot = fd.findFrameSlot(identifier);
-      FrameSlotKind kind = fd.getFrameSlotKind(oldFrameSlot);
-      FrameSlot newFrameSlot = frame.getFrameDescriptor().findOrAddFrameSlot(identifier, kind);
-
-      try {
-        switch (kind) {
-          case Long -> frame.setLong(newFrameSlot, lexicalScope.getLong(oldFrameSlot));
-          case Int -> frame.setInt(newFrameSlot, lexicalScope.getInt(oldFrameSlot));
-          case Double -> frame.setDouble(newFrameSlot, lexicalScope.getDouble(oldFrameSlot));
-          case Float -> frame.setFloat(newFrameSlot, lexicalScope.getFloat(oldFrameSlot));
-          case Boolean -> frame.setBoolean(newFrameSlot, lexicalScope.getBoolean(oldFrameSlot));
-          case Byte -> frame.setByte(newFrameSlot, lexicalScope.getByte(oldFrameSlot));
-          case Object -> frame.setObject(newFrameSlot, lexicalScope.getObject(oldFrameSlot));
-          case Illegal -> frame.setObject(newFrameSlot, lexicalScope.getValue(oldFrameSlot));
-        }
-      } catch (FrameSlotTypeException e) {
-        frame.setObject(newFrameSlot, lexicalScope.getValue(oldFrameSlot));
-      }
+    final Object[] arguments = frame.getArguments();
+    final MaterializedFrame lexicalScope = (MaterializedFrame) arguments[arguments.length - 1];
+    final FrameDescriptor scopeDescriptor = lexicalScope.getFrameDescriptor();
+    ScopeSlots slots = cachedSlots;
+    if (slots == null || scopeDescriptor != slots.scopeDescriptor || !slots.scopeSlotsUnchanged.isValid() || !slots.closureSlotsUnchanged.isValid()) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      slots = cacheSlots(scopeDescriptor, frame.getFrameDescriptor());
     }
 
+    copyScope(slots, lexicalScope, frame);
     return bodyNode.executeGeneric(frame);
   }
 
+  private ScopeSlots cacheSlots(FrameDescriptor scopeDescriptor, FrameDescriptor closureDescriptor) {
+    final List<? extends FrameSlot> slots = scopeDescriptor.getSlots();
+    final FrameSlot[] newClosureSlots = new FrameSlot[slots.size()];
+    for (int i = 0; i < newClosureSlots.length; i++) {
+      final FrameSlot slot = slots.get(i);
+      newClosureSlots[i] = closureDescriptor.findOrAddFrameSlot(slot.getIdentifier(), scopeDescriptor.getFrameSlotKind(slot));
+    }
+    final ScopeSlots result = new ScopeSlots(scopeDescriptor, slots.toArray(new FrameSlot[0]), newClosureSlots, scopeDescriptor.getVersion(), closureDescriptor.getVersion());
+    cachedSlots = result;
+    return result;
+  }
+
+  @ExplodeLoop
+  private void copyScope(ScopeSlots slots, MaterializedFrame lexicalScope, VirtualFrame frame) {
+    final FrameSlot[] scopeSlots = slots.scopeSlots;
+    final FrameSlot[] closureSlots = slots.closureSlots;
+    for (int i = 0; i < scopeSlots.length; i++) {
+      final FrameSlot scopeSlot = scopeSlots[i];
+      final FrameSlot closureSlot = closureSlots[i];
+      if (lexicalScope.isLong(scopeSlot)) {
+        frame.setLong(closureSlot, FrameUtil.getLongSafe(lexicalScope, scopeSlot));
+      } else if (lexicalScope.isInt(scopeSlot)) {
+        frame.setInt(closureSlot, FrameUtil.getIntSafe(lexicalScope, scopeSlot));
+      } else if (lexicalScope.isDouble(scopeSlot)) {
+        frame.setDouble(closureSlot, FrameUtil.getDoubleSafe(lexicalScope, scopeSlot));
+      } else if (lexicalScope.isFloat(scopeSlot)) {
+        frame.setFloat(closureSlot, FrameUtil.getFloatSafe(lexicalScope, scopeSlot));
+      } else if (lexicalScope.isBoolean(scopeSlot)) {
+        frame.setBoolean(closureSlot, FrameUtil.getBooleanSafe(lexicalScope, scopeSlot));
+      } else if (lexicalScope.isByte(scopeSlot)) {
+        frame.setByte(closureSlot, FrameUtil.getByteSafe(lexicalScope, scopeSlot));
+      } else {
+        frame.setObject(closureSlot, lexicalScope.getValue(scopeSlot));
+      }
+    }
+  }
+
   @Override
   public String getName() {
     if (moduleFQN != null) {
@@ -7,6 +7,7 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.source.SourceSection;
 import yona.YonaLanguage;
+import yona.ast.call.BuiltinCallNode;
 
 /**
  * The root of all YonaLanguage execution trees. It is a Truffle requirement that the tree root extends the
@@ -49,6 +50,15 @@ public class FunctionRootNode extends YonaRootNode {
     return bodyNode.executeGeneric(frame);
   }
 
+  /**
+   * Builtin functions are shared by all their call sites. Allowing them to be split gives call sites that fold or call
+   * back with different functions their own copy of the builtin, with its own inline caches.
+   */
+  @Override
+  public boolean isCloningAllowed() {
+    return bodyNode instanceof BuiltinCallNode;
+  }
+
   @Override
   public String getName() {
     if (moduleFQN != null) {
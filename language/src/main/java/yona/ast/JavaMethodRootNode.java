@@ -4,40 +4,48 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.VirtualFrame;
-import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.source.SourceSection;
-import yona.TypesGen;
-import yona.YonaException;
 import yona.YonaLanguage;
-import yona.ast.local.ReadArgumentNode;
 import yona.runtime.*;
+import yona.runtime.exceptions.PolyglotException;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Calls a Java method. For an instance method, the receiver is passed as the first argument, so that a single call
+ * target serves all receivers, which are bound by partial application. The method handle is resolved on the first call.
+ */
 @NodeInfo(language = "yona", description = "Java method root call")
 public class JavaMethodRootNode extends YonaRootNode {
-  private Method method;
-  private Object object;
-  private String moduleFQN;
+  private final Method method;
+  private final boolean hasReceiver;
+  private final String moduleFQN;
   private final SourceSection sourceSection;
+  @CompilationFinal
+  private JavaMethod javaMethod;
 
-  public static Function buildFunction(YonaLanguage language, Method method, FrameDescriptor frameDescriptor, Object object) {
+  /**
+   * @param hasReceiver whether the function takes the receiver object as the first argument
+   */
+  public static Function buildFunction(YonaLanguage language, Method method, FrameDescriptor frameDescriptor, boolean hasReceiver) {
     String fqn = method.getDeclaringClass().getName().replace(".", "\\");
     return new Function(
         fqn,
         method.getName(),
-        Truffle.getRuntime().createCallTarget(new JavaMethodRootNode(language, frameDescriptor, method, object, Context.JAVA_SOURCE_SECTION, fqn)),
-        method.getParameterCount(),
+        Truffle.getRuntime().createCallTarget(new JavaMethodRootNode(language, frameDescriptor, method, hasReceiver, Context.JAVA_SOURCE_SECTION, fqn)),
+        hasReceiver ? method.getParameterCount() + 1 : method.getParameterCount(),
         true);
   }
 
   public JavaMethodRootNode(YonaLanguage language, FrameDescriptor frameDescriptor, Method method,
-                            Object object, SourceSection sourceSection, String moduleFQN) {
+                            boolean hasReceiver, SourceSection sourceSection, String moduleFQN) {
     super(language, frameDescriptor);
     this.method = method;
-    this.object = object;
+    this.hasReceiver = hasReceiver;
     this.moduleFQN = moduleFQN;
     this.sourceSection = sourceSection;
   }
@@ -49,39 +57,21 @@ public class JavaMethodRootNode extends YonaRootNode {
 
   @Override
   public Object execute(VirtualFrame frame) {
-    CompilerDirectives.transferToInterpreterAndInvalidate();
-    Object[] args = readArgs(frame);
-    try {
-      Object result = method.invoke(object, args);
-      return TypesGen.foreignResultToYonaType(result);
-    } catch (IllegalAccessException e) {
-      throw new YonaException(e, this);
-    } catch (InvocationTargetException e) {
-      throw new YonaException(e.getCause(), this);
+    if (javaMethod == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      try {
+        javaMethod = JavaMethod.create(method);
+      } catch (IllegalAccessException e) {
+        throw new PolyglotException(e, this);
+      }
     }
-  }
 
-  @ExplodeLoop
-  private Object[] readArgs(VirtualFrame frame) {
-    Object[] args = new Object[method.getParameterCount()];
-    for (int i = 0; i < method.getParameterCount(); i++) {
-      Object arg = new ReadArgumentNode(i).executeGeneric(frame);
-      if (arg instanceof NativeObject) {
-        arg = ((NativeObject<?>) arg).getValue();
-      } else if (arg instanceof Seq) {
-        if (((Seq) arg).isString()) {
-          arg = ((Seq) arg).asJavaString(this);
-        } else {
-          arg = ((Seq) arg).toArray();
-        }
-      } else if (arg instanceof Tuple) {
-        arg = ((Tuple) arg).toArray();
-      } else if (arg instanceof Dict) {
-        arg = ((Dict) arg).toMap();
-      }
-      args[i] = arg;
+    Object[] args = frame.getArguments();
+    if (hasReceiver) {
+      return javaMethod.invoke(args[0], Arrays.copyOfRange(args, 1, args.length), this);
+    } else {
+      return javaMethod.invoke(null, args, this);
     }
-    return args;
   }
 
   @Override
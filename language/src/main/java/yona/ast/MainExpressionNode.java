@@ -30,14 +30,14 @@ public final class MainExpressionNode extends ExpressionNode {
 
     if (result instanceof Function function) {
       if (function.getCardinality() == 0) {
-        result = function.getCallTarget().getRootNode().execute(frame);
+        result = function.getCallTarget().call(function.applyArguments(new Object[]{}));
       }
     }
 
     if (result instanceof YonaModule module && module.getExports().contains("main")) {
       Function function = module.getFunctions().get("main");
       if (function.getCardinality() == 0) {
-        result = function.getCallTarget().getRootNode().execute(frame);
+        result = function.getCallTarget().call(function.applyArguments(new Object[]{}));
       }
     }
 
@@ -33,6 +33,11 @@ public abstract class EqualsNode extends BinaryOpNode {
     return true;
   }
 
+  @Specialization
+  public boolean symbols(Symbol left, Symbol right) {
+    return left == right;
+  }
+
   @Specialization
   public boolean tuples(Tuple left, Tuple right) {
     return left.equals(right);
@@ -33,6 +33,11 @@ public abstract class NotEqualsNode extends BinaryOpNode {
     return false;
   }
 
+  @Specialization
+  public boolean symbols(Symbol left, Symbol right) {
+    return left != right;
+  }
+
   @Specialization
   public boolean tuples(Tuple left, Tuple right) {
     return !left.equals(right);
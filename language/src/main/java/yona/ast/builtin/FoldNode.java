@@ -0,0 +1,170 @@
+package yona.ast.builtin;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameUtil;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RepeatingNode;
+import com.oracle.truffle.api.profiles.ValueProfile;
+import yona.YonaException;
+import yona.runtime.Function;
+import yona.runtime.LeafCursor;
+import yona.runtime.Pipeline;
+import yona.runtime.Tuple;
+import yona.runtime.exceptions.TransducerDoneException;
+import yona.runtime.exceptions.UndefinedNameException;
+
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Folds the elements of a collection with a Yona function, one leaf of the collection per iteration of a
+ * {@link LoopNode}, so that a long running fold can be compiled with on stack replacement. The function is called
+ * through an inline cache, so it can be inlined into the loop. State of the loop is kept in slots of the frame of the
+ * builtin function.
+ * <p>
+ * A reducer created by the builtin transducers is reduced by a {@link PipelineNode} instead, without calling its step
+ * function for each element.
+ */
+public final class FoldNode extends Node {
+  private final boolean reduce;
+
+  @Child
+  private LoopNode loopNode;
+
+  @Child
+  private InteropLibrary completeDispatch;
+
+  @Child
+  private PipelineNode pipelineNode;
+
+  @CompilationFinal
+  private FrameSlot functionSlot;
+  @CompilationFinal
+  private FrameSlot stateSlot;
+  @CompilationFinal
+  private FrameSlot cursorSlot;
+
+  private FoldNode(boolean reduce) {
+    this.reduce = reduce;
+  }
+
+  public static FoldNode createFold() {
+    return new FoldNode(false);
+  }
+
+  /**
+   * Reduce stops at {@link TransducerDoneException} and calls the complete function of the reducer on the final state.
+   */
+  public static FoldNode createReduce() {
+    return new FoldNode(true);
+  }
+
+  /**
+   * Folds the elements of the cursor. A reducing node stops at {@link TransducerDoneException}, without completing
+   * the state.
+   */
+  public Object fold(VirtualFrame frame, Function function, Object initialValue, LeafCursor cursor) {
+    return run(frame, function, initialValue, cursor);
+  }
+
+  public Object reduce(VirtualFrame frame, Tuple reducer, LeafCursor cursor) {
+    assert reduce;
+    if (reducer instanceof Pipeline pipeline) {
+      if (pipelineNode == null) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        pipelineNode = insert(PipelineNode.create());
+      }
+      return pipelineNode.reduce(frame, pipeline, cursor);
+    }
+
+    Object state = run(frame, (Function) reducer.get(1), reducer.get(0), cursor);
+    try {
+      return completeDispatch.execute(reducer.get(2), state);
+    } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+      /* Execute was not successful. */
+      throw new YonaException(e, this);
+    }
+  }
+
+  private Object run(VirtualFrame frame, Function function, Object initialValue, LeafCursor cursor) {
+    if (loopNode == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      initialize(frame.getFrameDescriptor());
+    }
+
+    frame.setObject(functionSlot, function);
+    frame.setObject(stateSlot, initialValue);
+    frame.setObject(cursorSlot, cursor);
+    loopNode.execute(frame);
+    return FrameUtil.getObjectSafe(frame, stateSlot);
+  }
+
+  private void initialize(FrameDescriptor frameDescriptor) {
+    functionSlot = frameDescriptor.findOrAddFrameSlot("$fold-function", FrameSlotKind.Object);
+    stateSlot = frameDescriptor.findOrAddFrameSlot("$fold-state", FrameSlotKind.Object);
+    cursorSlot = frameDescriptor.findOrAddFrameSlot("$fold-cursor", FrameSlotKind.Object);
+    loopNode = insert(Truffle.getRuntime().createLoopNode(new FoldLeafNode(reduce, functionSlot, stateSlot, cursorSlot)));
+    if (reduce) {
+      completeDispatch = insert(InteropLibrary.getFactory().createDispatched(3));
+    }
+  }
+
+  private static final class FoldLeafNode extends Node implements RepeatingNode {
+    private final boolean reduce;
+    private final FrameSlot functionSlot;
+    private final FrameSlot stateSlot;
+    private final FrameSlot cursorSlot;
+    private final ValueProfile cursorProfile = ValueProfile.createClassProfile();
+
+    @Child
+    private InteropLibrary dispatch = InteropLibrary.getFactory().createDispatched(3);
+
+    FoldLeafNode(boolean reduce, FrameSlot functionSlot, FrameSlot stateSlot, FrameSlot cursorSlot) {
+      this.reduce = reduce;
+      this.functionSlot = functionSlot;
+      this.stateSlot = stateSlot;
+      this.cursorSlot = cursorSlot;
+    }
+
+    @Override
+    public boolean executeRepeating(VirtualFrame frame) {
+      final LeafCursor cursor = cursorProfile.profile((LeafCursor) FrameUtil.getObjectSafe(frame, cursorSlot));
+      if (!cursor.nextLeaf()) {
+        return false;
+      }
+
+      final Function function = (Function) FrameUtil.getObjectSafe(frame, functionSlot);
+      final int length = cursor.leafLength();
+      Object state = FrameUtil.getObjectSafe(frame, stateSlot);
+      try {
+        for (int i = 0; i < length; i++) {
+          state = dispatch.execute(function, state, cursor.element(i));
+        }
+      } catch (TransducerDoneException e) {
+        if (!reduce) {
+          throw e;
+        }
+        frame.setObject(stateSlot, state);
+        return false;
+      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+        /* Execute was not successful. */
+        if (reduce) {
+          throw new YonaException(e, this);
+        } else {
+          throw UndefinedNameException.undefinedFunction(this, function);
+        }
+      }
+      frame.setObject(stateSlot, state);
+      return true;
+    }
+  }
+}
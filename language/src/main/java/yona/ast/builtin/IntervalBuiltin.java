@@ -0,0 +1,86 @@
+package yona.ast.builtin;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.CachedContext;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import yona.YonaLanguage;
+import yona.runtime.Context;
+import yona.runtime.Function;
+import yona.runtime.Tuple;
+import yona.runtime.Unit;
+import yona.runtime.async.Promise;
+import yona.runtime.exceptions.BadArgException;
+import yona.runtime.exceptions.UndefinedNameException;
+import yona.runtime.stdlib.util.TimeUnitUtil;
+
+/**
+ * Runs a function of zero arguments repeatedly, each time after the interval elapses, for as long as it returns true.
+ * The next interval starts only once the function (and the promise it returns, if any) finishes, so runs never
+ * overlap. Returns a promise, that is fulfilled with unit once the function returns false, or with the error it raised.
+ */
+@NodeInfo(shortName = "interval")
+public abstract class IntervalBuiltin extends BuiltinNode {
+  @Specialization
+  @CompilerDirectives.TruffleBoundary
+  public Promise interval(Tuple timeUnit, Function function, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
+    if (function.getCardinality() > 0) {
+      throw new BadArgException("interval function accepts only functions with zero arguments. Function " + function + " expects " + function.getCardinality() + " arguments", this);
+    }
+
+    Promise promise = new Promise(dispatch);
+    Object millisObj = TimeUnitUtil.getMilliseconds(timeUnit, this);
+
+    if (millisObj instanceof Long) {
+      scheduleNext(context, promise, function, dispatch, (long) millisObj);
+    } else { // Promise
+      ((Promise) millisObj).map((millis) -> {
+        scheduleNext(context, promise, function, dispatch, (long) millis);
+        return Unit.INSTANCE;
+      }, this);
+    }
+
+    return promise;
+  }
+
+  private void scheduleNext(Context context, Promise promise, Function function, InteropLibrary dispatch, long millis) {
+    context.timerWheel.schedule(millis, () -> context.threading.submit(promise, p -> run(context, p, function, dispatch, millis)));
+  }
+
+  private void run(Context context, Promise promise, Function function, InteropLibrary dispatch, long millis) {
+    final Object result;
+    try {
+      result = dispatch.execute(function);
+    } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+      promise.fulfil(UndefinedNameException.undefinedFunction(this, function), this);
+      return;
+    } catch (Throwable e) {
+      promise.fulfil(e, this);
+      return;
+    }
+    afterRun(context, promise, function, dispatch, millis, result);
+  }
+
+  private void afterRun(Context context, Promise promise, Function function, InteropLibrary dispatch, long millis, Object result) {
+    if (result instanceof Promise resultPromise) {
+      resultPromise.map(value -> {
+        afterRun(context, promise, function, dispatch, millis, value);
+        return Unit.INSTANCE;
+      }, error -> {
+        promise.fulfil(error, this);
+        return Unit.INSTANCE;
+      }, this);
+    } else if (Boolean.TRUE.equals(result)) {
+      scheduleNext(context, promise, function, dispatch, millis);
+    } else if (Boolean.FALSE.equals(result)) {
+      promise.fulfil(Unit.INSTANCE, this);
+    } else {
+      promise.fulfil(new BadArgException("interval function must return a boolean (true to continue), got " + result, this), this);
+    }
+  }
+}
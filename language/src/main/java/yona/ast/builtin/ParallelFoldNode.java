@@ -0,0 +1,178 @@
+package yona.ast.builtin;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.nodes.Node;
+import yona.YonaException;
+import yona.YonaLanguage;
+import yona.ast.YonaRootNode;
+import yona.runtime.Context;
+import yona.runtime.Function;
+import yona.runtime.LeafCursor;
+import yona.runtime.Pipeline;
+import yona.runtime.Tuple;
+import yona.runtime.UninitializedFrameSlot;
+import yona.runtime.async.Promise;
+import yona.runtime.exceptions.BadArgException;
+import yona.runtime.exceptions.UndefinedNameException;
+import yona.runtime.threading.Threading;
+
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Folds parts of a collection in parallel, each part as a task on the worker threads, and combines the results of the
+ * parts with a combiner function, in the order of the parts. Each part starts with the same initial value, so it
+ * should be the identity of the combiner, and the combiner must be associative.
+ * <p>
+ * The parts are folded by a {@link FoldNode} in a separate root, so that each of them runs in its own frame.
+ */
+public final class ParallelFoldNode extends Node {
+  public static final int MAX_PARTS = Threading.CPU_THREADS * 4;
+  public static final long MIN_PART_LENGTH = 1024;
+
+  private final boolean reduce;
+
+  @CompilationFinal
+  private RootCallTarget partCallTarget;
+
+  @Child
+  private InteropLibrary combineDispatch = InteropLibrary.getFactory().createDispatched(3);
+
+  @Child
+  private InteropLibrary completeDispatch;
+
+  private ParallelFoldNode(boolean reduce) {
+    this.reduce = reduce;
+    if (reduce) {
+      this.completeDispatch = InteropLibrary.getFactory().createDispatched(3);
+    }
+  }
+
+  public static ParallelFoldNode createFold() {
+    return new ParallelFoldNode(false);
+  }
+
+  /**
+   * Each part is reduced by the step function of the reducer, and stops at its own
+   * {@link yona.runtime.exceptions.TransducerDoneException}. The complete function is called once, on the combined
+   * state. Pipelines with stages that keep a state (take, drop, dedupe, distinct, chunk, scan) are rejected, as each part
+   * would start them afresh.
+   */
+  public static ParallelFoldNode createReduce() {
+    return new ParallelFoldNode(true);
+  }
+
+  /**
+   * @return number of parts to split a collection of the given length into
+   */
+  public static int parts(long length) {
+    return (int) Math.max(1, Math.min(MAX_PARTS, length / MIN_PART_LENGTH));
+  }
+
+  public Promise fold(Context context, Function function, Function combiner, Object initialValue, LeafCursor[] parts) {
+    assert !reduce;
+    return run(context, function, combiner, initialValue, parts);
+  }
+
+  public Promise reduce(Context context, Tuple reducer, Function combiner, LeafCursor[] parts) {
+    assert reduce;
+    checkStateless(reducer);
+    final Object complete = reducer.get(2);
+    return run(context, (Function) reducer.get(1), combiner, reducer.get(0), parts).map(state -> {
+      try {
+        return completeDispatch.execute(complete, state);
+      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+        /* Execute was not successful. */
+        throw new YonaException(e, this);
+      }
+    }, this);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private void checkStateless(Tuple reducer) {
+    if (reducer instanceof Pipeline pipeline) {
+      for (int kind : pipeline.kinds) {
+        if (Pipeline.hasState(kind)) {
+          throw new BadArgException("Parallel reduce accepts only transducers without a state, such as map and filter", this);
+        }
+      }
+    }
+  }
+
+  private Promise run(Context context, Function function, Function combiner, Object initialValue, LeafCursor[] parts) {
+    if (partCallTarget == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      partCallTarget = Truffle.getRuntime().createCallTarget(new PartRootNode(getRootNode().getLanguage(YonaLanguage.class), reduce));
+    }
+    return submitParts(context, function, combiner, initialValue, parts);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Promise submitParts(Context context, Function function, Function combiner, Object initialValue, LeafCursor[] parts) {
+    final Object[] results = new Object[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      final LeafCursor part = parts[i];
+      results[i] = context.threading.submit(new Promise(), promise -> {
+        try {
+          promise.fulfil(partCallTarget.call(function, initialValue, part), this);
+        } catch (Throwable e) {
+          promise.fulfil(e, this);
+        }
+      });
+    }
+    return Promise.all(results, this).map(partials -> combine(combiner, (Object[]) partials), this);
+  }
+
+  /*
+   * Partial results are combined from left to right. If the combiner returns a promise, the rest of them are combined
+   * once it is fulfilled.
+   */
+  private Object combine(Function combiner, Object[] partials) {
+    return combineFrom(combiner, partials[0], partials, 1);
+  }
+
+  private Object combineFrom(Function combiner, Object accumulator, Object[] partials, int from) {
+    Object result = accumulator;
+    for (int i = from; i < partials.length; i++) {
+      if (result instanceof Promise promise) {
+        final int next = i;
+        return promise.map(value -> combineFrom(combiner, value, partials, next), this);
+      }
+      try {
+        result = combineDispatch.execute(combiner, result, partials[i]);
+      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+        /* Execute was not successful. */
+        throw UndefinedNameException.undefinedFunction(this, combiner);
+      }
+    }
+    return result;
+  }
+
+  private static final class PartRootNode extends YonaRootNode {
+    @Child
+    private FoldNode foldNode;
+
+    PartRootNode(YonaLanguage language, boolean reduce) {
+      super(language, new FrameDescriptor(UninitializedFrameSlot.INSTANCE));
+      this.foldNode = reduce ? FoldNode.createReduce() : FoldNode.createFold();
+    }
+
+    @Override
+    public Object execute(VirtualFrame frame) {
+      final Object[] arguments = frame.getArguments();
+      return foldNode.fold(frame, (Function) arguments[0], arguments[1], (LeafCursor) arguments[2]);
+    }
+
+    @Override
+    public String getName() {
+      return "$parallel-fold-part";
+    }
+  }
+}
@@ -0,0 +1,432 @@
+package yona.ast.builtin;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameUtil;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RepeatingNode;
+import com.oracle.truffle.api.profiles.ValueProfile;
+import yona.YonaException;
+import yona.runtime.*;
+import yona.runtime.async.Promise;
+import yona.runtime.exceptions.TransducerDoneException;
+
+import java.util.Arrays;
+
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Runs the stages of a {@link Pipeline}. The kinds of stages of the first pipeline seen are cached, so that for
+ * pipelines of the same shape the stages are unrolled and each function of a stage is called through its own inline
+ * cache. Other shapes run through a generic loop.
+ * <p>
+ * {@link #reduce} folds the elements of a collection through the pipeline in a {@link LoopNode}, the same way as
+ * {@link FoldNode}, with the states of the stages kept in mutable arrays and a sink collecting into a builder.
+ * <p>
+ * If a function of a stage, or the step function, returns a promise, the rest of the stages and all following elements
+ * run only once it is fulfilled, so the accumulator becomes a promise as well.
+ */
+public final class PipelineNode extends Node {
+  private static final Object SKIP = new Object();
+
+  @CompilationFinal(dimensions = 1)
+  private int[] kinds;
+  @CompilationFinal
+  private boolean generic = false;
+
+  @Children
+  private InteropLibrary[] stageDispatch;
+  @Child
+  private InteropLibrary genericDispatch;
+  @Child
+  private InteropLibrary stepDispatch = InteropLibrary.getFactory().createDispatched(3);
+  @Child
+  private InteropLibrary completeDispatch;
+
+  @Child
+  private LoopNode loopNode;
+
+  @CompilationFinal
+  private FrameSlot pipelineSlot;
+  @CompilationFinal
+  private FrameSlot countsSlot;
+  @CompilationFinal
+  private FrameSlot statesSlot;
+  @CompilationFinal
+  private FrameSlot accumulatorSlot;
+  @CompilationFinal
+  private FrameSlot cursorSlot;
+
+  public static PipelineNode create() {
+    return new PipelineNode();
+  }
+
+  /**
+   * Reduces the elements of the cursor and completes the result, stops at {@link TransducerDoneException}.
+   */
+  public Object reduce(VirtualFrame frame, Pipeline pipeline, LeafCursor cursor) {
+    if (loopNode == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      initialize(frame.getFrameDescriptor());
+    }
+
+    final long[] counts = pipeline.initialCounts();
+    final Object[] states = pipeline.initialStates();
+    frame.setObject(pipelineSlot, pipeline);
+    frame.setObject(countsSlot, counts);
+    frame.setObject(statesSlot, states);
+    frame.setObject(accumulatorSlot, pipeline.initialAccumulator(true));
+    frame.setObject(cursorSlot, cursor);
+    loopNode.execute(frame);
+
+    return complete(pipeline, counts, states, FrameUtil.getObjectSafe(frame, accumulatorSlot));
+  }
+
+  private void initialize(FrameDescriptor frameDescriptor) {
+    pipelineSlot = frameDescriptor.findOrAddFrameSlot("$pipeline", FrameSlotKind.Object);
+    countsSlot = frameDescriptor.findOrAddFrameSlot("$pipeline-counts", FrameSlotKind.Object);
+    statesSlot = frameDescriptor.findOrAddFrameSlot("$pipeline-states", FrameSlotKind.Object);
+    accumulatorSlot = frameDescriptor.findOrAddFrameSlot("$pipeline-accumulator", FrameSlotKind.Object);
+    cursorSlot = frameDescriptor.findOrAddFrameSlot("$pipeline-cursor", FrameSlotKind.Object);
+    loopNode = insert(Truffle.getRuntime().createLoopNode(new PipelineLeafNode(this, pipelineSlot, countsSlot, statesSlot, accumulatorSlot, cursorSlot)));
+  }
+
+  /**
+   * Passes a value through the stages of the pipeline, starting with the given one.
+   *
+   * @return the new accumulator, the same one if the value was left out by a stage
+   */
+  public Object push(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Object accumulator, Object value) {
+    if (kinds == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      specialize(pipeline);
+    }
+    if (accumulator instanceof Promise promise) {
+      return pushLater(pipeline, firstStage, counts, states, promise, value);
+    }
+
+    if (!generic && sameKinds(pipeline.kinds)) {
+      return pushCached(pipeline, firstStage, counts, states, accumulator, value);
+    } else {
+      if (!generic) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        generic = true;
+      }
+      return pushGeneric(pipeline, firstStage, counts, states, accumulator, value);
+    }
+  }
+
+  private void specialize(Pipeline pipeline) {
+    final InteropLibrary[] dispatch = new InteropLibrary[pipeline.kinds.length];
+    for (int i = 0; i < dispatch.length; i++) {
+      dispatch[i] = InteropLibrary.getFactory().createDispatched(3);
+    }
+    stageDispatch = insert(dispatch);
+    genericDispatch = insert(InteropLibrary.getFactory().createDispatched(3));
+    kinds = pipeline.kinds;
+  }
+
+  @ExplodeLoop
+  private boolean sameKinds(int[] other) {
+    if (other.length != kinds.length) {
+      return false;
+    }
+    for (int i = 0; i < kinds.length; i++) {
+      if (other[i] != kinds[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @ExplodeLoop
+  private Object pushCached(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Object accumulator, Object value) {
+    for (int i = 0; i < kinds.length; i++) {
+      if (i >= firstStage) {
+        value = stage(kinds[i], stageDispatch[i], pipeline.arguments[i], i, counts, states, value);
+        if (value == SKIP) {
+          return accumulator;
+        } else if (value instanceof Promise promise) {
+          return continueLater(pipeline, i + 1, counts, states, accumulator, promise);
+        }
+      }
+    }
+    return emit(pipeline, accumulator, value);
+  }
+
+  private Object pushGeneric(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Object accumulator, Object value) {
+    for (int i = firstStage; i < pipeline.kinds.length; i++) {
+      value = stage(pipeline.kinds[i], genericDispatch, pipeline.arguments[i], i, counts, states, value);
+      if (value == SKIP) {
+        return accumulator;
+      } else if (value instanceof Promise promise) {
+        return continueLater(pipeline, i + 1, counts, states, accumulator, promise);
+      }
+    }
+    return emit(pipeline, accumulator, value);
+  }
+
+  private Object stage(int kind, InteropLibrary dispatch, Object argument, int i, long[] counts, Object[] states, Object value) {
+    switch (kind) {
+      case Pipeline.MAP:
+        return call(dispatch, argument, value);
+      case Pipeline.FILTER:
+        final Object test = call(dispatch, argument, value);
+        if (test instanceof Boolean) {
+          return (Boolean) test ? value : SKIP;
+        } else if (test instanceof Promise promise) {
+          return filterLater(promise, value);
+        } else {
+          throw YonaException.typeError(this, test);
+        }
+      case Pipeline.TAKE:
+        if (counts[i] == 0) {
+          throw TransducerDoneException.INSTANCE;
+        }
+        counts[i]--;
+        return value;
+      case Pipeline.DROP:
+        if (counts[i] != 0) {
+          counts[i]--;
+          return SKIP;
+        }
+        return value;
+      case Pipeline.DEDUPE:
+        if (equal(value, states[i])) {
+          return SKIP;
+        }
+        states[i] = value;
+        return value;
+      case Pipeline.DISTINCT:
+        final Set seen = (Set) states[i];
+        if (seen.contains(value)) {
+          return SKIP;
+        }
+        states[i] = seen.add(value);
+        return value;
+      case Pipeline.CHUNK:
+        final Seq chunk = (Seq) states[i];
+        if (chunk.length() == counts[i]) {
+          states[i] = Seq.sequence(value);
+          return chunk;
+        }
+        states[i] = chunk.insertLast(value);
+        return SKIP;
+      case Pipeline.SCAN:
+        final Seq scanned = ((Seq) states[i]).insertLast(value);
+        states[i] = scanned;
+        return scanned;
+      default:
+        throw CompilerDirectives.shouldNotReachHere();
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Promise filterLater(Promise test, Object value) {
+    return test.map(result -> {
+      if (result instanceof Boolean) {
+        return (Boolean) result ? value : SKIP;
+      } else {
+        throw YonaException.typeError(this, result);
+      }
+    }, this);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Promise pushLater(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Promise accumulator, Object value) {
+    return accumulator.map(acc -> pushFrom(pipeline, firstStage, counts, states, acc, value), this);
+  }
+
+  /*
+   * Value is the result of the stage before firstStage, SKIP if it was left out.
+   */
+  @CompilerDirectives.TruffleBoundary
+  private Promise continueLater(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Object accumulator, Promise value) {
+    return value.map(val -> val == SKIP ? accumulator : pushFrom(pipeline, firstStage, counts, states, accumulator, val), this);
+  }
+
+  /*
+   * Elements that follow an unfulfilled promise are passed through the stages even after a take stage is exhausted,
+   * the take stage leaves them out.
+   */
+  private Object pushFrom(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Object accumulator, Object value) {
+    try {
+      return push(pipeline, firstStage, counts, states, accumulator, value);
+    } catch (TransducerDoneException e) {
+      return accumulator;
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static boolean equal(Object value, Object previous) {
+    return value.equals(previous);
+  }
+
+  private Object call(InteropLibrary dispatch, Object function, Object value) {
+    try {
+      return dispatch.execute(function, value);
+    } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+      /* Execute was not successful. */
+      throw new YonaException(e, this);
+    }
+  }
+
+  private Object emit(Pipeline pipeline, Object accumulator, Object value) {
+    if (pipeline.sink == Pipeline.NO_SINK) {
+      try {
+        return stepDispatch.execute(pipeline.step, accumulator, value);
+      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+        /* Execute was not successful. */
+        throw new YonaException(e, this);
+      }
+    } else {
+      return addToSink(accumulator, value, this);
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static Object addToSink(Object accumulator, Object value, Node node) {
+    if (accumulator instanceof Seq.SeqBuilder builder) {
+      return builder.add(value);
+    } else if (accumulator instanceof Set.SetBuilder builder) {
+      return builder.add(value);
+    } else if (accumulator instanceof Dict.DictBuilder builder && value instanceof Tuple entry && entry.size() == 2) {
+      return builder.add(entry.get(0), entry.get(1));
+    } else if (accumulator instanceof Seq seq) {
+      return seq.insertLast(value);
+    } else if (accumulator instanceof Set set) {
+      return set.add(value);
+    } else if (accumulator instanceof Dict dict && value instanceof Tuple entry && entry.size() == 2) {
+      return dict.add(entry.get(0), entry.get(1));
+    } else {
+      throw YonaException.typeError(node, accumulator, value);
+    }
+  }
+
+  /**
+   * Passes elements left in chunks through the stages that follow them and completes the accumulator.
+   */
+  public Object complete(Pipeline pipeline, long[] counts, Object[] states, Object accumulator) {
+    return completeFrom(pipeline, 0, counts, states, accumulator);
+  }
+
+  /*
+   * A take stage following a chunk may be exhausted, chunks of later stages are passed on regardless.
+   */
+  private Object completeFrom(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Object accumulator) {
+    for (int i = firstStage; i < pipeline.kinds.length; i++) {
+      if (accumulator instanceof Promise promise) {
+        return completeLater(pipeline, i, counts, states, promise);
+      }
+      if (pipeline.kinds[i] == Pipeline.CHUNK && ((Seq) states[i]).length() != 0) {
+        accumulator = pushFrom(pipeline, i + 1, counts, states, accumulator, states[i]);
+      }
+    }
+
+    if (accumulator instanceof Promise promise) {
+      return finishLater(pipeline, promise);
+    } else {
+      return finish(pipeline, accumulator);
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Promise completeLater(Pipeline pipeline, int firstStage, long[] counts, Object[] states, Promise accumulator) {
+    return accumulator.map(acc -> completeFrom(pipeline, firstStage, counts, states, acc), this);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Promise finishLater(Pipeline pipeline, Promise accumulator) {
+    return accumulator.map(acc -> finish(pipeline, acc), this);
+  }
+
+  private Object finish(Pipeline pipeline, Object accumulator) {
+    if (pipeline.sink != Pipeline.NO_SINK) {
+      return buildSink(accumulator);
+    }
+    if (completeDispatch == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      completeDispatch = insert(InteropLibrary.getFactory().createDispatched(3));
+    }
+    try {
+      return completeDispatch.execute(pipeline.complete, accumulator);
+    } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
+      /* Execute was not successful. */
+      throw new YonaException(e, this);
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static Object buildSink(Object accumulator) {
+    if (accumulator instanceof Seq.SeqBuilder builder) {
+      return builder.build();
+    } else if (accumulator instanceof Set.SetBuilder builder) {
+      return builder.build();
+    } else if (accumulator instanceof Dict.DictBuilder builder) {
+      return builder.build();
+    } else {
+      return accumulator;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PipelineNode{" +
+        "kinds=" + Arrays.toString(kinds) +
+        ", generic=" + generic +
+        '}';
+  }
+
+  private static final class PipelineLeafNode extends Node implements RepeatingNode {
+    private final PipelineNode pipelineNode;  // parent of the loop node
+    private final FrameSlot pipelineSlot;
+    private final FrameSlot countsSlot;
+    private final FrameSlot statesSlot;
+    private final FrameSlot accumulatorSlot;
+    private final FrameSlot cursorSlot;
+    private final ValueProfile cursorProfile = ValueProfile.createClassProfile();
+
+    PipelineLeafNode(PipelineNode pipelineNode, FrameSlot pipelineSlot, FrameSlot countsSlot, FrameSlot statesSlot, FrameSlot accumulatorSlot, FrameSlot cursorSlot) {
+      this.pipelineNode = pipelineNode;
+      this.pipelineSlot = pipelineSlot;
+      this.countsSlot = countsSlot;
+      this.statesSlot = statesSlot;
+      this.accumulatorSlot = accumulatorSlot;
+      this.cursorSlot = cursorSlot;
+    }
+
+    @Override
+    public boolean executeRepeating(VirtualFrame frame) {
+      final LeafCursor cursor = cursorProfile.profile((LeafCursor) FrameUtil.getObjectSafe(frame, cursorSlot));
+      if (!cursor.nextLeaf()) {
+        return false;
+      }
+
+      final Pipeline pipeline = (Pipeline) FrameUtil.getObjectSafe(frame, pipelineSlot);
+      final long[] counts = (long[]) FrameUtil.getObjectSafe(frame, countsSlot);
+      final Object[] states = (Object[]) FrameUtil.getObjectSafe(frame, statesSlot);
+      final int length = cursor.leafLength();
+      Object accumulator = FrameUtil.getObjectSafe(frame, accumulatorSlot);
+      try {
+        for (int i = 0; i < length; i++) {
+          accumulator = pipelineNode.push(pipeline, 0, counts, states, accumulator, cursor.element(i));
+        }
+      } catch (TransducerDoneException e) {
+        frame.setObject(accumulatorSlot, accumulator);
+        return false;
+      }
+      frame.setObject(accumulatorSlot, accumulator);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package yona.ast.builtin;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.CachedContext;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import yona.YonaLanguage;
+import yona.runtime.Context;
+import yona.runtime.Function;
+import yona.runtime.Tuple;
+import yona.runtime.Unit;
+import yona.runtime.async.Promise;
+import yona.runtime.exceptions.BadArgException;
+import yona.runtime.stdlib.util.TimeUnitUtil;
+import yona.runtime.threading.ExecutableFunction;
+
+/**
+ * Runs a function of zero arguments once the time elapses, returns a promise of its result.
+ */
+@NodeInfo(shortName = "schedule")
+public abstract class ScheduleBuiltin extends BuiltinNode {
+  @Specialization
+  @CompilerDirectives.TruffleBoundary
+  public Promise schedule(Tuple timeUnit, Function function, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
+    if (function.getCardinality() > 0) {
+      throw new BadArgException("schedule function accepts only functions with zero arguments. Function " + function + " expects " + function.getCardinality() + " arguments", this);
+    }
+
+    Promise promise = new Promise(dispatch);
+    Object millisObj = TimeUnitUtil.getMilliseconds(timeUnit, this);
+
+    if (millisObj instanceof Long) {
+      schedule(context, promise, function, dispatch, (long) millisObj);
+    } else { // Promise
+      ((Promise) millisObj).map((millis) -> {
+        schedule(context, promise, function, dispatch, (long) millis);
+        return Unit.INSTANCE;
+      }, this);
+    }
+
+    return promise;
+  }
+
+  private void schedule(Context context, Promise promise, Function function, InteropLibrary dispatch, long millis) {
+    context.timerWheel.schedule(millis, () -> context.threading.submit(promise, new ExecutableFunction.YonaExecutableFunction(function, dispatch, this)));
+  }
+}
@@ -11,6 +11,7 @@ import yona.runtime.async.Promise;
 import yona.runtime.exceptions.BadArgException;
 import yona.runtime.exceptions.TimeoutException;
 import yona.runtime.stdlib.util.TimeUnitUtil;
+import yona.runtime.threading.TimerWheel;
 
 @NodeInfo(shortName = "timeout")
 public abstract class TimeoutBuiltin extends BuiltinNode {
@@ -70,18 +71,19 @@ public abstract class TimeoutBuiltin extends BuiltinNode {
     }
 
     final Promise result = new Promise();
+    final TimerWheel.Timer timer = context.timerWheel.schedule(millis, () -> context.threading.submit(result, p -> p.fulfil(new TimeoutException(this), this)));
 
-    context.ioExecutor.submit(() -> {
-      try {
-        if (Promise.timeout(promise, millis)) {
-          result.fulfil(promise.unwrapWithError(), this);
-        } else {
-          result.fulfil(new TimeoutException(this), this);
-        }
-      } catch (InterruptedException interrupt) {
-        result.fulfil(new yona.runtime.exceptions.InterruptedException(interrupt, this), this);
+    promise.map(value -> {
+      if (timer.cancel()) {
+        result.fulfil(value, this);
+      }
+      return value;
+    }, error -> {
+      if (timer.cancel()) {
+        result.fulfil(error, this);
       }
-    });
+      return error;
+    }, this);
 
     return result;
   }
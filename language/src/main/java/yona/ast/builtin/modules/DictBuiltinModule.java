@@ -1,16 +1,16 @@
 package yona.ast.builtin.modules;
 
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.interop.ArityException;
-import com.oracle.truffle.api.interop.InteropLibrary;
-import com.oracle.truffle.api.interop.UnsupportedMessageException;
-import com.oracle.truffle.api.interop.UnsupportedTypeException;
-import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
-import yona.YonaException;
+import yona.YonaLanguage;
 import yona.ast.builtin.BuiltinNode;
+import yona.ast.builtin.FoldNode;
+import yona.ast.builtin.ParallelFoldNode;
 import yona.runtime.*;
-import yona.runtime.exceptions.UndefinedNameException;
+import yona.runtime.async.Promise;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
 
@@ -19,26 +19,32 @@ public final class DictBuiltinModule implements BuiltinModule {
   @NodeInfo(shortName = "fold")
   abstract static class FoldBuiltin extends BuiltinNode {
     @Specialization
-    public Object fold(Function function, Object initialValue, Dict dict, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return dict.fold(initialValue, function, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw UndefinedNameException.undefinedFunction(this, function);
-      }
+    public Object fold(VirtualFrame frame, Function function, Object initialValue, Dict dict, @Cached("createFold()") FoldNode foldNode) {
+      return foldNode.fold(frame, function, initialValue, dict.leafCursor());
     }
   }
 
   @NodeInfo(shortName = "reduce")
   abstract static class ReduceBuiltin extends BuiltinNode {
     @Specialization
-    public Object reduce(Tuple reducer, Dict dict, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return dict.reduce(new Object[]{reducer.get(0), reducer.get(1), reducer.get(2)}, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw new YonaException(e, this);
-      }
+    public Object reduce(VirtualFrame frame, Tuple reducer, Dict dict, @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, dict.leafCursor());
+    }
+  }
+
+  @NodeInfo(shortName = "par_fold")
+  abstract static class ParallelFoldBuiltin extends BuiltinNode {
+    @Specialization
+    public Promise parallelFold(Function function, Function combiner, Object initialValue, Dict dict, @CachedContext(YonaLanguage.class) Context context, @Cached("createFold()") ParallelFoldNode parallelFoldNode) {
+      return parallelFoldNode.fold(context, function, combiner, initialValue, dict.splitCursors(ParallelFoldNode.MAX_PARTS));
+    }
+  }
+
+  @NodeInfo(shortName = "par_reduce")
+  abstract static class ParallelReduceBuiltin extends BuiltinNode {
+    @Specialization
+    public Promise parallelReduce(Tuple reducer, Function combiner, Dict dict, @CachedContext(YonaLanguage.class) Context context, @Cached("createReduce()") ParallelFoldNode parallelFoldNode) {
+      return parallelFoldNode.reduce(context, reducer, combiner, dict.splitCursors(ParallelFoldNode.MAX_PARTS));
     }
   }
 
@@ -62,7 +68,7 @@ public final class DictBuiltinModule implements BuiltinModule {
   abstract static class EntriesBuiltin extends BuiltinNode {
     @Specialization
     public Seq reduce(Dict dict) {
-      return dict.fold(Seq.EMPTY, (acc, key, val) -> acc.insertLast(new Tuple(key, val)));
+      return dict.fold(new Seq.SeqBuilder(), (acc, key, val) -> acc.add(new Tuple(key, val))).build();
     }
   }
 
@@ -78,6 +84,8 @@ public final class DictBuiltinModule implements BuiltinModule {
     return new Builtins(
         new ExportedFunction(DictBuiltinModuleFactory.FoldBuiltinFactory.getInstance()),
         new ExportedFunction(DictBuiltinModuleFactory.ReduceBuiltinFactory.getInstance()),
+        new ExportedFunction(DictBuiltinModuleFactory.ParallelFoldBuiltinFactory.getInstance()),
+        new ExportedFunction(DictBuiltinModuleFactory.ParallelReduceBuiltinFactory.getInstance()),
         new ExportedFunction(DictBuiltinModuleFactory.LengthBuiltinFactory.getInstance()),
         new ExportedFunction(DictBuiltinModuleFactory.LookupBuiltinFactory.getInstance()),
         new ExportedFunction(DictBuiltinModuleFactory.EntriesBuiltinFactory.getInstance()),
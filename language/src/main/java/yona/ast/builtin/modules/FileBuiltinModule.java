@@ -22,13 +22,16 @@ import yona.runtime.async.Promise;
 import yona.runtime.exceptions.BadArgException;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
+import yona.runtime.strings.Utf8Decoder;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.Collection;
@@ -40,22 +43,65 @@ import java.util.regex.Matcher;
 @BuiltinModuleInfo(moduleName = "File")
 public final class FileBuiltinModule implements BuiltinModule {
   protected static final int FILE_READ_BUFFER_SIZE = 4096;
+  protected static final int FILE_READ_AHEAD_SIZE = 1 << 16;
+  protected static final int FILE_MAP_REGION_SIZE = 1 << 30;
+  protected static final int FILE_DECODE_SLICE_SIZE = 1 << 20;
+
+  /*
+   * Regular files opened for reading are read by File::read through a read-only FileChannel, which can be mapped, unlike
+   * the asynchronous file handle. It is opened on the first File::read and closed together with the file handle. Other
+   * files and handles are read through the asynchronous file handle.
+   */
+  protected static final class MappedChannel {
+    private final Path path;
+    private FileChannel channel;
+    private boolean closed;
+
+    public MappedChannel(Path path) {
+      this.path = path;
+    }
+
+    public synchronized FileChannel open() throws IOException {
+      if (closed) {
+        throw new ClosedChannelException();
+      }
+      if (channel == null) {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+      }
+      return channel;
+    }
+
+    public synchronized void close() throws IOException {
+      closed = true;
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
 
   protected static final class FileTuple extends Tuple {
-    public FileTuple(AsynchronousFileChannel fileHandle, Object readBuffer, long position, Seq additionalOptions, Seq path) {
+    public FileTuple(AsynchronousFileChannel fileHandle, Object readBuffer, long position, Seq additionalOptions, Seq path, Object mappedChannel) {
       this.items = new Object[]{
-          new NativeObject<>(fileHandle), readBuffer, position, additionalOptions, path
+          new NativeObject<>(fileHandle), readBuffer, position, additionalOptions, path, mappedChannel
       };
     }
 
     public FileTuple seek(long position) {
-      return new FileTuple(fileHandle(), readBuffer(), position, additionalOptions(), path());
+      return copy(Unit.INSTANCE, position);
+    }
+
+    public FileTuple copy(Object readBuffer, long position) {
+      return new FileTuple(fileHandle(), readBuffer, position, additionalOptions(), path(), items[5]);
     }
 
     public AsynchronousFileChannel fileHandle() {
       return ((NativeObject<AsynchronousFileChannel>) items[0]).getValue();
     }
 
+    public MappedChannel mappedChannel() {
+      return items[5] instanceof NativeObject ? ((NativeObject<MappedChannel>) items[5]).getValue() : null;
+    }
+
     public Object readBuffer() {
       return items[1];
     }
@@ -83,7 +129,7 @@ public final class FileBuiltinModule implements BuiltinModule {
 
     public FileContextManager copy(Object readBuffer, long position, Node node) {
       final FileTuple fileTuple = getData(FileTuple.class, node);
-      return new FileContextManager(new FileTuple(fileTuple.fileHandle(), readBuffer, position, fileTuple.additionalOptions(), fileTuple.path()), context);
+      return new FileContextManager(fileTuple.copy(readBuffer, position), context);
     }
 
     public static FileContextManager adapt(ContextManager<?> contextManager, Context context, Node node) {
@@ -104,7 +150,8 @@ public final class FileBuiltinModule implements BuiltinModule {
     protected Object openFile(Path path, FileOptions fileOptions, Context context) {
       try {
         final AsynchronousFileChannel asynchronousFileChannel = AsynchronousFileChannel.open(path, fileOptions.openOptions, context.ioExecutor);
-        return new FileContextManager(new FileTuple(asynchronousFileChannel, Unit.INSTANCE, 0L, fileOptions.additionalOptions, Seq.fromCharSequence(path.toString())), context);
+        final Object mappedChannel = fileOptions.openOptions.contains(StandardOpenOption.READ) && Files.isRegularFile(path) ? new NativeObject<>(new MappedChannel(path)) : Unit.INSTANCE;
+        return new FileContextManager(new FileTuple(asynchronousFileChannel, Unit.INSTANCE, 0L, fileOptions.additionalOptions, Seq.fromCharSequence(path.toString()), mappedChannel), context);
       } catch (IOException e) {
         throw new yona.runtime.exceptions.IOException(e, this);
       }
@@ -207,6 +254,10 @@ public final class FileBuiltinModule implements BuiltinModule {
         final FileTuple fileTuple = fileContextManager.getData(FileTuple.class, node);
         final AsynchronousFileChannel fileHandle = fileTuple.fileHandle();
         fileHandle.close();
+        final MappedChannel mappedChannel = fileTuple.mappedChannel();
+        if (mappedChannel != null) {
+          mappedChannel.close();
+        }
         if (fileTuple.additionalOptions().contains(context.symbol("delete_on_close"), node)) {
           new File(fileTuple.path().asJavaString(node)).delete();
         }
@@ -286,86 +337,111 @@ public final class FileBuiltinModule implements BuiltinModule {
     public Seq path(Seq path, @CachedContext(YonaLanguage.class) Context context) {
       try {
         final Collection<TruffleFile> files = context.getEnv().getPublicTruffleFile(path.asJavaString(this)).list();
-        Seq ret = Seq.EMPTY;
+        final Seq.SeqBuilder builder = new Seq.SeqBuilder();
         for (TruffleFile file : files) {
-          ret = ret.insertLast(Seq.fromCharSequence(file.getPath()));
+          builder.add(Seq.fromCharSequence(file.getPath()));
         }
-        return ret;
+        return builder.build();
       } catch (IOException e) {
         throw new yona.runtime.exceptions.IOException(e, this);
       }
     }
   }
 
+  /*
+   * The read-ahead buffer of a file tuple holds bytes already read from the file, starting at the tuple's position. The
+   * buffer's content is never modified after it is filled, tuples derived from it only get a duplicate with an advanced
+   * position, so older tuples of the same file keep reading from where they were.
+   */
   @NodeInfo(shortName = "read_line")
   abstract static class FileReadLineNode extends BuiltinNode {
     @Specialization
     @CompilerDirectives.TruffleBoundary
-    public Promise readline(ContextManager<?> contextManager, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary interopLibrary) {
+    public Object readline(ContextManager<?> contextManager, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary interopLibrary) {
       final FileContextManager fileContextManager = FileContextManager.adapt(contextManager, context, this);
       final FileTuple fileTuple = fileContextManager.getData(FileTuple.class, this);
-      final AsynchronousFileChannel asynchronousFileChannel = ((NativeObject<AsynchronousFileChannel>) fileTuple.get(0)).getValue();
-      final ByteBuffer buffer = ByteBuffer.allocate(FILE_READ_BUFFER_SIZE);
-      final Node thisNode = this;
+      final ByteBuffer readAhead = fileTuple.readBuffer() instanceof ByteBuffer ? ((ByteBuffer) fileTuple.readBuffer()).duplicate() : ByteBuffer.allocate(0);
+
+      final Object line = lineFromReadAhead(fileContextManager, fileTuple, readAhead, false, context);
+      if (line != null) {
+        return line;
+      }
+
       final Promise promise = new Promise(interopLibrary);
+      fillReadAhead(fileContextManager, fileTuple, readAhead, promise, context);
+      return promise;
+    }
 
-      try {
-        asynchronousFileChannel.read(buffer, fileTuple.position(), buffer, new CompletionHandler<>() {
-          @Override
-          public void completed(Integer result, ByteBuffer attachment) {
-            boolean fulfilled = false;
-            if (result <= 0) {
-              promise.fulfil(context.symbol("eof"), thisNode);
-              return;
-            }
+    /*
+     * Next line from the read-ahead buffer, or null if it does not contain a complete line yet. At the end of the file,
+     * the remaining bytes are the last line.
+     */
+    private Object lineFromReadAhead(FileContextManager fileContextManager, FileTuple fileTuple, ByteBuffer readAhead, boolean eof, Context context) {
+      final int start = readAhead.position();
+      for (int i = start; i < readAhead.limit(); i++) {
+        if (readAhead.get(i) == '\n') {
+          return lineTuple(fileContextManager, fileTuple, readAhead, i, i + 1, context);
+        }
+      }
 
+      if (!eof) {
+        return null;
+      } else if (start == readAhead.limit()) {
+        return context.symbol("eof");
+      } else {
+        return lineTuple(fileContextManager, fileTuple, readAhead, readAhead.limit(), readAhead.limit(), context);
+      }
+    }
 
-            attachment.flip();
-            int length = attachment.limit();
+    private Tuple lineTuple(FileContextManager fileContextManager, FileTuple fileTuple, ByteBuffer readAhead, int end, int next, Context context) {
+      final int start = readAhead.position();
+      final ByteBuffer output = ByteBuffer.allocate(end - start);
+      for (int i = start; i < end; i++) {
+        final byte b = readAhead.get(i);
+        if (b != '\r') {
+          output.put(b);
+        }
+      }
 
-            ByteBuffer output;
+      final ByteBuffer newReadAhead = readAhead.duplicate().position(next);
+      final Seq resultSeq = bytesToSeq(output, fileTuple.additionalOptions(), context, this);
+      return new Tuple(context.symbol("ok"), resultSeq, fileContextManager.copy(newReadAhead, fileTuple.position() + next - start, this));
+    }
 
-            if (fileTuple.readBuffer() instanceof ByteBuffer) {
-              output = (ByteBuffer) fileTuple.readBuffer();
-              output.flip();
-            } else {
-              output = ByteBuffer.allocate(length);
-            }
+    /*
+     * Read the next block of the file after the bytes in the read-ahead buffer. Lines longer than the buffer keep doubling
+     * it until the whole line is in.
+     */
+    private void fillReadAhead(FileContextManager fileContextManager, FileTuple fileTuple, ByteBuffer readAhead, Promise promise, Context context) {
+      final Node thisNode = this;
+      final ByteBuffer buffer = ByteBuffer.allocate(readAhead.remaining() + Math.max(FILE_READ_AHEAD_SIZE, readAhead.remaining()));
+      buffer.put(readAhead);
 
-            for (int i = 0; i < length; i++) {
-              byte b = attachment.get();
-              if (b == '\r') {
-                continue;
-              }
-              if (b == '\n') {
-                Seq resultSeq = bytesToSeq(output, fileTuple.additionalOptions(), context, thisNode);
-                promise.fulfil(new Tuple(context.symbol("ok"), resultSeq, fileContextManager.copy(null, fileTuple.position() + i + 1, thisNode)), thisNode);
-                fulfilled = true;
-                break;
+      try {
+        fileTuple.fileHandle().read(buffer, fileTuple.position() + buffer.position(), buffer, new CompletionHandler<>() {
+          @Override
+          public void completed(Integer result, ByteBuffer attachment) {
+            try {
+              attachment.flip();
+              final Object line = lineFromReadAhead(fileContextManager, fileTuple, attachment, result < 0, context);
+              if (line != null) {
+                promise.fulfil(line, thisNode);
               } else {
-                output.put(b);
+                fillReadAhead(fileContextManager, fileTuple, attachment, promise, context);
               }
-            }
-            attachment.clear();
-
-            if (!fulfilled) {
-              readline(fileContextManager.copy(output, fileTuple.position() + length, thisNode), context, interopLibrary).map(res -> {
-                promise.fulfil(res, thisNode);
-                return res;
-              }, thisNode);
+            } catch (Exception ex) {
+              promise.fulfil(new yona.runtime.exceptions.IOException(ex.getMessage(), thisNode), thisNode);
             }
           }
 
           @Override
           public void failed(Throwable exc, ByteBuffer attachment) {
-            promise.fulfil(new YonaException(exc.getMessage(), thisNode), thisNode);
+            promise.fulfil(new yona.runtime.exceptions.IOException(exc.getMessage(), thisNode), thisNode);
           }
         });
       } catch (Exception ex) {
         promise.fulfil(new yona.runtime.exceptions.IOException(ex.getMessage(), thisNode), thisNode);
       }
-
-      return promise;
     }
 
     private static Seq bytesToSeq(ByteBuffer byteBuffer, Seq additionalFileOptions, Context context, Node caller) {
@@ -378,6 +454,66 @@ public final class FileBuiltinModule implements BuiltinModule {
     }
   }
 
+  @NodeInfo(shortName = "read_chunk")
+  abstract static class FileReadChunkNode extends BuiltinNode {
+    @Specialization
+    @CompilerDirectives.TruffleBoundary
+    public Promise readChunk(ContextManager<?> contextManager, long size, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary interopLibrary) {
+      if (size < 4 || size > Integer.MAX_VALUE) {
+        throw new BadArgException("Chunk size must be between 4 and " + Integer.MAX_VALUE + " bytes: " + size, this);
+      }
+      final FileContextManager fileContextManager = FileContextManager.adapt(contextManager, context, this);
+      final FileTuple fileTuple = fileContextManager.getData(FileTuple.class, this);
+      final boolean binary = fileTuple.additionalOptions().contains(context.symbol("binary"), this);
+      final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      final Node thisNode = this;
+      final Promise promise = new Promise(interopLibrary);
+
+      try {
+        fileTuple.fileHandle().read(buffer, fileTuple.position(), buffer, new CompletionHandler<>() {
+          @Override
+          public void completed(Integer result, ByteBuffer attachment) {
+            if (result <= 0) {
+              promise.fulfil(context.symbol("eof"), thisNode);
+              return;
+            }
+
+            attachment.flip();
+            final int consumed = binary ? attachment.limit() : completeUtf8Length(attachment);
+            attachment.limit(consumed);
+            final Seq chunk = binary ? Seq.fromByteBuffer(attachment) : Seq.fromCharSequence(StandardCharsets.UTF_8.decode(attachment));
+            promise.fulfil(new Tuple(context.symbol("ok"), chunk, fileContextManager.copy(Unit.INSTANCE, fileTuple.position() + consumed, thisNode)), thisNode);
+          }
+
+          @Override
+          public void failed(Throwable exc, ByteBuffer attachment) {
+            promise.fulfil(new yona.runtime.exceptions.IOException(exc.getMessage(), thisNode), thisNode);
+          }
+        });
+      } catch (Exception ex) {
+        promise.fulfil(new yona.runtime.exceptions.IOException(ex.getMessage(), thisNode), thisNode);
+      }
+
+      return promise;
+    }
+
+    /*
+     * Length of the buffer without an incomplete UTF-8 sequence at its end. The cut off bytes are read again with the
+     * next chunk, so a character is never split between two chunks.
+     */
+    private static int completeUtf8Length(ByteBuffer buffer) {
+      final int end = buffer.limit();
+      for (int i = end - 1; i >= Math.max(0, end - 4); i--) {
+        final byte b = buffer.get(i);
+        if ((b & 0xc0) != 0x80) {
+          final int length = b >= 0 ? 1 : (b & 0xe0) == 0xc0 ? 2 : (b & 0xf0) == 0xe0 ? 3 : (b & 0xf8) == 0xf0 ? 4 : 1;
+          return i + length <= end || i == 0 ? end : i;
+        }
+      }
+      return end;
+    }
+  }
+
   @NodeInfo(shortName = "read")
   abstract static class FileReadFileNode extends BuiltinNode {
     @Specialization
@@ -385,9 +521,25 @@ public final class FileBuiltinModule implements BuiltinModule {
     public Promise readfile(ContextManager<?> contextManager, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary interopLibrary) {
       final FileContextManager fileContextManager = FileContextManager.adapt(contextManager, context, this);
       final FileTuple fileTuple = fileContextManager.getData(FileTuple.class, this);
+      final boolean binary = fileTuple.additionalOptions().contains(context.symbol("binary"), this);
+      final MappedChannel mappedChannel = fileTuple.mappedChannel();
+      final Promise promise = new Promise(interopLibrary);
+
+      if (mappedChannel != null) {
+        context.ioExecutor.submit(() -> {
+          try {
+            promise.fulfil(readMapped(mappedChannel.open(), fileTuple.position(), binary), this);
+          } catch (Exception ex) {
+            promise.fulfil(new yona.runtime.exceptions.IOException(ex.getMessage(), this), this);
+          }
+        });
+        return promise;
+      }
+
       final class CatenateCompletionHandler implements CompletionHandler<Integer, ByteBuffer> {
         final AsynchronousFileChannel channel;
         final Promise promise;
+        final Utf8Decoder decoder = binary ? null : new Utf8Decoder();
         long position;
         Seq seq = Seq.EMPTY;
 
@@ -400,14 +552,17 @@ public final class FileBuiltinModule implements BuiltinModule {
         @Override
         public void completed(Integer result, ByteBuffer attachment) {
           if (result <= 0) {
+            if (decoder != null) {
+              seq = Seq.catenate(seq, decoder.decode(ByteBuffer.allocate(0), true));
+            }
             promise.fulfil(seq, FileReadFileNode.this);
           } else {
             attachment.flip();
 
-            if (fileTuple.additionalOptions().contains(context.symbol("binary"), FileReadFileNode.this)) {
+            if (binary) {
               seq = Seq.catenate(seq, Seq.fromByteBuffer(attachment));
             } else {
-              seq = Seq.catenate(seq, Seq.fromCharSequence(StandardCharsets.UTF_8.decode(attachment)));
+              seq = Seq.catenate(seq, decoder.decode(attachment, false));
             }
             attachment.clear();
 
@@ -423,7 +578,6 @@ public final class FileBuiltinModule implements BuiltinModule {
       }
 
       final ByteBuffer buffer = ByteBuffer.allocate(FILE_READ_BUFFER_SIZE);
-      final Promise promise = new Promise(interopLibrary);
 
       try {
         fileTuple.fileHandle().read(buffer, fileTuple.position(), buffer, new CatenateCompletionHandler(fileTuple.fileHandle(), promise, fileTuple.position()));
@@ -433,6 +587,33 @@ public final class FileBuiltinModule implements BuiltinModule {
 
       return promise;
     }
+
+    /*
+     * Regular files are mapped into memory, region by region, and the Seq is built straight from the mapped buffers.
+     * Text is decoded in slices, so the decoder never needs more than a slice worth of chars. The channel belongs to the
+     * file handle and is closed with it.
+     */
+    private static Seq readMapped(FileChannel channel, long position, boolean binary) throws IOException {
+      final long size = channel.size();
+      final Utf8Decoder decoder = binary ? null : new Utf8Decoder();
+      Seq seq = Seq.EMPTY;
+      for (long offset = position; offset < size; offset += FILE_MAP_REGION_SIZE) {
+        final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(FILE_MAP_REGION_SIZE, size - offset));
+        if (binary) {
+          seq = Seq.catenate(seq, Seq.fromByteBuffer(region));
+        } else {
+          while (region.hasRemaining()) {
+            final int length = Math.min(FILE_DECODE_SLICE_SIZE, region.remaining());
+            seq = Seq.catenate(seq, decoder.decode(region.slice(region.position(), length), false));
+            region.position(region.position() + length);
+          }
+        }
+      }
+      if (decoder != null) {
+        seq = Seq.catenate(seq, decoder.decode(ByteBuffer.allocate(0), true));
+      }
+      return seq;
+    }
   }
 
   @NodeInfo(shortName = "write")
@@ -461,8 +642,6 @@ public final class FileBuiltinModule implements BuiltinModule {
       try {
         final ByteBuffer byteBuffer = data.asByteBuffer(this);
         fileTuple.fileHandle().write(byteBuffer, fileTuple.position(), promise, new WriteCompletionHandler());
-      } catch (BufferOverflowException ex) {
-        promise.fulfil(new yona.runtime.exceptions.IOException(ex, this), this);
       } catch (Exception ex) {
         promise.fulfil(new YonaException(ex, this), this);
       }
@@ -480,6 +659,7 @@ public final class FileBuiltinModule implements BuiltinModule {
         new ExportedFunction(FileBuiltinModuleFactory.FileSeekNodeFactory.getInstance()),
         new ExportedFunction(FileBuiltinModuleFactory.FileListNodeFactory.getInstance()),
         new ExportedFunction(FileBuiltinModuleFactory.FileReadLineNodeFactory.getInstance()),
+        new ExportedFunction(FileBuiltinModuleFactory.FileReadChunkNodeFactory.getInstance()),
         new ExportedFunction(FileBuiltinModuleFactory.FileReadFileNodeFactory.getInstance()),
         new ExportedFunction(FileBuiltinModuleFactory.FileWriteFileNodeFactory.getInstance()),
         new ExportedFunction(FileBuiltinModuleFactory.RunBuiltinFactory.getInstance())
@@ -3,34 +3,29 @@ package yona.ast.builtin.modules;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.NodeInfo;
-import org.antlr.v4.runtime.*;
 import yona.YonaException;
 import yona.ast.builtin.BuiltinNode;
-import yona.json.JSONLexer;
-import yona.json.JSONParser;
-import yona.json.JSONParserVisitor;
+import yona.json.JSONDecoder;
+import yona.json.JSONReader;
+import yona.json.JSONWriter;
+import yona.runtime.NativeObject;
 import yona.runtime.Seq;
+import yona.runtime.Symbol;
+import yona.runtime.Tuple;
 import yona.runtime.async.Promise;
 import yona.runtime.exceptions.BadArgException;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
 
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 @BuiltinModuleInfo(moduleName = "JSON")
 public final class JSONBuiltinModule implements BuiltinModule {
   @NodeInfo(shortName = "parse")
   abstract static class ParseBuiltin extends BuiltinNode {
     @Specialization
-    @CompilerDirectives.TruffleBoundary
     public Object parse(Seq str) {
-      CompilerDirectives.transferToInterpreterAndInvalidate();
-      JSONLexer lexer = new JSONLexer(seqToCharStream(str));
-      TokenStream tokens = new CommonTokenStream(lexer);
-      JSONParser parser = new JSONParser(tokens);
-      JSONParserVisitor visitor = new JSONParserVisitor();
-
-      return visitor.visit(parser.json());
+      return JSONReader.read(seqToString(str), this);
     }
 
     @Specialization
@@ -39,47 +34,71 @@ public final class JSONBuiltinModule implements BuiltinModule {
       CompilerDirectives.transferToInterpreterAndInvalidate();
       return promise.map(obj -> {
         if (obj instanceof Seq) {
-          CompilerDirectives.transferToInterpreterAndInvalidate();
-          Seq str = (Seq) obj;
-          JSONLexer lexer = new JSONLexer(seqToCharStream(str));
-          TokenStream tokens = new CommonTokenStream(lexer);
-          JSONParser parser = new JSONParser(tokens);
-          JSONParserVisitor visitor = new JSONParserVisitor();
-
-          return visitor.visit(parser.json());
+          return JSONReader.read(seqToString((Seq) obj), this);
         } else {
           return YonaException.typeError(this, obj);
         }
       }, this);
     }
 
-    private CharStream seqToCharStream(Seq str) {
-      CharStream charStream;
+    @CompilerDirectives.TruffleBoundary
+    private String seqToString(Seq str) {
       if (str.isString()) {
-        charStream = CharStreams.fromString(str.asJavaString(this));
+        return str.asJavaString(this);
       } else {
-        long len = str.length();
+        return new String(str.asByteArray(this), StandardCharsets.UTF_8);
+      }
+    }
+  }
 
-        if (len > Integer.MAX_VALUE) {
-          throw new BadArgException("Sequence too long to be converted to Java byte array", this);
-        }
+  @NodeInfo(shortName = "generate")
+  abstract static class GenerateBuiltin extends BuiltinNode {
+    @Specialization
+    public Seq generate(Object value) {
+      return JSONWriter.write(value, this);
+    }
+  }
 
-        ByteBuffer byteBuffer = ByteBuffer.allocate((int) len);
-        if (str.asBytes(byteBuffer)) {
-          byteBuffer.limit(byteBuffer.position());
-          byteBuffer.position(0);
-          charStream = CodePointCharStream.fromBuffer(CodePointBuffer.withBytes(byteBuffer));
-        } else {
-          throw new BadArgException("Provided string is not a valid byte sequence or Yona string: " + str, this);
-        }
+  @NodeInfo(shortName = "decoder")
+  abstract static class DecoderBuiltin extends BuiltinNode {
+    @Specialization
+    public NativeObject<JSONDecoder> decoder() {
+      return new NativeObject<>(JSONDecoder.EMPTY);
+    }
+  }
+
+  /**
+   * Decodes a chunk of a stream of JSON documents, returns a tuple of the documents completed by the chunk and the
+   * decoder for the next chunk. The end of the stream is marked by an :eof chunk.
+   */
+  @NodeInfo(shortName = "decode")
+  abstract static class DecodeBuiltin extends BuiltinNode {
+    @Specialization
+    @CompilerDirectives.TruffleBoundary
+    public Tuple decode(Seq chunk, NativeObject<?> decoder) {
+      return resultTuple(decoder.getValue(JSONDecoder.class, this).decode(chunk, false, this));
+    }
+
+    @Specialization
+    @CompilerDirectives.TruffleBoundary
+    public Tuple decode(Symbol eof, NativeObject<?> decoder) {
+      if (!"eof".equals(eof.asString())) {
+        throw new BadArgException("JSON chunk must be a sequence or :eof, not :" + eof.asString(), this);
       }
-      return charStream;
+      return resultTuple(decoder.getValue(JSONDecoder.class, this).decode(Seq.EMPTY, true, this));
+    }
+
+    private static Tuple resultTuple(JSONDecoder.Result result) {
+      return new Tuple(result.documents, new NativeObject<>(result.decoder));
     }
   }
 
   public Builtins builtins() {
     return new Builtins(
-        new ExportedFunction(JSONBuiltinModuleFactory.ParseBuiltinFactory.getInstance())
+        new ExportedFunction(JSONBuiltinModuleFactory.ParseBuiltinFactory.getInstance()),
+        new ExportedFunction(JSONBuiltinModuleFactory.GenerateBuiltinFactory.getInstance()),
+        new ExportedFunction(JSONBuiltinModuleFactory.DecoderBuiltinFactory.getInstance()),
+        new ExportedFunction(JSONBuiltinModuleFactory.DecodeBuiltinFactory.getInstance())
     );
   }
 }
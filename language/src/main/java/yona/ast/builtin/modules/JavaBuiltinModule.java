@@ -2,6 +2,7 @@ package yona.ast.builtin.modules;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.interop.InteropLibrary;
@@ -21,9 +22,10 @@ import yona.runtime.exceptions.PolyglotException;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Parameter;
 import java.util.Arrays;
 
 @BuiltinModuleInfo(moduleName = "Java")
@@ -56,46 +58,73 @@ public final class JavaBuiltinModule implements BuiltinModule {
     }
   }
 
+  /**
+   * Public constructors of a class are cached, with their method handles, for up to three classes per call site. A
+   * constructor is then chosen by the types of the arguments on each call.
+   */
   @NodeInfo(shortName = "new")
   abstract static class NewBuiltin extends BuiltinNode {
-    @Specialization(guards = {"isForeignObject(klass)"})
+    @Specialization(guards = {"isForeignObject(klass)", "hostClass(klass, context) == cachedClass"}, limit = "3")
+    public Object newCached(TruffleObject klass, Seq args, @CachedContext(YonaLanguage.class) Context context,
+                            @Cached("hostClass(klass, context)") Class<?> cachedClass,
+                            @Cached(value = "constructors(cachedClass)", dimensions = 1) JavaConstructor[] constructors) {
+      return newObject(args, constructors);
+    }
+
+    @Specialization(guards = {"isForeignObject(klass)"}, replaces = "newCached")
+    public Object newGeneric(TruffleObject klass, Seq args, @CachedContext(YonaLanguage.class) Context context) {
+      return newObject(args, constructors(hostClass(klass, context)));
+    }
+
     @CompilerDirectives.TruffleBoundary
-    public Object newObject(TruffleObject klass, Seq args, @CachedContext(YonaLanguage.class) Context context) {
-      TruffleLanguage.Env env = context.getEnv();
+    protected Class<?> hostClass(TruffleObject klass, Context context) {
       try {
-        Object hostKlass = env.asHostObject(klass);
-        Object unwrappedArgs = args.unwrapPromises(this);
-        if (unwrappedArgs instanceof Seq) {
-          return instantiate(args, ((Class<?>) hostKlass).getConstructors());
-        } else {
-          Promise unwrappedArgsPromise = (Promise) unwrappedArgs;
-          return unwrappedArgsPromise.map((els) -> {
-            try {
-              return instantiate(Seq.sequence((Object[]) els), ((Class<?>) hostKlass).getConstructors());
-            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-              return new PolyglotException(e, this);
-            }
-          }, this);
-        }
-      } catch (ClassCastException | InvocationTargetException | InstantiationException | IllegalAccessException e) {
+        return (Class<?>) context.getEnv().asHostObject(klass);
+      } catch (ClassCastException e) {
         throw new PolyglotException(e, this);
       }
     }
 
     @CompilerDirectives.TruffleBoundary
-    private Object instantiate(Seq args, Constructor<?>[] constructors) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+    protected JavaConstructor[] constructors(Class<?> klass) {
+      Constructor<?>[] constructors = klass.getConstructors();
+      JavaConstructor[] result = new JavaConstructor[constructors.length];
+      for (int i = 0; i < constructors.length; i++) {
+        try {
+          result[i] = new JavaConstructor(constructors[i]);
+        } catch (IllegalAccessException e) {
+          throw new PolyglotException(e, this);
+        }
+      }
+      return result;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private Object newObject(Seq args, JavaConstructor[] constructors) {
+      Object unwrappedArgs = args.unwrapPromises(this);
+      if (unwrappedArgs instanceof Seq) {
+        return instantiate(args, constructors);
+      } else {
+        Promise unwrappedArgsPromise = (Promise) unwrappedArgs;
+        return unwrappedArgsPromise.map((els) -> instantiate(Seq.sequence((Object[]) els), constructors), this);
+      }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private Object instantiate(Seq args, JavaConstructor[] constructors) {
       InteropLibrary interop = InteropLibrary.getFactory().getUncached();
       Object[] javaObjects = new Object[(int) args.length()];
-      Constructor<?> constructor = null;
+      for (int i = 0; i < javaObjects.length; i++) {
+        javaObjects[i] = getHostValue(interop, args.lookup(i, this));
+      }
+
+      JavaConstructor constructor = null;
       CONSTRUCTOR:
-      for (Constructor<?> c : constructors) {
-        if (c.getParameters().length == (int) args.length()) {
-          for (int i = 0; i < c.getParameters().length; i++) {
-            Parameter parameter = c.getParameters()[i];
-            Object hostValue = getHostValue(interop, args.lookup(i, this));
-            if (parameter.getType().equals(hostValue.getClass()) || parameter.getType().isInstance(hostValue.getClass())) {
-              javaObjects[i] = hostValue;
-            } else {
+      for (JavaConstructor c : constructors) {
+        if (c.parameterTypes.length == javaObjects.length) {
+          for (int i = 0; i < c.parameterTypes.length; i++) {
+            Class<?> parameterType = c.parameterTypes[i];
+            if (!parameterType.equals(javaObjects[i].getClass()) && !parameterType.isInstance(javaObjects[i].getClass())) {
               continue CONSTRUCTOR;
             }
           }
@@ -103,16 +132,16 @@ public final class JavaBuiltinModule implements BuiltinModule {
         }
       }
 
+      if (constructor == null) {
+        throw new PolyglotException(String.format("No constructor found for arguments: %s", args), this);
+      }
+
       try {
-        if (constructor != null) {
-          return new NativeObject<>(constructor.newInstance(javaObjects));
-        } else {
-          CompilerDirectives.transferToInterpreterAndInvalidate();
-          throw new PolyglotException(String.format("No constructor found for arguments: %s", args), this);
-        }
-      } catch (IllegalArgumentException e) {
-        CompilerDirectives.transferToInterpreterAndInvalidate();
-        throw new PolyglotException(String.format("Unable to call constructor '%s' using arguments: %s", constructor, Arrays.toString(javaObjects)), this);
+        return new NativeObject<>(constructor.handle.invokeExact(javaObjects));
+      } catch (IllegalArgumentException | ClassCastException e) {
+        throw new PolyglotException(String.format("Unable to call constructor '%s' using arguments: %s", constructor.constructor, Arrays.toString(javaObjects)), this);
+      } catch (Throwable e) {
+        throw new PolyglotException(e, this);
       }
     }
 
@@ -243,6 +272,23 @@ public final class JavaBuiltinModule implements BuiltinModule {
     }
   }
 
+  /**
+   * Constructor resolved to a method handle, that takes an array of the arguments.
+   */
+  static final class JavaConstructor {
+    final Constructor<?> constructor;
+    final Class<?>[] parameterTypes;
+    final MethodHandle handle;
+
+    JavaConstructor(Constructor<?> constructor) throws IllegalAccessException {
+      this.constructor = constructor;
+      this.parameterTypes = constructor.getParameterTypes();
+      this.handle = MethodHandles.publicLookup().unreflectConstructor(constructor).asFixedArity()
+          .asSpreader(Object[].class, parameterTypes.length)
+          .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+  }
+
   @Override
   public Builtins builtins() {
     return new Builtins(
@@ -0,0 +1,67 @@
+package yona.ast.builtin.modules;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.CachedContext;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import yona.YonaLanguage;
+import yona.ast.builtin.BuiltinNode;
+import yona.ast.builtin.FoldNode;
+import yona.runtime.*;
+import yona.runtime.stdlib.Builtins;
+import yona.runtime.stdlib.ExportedFunction;
+
+@BuiltinModuleInfo(moduleName = "Reducers")
+public final class ReducersBuiltinModule implements BuiltinModule {
+  @NodeInfo(shortName = "to_seq")
+  abstract static class ToSeqBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline toSeq(@CachedContext(YonaLanguage.class) Context context) {
+      return TransducersBuiltinModule.sink(Pipeline.SEQ_SINK, context);
+    }
+  }
+
+  @NodeInfo(shortName = "to_set")
+  abstract static class ToSetBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline toSet(@CachedContext(YonaLanguage.class) Context context) {
+      return TransducersBuiltinModule.sink(Pipeline.SET_SINK, context);
+    }
+  }
+
+  @NodeInfo(shortName = "to_dict")
+  abstract static class ToDictBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline toDict(@CachedContext(YonaLanguage.class) Context context) {
+      return TransducersBuiltinModule.sink(Pipeline.DICT_SINK, context);
+    }
+  }
+
+  @NodeInfo(shortName = "reduce")
+  abstract static class ReduceBuiltin extends BuiltinNode {
+    @Specialization
+    public Object reduceSeq(VirtualFrame frame, Tuple reducer, Seq sequence, @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, sequence.leafCursor());
+    }
+
+    @Specialization
+    public Object reduceSet(VirtualFrame frame, Tuple reducer, Set set, @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, set.leafCursor());
+    }
+
+    @Specialization
+    public Object reduceDict(VirtualFrame frame, Tuple reducer, Dict dict, @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, dict.leafCursor());
+    }
+  }
+
+  public Builtins builtins() {
+    return new Builtins(
+        new ExportedFunction(ReducersBuiltinModuleFactory.ToSeqBuiltinFactory.getInstance()),
+        new ExportedFunction(ReducersBuiltinModuleFactory.ToSetBuiltinFactory.getInstance()),
+        new ExportedFunction(ReducersBuiltinModuleFactory.ToDictBuiltinFactory.getInstance()),
+        new ExportedFunction(ReducersBuiltinModuleFactory.ReduceBuiltinFactory.getInstance())
+    );
+  }
+}
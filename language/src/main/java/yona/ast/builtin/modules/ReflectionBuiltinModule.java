@@ -31,7 +31,7 @@ public final class ReflectionBuiltinModule implements BuiltinModule {
   abstract static class FunctionsBuiltin extends BuiltinNode {
     @Specialization
     public Dict functions(Seq module, @CachedContext(YonaLanguage.class) Context context) {
-      Object res = context.globals.lookup(module.asJavaString(this));
+      Object res = context.lookupGlobal(module.asJavaString(this));
       if (res == Unit.INSTANCE) {
         return Dict.empty();
       } else {
@@ -62,7 +62,7 @@ public final class ReflectionBuiltinModule implements BuiltinModule {
       String prefixString = prefix.asJavaString(this);
 
       if (!prefixString.contains("::")) {
-        return context.globals.fold(Set.empty(), (acc, name, module) -> {
+        return context.allGlobals().fold(Set.empty(), (acc, name, module) -> {
           if (((String) name).startsWith(prefixString)) {
             return acc.add(Seq.fromCharSequence((String) name));
           } else {
@@ -72,7 +72,7 @@ public final class ReflectionBuiltinModule implements BuiltinModule {
       } else {
         String[] parts = prefixString.split("::");
         if (parts.length < 2) {
-          return context.globals.fold(Set.empty(), (acc, name, module) -> {
+          return context.allGlobals().fold(Set.empty(), (acc, name, module) -> {
             Set funNames = Set.empty();
             if (((String) name).startsWith(parts[0])) {
               for (String funName : ((YonaModule) module).getExports()) {
@@ -82,7 +82,7 @@ public final class ReflectionBuiltinModule implements BuiltinModule {
             return acc.union(funNames);
           });
         } else {
-          return context.globals.fold(Set.empty(), (acc, name, module) -> {
+          return context.allGlobals().fold(Set.empty(), (acc, name, module) -> {
             Set funNames = Set.empty();
             if (((String) name).startsWith(parts[0])) {
               for (String funName : ((YonaModule) module).getExports()) {
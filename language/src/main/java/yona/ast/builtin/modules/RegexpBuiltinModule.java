@@ -4,6 +4,7 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
@@ -11,10 +12,8 @@ import com.oracle.truffle.regex.RegexLanguage;
 import com.oracle.truffle.regex.RegexObject;
 import yona.YonaLanguage;
 import yona.ast.builtin.BuiltinNode;
-import yona.runtime.Context;
-import yona.runtime.Seq;
-import yona.runtime.Set;
-import yona.runtime.Symbol;
+import yona.ast.builtin.FoldNode;
+import yona.runtime.*;
 import yona.runtime.exceptions.NoMatchException;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
@@ -33,7 +32,13 @@ public final class RegexpBuiltinModule implements BuiltinModule {
     public Object compile(Seq pattern,
                           Set options,
                           @CachedContext(YonaLanguage.class) Context context) {
-      return context.getEnv().parseInternal(createRegexSource(pattern.asJavaString(this), optionsToFlags(options))).call();
+      return compile(pattern.asJavaString(this), optionsToFlags(options), context);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private static Object compile(String pattern, String flags, Context context) {
+      Source source = createRegexSource(pattern, flags);
+      return context.regexCache.computeIfAbsent(source.getCharacters().toString(), key -> context.getEnv().parseInternal(source).call());
     }
 
     @CompilerDirectives.TruffleBoundary
@@ -68,30 +73,19 @@ public final class RegexpBuiltinModule implements BuiltinModule {
     public Seq exec(Seq input,
                     RegexObject regexObject,
                     @Cached("create()") TRegexUtil.TRegexCompiledRegexAccessor regexAccessor,
-                    @Cached("create()") TRegexUtil.TRegexResultAccessor resultAccessor,
-                    @Cached("create()") TRegexUtil.TRegexMaterializeResultNode materializeResultNode) {
-      String inputString = input.asJavaString(this);
+                    @Cached("create()") TRegexUtil.TRegexResultAccessor resultAccessor) {
+      MatchCursor cursor = new MatchCursor(regexObject, input.asJavaString(this), regexAccessor, resultAccessor);
+      Seq.SeqBuilder groups = new Seq.SeqBuilder();
 
-      int lastIndex = 0;
-      Seq groups = Seq.EMPTY;
-
-      while (lastIndex >= 0 && lastIndex < inputString.length()) {
-        inputString = inputString.substring(lastIndex);
-        Object result = regexAccessor.exec(regexObject, inputString, 0);
-        if (resultAccessor.isMatch(result)) {
-          int resultsCount = regexAccessor.groupCount(regexObject);
-          for (int i = 0; i < resultsCount; i++) {
-            Object group = materializeResultNode.materializeGroup(result, i, inputString);
-            if (group instanceof String) {
-              groups = groups.insertLast(Seq.fromCharSequence((String) group));
-            }
-            lastIndex = resultAccessor.captureGroupEnd(result, i);
+      while (cursor.nextLeaf()) {
+        for (int i = 0; i < cursor.groupCount; i++) {
+          Seq group = cursor.group(i);
+          if (group != null) {
+            groups.add(group);
           }
-        } else {
-          break;
         }
       }
-      return groups;
+      return groups.build();
     }
   }
 
@@ -103,45 +97,126 @@ public final class RegexpBuiltinModule implements BuiltinModule {
                        Seq replacement,
                        RegexObject regexObject,
                        @Cached("create()") TRegexUtil.TRegexCompiledRegexAccessor regexAccessor,
-                       @Cached("create()") TRegexUtil.TRegexResultAccessor resultAccessor,
-                       @Cached("create()") TRegexUtil.TRegexMaterializeResultNode materializeResultNode) {
+                       @Cached("create()") TRegexUtil.TRegexResultAccessor resultAccessor) {
       String inputString = input.asJavaString(this);
       String replacementString = replacement.asJavaString(this).replace("$$", "$");
+      MatchCursor cursor = new MatchCursor(regexObject, inputString, regexAccessor, resultAccessor);
 
       int lastIndex = 0;
       StringBuilder sb = new StringBuilder();
 
-      while (lastIndex >= 0 && lastIndex < inputString.length()) {
-        inputString = inputString.substring(lastIndex);
-        Object result = regexAccessor.exec(regexObject, inputString, 0);
-        if (resultAccessor.isMatch(result)) {
-          int resultsCount = regexAccessor.groupCount(regexObject);
-          for (int i = 0; i < resultsCount; i++) {
-            Object group = materializeResultNode.materializeGroup(result, i, inputString);
-            int start = resultAccessor.captureGroupStart(result, i);
-            int end = resultAccessor.captureGroupEnd(result, i);
-
-            if (lastIndex < start) {
-              sb.append(inputString.substring(0, start));
-            }
-
-            sb.append(replacementString.replace("$&", group.toString()));
-            lastIndex = end;
-          }
-        } else {
-          sb.append(inputString);
-          break;
-        }
+      while (cursor.nextLeaf()) {
+        int start = cursor.start(0);
+        int end = cursor.end(0);
+        sb.append(inputString, lastIndex, start);
+        sb.append(replacementString.replace("$&", inputString.substring(start, end)));
+        lastIndex = end;
       }
+      sb.append(inputString, lastIndex, inputString.length());
+
       return Seq.fromCharSequence(sb.toString());
     }
   }
 
+  /**
+   * Reduces the matches of the regex in the input, each match is a sequence of the matched string and its capture
+   * groups, with unit for groups that did not participate in the match. The matches are found one by one, as the
+   * reducer consumes them, so a reducer that stops early does not search the rest of the input.
+   */
+  @NodeInfo(shortName = "reduce")
+  abstract static class ReduceBuiltin extends BuiltinNode {
+    @Specialization
+    public Object reduce(VirtualFrame frame,
+                         Tuple reducer,
+                         Seq input,
+                         RegexObject regexObject,
+                         @Cached("create()") TRegexUtil.TRegexCompiledRegexAccessor regexAccessor,
+                         @Cached("create()") TRegexUtil.TRegexResultAccessor resultAccessor,
+                         @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, new MatchCursor(regexObject, input.asJavaString(this), regexAccessor, resultAccessor));
+    }
+  }
+
+  /**
+   * Matches of a regex in one input string. Each search starts where the previous match ended, so the input is
+   * scanned once. Every leaf of the cursor is a single match.
+   */
+  static final class MatchCursor extends LeafCursor {
+    private final RegexObject regexObject;
+    private final String input;
+    private final TRegexUtil.TRegexCompiledRegexAccessor regexAccessor;
+    private final TRegexUtil.TRegexResultAccessor resultAccessor;
+    final int groupCount;
+    private int fromIndex = 0;
+    private Object result;
+
+    MatchCursor(RegexObject regexObject, String input, TRegexUtil.TRegexCompiledRegexAccessor regexAccessor, TRegexUtil.TRegexResultAccessor resultAccessor) {
+      this.regexObject = regexObject;
+      this.input = input;
+      this.regexAccessor = regexAccessor;
+      this.resultAccessor = resultAccessor;
+      this.groupCount = regexAccessor.groupCount(regexObject);
+    }
+
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public boolean nextLeaf() {
+      if (fromIndex > input.length()) {
+        return false;
+      }
+
+      result = regexAccessor.exec(regexObject, input, fromIndex);
+      if (!resultAccessor.isMatch(result)) {
+        fromIndex = input.length() + 1;
+        return false;
+      }
+
+      int start = start(0);
+      int end = end(0);
+      // an empty match would be found again at the same index
+      fromIndex = end > start ? end : end + 1;
+      return true;
+    }
+
+    @Override
+    public int leafLength() {
+      return 1;
+    }
+
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public Object element(int i) {
+      Seq.SeqBuilder groups = new Seq.SeqBuilder();
+      for (int group = 0; group < groupCount; group++) {
+        Seq value = group(group);
+        groups.add(value != null ? value : Unit.INSTANCE);
+      }
+      return groups.build();
+    }
+
+    int start(int group) {
+      return resultAccessor.captureGroupStart(result, group);
+    }
+
+    int end(int group) {
+      return resultAccessor.captureGroupEnd(result, group);
+    }
+
+    /**
+     * @return the matched string of the group, null if the group did not participate in the match
+     */
+    Seq group(int group) {
+      int start = start(group);
+      return start < 0 ? null : Seq.fromCharSequence(input.substring(start, end(group)));
+    }
+  }
+
   public Builtins builtins() {
     return new Builtins(
         new ExportedFunction(RegexpBuiltinModuleFactory.CompileBuiltinFactory.getInstance()),
         new ExportedFunction(RegexpBuiltinModuleFactory.ExecBuiltinFactory.getInstance()),
-        new ExportedFunction(RegexpBuiltinModuleFactory.ReplaceBuiltinFactory.getInstance())
+        new ExportedFunction(RegexpBuiltinModuleFactory.ReplaceBuiltinFactory.getInstance()),
+        new ExportedFunction(RegexpBuiltinModuleFactory.ReduceBuiltinFactory.getInstance())
     );
   }
 }
@@ -1,18 +1,20 @@
 package yona.ast.builtin.modules;
 
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.interop.ArityException;
-import com.oracle.truffle.api.interop.InteropLibrary;
-import com.oracle.truffle.api.interop.UnsupportedMessageException;
-import com.oracle.truffle.api.interop.UnsupportedTypeException;
-import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
-import yona.YonaException;
+import yona.YonaLanguage;
 import yona.ast.builtin.BuiltinNode;
+import yona.ast.builtin.FoldNode;
+import yona.ast.builtin.ParallelFoldNode;
+import yona.runtime.Context;
 import yona.runtime.Function;
 import yona.runtime.Seq;
 import yona.runtime.Tuple;
-import yona.runtime.exceptions.UndefinedNameException;
+import yona.runtime.async.Promise;
+import yona.runtime.exceptions.NotACharacterException;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
 
@@ -21,52 +23,48 @@ public final class SeqBuiltinModule implements BuiltinModule {
   @NodeInfo(shortName = "foldl")
   abstract static class FoldLeftBuiltin extends BuiltinNode {
     @Specialization
-    public Object foldLeft(Function function, Object initialValue, Seq sequence, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return sequence.foldLeft(initialValue, function, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw UndefinedNameException.undefinedFunction(this, function);
-      }
+    public Object foldLeft(VirtualFrame frame, Function function, Object initialValue, Seq sequence, @Cached("createFold()") FoldNode foldNode) {
+      return foldNode.fold(frame, function, initialValue, sequence.leafCursor());
     }
   }
 
   @NodeInfo(shortName = "foldr")
   abstract static class FoldRightBuiltin extends BuiltinNode {
     @Specialization
-    public Object foldRight(Function function, Object initialValue, Seq sequence, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return sequence.foldRight(initialValue, function, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw UndefinedNameException.undefinedFunction(this, function);
-      }
+    public Object foldRight(VirtualFrame frame, Function function, Object initialValue, Seq sequence, @Cached("createFold()") FoldNode foldNode) {
+      return foldNode.fold(frame, function, initialValue, sequence.reverseLeafCursor());
     }
   }
 
   @NodeInfo(shortName = "reducel")
   abstract static class ReduceLeftBuiltin extends BuiltinNode {
     @Specialization
-    public Object reduceLeft(Tuple reducer, Seq sequence, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return sequence.reduceLeft(new Object[]{reducer.get(0), reducer.get(1), reducer.get(2)}, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw new YonaException(e, this);
-      }
+    public Object reduceLeft(VirtualFrame frame, Tuple reducer, Seq sequence, @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, sequence.leafCursor());
     }
   }
 
   @NodeInfo(shortName = "reducer")
   abstract static class ReduceRightBuiltin extends BuiltinNode {
     @Specialization
-    public Object reduceRight(Tuple reducer, Seq sequence, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return sequence.reduceRight(new Object[]{reducer.get(0), reducer.get(1), reducer.get(2)}, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw new YonaException(e, this);
-      }
+    public Object reduceRight(VirtualFrame frame, Tuple reducer, Seq sequence, @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, sequence.reverseLeafCursor());
+    }
+  }
+
+  @NodeInfo(shortName = "par_fold")
+  abstract static class ParallelFoldBuiltin extends BuiltinNode {
+    @Specialization
+    public Promise parallelFold(Function function, Function combiner, Object initialValue, Seq sequence, @CachedContext(YonaLanguage.class) Context context, @Cached("createFold()") ParallelFoldNode parallelFoldNode) {
+      return parallelFoldNode.fold(context, function, combiner, initialValue, sequence.splitCursors(ParallelFoldNode.parts(sequence.length()), this));
+    }
+  }
+
+  @NodeInfo(shortName = "par_reduce")
+  abstract static class ParallelReduceBuiltin extends BuiltinNode {
+    @Specialization
+    public Promise parallelReduce(Tuple reducer, Function combiner, Seq sequence, @CachedContext(YonaLanguage.class) Context context, @Cached("createReduce()") ParallelFoldNode parallelFoldNode) {
+      return parallelFoldNode.reduce(context, reducer, combiner, sequence.splitCursors(ParallelFoldNode.parts(sequence.length()), this));
     }
   }
 
@@ -112,6 +110,11 @@ public final class SeqBuiltinModule implements BuiltinModule {
 
   @NodeInfo(shortName = "lookup")
   abstract static class LookupBuiltin extends BuiltinNode {
+    @Specialization(guards = "sequence.isInBounds(idx)", rewriteOn = NotACharacterException.class)
+    public int codePoint(long idx, Seq sequence) throws NotACharacterException {
+      return sequence.lookupCodePoint(idx);
+    }
+
     @Specialization
     public Object length(long idx, Seq sequence) {
       return sequence.lookup(idx, this);
@@ -149,6 +152,8 @@ public final class SeqBuiltinModule implements BuiltinModule {
         new ExportedFunction(SeqBuiltinModuleFactory.FoldRightBuiltinFactory.getInstance()),
         new ExportedFunction(SeqBuiltinModuleFactory.ReduceLeftBuiltinFactory.getInstance()),
         new ExportedFunction(SeqBuiltinModuleFactory.ReduceRightBuiltinFactory.getInstance()),
+        new ExportedFunction(SeqBuiltinModuleFactory.ParallelFoldBuiltinFactory.getInstance()),
+        new ExportedFunction(SeqBuiltinModuleFactory.ParallelReduceBuiltinFactory.getInstance()),
         new ExportedFunction(SeqBuiltinModuleFactory.SplitBuiltinFactory.getInstance()),
         new ExportedFunction(SeqBuiltinModuleFactory.IsStringBuiltinFactory.getInstance()),
         new ExportedFunction(SeqBuiltinModuleFactory.LookupBuiltinFactory.getInstance()),
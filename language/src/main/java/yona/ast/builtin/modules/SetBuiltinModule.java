@@ -1,16 +1,16 @@
 package yona.ast.builtin.modules;
 
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.interop.ArityException;
-import com.oracle.truffle.api.interop.InteropLibrary;
-import com.oracle.truffle.api.interop.UnsupportedMessageException;
-import com.oracle.truffle.api.interop.UnsupportedTypeException;
-import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
-import yona.YonaException;
+import yona.YonaLanguage;
 import yona.ast.builtin.BuiltinNode;
+import yona.ast.builtin.FoldNode;
+import yona.ast.builtin.ParallelFoldNode;
 import yona.runtime.*;
-import yona.runtime.exceptions.UndefinedNameException;
+import yona.runtime.async.Promise;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
 
@@ -21,26 +21,16 @@ public final class SetBuiltinModule implements BuiltinModule {
   @NodeInfo(shortName = "fold")
   abstract static class FoldBuiltin extends BuiltinNode {
     @Specialization
-    public Object fold(Function function, Object initialValue, Set set, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return set.fold(initialValue, function, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw UndefinedNameException.undefinedFunction(this, function);
-      }
+    public Object fold(VirtualFrame frame, Function function, Object initialValue, Set set, @Cached("createFold()") FoldNode foldNode) {
+      return foldNode.fold(frame, function, initialValue, set.leafCursor());
     }
   }
 
   @NodeInfo(shortName = "reduce")
   abstract static class ReduceBuiltin extends BuiltinNode {
     @Specialization
-    public Object reduce(Tuple reducer, Set set, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      try {
-        return set.reduce(new Object[]{reducer.get(0), reducer.get(1), reducer.get(2)}, dispatch);
-      } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
-        /* Execute was not successful. */
-        throw new YonaException(e, this);
-      }
+    public Object reduce(VirtualFrame frame, Tuple reducer, Set set, @Cached("createReduce()") FoldNode foldNode) {
+      return foldNode.reduce(frame, reducer, set.leafCursor());
     }
   }
 
@@ -52,6 +42,22 @@ public final class SetBuiltinModule implements BuiltinModule {
     }
   }
 
+  @NodeInfo(shortName = "par_fold")
+  abstract static class ParallelFoldBuiltin extends BuiltinNode {
+    @Specialization
+    public Promise parallelFold(Function function, Function combiner, Object initialValue, Set set, @CachedContext(YonaLanguage.class) Context context, @Cached("createFold()") ParallelFoldNode parallelFoldNode) {
+      return parallelFoldNode.fold(context, function, combiner, initialValue, set.splitCursors(ParallelFoldNode.MAX_PARTS));
+    }
+  }
+
+  @NodeInfo(shortName = "par_reduce")
+  abstract static class ParallelReduceBuiltin extends BuiltinNode {
+    @Specialization
+    public Promise parallelReduce(Tuple reducer, Function combiner, Set set, @CachedContext(YonaLanguage.class) Context context, @Cached("createReduce()") ParallelFoldNode parallelFoldNode) {
+      return parallelFoldNode.reduce(context, reducer, combiner, set.splitCursors(ParallelFoldNode.MAX_PARTS));
+    }
+  }
+
   @NodeInfo(shortName = "len")
   abstract static class LengthBuiltin extends BuiltinNode {
     @Specialization
@@ -64,7 +70,7 @@ public final class SetBuiltinModule implements BuiltinModule {
   abstract static class ToSeqBuiltin extends BuiltinNode {
     @Specialization
     public Seq length(Set set) {
-      return set.fold(Seq.EMPTY, Seq::insertLast);
+      return set.fold(new Seq.SeqBuilder(), Seq.SeqBuilder::add).build();
     }
   }
 
@@ -72,6 +78,8 @@ public final class SetBuiltinModule implements BuiltinModule {
     return new Builtins(
         new ExportedFunction(SetBuiltinModuleFactory.FoldBuiltinFactory.getInstance()),
         new ExportedFunction(SetBuiltinModuleFactory.ReduceBuiltinFactory.getInstance()),
+        new ExportedFunction(SetBuiltinModuleFactory.ParallelFoldBuiltinFactory.getInstance()),
+        new ExportedFunction(SetBuiltinModuleFactory.ParallelReduceBuiltinFactory.getInstance()),
         new ExportedFunction(SetBuiltinModuleFactory.EmptyBuiltinFactory.getInstance()),
         new ExportedFunction(SetBuiltinModuleFactory.LengthBuiltinFactory.getInstance()),
         new ExportedFunction(SetBuiltinModuleFactory.ToSeqBuiltinFactory.getInstance())
@@ -1,12 +1,28 @@
 package yona.ast.builtin.modules;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import yona.YonaLanguage;
 import yona.ast.builtin.BuiltinNode;
+import yona.ast.builtin.PipelineNode;
+import yona.runtime.Context;
+import yona.runtime.Function;
+import yona.runtime.Pipeline;
+import yona.runtime.Tuple;
+import yona.runtime.async.Promise;
+import yona.runtime.exceptions.BadArgException;
 import yona.runtime.exceptions.TransducerDoneException;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
+import yona.runtime.stdlib.PrivateFunction;
 
+/**
+ * Transducers are implemented as stages of a {@link Pipeline}, see {@link PipelineNode}.
+ */
 @BuiltinModuleInfo(moduleName = "Transducers")
 public final class TransducersBuiltinModule implements BuiltinModule {
   @NodeInfo(shortName = "done")
@@ -17,9 +33,140 @@ public final class TransducersBuiltinModule implements BuiltinModule {
     }
   }
 
+  @NodeInfo(shortName = "filter")
+  abstract static class FilterBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline filter(Function predicate, Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      return pipeline(Pipeline.FILTER, predicate, reducer, context, this);
+    }
+  }
+
+  @NodeInfo(shortName = "map")
+  abstract static class MapBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline map(Function function, Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      return pipeline(Pipeline.MAP, function, reducer, context, this);
+    }
+  }
+
+  @NodeInfo(shortName = "drop")
+  abstract static class DropBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline drop(long n, Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      if (n < 0) {
+        throw new BadArgException("Number of elements to drop must not be negative: " + n, this);
+      }
+      return pipeline(Pipeline.DROP, n, reducer, context, this);
+    }
+  }
+
+  @NodeInfo(shortName = "take")
+  abstract static class TakeBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline take(long n, Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      if (n < 0) {
+        throw new BadArgException("Number of elements to take must not be negative: " + n, this);
+      }
+      return pipeline(Pipeline.TAKE, n, reducer, context, this);
+    }
+  }
+
+  @NodeInfo(shortName = "dedupe")
+  abstract static class DedupeBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline dedupe(Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      return pipeline(Pipeline.DEDUPE, null, reducer, context, this);
+    }
+  }
+
+  @NodeInfo(shortName = "distinct")
+  abstract static class DistinctBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline distinct(Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      return pipeline(Pipeline.DISTINCT, null, reducer, context, this);
+    }
+  }
+
+  @NodeInfo(shortName = "chunk")
+  abstract static class ChunkBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline chunk(long n, Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      if (n <= 0) {
+        throw new BadArgException("Chunk size must be positive: " + n, this);
+      }
+      return pipeline(Pipeline.CHUNK, n, reducer, context, this);
+    }
+  }
+
+  @NodeInfo(shortName = "scan")
+  abstract static class ScanBuiltin extends BuiltinNode {
+    @Specialization
+    public Pipeline scan(Tuple reducer, @CachedContext(YonaLanguage.class) Context context) {
+      return pipeline(Pipeline.SCAN, null, reducer, context, this);
+    }
+  }
+
+  /**
+   * Step function of a pipeline used as a reducer tuple, passes one element through all stages.
+   */
+  @NodeInfo(shortName = "pipeline_step")
+  abstract static class PipelineStepBuiltin extends BuiltinNode {
+    @Specialization
+    public Object step(Pipeline pipeline, Object state, Object value, @Cached("create()") PipelineNode pipelineNode) {
+      final long[] counts = new long[pipeline.kinds.length];
+      final Object[] states = new Object[pipeline.kinds.length];
+      final Object accumulator = pipeline.unpack(state, counts, states);
+      final Object result = pipelineNode.push(pipeline, 0, counts, states, accumulator, value);
+      if (result instanceof Promise promise) {
+        return packLater(pipeline, counts, states, promise);
+      } else {
+        return pipeline.pack(counts, states, result);
+      }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private Promise packLater(Pipeline pipeline, long[] counts, Object[] states, Promise accumulator) {
+      return accumulator.map(acc -> pipeline.pack(counts, states, acc), this);
+    }
+  }
+
+  /**
+   * Complete function of a pipeline used as a reducer tuple.
+   */
+  @NodeInfo(shortName = "pipeline_complete")
+  abstract static class PipelineCompleteBuiltin extends BuiltinNode {
+    @Specialization
+    public Object complete(Pipeline pipeline, Object state, @Cached("create()") PipelineNode pipelineNode) {
+      final long[] counts = new long[pipeline.kinds.length];
+      final Object[] states = new Object[pipeline.kinds.length];
+      final Object accumulator = pipeline.unpack(state, counts, states);
+      return pipelineNode.complete(pipeline, counts, states, accumulator);
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  static Pipeline pipeline(int kind, Object argument, Tuple reducer, Context context, Node node) {
+    return Pipeline.create(kind, argument, reducer, context.lookupGlobalFunction("Transducers", "pipeline_step"), context.lookupGlobalFunction("Transducers", "pipeline_complete"), node);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  static Pipeline sink(int sink, Context context) {
+    return Pipeline.sink(sink, context.lookupGlobalFunction("Transducers", "pipeline_step"), context.lookupGlobalFunction("Transducers", "pipeline_complete"));
+  }
+
   public Builtins builtins() {
     return new Builtins(
-        new ExportedFunction(TransducersBuiltinModuleFactory.RaiseDoneBuiltinFactory.getInstance())
+        new ExportedFunction(TransducersBuiltinModuleFactory.RaiseDoneBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.FilterBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.MapBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.DropBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.TakeBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.DedupeBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.DistinctBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.ChunkBuiltinFactory.getInstance()),
+        new ExportedFunction(TransducersBuiltinModuleFactory.ScanBuiltinFactory.getInstance()),
+        new PrivateFunction(TransducersBuiltinModuleFactory.PipelineStepBuiltinFactory.getInstance()),
+        new PrivateFunction(TransducersBuiltinModuleFactory.PipelineCompleteBuiltinFactory.getInstance())
     );
   }
 }
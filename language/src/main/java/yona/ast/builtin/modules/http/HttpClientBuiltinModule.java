@@ -25,24 +25,71 @@ import yona.runtime.network.TCPConnection;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
 import yona.runtime.strings.StringUtil;
+import yona.runtime.strings.Utf8Decoder;
 
-import java.net.Authenticator;
-import java.net.PasswordAuthentication;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @BuiltinModuleInfo(packageParts = {"http"}, moduleName = "Client")
 public final class HttpClientBuiltinModule implements BuiltinModule {
+  /*
+   * Basic credentials of a session with an authenticator. They stay with the session, the shared client does not know
+   * them. They are sent when a server or a proxy answers with a Basic challenge. Once a server accepted them, later
+   * requests of the session to the same origin send them right away.
+   */
+  protected static final class Credentials {
+    private static final Pattern REALM = Pattern.compile("realm=\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+
+    final String authorization;
+    private final java.util.Set<AuthScope> authenticatedScopes = ConcurrentHashMap.newKeySet();
+
+    private record AuthScope(String origin, String realm) {
+    }
+
+    Credentials(String authorization) {
+      this.authorization = authorization;
+    }
+
+    boolean isAuthenticated(URI uri) {
+      String origin = origin(uri);
+      for (AuthScope scope : authenticatedScopes) {
+        if (scope.origin().equals(origin)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void authenticated(URI uri, String challenge) {
+      Matcher realm = REALM.matcher(challenge);
+      authenticatedScopes.add(new AuthScope(origin(uri), realm.find() ? realm.group(1) : ""));
+    }
+
+    private static String origin(URI uri) {
+      return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+  }
+
   protected static final class HttpSessionTuple extends Tuple {
-    public HttpSessionTuple(HttpClient client, Set additionalOptions) {
+    public HttpSessionTuple(HttpClient client, Set additionalOptions, Object credentials) {
       this.items = new Object[]{
-        new NativeObject<>(client), additionalOptions
+        new NativeObject<>(client), additionalOptions, credentials
       };
     }
 
@@ -53,11 +100,15 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
     public Set additionalOptions() {
       return (Set) items[1];
     }
+
+    public Credentials credentials() {
+      return items[2] instanceof NativeObject ? ((NativeObject<Credentials>) items[2]).getValue() : null;
+    }
   }
 
   protected static final class HttpSessionConnectionManager extends NativeObjectContextManager<HttpSessionTuple> {
-    public HttpSessionConnectionManager(HttpClient httpClient, Set additionalOptions, Context context) {
-      super("http_session", context.lookupGlobalFunction("http\\Client", "run"), new HttpSessionTuple(httpClient, additionalOptions));
+    public HttpSessionConnectionManager(HttpClient httpClient, Set additionalOptions, Object credentials, Context context) {
+      super("http_session", context.lookupGlobalFunction("http\\Client", "run"), new HttpSessionTuple(httpClient, additionalOptions, credentials));
     }
 
     public HttpSessionConnectionManager(HttpSessionTuple data, Context context) {
@@ -89,28 +140,27 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
     @CompilerDirectives.TruffleBoundary
     public Object session(Dict params, @CachedContext(YonaLanguage.class) Context context) {
       if (params.size() == 0L) {
-        return new HttpSessionConnectionManager(HttpClient.newHttpClient(), Set.empty(), context);
+        return new HttpSessionConnectionManager(sharedClient(context, HttpClient.Redirect.NEVER), Set.empty(), Unit.INSTANCE, context);
       } else {
-        HttpClient.Builder builder = HttpClient.newBuilder().executor(context.ioExecutor);
-
         Object unwrappedParams = params.unwrapPromises(this);
         if (unwrappedParams instanceof Dict) {
-          return buildSession((Dict) unwrappedParams, context, builder);
+          return buildSession((Dict) unwrappedParams, context);
         } else { // Promise
           CompilerDirectives.transferToInterpreterAndInvalidate();
           Promise paramsPromise = (Promise) unwrappedParams;
-          return paramsPromise.map((paramsDict) -> buildSession((Dict) paramsDict, context, builder), this);
+          return paramsPromise.map((paramsDict) -> buildSession((Dict) paramsDict, context), this);
         }
       }
     }
 
     @CompilerDirectives.TruffleBoundary
-    private Object buildSession(Dict params, Context context, HttpClient.Builder builder) {
+    private Object buildSession(Dict params, Context context) {
       CompilerDirectives.transferToInterpreterAndInvalidate();
       Set additionalOptions = Set.empty();
+      HttpClient.Redirect redirectPolicy = HttpClient.Redirect.NEVER;
       Symbol followRedirectsSymbol = context.symbol("follow_redirects");
       if (params.contains(followRedirectsSymbol)) {
-        builder.followRedirects(extractRedirectPolicy(params.lookup(followRedirectsSymbol)));
+        redirectPolicy = extractRedirectPolicy(params.lookup(followRedirectsSymbol));
       }
 
       Symbol bodyEncodingSymbol = context.symbol("body_encoding");
@@ -126,24 +176,24 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
         }
       }
 
+      HttpClient httpClient = sharedClient(context, redirectPolicy);
       Symbol authenticatorSymbol = context.symbol("authenticator");
       if (params.contains(authenticatorSymbol)) {
-        Object authenticatorObj = extractAuthenticator(params.lookup(authenticatorSymbol));
-        if (authenticatorObj instanceof Authenticator) {
-          builder.authenticator((Authenticator) authenticatorObj);
+        Object credentialsObj = extractCredentials(params.lookup(authenticatorSymbol));
+        if (credentialsObj instanceof NativeObject) {
+          return new HttpSessionConnectionManager(httpClient, additionalOptions, credentialsObj, context);
         } else { // Promise
           CompilerDirectives.transferToInterpreterAndInvalidate();
-          Promise authenticatorPromise = (Promise) authenticatorObj;
+          Promise credentialsPromise = (Promise) credentialsObj;
           Set finalAdditionalOptions = additionalOptions;
-          return authenticatorPromise.map(authenticator -> {
+          return credentialsPromise.map(credentials -> {
             CompilerDirectives.transferToInterpreterAndInvalidate();
-            builder.authenticator((Authenticator) authenticator);
-            return new HttpSessionConnectionManager(builder.build(), finalAdditionalOptions, context);
+            return new HttpSessionConnectionManager(httpClient, finalAdditionalOptions, credentials, context);
           }, this);
         }
       }
 
-      return new HttpSessionConnectionManager(builder.build(), additionalOptions, context);
+      return new HttpSessionConnectionManager(httpClient, additionalOptions, Unit.INSTANCE, context);
     }
 
     @CompilerDirectives.TruffleBoundary
@@ -162,7 +212,7 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
     }
 
     @CompilerDirectives.TruffleBoundary
-    private Object extractAuthenticator(Object authenticatorObj) {
+    private Object extractCredentials(Object authenticatorObj) {
       if (authenticatorObj instanceof Tuple) {
         Object authenticatorTupleObj = ((Tuple) authenticatorObj).unwrapPromises(this);
         if (authenticatorTupleObj instanceof Object[] authenticatorItems) {
@@ -174,14 +224,8 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
                 try {
                   Seq username = TypesGen.expectSeq(authenticatorItems[1]);
                   Seq password = TypesGen.expectSeq(authenticatorItems[2]);
-                  final Node node = this;
-
-                  return new Authenticator() {
-                    @Override
-                    protected PasswordAuthentication getPasswordAuthentication() {
-                      return new PasswordAuthentication(username.asJavaString(node), password.asJavaString(node).toCharArray());
-                    }
-                  };
+                  String credentials = username.asJavaString(this) + ":" + password.asJavaString(this);
+                  return new NativeObject<>(new Credentials("Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8))));
                 } catch (UnexpectedResultException e) {
                   throw new BadArgException(e, this);
                 }
@@ -195,17 +239,70 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
         } else { // Promise
           CompilerDirectives.transferToInterpreterAndInvalidate();
           Promise authenticatorTuplePromise = (Promise) authenticatorTupleObj;
-          return authenticatorTuplePromise.map(this::extractAuthenticator, this);
+          return authenticatorTuplePromise.map(this::extractCredentials, this);
         }
       } else if (authenticatorObj instanceof Promise authenticatorObjPromise) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
-        return authenticatorObjPromise.map(this::extractAuthenticator, this);
+        return authenticatorObjPromise.map(this::extractCredentials, this);
       } else {
         throw YonaException.typeError(this, authenticatorObj);
       }
     }
   }
 
+  /*
+   * Clients are expensive (each one has its own selector thread and connection pool), so sessions with the same
+   * redirect policy share one. Credentials and body encoding are per-session options and do not affect the client.
+   */
+  @CompilerDirectives.TruffleBoundary
+  private static HttpClient sharedClient(Context context, HttpClient.Redirect redirectPolicy) {
+    return context.httpClients.computeIfAbsent(redirectPolicy, policy -> HttpClient.newBuilder().executor(context.ioExecutor).followRedirects(policy).build());
+  }
+
+  /*
+   * Builds the body Seq chunk by chunk as the buffers arrive, instead of collecting the whole response into one array
+   * (or String) and converting it afterwards.
+   */
+  private static final class SeqBodySubscriber implements HttpResponse.BodySubscriber<Seq> {
+    private final CompletableFuture<Seq> result = new CompletableFuture<>();
+    private final Utf8Decoder decoder;  // null for binary bodies
+    private Seq body = Seq.EMPTY;
+
+    SeqBodySubscriber(boolean binary) {
+      this.decoder = binary ? null : new Utf8Decoder();
+    }
+
+    @Override
+    public CompletionStage<Seq> getBody() {
+      return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+      for (ByteBuffer item : items) {
+        body = Seq.catenate(body, decoder == null ? Seq.fromByteBuffer(item) : decoder.decode(item, false));
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      if (decoder != null) {
+        body = Seq.catenate(body, decoder.decode(ByteBuffer.allocate(0), true));
+      }
+      result.complete(body);
+    }
+  }
+
   abstract static class SendBuiltin extends BuiltinNode {
     @CompilerDirectives.TruffleBoundary
     protected Promise sendRequest(ContextManager<?> contextManager, RequestType requestType, Seq uri, Dict headers, Seq body, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
@@ -222,29 +319,83 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
     @CompilerDirectives.TruffleBoundary
     private Promise runRequest(HttpSessionConnectionManager sessionTuple, HttpRequest request, Context context, InteropLibrary dispatch) {
       Promise promise = new Promise(dispatch);
-      context.ioExecutor.submit(() -> {
-        try {
-          HttpResponse<?> response = sessionTuple.nativeData(this).httpClient(this).send(request, bodyHandlerForHttpSession(sessionTuple, context));
-          promise.fulfil(responseToTuple(sessionTuple, response, context), this);
-        } catch (Exception e) {
-          promise.fulfil(e, this);
+      HttpSessionTuple session = sessionTuple.nativeData(this);
+      boolean binary = session.additionalOptions().contains(context.symbol("binary"));
+      HttpClient client = session.httpClient(this);
+      Credentials credentials = session.credentials();
+      HttpResponse.BodyHandler<Seq> bodyHandler = responseInfo -> new SeqBodySubscriber(binary);
+      CompletableFuture<HttpResponse<Seq>> responseFuture;
+      if (credentials == null) {
+        responseFuture = client.sendAsync(request, bodyHandler);
+      } else if (credentials.isAuthenticated(request.uri())) {
+        responseFuture = client.sendAsync(withHeader(request, request.uri(), "Authorization", credentials), bodyHandler);
+      } else {
+        // the body of a challenge that is answered is not read
+        HttpResponse.BodyHandler<Seq> challengeBodyHandler = responseInfo -> basicChallenge(responseInfo.statusCode(), responseInfo.headers()) != null ? HttpResponse.BodySubscribers.replacing(Seq.EMPTY) : new SeqBodySubscriber(binary);
+        responseFuture = client.sendAsync(request, challengeBodyHandler).thenCompose(response -> {
+          String challenge = basicChallenge(response.statusCode(), response.headers());
+          if (challenge == null) {
+            return CompletableFuture.completedFuture(response);
+          }
+          String header = response.statusCode() == 407 ? "Proxy-Authorization" : "Authorization";
+          return client.sendAsync(withHeader(request, response.uri(), header, credentials), bodyHandler).thenApply(retried -> {
+            if (response.statusCode() == 401 && retried.statusCode() != 401) {
+              credentials.authenticated(response.uri(), challenge);
+            }
+            return retried;
+          });
+        });
+      }
+
+      // the future may complete on the client's own selector thread, which is not entered in the context, so the promise
+      // (and its continuations) are fulfilled on a worker instead
+      responseFuture.whenComplete((response, error) -> {
+        Object result;
+        if (error != null) {
+          result = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        } else {
+          try {
+            result = responseToTuple(response);
+          } catch (Exception e) {
+            result = e;
+          }
         }
+        final Object finalResult = result;
+        context.threading.submit(promise, p -> p.fulfil(finalResult, this));
       });
 
       return promise;
     }
 
-    @CompilerDirectives.TruffleBoundary
-    private HttpResponse.BodyHandler<?> bodyHandlerForHttpSession(HttpSessionConnectionManager sessionTuple, Context context) {
-      if (sessionTuple.nativeData(this).additionalOptions().contains(context.symbol("binary"))) {
-        return HttpResponse.BodyHandlers.ofByteArray();
-      } else {
-        return HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8);
+    /*
+     * A challenge is answered with a second request with the same method, headers and body, sent to the URI that answered
+     * with the challenge, which is not the requested one if the first request was redirected.
+     */
+    private static HttpRequest withHeader(HttpRequest request, URI uri, String header, Credentials credentials) {
+      return HttpRequest.newBuilder(request, (name, value) -> true).uri(uri).setHeader(header, credentials.authorization).build();
+    }
+
+    /**
+     * @return the Basic challenge of a 401 or 407 response, or null
+     */
+    private static String basicChallenge(int statusCode, HttpHeaders headers) {
+      String challengeHeader = switch (statusCode) {
+        case 401 -> "WWW-Authenticate";
+        case 407 -> "Proxy-Authenticate";
+        default -> null;
+      };
+      if (challengeHeader != null) {
+        for (String challenge : headers.allValues(challengeHeader)) {
+          if (challenge.regionMatches(true, 0, "Basic", 0, 5)) {
+            return challenge;
+          }
+        }
       }
+      return null;
     }
 
     @CompilerDirectives.TruffleBoundary
-    private Tuple responseToTuple(HttpSessionConnectionManager sessionTuple, HttpResponse<?> response, Context context) {
+    private Tuple responseToTuple(HttpResponse<Seq> response) {
       Dict headers = Dict.EMPTY;
       for (Map.Entry<String, List<String>> entry : response.headers().map().entrySet()) {
         Seq value = Seq.EMPTY;
@@ -253,15 +404,7 @@ public final class HttpClientBuiltinModule implements BuiltinModule {
         }
         headers = headers.add(Seq.fromCharSequence(entry.getKey()), value);
       }
-      return new Tuple((long) response.statusCode(), headers, bodyForHttpSession(sessionTuple, response, context));
-    }
-
-    private Seq bodyForHttpSession(HttpSessionConnectionManager sessionTuple, HttpResponse<?> response, Context context) {
-      if (sessionTuple.nativeData(this).additionalOptions().contains(context.symbol("binary"))) {
-        return Seq.fromBytes((byte[]) response.body());
-      } else {
-        return Seq.fromCharSequence((String) response.body());
-      }
+      return new Tuple((long) response.statusCode(), headers, response.body());
     }
 
     @CompilerDirectives.TruffleBoundary
@@ -19,6 +19,7 @@ import yona.runtime.*;
 import yona.runtime.async.Promise;
 import yona.runtime.exceptions.BadArgException;
 import yona.runtime.exceptions.util.ExceptionUtil;
+import yona.runtime.network.HttpServerChannel;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
 import yona.runtime.stdlib.util.TimeUnitUtil;
@@ -36,7 +37,7 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
   abstract static class CreateBuiltin extends BuiltinNode {
     @Specialization
     @CompilerDirectives.TruffleBoundary
-    public NativeObject<HttpServer> create(Seq host, long port, long backlog, @CachedContext(YonaLanguage.class) Context context) {
+    public NativeObject<?> create(Seq host, long port, long backlog, @CachedContext(YonaLanguage.class) Context context) {
       try {
         if (port > Integer.MAX_VALUE) {
           throw new BadArgException("Port must be < Integer.MAX_VALUE", this);
@@ -44,9 +45,17 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
         if (backlog > Integer.MAX_VALUE) {
           throw new BadArgException("Backlog must be < Integer.MAX_VALUE", this);
         }
-        HttpServer server = HttpServer.create(new InetSocketAddress(host.asJavaString(this), (int) port), (int) backlog);
-        server.setExecutor(context.ioExecutor);
-        return new NativeObject<>(server);
+        final String engine = context.getEnv().getOptions().get(YonaLanguage.HTTP_SERVER);
+        switch (engine) {
+          case "jdk":
+            HttpServer server = HttpServer.create(new InetSocketAddress(host.asJavaString(this), (int) port), (int) backlog);
+            server.setExecutor(context.ioExecutor);
+            return new NativeObject<>(server);
+          case "nio":
+            return new NativeObject<>(HttpServerChannel.bind(context, host.asJavaString(this), (int) port, (int) backlog, this));
+          default:
+            throw new BadArgException("Unknown HTTP server engine: " + engine + ". Supported engines are jdk and nio.", this);
+        }
       } catch (IOException e) {
         throw new yona.runtime.exceptions.IOException(e, this);
       }
@@ -58,8 +67,16 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
     @Specialization
     @CompilerDirectives.TruffleBoundary
     public Object start(NativeObject<?> server) {
-      HttpServer httpServer = server.getValue(HttpServer.class, this);
-      httpServer.start();
+      if (server.getValue() instanceof HttpServerChannel httpServerChannel) {
+        try {
+          httpServerChannel.start();
+        } catch (IOException e) {
+          throw new yona.runtime.exceptions.IOException(e, this);
+        }
+      } else {
+        HttpServer httpServer = server.getValue(HttpServer.class, this);
+        httpServer.start();
+      }
       return server;
     }
   }
@@ -92,11 +109,17 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
         if (delay > Integer.MAX_VALUE) {
           throw new BadArgException("Delay must be < " + Integer.MAX_VALUE, this);
         }
-        HttpServer httpServer = server.getValue(HttpServer.class, this);
-        httpServer.stop((int) delay);
+        if (server.getValue() instanceof HttpServerChannel httpServerChannel) {
+          httpServerChannel.stop(delay * 1000);
+        } else {
+          HttpServer httpServer = server.getValue(HttpServer.class, this);
+          httpServer.stop((int) delay);
+        }
         return server;
       } catch (UnexpectedResultException e) {
         throw new BadArgException(e, this);
+      } catch (IOException e) {
+        throw new yona.runtime.exceptions.IOException(e, this);
       }
     }
   }
@@ -106,15 +129,19 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
     @Specialization
     @CompilerDirectives.TruffleBoundary
     public Object handle(Seq path, Symbol bodyEncoding, Function handler, NativeObject<?> server, @CachedContext(YonaLanguage.class) Context context, @CachedLibrary(limit = "3") InteropLibrary dispatch) {
-      final HttpServer httpServer = server.getValue(HttpServer.class, this);
       final String bodyEncodingStr = validateBodyEncoding(bodyEncoding);
+      if (server.getValue() instanceof HttpServerChannel httpServerChannel) {
+        httpServerChannel.handle(path.asJavaString(this), bodyEncodingStr.equals("binary"), handler, dispatch, this);
+        return server;
+      }
+      final HttpServer httpServer = server.getValue(HttpServer.class, this);
       httpServer.createContext(path.asJavaString(this), (httpExchange) -> {
         Dict exchangeParams = Dict.EMPTY
-            .add("local_address", Seq.fromCharSequence(httpExchange.getLocalAddress().toString()))
-            .add("protocol", Seq.fromCharSequence(httpExchange.getProtocol()))
-            .add("remote_address", Seq.fromCharSequence(httpExchange.getRemoteAddress().toString()))
-            .add("method", context.symbol(httpExchange.getRequestMethod()))
-            .add("uri", Seq.fromCharSequence(httpExchange.getRequestURI().toString()));
+            .add(Seq.fromCharSequence("local_address"), Seq.fromCharSequence(httpExchange.getLocalAddress().toString()))
+            .add(Seq.fromCharSequence("protocol"), Seq.fromCharSequence(httpExchange.getProtocol()))
+            .add(Seq.fromCharSequence("remote_address"), Seq.fromCharSequence(httpExchange.getRemoteAddress().toString()))
+            .add(Seq.fromCharSequence("method"), context.symbol(httpExchange.getRequestMethod()))
+            .add(Seq.fromCharSequence("uri"), Seq.fromCharSequence(httpExchange.getRequestURI().toString()));
         final Dict headers = headersToDict(httpExchange.getRequestHeaders());
         final Seq body = bodyToSeq(httpExchange.getRequestBody(), bodyEncodingStr);
         try {
@@ -128,10 +155,7 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
     }
 
     private void returnErrorResponse(HttpExchange httpExchange, Throwable e, Context context) throws IOException {
-      final StringBuilder errorMsg = new StringBuilder();
-      errorMsg.append("Internal Server Error: ");
-      appendExceptionStackTrace(ExceptionUtil.throwableToTuple(e, context), errorMsg);
-      final String errorMsgStr = errorMsg.toString();
+      final String errorMsgStr = "Internal Server Error: " + ExceptionUtil.throwableToString(e, context);
       httpExchange.sendResponseHeaders(500, errorMsgStr.length());
       httpExchange.getResponseBody().write(errorMsgStr.getBytes());
     }
@@ -153,21 +177,6 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
       }
     }
 
-    @CompilerDirectives.TruffleBoundary
-    private void appendExceptionStackTrace(Tuple tuple, StringBuilder errorMsg) {
-      errorMsg.append("(");
-      errorMsg.append(tuple.get(0).toString());
-      errorMsg.append("): ");
-      errorMsg.append(tuple.get(1).toString());
-      errorMsg.append("\r\n");
-      Seq stacktrace = (Seq) tuple.get(2);
-      stacktrace.foldLeft(errorMsg, (acc, el) -> {
-        acc.append(el.toString());
-        acc.append("\r\n");
-        return acc;
-      });
-    }
-
     @CompilerDirectives.TruffleBoundary
     private Object sendResponse(Object result, HttpExchange httpExchange) {
       if (result instanceof Tuple resultTuple) {
@@ -180,9 +189,10 @@ public final class HttpServerBuiltinModule implements BuiltinModule {
                 throw new BadArgException("Invalid response code, it must be < Integer.MAX_VALUE: " + rCode, this);
               }
               try {
+                final byte[] bodyBytes = body.asByteArray(this);
                 writeResponseHeaders(headers, httpExchange.getResponseHeaders());
-                httpExchange.sendResponseHeaders((int) rCode, body.length());
-                httpExchange.getResponseBody().write(body.asByteArray(this));
+                httpExchange.sendResponseHeaders((int) rCode, bodyBytes.length);
+                httpExchange.getResponseBody().write(bodyBytes);
                 httpExchange.close();
               } catch (IOException e) {
                 throw new yona.runtime.exceptions.IOException(e, this);
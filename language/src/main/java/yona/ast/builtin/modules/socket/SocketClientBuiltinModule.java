@@ -35,9 +35,9 @@ public final class SocketClientBuiltinModule implements BuiltinModule {
         SocketChannel clientSocketChannel = context.socketSelector.provider().openSocketChannel();
         clientSocketChannel.configureBlocking(false);
         SelectionKey selectionKey = clientSocketChannel.register(context.socketSelector, SelectionKey.OP_CONNECT);
-        clientSocketChannel.connect(new InetSocketAddress(hostname.asJavaString(this), (int) port));
         TCPClientChannel channel = new TCPClientChannel(context, clientSocketChannel, selectionKey, this, dispatch);
         selectionKey.attach(channel);
+        clientSocketChannel.connect(new InetSocketAddress(hostname.asJavaString(this), (int) port));
         context.socketSelector.wakeup();
         return channel.yonaConnectionPromise.map((connection) -> new ConnectionContextManager((TCPConnection) connection, context), this);
       } catch (IOException e) {
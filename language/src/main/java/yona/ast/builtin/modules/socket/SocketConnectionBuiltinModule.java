@@ -17,6 +17,7 @@ import yona.ast.builtin.modules.BuiltinModule;
 import yona.ast.builtin.modules.BuiltinModuleInfo;
 import yona.runtime.*;
 import yona.runtime.async.Promise;
+import yona.runtime.exceptions.BadArgException;
 import yona.runtime.network.TCPConnection;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
@@ -58,7 +59,7 @@ public final class SocketConnectionBuiltinModule implements BuiltinModule {
     private static <T> T closeConnection(ConnectionContextManager connectionContextManager, T result, Node node) {
       try {
         TCPConnection TCPConnection = connectionContextManager.nativeData(node);
-        TCPConnection.selectionKey.channel().close();
+        TCPConnection.close();
         return result;
       } catch (IOException e) {
         throw new yona.runtime.exceptions.IOException(e, node);
@@ -73,7 +74,7 @@ public final class SocketConnectionBuiltinModule implements BuiltinModule {
       ConnectionContextManager connectionContextManager = ConnectionContextManager.adapt(contextManager, context, this);
       try {
         TCPConnection TCPConnection = connectionContextManager.nativeData(this);
-        TCPConnection.selectionKey.channel().close();
+        TCPConnection.close();
         return Unit.INSTANCE;
       } catch (IOException e) {
         throw new yona.runtime.exceptions.IOException(e, this);
@@ -88,31 +89,60 @@ public final class SocketConnectionBuiltinModule implements BuiltinModule {
       ConnectionContextManager connectionContextManager = ConnectionContextManager.adapt(contextManager, context, this);
       TCPConnection TCPConnection = connectionContextManager.nativeData(this);
       Promise promise = new Promise(dispatch);
-      TCPConnection.readQueue.submit(new TCPConnection.ReadRequest(untilCallback, promise));
-      context.socketSelector.wakeup();
+      TCPConnection.submitRead(new TCPConnection.ReadUntilRequest(untilCallback, promise));
       return promise;
     }
   }
 
-  @NodeInfo(shortName = "write")
-  abstract static class WriteBuiltin extends BuiltinNode {
+  @NodeInfo(shortName = "read_exactly")
+  abstract static class ReadExactlyBuiltin extends BuiltinNode {
+    @Specialization
+    public Object readExactly(ContextManager<?> contextManager, long length, @CachedLibrary(limit = "3") InteropLibrary dispatch, @CachedContext(YonaLanguage.class) Context context) {
+      if (length < 0) {
+        throw new BadArgException("Length to read must not be negative: " + length, this);
+      }
+      ConnectionContextManager connectionContextManager = ConnectionContextManager.adapt(contextManager, context, this);
+      TCPConnection TCPConnection = connectionContextManager.nativeData(this);
+      Promise promise = new Promise(dispatch);
+      TCPConnection.submitRead(new TCPConnection.ReadExactlyRequest(length, promise));
+      return promise;
+    }
+  }
+
+  @NodeInfo(shortName = "read_until_delimiter")
+  abstract static class ReadUntilDelimiterBuiltin extends BuiltinNode {
     @Specialization
-    public Object write(ContextManager<?> contextManager, Seq data, @CachedLibrary(limit = "3") InteropLibrary dispatch, @CachedContext(YonaLanguage.class) Context context) {
+    public Object readUntilDelimiter(ContextManager<?> contextManager, Seq delimiter, @CachedLibrary(limit = "3") InteropLibrary dispatch, @CachedContext(YonaLanguage.class) Context context) {
+      byte[] delimiterBytes = delimiter.asByteArray(this);
+      if (delimiterBytes.length == 0) {
+        throw new BadArgException("Delimiter must not be empty", this);
+      }
       ConnectionContextManager connectionContextManager = ConnectionContextManager.adapt(contextManager, context, this);
       TCPConnection TCPConnection = connectionContextManager.nativeData(this);
       Promise promise = new Promise(dispatch);
-      TCPConnection.writeQueue.submit(new TCPConnection.WriteRequest(data, promise));
-      context.socketSelector.wakeup();
+      TCPConnection.submitRead(new TCPConnection.ReadUntilDelimiterRequest(delimiterBytes, promise));
       return promise;
     }
   }
 
+  @NodeInfo(shortName = "write")
+  abstract static class WriteBuiltin extends BuiltinNode {
+    @Specialization
+    public Object write(ContextManager<?> contextManager, Seq data, @CachedContext(YonaLanguage.class) Context context) {
+      ConnectionContextManager connectionContextManager = ConnectionContextManager.adapt(contextManager, context, this);
+      TCPConnection TCPConnection = connectionContextManager.nativeData(this);
+      return TCPConnection.submitWrite(data, this);
+    }
+  }
+
   @Override
   public Builtins builtins() {
     Builtins builtins = new Builtins();
     builtins.register(new ExportedFunction(SocketConnectionBuiltinModuleFactory.CloseBuiltinFactory.getInstance()));
     builtins.register(new ExportedFunction(SocketConnectionBuiltinModuleFactory.RunBuiltinFactory.getInstance()));
     builtins.register(new ExportedFunction(SocketConnectionBuiltinModuleFactory.ReadUntilBuiltinFactory.getInstance()));
+    builtins.register(new ExportedFunction(SocketConnectionBuiltinModuleFactory.ReadExactlyBuiltinFactory.getInstance()));
+    builtins.register(new ExportedFunction(SocketConnectionBuiltinModuleFactory.ReadUntilDelimiterBuiltinFactory.getInstance()));
     builtins.register(new ExportedFunction(SocketConnectionBuiltinModuleFactory.WriteBuiltinFactory.getInstance()));
     return builtins;
   }
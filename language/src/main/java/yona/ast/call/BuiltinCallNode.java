@@ -1,18 +1,29 @@
 package yona.ast.call;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.ast.ExpressionNode;
 import yona.ast.builtin.BuiltinNode;
 import yona.ast.local.ReadArgumentNode;
+import yona.runtime.async.Promise;
 
+/**
+ * Calls a builtin with the arguments of the call target. Builtins that unwrap argument promises are called only once
+ * all their arguments are resolved. {@link InvokeNode} already does that for direct calls, but builtins passed around as
+ * values are also called by other nodes and through interop.
+ */
 @NodeInfo
 public final class BuiltinCallNode extends ExpressionNode {
   @Child
   private BuiltinNode builtinNode;
+  private final int argumentsCount;
+  private final boolean unwrapArgumentPromises;
 
-  public BuiltinCallNode(NodeFactory<? extends BuiltinNode> nodeFactory) {
+  public BuiltinCallNode(NodeFactory<? extends BuiltinNode> nodeFactory, boolean unwrapArgumentPromises) {
     int argumentsCount = nodeFactory.getExecutionSignature().size();
     ExpressionNode[] arguments = new ExpressionNode[argumentsCount];
 
@@ -20,7 +31,9 @@ public final class BuiltinCallNode extends ExpressionNode {
       arguments[i] = new ReadArgumentNode(i);
     }
 
-    builtinNode = nodeFactory.createNode((Object) arguments);
+    this.builtinNode = nodeFactory.createNode((Object) arguments);
+    this.argumentsCount = argumentsCount;
+    this.unwrapArgumentPromises = unwrapArgumentPromises;
   }
 
   @Override
@@ -31,9 +44,29 @@ public final class BuiltinCallNode extends ExpressionNode {
 
   @Override
   public Object executeGeneric(VirtualFrame frame) {
+    if (unwrapArgumentPromises && hasPromiseArguments(frame.getArguments())) {
+      return callWhenResolved(frame.getArguments());
+    }
     return builtinNode.executeGeneric(frame);
   }
 
+  @ExplodeLoop
+  private boolean hasPromiseArguments(Object[] arguments) {
+    boolean argsArePromise = false;
+    for (int i = 0; i < argumentsCount; i++) {
+      if (i < arguments.length && arguments[i] instanceof Promise) {
+        argsArePromise = true;
+      }
+    }
+    return argsArePromise;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Object callWhenResolved(Object[] arguments) {
+    RootCallTarget callTarget = getRootNode().getCallTarget();
+    return Promise.all(arguments, this).map(argValues -> callTarget.call((Object[]) argValues), this);
+  }
+
   @Override
   public String[] requiredIdentifiers() {
     return builtinNode.getRequiredIdentifiers();
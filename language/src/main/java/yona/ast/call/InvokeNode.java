@@ -2,7 +2,6 @@ package yona.ast.call;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
-import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.instrumentation.Tag;
@@ -15,14 +14,7 @@ import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.YonaException;
 import yona.YonaLanguage;
-import yona.ast.ClosureRootNode;
 import yona.ast.ExpressionNode;
-import yona.ast.controlflow.YonaBlockNode;
-import yona.ast.expression.IdentifierNode;
-import yona.ast.expression.value.AnyValueNode;
-import yona.ast.local.ReadArgumentNode;
-import yona.ast.local.WriteLocalVariableNode;
-import yona.ast.local.WriteLocalVariableNodeGen;
 import yona.runtime.DependencyUtils;
 import yona.runtime.Function;
 import yona.runtime.async.Promise;
@@ -184,57 +176,32 @@ public final class InvokeNode extends ExpressionNode {
     }
   }
 
+  /*
+   * Partial application captures the evaluated arguments in a new function object, which shares the call target of the
+   * original function, so it is dispatched through the same inline cache. If any of the captured arguments is a promise
+   * and the function unwraps them, the partially applied function is created once they are all resolved.
+   */
   private Object createPartiallyAppliedClosure(Function function, VirtualFrame frame) {
-    CompilerDirectives.transferToInterpreterAndInvalidate();
-    /*
-     * Create a closure for `partial`ly applied function
-     */
-    String partiallyAppliedFunctionName = "$partial-" + argumentNodes.length + "/" + function.getCardinality() + "-" + function.getName();
-    ExpressionNode[] allArgumentNodes = new ExpressionNode[function.getCardinality()];
-
-    setEvaluatedArgs(frame, allArgumentNodes);
-    setNotEvaluatedArgs(function, allArgumentNodes);
-
-    /*
-     * Partially applied function will just invoke the original function with arguments constructed as a combination
-     * of those which were provided when this closure was created and those to be read on the following application
-     */
-    InvokeNode invokeNode = new InvokeNode(language, new IdentifierNode(language, function.getName(), moduleStack), allArgumentNodes, moduleStack);
+    Object[] argumentValues = new Object[argumentNodes.length];
+    boolean argsArePromise = evaluateArgs(frame, argumentValues);
 
-    /*
-     * We need to make sure that the original function is still accessible within the closure, even if the partially
-     * applied function already leaves the scope with the original function
-     */
-    WriteLocalVariableNode writeLocalVariableNode;
-    if (functionNode != null) {
-      writeLocalVariableNode = WriteLocalVariableNodeGen.create(functionNode, frame.getFrameDescriptor().findOrAddFrameSlot(function.getName()));
+    if (argsArePromise && function.isUnwrapArgumentPromises()) {
+      return Promise.all(argumentValues, this).map(argValues -> function.partiallyApply((Object[]) argValues), this);
     } else {
-      writeLocalVariableNode = WriteLocalVariableNodeGen.create(new AnyValueNode(function), frame.getFrameDescriptor().findOrAddFrameSlot(function.getName()));
+      return function.partiallyApply(argumentValues);
     }
-
-    YonaBlockNode blockNode = new YonaBlockNode(new ExpressionNode[]{writeLocalVariableNode, invokeNode});
-    ClosureRootNode rootNode = new ClosureRootNode(language, frame.getFrameDescriptor(), blockNode, getSourceSection(), function.getModuleFQN(), partiallyAppliedFunctionName, frame.materialize());
-    return new Function(function.getModuleFQN(), partiallyAppliedFunctionName, Truffle.getRuntime().createCallTarget(rootNode), function.getCardinality() - argumentNodes.length, function.isUnwrapArgumentPromises());
   }
 
-  /*
-   * These are the new arguments, to be read on the actual application of this new closure
-   */
   @ExplodeLoop
-  private void setNotEvaluatedArgs(Function function, ExpressionNode[] allArgumentNodes) {
-    for (int i = argumentNodes.length, j = 0; i < function.getCardinality(); i++, j++) {
-      allArgumentNodes[i] = new ReadArgumentNode(j);
-    }
-  }
-
-  /*
-   * These arguments are already on the stack, so they are evaluated and stored for later
-   */
-  @ExplodeLoop
-  private void setEvaluatedArgs(VirtualFrame frame, ExpressionNode[] allArgumentNodes) {
+  private boolean evaluateArgs(VirtualFrame frame, Object[] argumentValues) {
+    boolean argsArePromise = false;
     for (int i = 0; i < argumentNodes.length; i++) {
-      allArgumentNodes[i] = new AnyValueNode(argumentNodes[i].executeGeneric(frame));
+      argumentValues[i] = argumentNodes[i].executeGeneric(frame);
+      if (argumentValues[i] instanceof Promise) {
+        argsArePromise = true;
+      }
     }
+    return argsArePromise;
   }
 
   @Override
@@ -0,0 +1,108 @@
+package yona.ast.call;
+
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import yona.YonaException;
+import yona.ast.ExpressionNode;
+import yona.runtime.DependencyUtils;
+import yona.runtime.NativeObject;
+import yona.runtime.async.Promise;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Calls a method of a native object, replaces a {@link ModuleCallNode} once it evaluates to one. The receiver is
+ * evaluated on each call, so the same call site works for any number of objects, see {@link JavaMethodDispatchNode}.
+ */
+@NodeInfo(shortName = "javaMethodCall")
+public final class JavaMethodCallNode extends ExpressionNode {
+  @Child
+  private ExpressionNode receiverNode;
+  @Children
+  private final ExpressionNode[] argumentNodes;
+  @Child
+  private JavaMethodDispatchNode dispatchNode;
+  private final String methodName;
+
+  public JavaMethodCallNode(ExpressionNode receiverNode, String methodName, ExpressionNode[] argumentNodes) {
+    this.receiverNode = receiverNode;
+    this.methodName = methodName;
+    this.argumentNodes = argumentNodes;
+    this.dispatchNode = JavaMethodDispatchNode.create(methodName, argumentNodes.length);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    JavaMethodCallNode that = (JavaMethodCallNode) o;
+    return Objects.equals(receiverNode, that.receiverNode) &&
+        Objects.equals(methodName, that.methodName) &&
+        Arrays.equals(argumentNodes, that.argumentNodes);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Objects.hash(receiverNode, methodName);
+    result = 31 * result + Arrays.hashCode(argumentNodes);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "JavaMethodCallNode{" +
+        "receiverNode=" + receiverNode +
+        ", methodName=" + methodName +
+        ", argumentNodes=" + Arrays.toString(argumentNodes) +
+        '}';
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    return call(frame, receiverNode.executeGeneric(frame));
+  }
+
+  @Override
+  protected String[] requiredIdentifiers() {
+    return DependencyUtils.catenateRequiredIdentifiersWith(receiverNode, argumentNodes);
+  }
+
+  Object call(VirtualFrame frame, Object receiver) {
+    if (receiver instanceof NativeObject) {
+      Object javaObject = ((NativeObject<?>) receiver).getValue();
+      Object[] arguments = executeArguments(frame);
+      if (hasPromise(arguments)) {
+        return Promise.all(arguments, this).map(values -> dispatchNode.executeDispatch(javaObject, (Object[]) values), this);
+      } else {
+        return dispatchNode.executeDispatch(javaObject, arguments);
+      }
+    } else if (receiver instanceof Promise) {
+      MaterializedFrame materializedFrame = frame.materialize();
+      return ((Promise) receiver).map(value -> call(materializedFrame, value), this);
+    } else {
+      throw new YonaException("Unexpected error while invoking a method " + methodName + ": " + receiver + " is not a Native Object", this);
+    }
+  }
+
+  @ExplodeLoop
+  private Object[] executeArguments(VirtualFrame frame) {
+    Object[] arguments = new Object[argumentNodes.length];
+    for (int i = 0; i < argumentNodes.length; i++) {
+      arguments[i] = argumentNodes[i].executeGeneric(frame);
+    }
+    return arguments;
+  }
+
+  @ExplodeLoop
+  private boolean hasPromise(Object[] arguments) {
+    for (int i = 0; i < argumentNodes.length; i++) {
+      if (arguments[i] instanceof Promise) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
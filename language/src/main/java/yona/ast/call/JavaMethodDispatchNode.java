@@ -0,0 +1,141 @@
+package yona.ast.call;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import yona.YonaLanguage;
+import yona.runtime.Function;
+import yona.runtime.JavaMethod;
+import yona.runtime.exceptions.PolyglotException;
+
+import java.lang.reflect.Method;
+
+/**
+ * Calls a method of a Java object by name, with a fixed number of arguments. The method and its handle are cached per
+ * receiver class, for up to INLINE_CACHE_SIZE classes, and are looked up on every call beyond that.
+ * <p>
+ * If there is no method of the given arity, but there is one with more parameters, the result is that method partially
+ * applied to the receiver and the arguments.
+ */
+@NodeInfo(shortName = "javaMethodDispatch")
+public abstract class JavaMethodDispatchNode extends Node {
+  static final int INLINE_CACHE_SIZE = 3;
+
+  protected final String methodName;
+  protected final int arity;
+
+  protected JavaMethodDispatchNode(String methodName, int arity) {
+    this.methodName = methodName;
+    this.arity = arity;
+  }
+
+  public static JavaMethodDispatchNode create(String methodName, int arity) {
+    return JavaMethodDispatchNodeGen.create(methodName, arity);
+  }
+
+  public abstract Object executeDispatch(Object receiver, Object[] arguments);
+
+  @Specialization(guards = "receiver.getClass() == cachedClass", limit = "INLINE_CACHE_SIZE")
+  protected Object doCached(Object receiver, Object[] arguments,
+                            @Cached("receiver.getClass()") Class<?> cachedClass,
+                            @Cached("lookup(receiver)") Method method,
+                            @Cached("resolve(method)") JavaMethod javaMethod) {
+    if (javaMethod != null) {
+      return javaMethod.invoke(receiver, arguments, this);
+    } else {
+      return partiallyApply(method, receiver, arguments);
+    }
+  }
+
+  @Specialization(replaces = "doCached")
+  @CompilerDirectives.TruffleBoundary
+  protected Object doGeneric(Object receiver, Object[] arguments) {
+    Method method = lookup(receiver);
+    if (method.getParameterCount() == arity) {
+      return javaInstanceFunction(method).getCallTarget().call(prepend(receiver, arguments));
+    } else {
+      return partiallyApply(method, receiver, arguments);
+    }
+  }
+
+  /**
+   * @return accessible method of the given arity, or of more parameters if there is none
+   */
+  @CompilerDirectives.TruffleBoundary
+  protected Method lookup(Object receiver) {
+    Method method = lookupAccessibleMethod(receiver, receiver.getClass(), arity);
+    if (method == null) {
+      method = lookupAccessibleMethod(receiver, receiver.getClass(), -1);
+    }
+
+    if (method == null || method.getParameterCount() < arity) {
+      throw new PolyglotException(String.format("Unable to find an accessible method '%s' in object '%s'.", methodName, receiver), this);
+    }
+
+    return method;
+  }
+
+  /**
+   * @return handle of the method, null if it is to be partially applied
+   */
+  protected JavaMethod resolve(Method method) {
+    if (method.getParameterCount() != arity) {
+      return null;
+    }
+
+    try {
+      return JavaMethod.create(method);
+    } catch (IllegalAccessException e) {
+      throw new PolyglotException(e, this);
+    }
+  }
+
+  /**
+   * @param arity number of parameters, -1 for any
+   */
+  private Method lookupAccessibleMethod(Object obj, Class<?> cls, int arity) {
+    for (Method method : cls.getMethods()) {
+      if (method.getName().equals(methodName) && (arity < 0 || method.getParameterCount() == arity)) {
+        if (method.canAccess(obj)) {
+          return method;
+        } else {
+          Class<?> supercls = cls.getSuperclass();
+
+          if (supercls != null) {
+            Method possibleMethod = lookupAccessibleMethod(obj, supercls, arity);
+            if (possibleMethod != null) {
+              return possibleMethod;
+            }
+          }
+
+          for (Class<?> intf : cls.getInterfaces()) {
+            Method possibleMethod = lookupAccessibleMethod(obj, intf, arity);
+            if (possibleMethod != null) {
+              return possibleMethod;
+            }
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Function partiallyApply(Method method, Object receiver, Object[] arguments) {
+    return javaInstanceFunction(method).partiallyApply(prepend(receiver, arguments));
+  }
+
+  private Function javaInstanceFunction(Method method) {
+    return lookupContextReference(YonaLanguage.class).get().javaInstanceFunction(method);
+  }
+
+  private static Object[] prepend(Object receiver, Object[] arguments) {
+    Object[] result = new Object[arguments.length + 1];
+    result[0] = receiver;
+    System.arraycopy(arguments, 0, result, 1, arguments.length);
+    return result;
+  }
+}
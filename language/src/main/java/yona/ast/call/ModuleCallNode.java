@@ -1,23 +1,18 @@
 package yona.ast.call;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
-import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.YonaException;
 import yona.YonaLanguage;
 import yona.ast.ExpressionNode;
-import yona.ast.JavaMethodRootNode;
 import yona.runtime.DependencyUtils;
 import yona.runtime.Function;
 import yona.runtime.NativeObject;
 import yona.runtime.YonaModule;
 import yona.runtime.async.Promise;
-import yona.runtime.exceptions.PolyglotException;
 
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -100,53 +95,12 @@ public final class ModuleCallNode extends ExpressionNode {
         return invokeNode.executeGeneric(frame);
       }
     } else if (maybeModule instanceof NativeObject) {
-      NativeObject<?> nativeObject = (NativeObject<?>) maybeModule;
-      Object obj = nativeObject.getValue();
-      Method method = lookupAccessibleMethod(obj, obj.getClass());
+      JavaMethodCallNode javaMethodCallNode = new JavaMethodCallNode(nameNode, functionName, argumentNodes);
 
-      if (method != null) {
-        Function javaFunction = JavaMethodRootNode.buildFunction(language, method, frame.getFrameDescriptor(), nativeObject.getValue());
-        InvokeNode invokeNode = new InvokeNode(language, javaFunction, argumentNodes, moduleStack);
-
-        this.replace(invokeNode);
-        return invokeNode.executeGeneric(frame);
-      } else {
-        throw new PolyglotException(String.format("Unable to find an accessible method '%s' in object '%s'.", functionName, obj), this);
-      }
+      this.replace(javaMethodCallNode);
+      return javaMethodCallNode.call(frame, maybeModule);
     } else {
       throw new YonaException("Unexpected error while invoking a module function: returned value is not a Yona Module", this);
     }
   }
-
-  @ExplodeLoop
-  private Method lookupAccessibleMethod(Object obj, Class<?> cls) {
-    Method[] methods = cls.getMethods();
-    CompilerAsserts.compilationConstant(methods.length);
-
-    for (Method method : methods) {
-      if (method.getName().equals(functionName)) {
-        if (method.canAccess(obj)) {
-          return method;
-        } else {
-          Class<?> supercls = cls.getSuperclass();
-
-          if (supercls != null) {
-            Method possibleMethod = lookupAccessibleMethod(obj, supercls);
-            if (possibleMethod != null) {
-              return possibleMethod;
-            }
-          }
-
-          for (Class<?> intf : cls.getInterfaces()) {
-            Method possibleMethod = lookupAccessibleMethod(obj, intf);
-            if (possibleMethod != null) {
-              return possibleMethod;
-            }
-          }
-        }
-      }
-    }
-
-    return null;
-  }
 }
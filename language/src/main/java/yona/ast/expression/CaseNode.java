@@ -8,14 +8,19 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.ast.ExpressionNode;
-import yona.ast.pattern.MatchControlFlowException;
+import yona.ast.pattern.DecisionTree;
+import yona.ast.pattern.GuardedPattern;
 import yona.ast.pattern.PatternMatchable;
 import yona.runtime.DependencyUtils;
+import yona.runtime.Symbol;
 import yona.runtime.async.Promise;
 import yona.runtime.exceptions.NoMatchException;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 
 @NodeInfo(shortName = "case")
 public final class CaseNode extends ExpressionNode {
@@ -25,6 +30,29 @@ public final class CaseNode extends ExpressionNode {
   @Node.Children
   public PatternMatchable[] patternNodes;
 
+  /*
+   * One decision tree per type (and tuple size) of the matched values seen so far. Once there are more types than
+   * MAX_DECISION_TREES, all clauses are tried in order, for values of any type.
+   */
+  @CompilationFinal(dimensions = 1)
+  private DecisionTree[] decisionTrees = new DecisionTree[0];
+  @CompilationFinal
+  private GenericClauses generic;  // null until the node goes generic
+
+  static final int MAX_DECISION_TREES = 3;
+
+  /*
+   * All clauses in order, published with a single write, so that a thread that sees the node generic also sees them.
+   */
+  private static final class GenericClauses {
+    @CompilationFinal(dimensions = 1)
+    final int[] clauses;
+
+    GenericClauses(int[] clauses) {
+      this.clauses = clauses;
+    }
+  }
+
   public CaseNode(ExpressionNode expression, PatternMatchable[] patternNodes) {
     this.expression = expression;
     this.patternNodes = patternNodes;
@@ -64,7 +92,6 @@ public final class CaseNode extends ExpressionNode {
 
   @Override
   public Object executeGeneric(VirtualFrame frame) {
-    CompilerDirectives.transferToInterpreterAndInvalidate();
     Object value = expression.executeGeneric(frame);
 
     if (value instanceof Promise promise) {
@@ -73,14 +100,18 @@ public final class CaseNode extends ExpressionNode {
       if (unwrappedValue != null) {
         return execute(unwrappedValue, frame);
       } else {
-        MaterializedFrame materializedFrame = frame.materialize();
-        return promise.map(val -> execute(val, materializedFrame), this);
+        return executeLater(promise, frame.materialize());
       }
     } else {
       return execute(value, frame);
     }
   }
 
+  @CompilerDirectives.TruffleBoundary
+  private Object executeLater(Promise promise, MaterializedFrame frame) {
+    return promise.map(val -> execute(val, frame), this);
+  }
+
   @Override
   protected String[] requiredIdentifiers() {
     return DependencyUtils.catenateRequiredIdentifiersWith(expression, patternNodes);
@@ -88,20 +119,112 @@ public final class CaseNode extends ExpressionNode {
 
   @ExplodeLoop
   private Object execute(Object value, VirtualFrame frame) {
-    CompilerAsserts.compilationConstant(patternNodes.length);
-    Object retValue = null;
-    for (int i = 0; i < patternNodes.length; i++) {
-      try {
-        retValue = patternNodes[i].patternMatch(value, frame);
-        break;
-      } catch (MatchControlFlowException ignored) {
+    for (DecisionTree decisionTree : decisionTrees) {
+      if (decisionTree.accepts(value)) {
+        return execute(decisionTree, value, frame);
       }
     }
 
-    if (retValue != null) {
-      return retValue;
-    } else {
-      throw new NoMatchException(this);
+    GenericClauses genericClauses = generic;
+    if (genericClauses == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      DecisionTree decisionTree = specialize(value, frame);
+      if (decisionTree != null) {
+        return execute(decisionTree, value, frame);
+      }
+      genericClauses = generic;
+    }
+
+    return executeClauses(genericClauses.clauses, value, frame);
+  }
+
+  private DecisionTree specialize(Object value, VirtualFrame frame) {
+    Lock lock = getLock();
+    lock.lock();
+    try {
+      for (DecisionTree decisionTree : decisionTrees) {
+        if (decisionTree.accepts(value)) {
+          return decisionTree;
+        }
+      }
+      if (generic != null) {
+        return null;
+      }
+
+      if (decisionTrees.length == MAX_DECISION_TREES) {
+        int[] clauses = new int[patternNodes.length];
+        for (int i = 0; i < clauses.length; i++) {
+          clauses[i] = i;
+        }
+        generic = new GenericClauses(clauses);
+        return null;
+      }
+
+      DecisionTree decisionTree = DecisionTree.build(patternNodes, value, frame);
+      DecisionTree[] newDecisionTrees = Arrays.copyOf(decisionTrees, decisionTrees.length + 1);
+      newDecisionTrees[decisionTrees.length] = decisionTree;
+      decisionTrees = newDecisionTrees;
+      return decisionTree;
+    } finally {
+      lock.unlock();
     }
   }
+
+  @ExplodeLoop
+  private Object execute(DecisionTree decisionTree, Object value, VirtualFrame frame) {
+    if (decisionTree.switchPosition != DecisionTree.NO_SWITCH) {
+      Object discriminant = decisionTree.discriminant(value);
+      for (int i = 0; i < decisionTree.keys.length; i++) {
+        Object key = decisionTree.keys[i];
+        if (key instanceof Symbol ? key == discriminant : key.equals(discriminant)) {
+          return executeClauses(decisionTree.keyedClauses[i], value, frame);
+        }
+      }
+    }
+
+    return executeClauses(decisionTree.otherClauses, value, frame);
+  }
+
+  @ExplodeLoop
+  private Object executeClauses(int[] clauses, Object value, VirtualFrame frame) {
+    CompilerAsserts.compilationConstant(clauses.length);
+    for (int i = 0; i < clauses.length; i++) {
+      PatternMatchable patternNode = patternNodes[clauses[i]];
+      Object result = patternNode.patternMatch(value, frame);
+      if (result != PatternMatchable.NO_MATCH) {
+        if (patternNode instanceof GuardedPattern && result instanceof Promise promise) {
+          return afterGuard(promise, clauses, i + 1, value, frame.materialize());
+        } else {
+          return result;
+        }
+      }
+    }
+
+    throw new NoMatchException(this);
+  }
+
+  /*
+   * The guard of a clause is evaluated asynchronously, the remaining clauses are tried only after it turns out false.
+   */
+  @CompilerDirectives.TruffleBoundary
+  private Object afterGuard(Promise promise, int[] clauses, int nextClause, Object value, MaterializedFrame frame) {
+    return promise.map(result -> result == PatternMatchable.NO_MATCH ? executeClausesFrom(clauses, nextClause, value, frame) : result, this);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Object executeClausesFrom(int[] clauses, int firstClause, Object value, MaterializedFrame frame) {
+    for (int i = firstClause; i < clauses.length; i++) {
+      PatternMatchable patternNode = patternNodes[clauses[i]];
+      Object result = patternNode.patternMatch(value, frame);
+      if (result != PatternMatchable.NO_MATCH) {
+        if (patternNode instanceof GuardedPattern && result instanceof Promise promise) {
+          return afterGuard(promise, clauses, i + 1, value, frame);
+        } else {
+          return result;
+        }
+      }
+    }
+
+    throw new NoMatchException(this);
+  }
 }
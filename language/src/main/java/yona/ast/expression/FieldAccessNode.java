@@ -4,10 +4,12 @@ import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 import yona.YonaException;
 import yona.ast.ExpressionNode;
+import yona.runtime.Record;
 import yona.runtime.Symbol;
 import yona.runtime.Tuple;
 import yona.runtime.YonaModule;
@@ -16,10 +18,18 @@ import yona.runtime.exceptions.InvalidRecordException;
 import yona.runtime.exceptions.NoRecordException;
 import yona.runtime.exceptions.NoRecordFieldException;
 
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
 
 import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 
+/**
+ * Reads a field of a record. Positions of the field in records of up to MAX_CACHED_SHAPES shapes are cached, so that the
+ * access to a {@link Record} is a shape check and a read of the tuple item. Beyond that, the position is looked up in
+ * the shape on each access. Plain tuples tagged with a record type symbol are looked up in the record definitions of
+ * the enclosing modules.
+ */
 @NodeInfo(shortName = "fieldAccess")
 public class FieldAccessNode extends ExpressionNode {
   @Child
@@ -28,6 +38,22 @@ public class FieldAccessNode extends ExpressionNode {
   private final String fieldName;
   @Children
   private final ExpressionNode[] moduleStack;  // FQNNode or AnyValueNode
+  @CompilationFinal(dimensions = 1)
+  private CachedShape[] cachedShapes = new CachedShape[0];
+  @CompilationFinal
+  private boolean generic = false;
+
+  static final int MAX_CACHED_SHAPES = 3;
+
+  private static final class CachedShape {
+    final Record.Shape shape;
+    final int position;
+
+    CachedShape(Record.Shape shape, int position) {
+      this.shape = shape;
+      this.position = position;
+    }
+  }
 
   public FieldAccessNode(IdentifierNode recordName, String fieldName, ExpressionNode[] moduleStack) {
     this.recordName = recordName;
@@ -62,7 +88,9 @@ public class FieldAccessNode extends ExpressionNode {
     CompilerAsserts.compilationConstant(fieldName);
     Object recordValue = recordName.executeGeneric(frame);
 
-    if (recordValue instanceof Tuple) {
+    if (recordValue instanceof Record) {
+      return readField((Record) recordValue);
+    } else if (recordValue instanceof Tuple) {
       Tuple recordTuple = (Tuple) recordValue;
       if (recordTuple.length() <= 1) {
         throw new InvalidRecordException(recordValue, this);
@@ -77,7 +105,9 @@ public class FieldAccessNode extends ExpressionNode {
       MaterializedFrame materializedFrame = frame.materialize();
 
       return ((Promise) recordValue).map(recordTupleObj -> {
-        if (recordTupleObj instanceof Tuple) {
+        if (recordTupleObj instanceof Record) {
+          return readFieldGeneric((Record) recordTupleObj);
+        } else if (recordTupleObj instanceof Tuple) {
           Tuple recordTuple = (Tuple) recordTupleObj;
           return getFieldElementFromTuple(recordTuple, materializedFrame);
         } else {
@@ -89,6 +119,61 @@ public class FieldAccessNode extends ExpressionNode {
     }
   }
 
+  @ExplodeLoop
+  private Object readField(Record record) {
+    if (generic) {
+      return readFieldGeneric(record);
+    }
+
+    for (CachedShape cachedShape : cachedShapes) {
+      if (record.shape == cachedShape.shape) {
+        return record.get(cachedShape.position);
+      }
+    }
+
+    CompilerDirectives.transferToInterpreterAndInvalidate();
+    return record.get(specialize(record.shape));
+  }
+
+  private int specialize(Record.Shape shape) {
+    Lock lock = getLock();
+    lock.lock();
+    try {
+      for (CachedShape cachedShape : cachedShapes) {
+        if (shape == cachedShape.shape) {
+          return cachedShape.position;
+        }
+      }
+
+      int position = fieldPosition(shape);
+      if (!generic) {
+        if (cachedShapes.length == MAX_CACHED_SHAPES) {
+          generic = true;
+        } else {
+          CachedShape[] newCachedShapes = Arrays.copyOf(cachedShapes, cachedShapes.length + 1);
+          newCachedShapes[cachedShapes.length] = new CachedShape(shape, position);
+          cachedShapes = newCachedShapes;
+        }
+      }
+      return position;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Object readFieldGeneric(Record record) {
+    return record.get(fieldPosition(record.shape));
+  }
+
+  private int fieldPosition(Record.Shape shape) {
+    int position = shape.position(fieldName);
+    if (position == -1) {
+      throw new NoRecordFieldException(recordName.toString(), fieldName, this);
+    }
+    return position;
+  }
+
   @Override
   protected String[] requiredIdentifiers() {
     return recordName.getRequiredIdentifiers();
@@ -118,7 +203,7 @@ public class FieldAccessNode extends ExpressionNode {
         try {
           YonaModule module = moduleStack[i].executeModule(frame);
           if (module.getRecords().contains(recordType)) {
-            return (String[]) module.getRecords().lookup(recordType);
+            return ((Record.Shape) module.getRecords().lookup(recordType)).fields;
           }
         } catch (UnexpectedResultException e) {
           continue;
@@ -42,7 +42,7 @@ public final class IdentifierNode extends ExpressionNode {
   @Override
   public Object executeGeneric(VirtualFrame frame) {
     TruffleLanguage.ContextReference<Context> context = lookupContextReference(YonaLanguage.class);
-    Object globalValue = context.get().globals.lookup(name);
+    Object globalValue = context.get().lookupGlobal(name);
     if (!Unit.INSTANCE.equals(globalValue)) {
       if (globalValue instanceof Function && ((Function) globalValue).getCardinality() == 0) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -108,7 +108,7 @@ public final class IdentifierNode extends ExpressionNode {
 
   public boolean isBound(VirtualFrame frame) {
     TruffleLanguage.ContextReference<Context> context = lookupContextReference(YonaLanguage.class);
-    if (context.get().globals.lookup(name) != Unit.INSTANCE) {
+    if (context.get().lookupGlobal(name) != Unit.INSTANCE) {
       return true;
     }
     FrameSlot frameSlot = getFrameSlot(frame);
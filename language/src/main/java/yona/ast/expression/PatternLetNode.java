@@ -1,9 +1,11 @@
 package yona.ast.expression;
 
+import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.TruffleLogger;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.YonaException;
 import yona.YonaLanguage;
@@ -12,12 +14,13 @@ import yona.ast.ExpressionNode;
 import yona.runtime.Context;
 import yona.runtime.Seq;
 import yona.runtime.Set;
-import yona.runtime.Unit;
 import yona.runtime.async.Promise;
 
 import java.util.Arrays;
 import java.util.Objects;
 
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
 @NodeInfo(shortName = "patternLet")
 public final class PatternLetNode extends LexicalScopeNode {
   @Children
@@ -25,6 +28,9 @@ public final class PatternLetNode extends LexicalScopeNode {
   @Child
   public ExpressionNode expression;
 
+  @CompilationFinal(dimensions = 1)
+  private int[] executionOrder;
+
   public PatternLetNode(AliasNode[] patternAliases, ExpressionNode expression) {
     this.patternAliases = patternAliases;
     this.expression = expression;
@@ -60,32 +66,89 @@ public final class PatternLetNode extends LexicalScopeNode {
 
   @Override
   public Object executeGeneric(VirtualFrame frame) {
-    Context context = lookupContextReference(YonaLanguage.class).get();
-
-    CompilerDirectives.transferToInterpreterAndInvalidate();
-    MaterializedFrame materializedFrame = frame.materialize();
-
-    Object result = resolveDependencies(Seq.sequence((AliasNode[]) patternAliases), context.globallyProvidedIdentifiers()).executeGeneric(materializedFrame, this);
-
-    if (result instanceof Promise) {
-      Promise resultPromise = (Promise) result;
-      if (resultPromise.isFulfilled()) {
-        try {
-          resultPromise.unwrapOrThrow();
-        } catch (YonaException e) {
-          throw e;
-        } catch (Throwable e) {
-          throw new YonaException(e, this);
-        }
-        return expression.executeGeneric(materializedFrame);
-      } else {
-        return resultPromise.map(unit -> expression.executeGeneric(materializedFrame), this);
+    if (executionOrder == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      Context context = lookupContextReference(YonaLanguage.class).get();
+      executionOrder = executionOrder(patternAliases, resolveDependencies(Seq.sequence((AliasNode[]) patternAliases), context.globallyProvidedIdentifiers()));
+    }
+
+    return executeAliases(frame);
+  }
+
+  /*
+   * Synchronous path: aliases run in order on the virtual frame, until one of them returns a Promise that is not yet
+   * fulfilled. Only then is the frame materialized, and the remaining aliases continue in the callback.
+   */
+  @ExplodeLoop
+  private Object executeAliases(VirtualFrame frame) {
+    CompilerAsserts.compilationConstant(executionOrder.length);
+    for (int i = 0; i < executionOrder.length; i++) {
+      Object result = patternAliases[executionOrder[i]].executeGeneric(frame);
+      if (result instanceof Promise resultPromise && !unwrapFulfilled(resultPromise)) {
+        return continueAfter(resultPromise, i + 1, frame.materialize());
+      }
+    }
+
+    return expression.executeGeneric(frame);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Object continueAfter(Promise promise, int nextAlias, MaterializedFrame frame) {
+    return promise.map(ignore -> executeAliasesFrom(nextAlias, frame), this);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Object executeAliasesFrom(int firstAlias, MaterializedFrame frame) {
+    for (int i = firstAlias; i < executionOrder.length; i++) {
+      Object result = patternAliases[executionOrder[i]].executeGeneric(frame);
+      if (result instanceof Promise resultPromise && !unwrapFulfilled(resultPromise)) {
+        return continueAfter(resultPromise, i + 1, frame);
+      }
+    }
+
+    return expression.executeGeneric(frame);
+  }
+
+  /**
+   * @return true if the promise was already fulfilled with a value, throws its exception if it failed
+   */
+  private boolean unwrapFulfilled(Promise promise) {
+    if (promise.isFulfilled()) {
+      try {
+        promise.unwrapOrThrow();
+      } catch (YonaException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new YonaException(e, this);
       }
+      return true;
     } else {
-      return expression.executeGeneric(materializedFrame);
+      return false;
     }
   }
 
+  /**
+   * Dependency resolution only depends on the patterns, so it runs once per node. The resulting tree is flattened into
+   * indexes of patternAliases, in the order in which they are executed.
+   */
+  static int[] executionOrder(AliasNode[] patternAliases, AliasTree aliasTree) {
+    Object[] orderedAliases = aliasTree.foldAliasNodes().toArray();
+    int[] order = new int[orderedAliases.length];
+    for (int i = 0; i < orderedAliases.length; i++) {
+      order[i] = indexOf(patternAliases, orderedAliases[i]);
+    }
+    return order;
+  }
+
+  private static int indexOf(AliasNode[] patternAliases, Object aliasNode) {
+    for (int i = 0; i < patternAliases.length; i++) {
+      if (patternAliases[i] == aliasNode) {
+        return i;
+      }
+    }
+    throw new AssertionError("Alias is not part of the let expression: " + aliasNode);
+  }
+
   @Override
   protected String[] requiredIdentifiers() {
     return expression.getRequiredIdentifiers();
@@ -116,8 +179,6 @@ public final class PatternLetNode extends LexicalScopeNode {
     }
 
     public abstract Seq foldAliasNodes();
-
-    public abstract Object executeGeneric(final VirtualFrame frame, final ExpressionNode node);
   }
 
   static class AliasTreeSingletonNode extends AliasTree {
@@ -163,24 +224,6 @@ public final class PatternLetNode extends LexicalScopeNode {
     public Seq foldAliasNodes() {
       return parent.foldAliasNodes().insertLast(aliasNode);
     }
-
-    @Override
-    public Object executeGeneric(VirtualFrame frame, ExpressionNode node) {
-      final Object parentResult = parent.executeGeneric(frame, node);
-      LOGGER.fine("Singleton.execute.aliasNode: " + aliasNode);
-      LOGGER.fine("Singleton.execute.parentResult: " + parentResult);
-
-      if (parentResult instanceof Promise) {
-        final Promise parentPromise = (Promise) parentResult;
-        Object result = parentPromise.map(unit -> aliasNode.executeGeneric(frame), node);
-        LOGGER.fine("Singleton.execute.result: " + result);
-        return result;
-      } else {
-        Object result = aliasNode.executeGeneric(frame);
-        LOGGER.fine("Singleton.execute.result: " + result);
-        return result;
-      }
-    }
   }
 
   static class AliasTreeBatchNode extends AliasTree {
@@ -224,42 +267,7 @@ public final class PatternLetNode extends LexicalScopeNode {
 
     @Override
     public Seq foldAliasNodes() {
-      return parent.foldAliasNodes().insertLast(aliasNodes.toArray(AliasNode.class));
-    }
-
-    private Object executeAliases(final VirtualFrame frame, final ExpressionNode node) {
-      return aliasNodes.foldLeft(null, (acc, aliasNodeObj) -> {
-        final AliasNode aliasNode = (AliasNode) aliasNodeObj;
-        LOGGER.finest("Batch.execute.alias.aliasNode: " + aliasNode);
-        LOGGER.finest("Batch.execute.alias.acc: " + acc);
-
-        if (acc instanceof Promise) {
-          final Promise promise = (Promise) acc;
-          return promise.map(unit -> aliasNode.executeGeneric(frame), node);
-        } else {
-          Object result = aliasNode.executeGeneric(frame);
-          LOGGER.finest("Batch.execute.alias.result: " + result);
-          return result;
-        }
-      });
-    }
-
-    @Override
-    public Object executeGeneric(final VirtualFrame frame, final ExpressionNode node) {
-      final Object parentResult = parent.executeGeneric(frame, node);
-      LOGGER.fine("Batch.execute.aliasNodes: " + aliasNodes);
-      LOGGER.fine("Batch.execute.parentResult: " + parentResult);
-
-      if (parentResult instanceof Promise) {
-        final Promise parentPromise = (Promise) parentResult;
-        Object result = parentPromise.map(ignore -> executeAliases(frame, node), node);
-        LOGGER.fine("Batch.execute.result: " + result);
-        return result;
-      } else {
-        Object result = executeAliases(frame, node);
-        LOGGER.fine("Batch.execute.result: " + result);
-        return result;
-      }
+      return aliasNodes.foldLeft(parent.foldAliasNodes(), Seq::insertLast);
     }
   }
 
@@ -295,10 +303,5 @@ public final class PatternLetNode extends LexicalScopeNode {
     public Seq foldAliasNodes() {
       return Seq.EMPTY;
     }
-
-    @Override
-    public Object executeGeneric(VirtualFrame frame, ExpressionNode node) {
-      return Unit.INSTANCE;
-    }
   }
 }
@@ -64,8 +64,7 @@ public final class StringInterpolationNode extends ExpressionNode {
           if (fulfiledAlignmentValue == null) {
             return fulfiledInterpolationValue;
           } else {
-            CompilerDirectives.transferToInterpreterAndInvalidate();
-            return Seq.fromCharSequence(String.format("%" + TypesGen.expectLong(fulfiledAlignmentValue) + "s", fulfiledInterpolationValue.asJavaString(this)));
+            return StringUtil.pad(fulfiledInterpolationValue, TypesGen.expectLong(fulfiledAlignmentValue));
           }
         } catch (UnexpectedResultException e) {
           throw new NoMatchException(e, this);
@@ -77,8 +76,7 @@ public final class StringInterpolationNode extends ExpressionNode {
         if (alignmentValue == null) {
           return interpolationValueString;
         } else {
-          CompilerDirectives.transferToInterpreterAndInvalidate();
-          return Seq.fromCharSequence(String.format("%" + TypesGen.expectLong(alignmentValue) + "s", interpolationValueString.asJavaString(this)));
+          return StringUtil.pad(interpolationValueString, TypesGen.expectLong(alignmentValue));
         }
       } catch (UnexpectedResultException e) {
         throw new NoMatchException(e, this);
@@ -8,9 +8,10 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.YonaLanguage;
 import yona.ast.ExpressionNode;
-import yona.ast.pattern.MatchControlFlowException;
+import yona.ast.pattern.GuardedPattern;
 import yona.ast.pattern.PatternMatchable;
 import yona.runtime.DependencyUtils;
+import yona.runtime.Tuple;
 import yona.runtime.async.Promise;
 import yona.runtime.exceptions.NoMatchException;
 import yona.runtime.exceptions.util.ExceptionUtil;
@@ -103,22 +104,41 @@ public final class TryCatchNode extends ExpressionNode {
       return value;
     }
 
-    Throwable throwable = (Throwable) value;
+    Tuple exceptionTuple = ExceptionUtil.throwableToTuple((Throwable) value, lookupContextReference(YonaLanguage.class).get());
 
-    Object retValue = null;
     for (int i = 0; i < catchPatterns.length; i++) {
-      try {
-        retValue = catchPatterns[i].patternMatch(ExceptionUtil.throwableToTuple(throwable, lookupContextReference(YonaLanguage.class).get()), frame);
-        break;
-      } catch (MatchControlFlowException ex) {
-        continue;
+      Object result = catchPatterns[i].patternMatch(exceptionTuple, frame);
+      if (result != PatternMatchable.NO_MATCH) {
+        if (catchPatterns[i] instanceof GuardedPattern && result instanceof Promise promise) {
+          return afterGuard(promise, i + 1, exceptionTuple, frame.materialize());
+        } else {
+          return result;
+        }
       }
     }
 
-    if (retValue != null) {
-      return retValue;
-    } else {
+    throw new NoMatchException(this);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Object afterGuard(Promise promise, int nextPattern, Tuple exceptionTuple, MaterializedFrame frame) {
+    return promise.map(result -> {
+      if (result != PatternMatchable.NO_MATCH) {
+        return result;
+      }
+
+      for (int i = nextPattern; i < catchPatterns.length; i++) {
+        Object nextResult = catchPatterns[i].patternMatch(exceptionTuple, frame);
+        if (nextResult != PatternMatchable.NO_MATCH) {
+          if (catchPatterns[i] instanceof GuardedPattern && nextResult instanceof Promise nextPromise) {
+            return afterGuard(nextPromise, i + 1, exceptionTuple, frame);
+          } else {
+            return nextResult;
+          }
+        }
+      }
+
       throw new NoMatchException(this);
-    }
+    }, this);
   }
 }
@@ -95,13 +95,13 @@ public final class DictNode extends ExpressionNode {
   }
 
   private Dict execute(VirtualFrame frame) {
-    Dict dictionary = Dict.EMPTY;
+    final Dict.DictBuilder builder = new Dict.DictBuilder();
 
     for (EntryNode entryNode : items) {
       Object[] executedEntry = (Object[]) entryNode.executeGeneric(frame);
-      dictionary = dictionary.add(executedEntry[0], executedEntry[1]);
+      builder.add(executedEntry[0], executedEntry[1]);
     }
 
-    return dictionary;
+    return builder.build();
   }
 }
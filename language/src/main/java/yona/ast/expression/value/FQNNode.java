@@ -70,7 +70,7 @@ public final class FQNNode extends LiteralValueNode {
     Context context = lookupContextReference(YonaLanguage.class).get();
     try {
       String fqn = Context.getFQN(packageParts, moduleName);
-      Object globalValue = context.globals.lookup(fqn);
+      Object globalValue = context.lookupGlobal(fqn);
       if (!Unit.INSTANCE.equals(globalValue)) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         this.replace(new AnyValueNode(globalValue));
@@ -1,6 +1,7 @@
 package yona.ast.expression.value;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -28,6 +29,8 @@ public final class FunctionNode extends FunctionLikeNode {
   private YonaLanguage language;
   private SourceSection sourceSection;
   private FrameDescriptor frameDescriptor;
+  @CompilerDirectives.CompilationFinal
+  private RootCallTarget callTarget;
 
   public FunctionNode(YonaLanguage language, SourceSection sourceSection, String moduleFQN, String name, int cardinality, FrameDescriptor frameDescriptor, ExpressionNode expression) {
     this.moduleFQN = moduleFQN;
@@ -78,10 +81,16 @@ public final class FunctionNode extends FunctionLikeNode {
     return execute(frame);
   }
 
+  /**
+   * All closures created here share one call target, they differ only in the frame they capture.
+   */
   private Function execute(VirtualFrame frame) {
-    CompilerDirectives.transferToInterpreterAndInvalidate();
-    ClosureRootNode rootNode = new ClosureRootNode(language, frameDescriptor, expression, sourceSection, moduleFQN, name, frame.materialize());
-    return new Function(moduleFQN, name, Truffle.getRuntime().createCallTarget(rootNode), cardinality, true);
+    if (callTarget == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      ClosureRootNode rootNode = new ClosureRootNode(language, frameDescriptor, expression, sourceSection, moduleFQN, name);
+      callTarget = Truffle.getRuntime().createCallTarget(rootNode);
+    }
+    return new Function(moduleFQN, name, callTarget, cardinality, true, frame.materialize());
   }
 
   @Override
@@ -24,7 +24,7 @@ public final class ModuleNode extends ExpressionNode {
   private NonEmptyStringListNode exports;
   @Node.Children
   private FunctionLikeNode[] functions;
-  private final Dict records;  // <String, String[]>
+  private final Dict records;  // <String, Record.Shape>
 
   public ModuleNode(FQNNode moduleFQN, NonEmptyStringListNode exports, FunctionLikeNode[] functions, Dict records) {
     this.moduleFQN = moduleFQN;
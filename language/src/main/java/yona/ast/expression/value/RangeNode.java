@@ -80,12 +80,12 @@ public final class RangeNode extends ExpressionNode {
       final long startVal = TypesGen.expectLong(startResult);
       final long endVal = TypesGen.expectLong(endResult);
 
-      Seq result = Seq.EMPTY;
+      final Seq.SeqBuilder builder = new Seq.SeqBuilder();
       for (long i = startVal; i < endVal; i += stepVal) {
-        result = result.insertLast(i);
+        builder.add(i);
       }
 
-      return result;
+      return builder.build();
     } catch (UnexpectedResultException e) {
       throw YonaException.typeError(this, stepResult, startResult, endResult);
     }
@@ -52,6 +52,10 @@ public final class RecordFieldValueNode extends ExpressionNode {
     return fieldValue.getRequiredIdentifiers();
   }
 
+  public Object executeFieldValue(VirtualFrame frame) {
+    return fieldValue.executeGeneric(frame);
+  }
+
   @Override
   public Tuple executeTuple(VirtualFrame frame) throws UnexpectedResultException {
     return new Tuple(fieldName, fieldValue.executeGeneric(frame));
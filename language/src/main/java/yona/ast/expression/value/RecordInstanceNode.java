@@ -1,12 +1,16 @@
 package yona.ast.expression.value;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 import yona.YonaException;
 import yona.YonaLanguage;
 import yona.ast.ExpressionNode;
 import yona.runtime.DependencyUtils;
+import yona.runtime.Record;
+import yona.runtime.Symbol;
 import yona.runtime.Tuple;
 import yona.runtime.Unit;
 import yona.runtime.YonaModule;
@@ -26,6 +30,12 @@ public final class RecordInstanceNode extends ExpressionNode {
   private final RecordFieldValueNode[] fields;
   @Children
   private final ExpressionNode[] moduleStack;  // FQNNode or AnyValueNode
+  @CompilationFinal
+  private Record.Shape shape;  // resolved on the first execution
+  @CompilationFinal(dimensions = 1)
+  private int[] positions;  // of the fields in the record tuple
+  @CompilationFinal
+  private Symbol recordTypeSymbol;
 
   public RecordInstanceNode(String recordType, RecordFieldValueNode[] fields, ExpressionNode[] moduleStack) {
     this.recordType = recordType;
@@ -72,14 +82,31 @@ public final class RecordInstanceNode extends ExpressionNode {
   }
 
   @Override
+  @ExplodeLoop
   public Tuple executeTuple(VirtualFrame frame) throws UnexpectedResultException {
-    String[] recordFields = null;
+    if (shape == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      resolve(frame);
+    }
+
+    Object[] resultFields = new Object[shape.size()];
+    Arrays.fill(resultFields, Unit.INSTANCE);
+    resultFields[0] = recordTypeSymbol;
+    for (int i = 0; i < fields.length; i++) {
+      resultFields[positions[i]] = fields[i].executeFieldValue(frame);
+    }
+
+    return new Record(shape, resultFields);
+  }
+
+  private void resolve(VirtualFrame frame) {
+    Record.Shape recordShape = null;
     if (moduleStack.length > 0) {
       for (int i = moduleStack.length - 1; i >= 0; i--) {
         try {
           YonaModule module = moduleStack[i].executeModule(frame);
           if (module.getRecords().contains(recordType)) {
-            recordFields = (String[]) module.getRecords().lookup(recordType);
+            recordShape = (Record.Shape) module.getRecords().lookup(recordType);
           }
         } catch (UnexpectedResultException e) {
           continue;
@@ -89,33 +116,20 @@ public final class RecordInstanceNode extends ExpressionNode {
       }
     }
 
-    if (recordFields == null) {
+    if (recordShape == null) {
       throw new NoRecordException(recordType, this);
-    } else {
-      Object[] resultFields = new Object[recordFields.length + 1];
-      Arrays.fill(resultFields, Unit.INSTANCE);
-      resultFields[0] = lookupContextReference(YonaLanguage.class).get().symbol(recordType);
-      for (RecordFieldValueNode field : fields) {
-        Tuple fieldTuple = field.executeTuple(frame);
-        setField((String) fieldTuple.get(0), fieldTuple.get(1), recordFields, resultFields);
-      }
-
-      return new Tuple(resultFields);
     }
-  }
 
-  private void setField(String fieldName, Object fieldValue, String[] recordFields, Object[] resultFields) {
-    int fieldPos = -1;
-    for (int i = 0; i < recordFields.length; i++) {
-      if (fieldName.equals(recordFields[i])) {
-        fieldPos = i;
+    int[] fieldPositions = new int[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      fieldPositions[i] = recordShape.position(fields[i].fieldName);
+      if (fieldPositions[i] == -1) {
+        throw new NoRecordFieldException(recordType, fields[i].fieldName, this);
       }
     }
 
-    if (fieldPos == -1) {
-      throw new NoRecordFieldException(recordType, fieldName, this);
-    } else {
-      resultFields[fieldPos + 1] = fieldValue;
-    }
+    this.positions = fieldPositions;
+    this.recordTypeSymbol = lookupContextReference(YonaLanguage.class).get().symbol(recordType);
+    this.shape = recordShape;
   }
 }
@@ -3,12 +3,14 @@ package yona.ast.expression.value;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 import yona.TypesGen;
 import yona.YonaException;
 import yona.ast.ExpressionNode;
 import yona.runtime.DependencyUtils;
+import yona.runtime.Record;
 import yona.runtime.Symbol;
 import yona.runtime.Tuple;
 import yona.runtime.YonaModule;
@@ -19,7 +21,15 @@ import yona.runtime.exceptions.NoRecordFieldException;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
 
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Creates a copy of a record with some of the fields updated. Positions of the fields are cached for up to
+ * MAX_CACHED_SHAPES shapes of the updated {@link Record}. Plain tuples tagged with a record type symbol are looked up in
+ * the record definitions of the enclosing modules, and the result is a record of the shape found.
+ */
 @NodeInfo(shortName = "recordInstance")
 public final class RecordUpdateNode extends ExpressionNode {
   @Child
@@ -28,6 +38,23 @@ public final class RecordUpdateNode extends ExpressionNode {
   private final RecordFieldValueNode[] fields;
   @Children
   private final ExpressionNode[] moduleStack;  // FQNNode or AnyValueNode
+  @CompilationFinal(dimensions = 1)
+  private CachedShape[] cachedShapes = new CachedShape[0];
+  @CompilationFinal
+  private boolean generic = false;
+
+  static final int MAX_CACHED_SHAPES = 3;
+
+  private static final class CachedShape {
+    final Record.Shape shape;
+    @CompilationFinal(dimensions = 1)
+    final int[] positions;
+
+    CachedShape(Record.Shape shape, int[] positions) {
+      this.shape = shape;
+      this.positions = positions;
+    }
+  }
 
   public RecordUpdateNode(ExpressionNode recordIdentifier, RecordFieldValueNode[] fields, ExpressionNode[] moduleStack) {
     this.recordIdentifier = recordIdentifier;
@@ -62,7 +89,9 @@ public final class RecordUpdateNode extends ExpressionNode {
   @Override
   public Object executeGeneric(VirtualFrame frame) {
     Object originalRecordValue = recordIdentifier.executeGeneric(frame);
-    if (originalRecordValue instanceof Tuple) {
+    if (originalRecordValue instanceof Record) {
+      return updateRecord(frame, (Record) originalRecordValue, positions(((Record) originalRecordValue).shape));
+    } else if (originalRecordValue instanceof Tuple) {
       try {
         return executeTupleValue(frame, (Tuple) originalRecordValue);
       } catch (UnexpectedResultException e) {
@@ -74,7 +103,9 @@ public final class RecordUpdateNode extends ExpressionNode {
       MaterializedFrame materializedFrame = frame.materialize();
 
       return originalRecordPromise.map(val -> {
-        if (val instanceof Tuple) {
+        if (val instanceof Record) {
+          return updateRecord(materializedFrame, (Record) val, fieldPositions(((Record) val).shape));
+        } else if (val instanceof Tuple) {
           try {
             return executeTupleValue(materializedFrame, (Tuple) val);
           } catch (UnexpectedResultException e) {
@@ -94,17 +125,82 @@ public final class RecordUpdateNode extends ExpressionNode {
     return DependencyUtils.catenateRequiredIdentifiersWith(recordIdentifier, fields);
   }
 
-  private Tuple executeTupleValue(VirtualFrame frame, Tuple originalRecordTuple) throws UnexpectedResultException {
+  @ExplodeLoop
+  private Record updateRecord(VirtualFrame frame, Record originalRecord, int[] positions) {
+    Record result = originalRecord.copy();
+    for (int i = 0; i < fields.length; i++) {
+      result.set(positions[i], fields[i].executeFieldValue(frame));
+    }
+
+    return result;
+  }
+
+  @ExplodeLoop
+  private int[] positions(Record.Shape shape) {
+    if (generic) {
+      return fieldPositions(shape);
+    }
+
+    for (CachedShape cachedShape : cachedShapes) {
+      if (shape == cachedShape.shape) {
+        return cachedShape.positions;
+      }
+    }
+
+    CompilerDirectives.transferToInterpreterAndInvalidate();
+    return specialize(shape);
+  }
+
+  private int[] specialize(Record.Shape shape) {
+    Lock lock = getLock();
+    lock.lock();
+    try {
+      for (CachedShape cachedShape : cachedShapes) {
+        if (shape == cachedShape.shape) {
+          return cachedShape.positions;
+        }
+      }
+
+      int[] positions = fieldPositions(shape);
+      if (!generic) {
+        if (cachedShapes.length == MAX_CACHED_SHAPES) {
+          generic = true;
+        } else {
+          CachedShape[] newCachedShapes = Arrays.copyOf(cachedShapes, cachedShapes.length + 1);
+          newCachedShapes[cachedShapes.length] = new CachedShape(shape, positions);
+          cachedShapes = newCachedShapes;
+        }
+      }
+      return positions;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private int[] fieldPositions(Record.Shape shape) {
+    int[] positions = new int[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      positions[i] = shape.position(fields[i].fieldName);
+      if (positions[i] == -1) {
+        throw new NoRecordFieldException(shape.type, fields[i].fieldName, this);
+      }
+    }
+
+    return positions;
+  }
+
+  private Record executeTupleValue(VirtualFrame frame, Tuple originalRecordTuple) throws UnexpectedResultException {
     Symbol recordTypeSymbol = TypesGen.expectSymbol(originalRecordTuple.get(0));
     String recordType = recordTypeSymbol.asString();
 
-    String[] recordFields = null;
+    Record.Shape recordShape = null;
     if (moduleStack.length > 0) {
       for (int i = moduleStack.length - 1; i >= 0; i--) {
         try {
           YonaModule module = moduleStack[i].executeModule(frame);
           if (module.getRecords().contains(recordType)) {
-            recordFields = (String[]) module.getRecords().lookup(recordType);
+            recordShape = (Record.Shape) module.getRecords().lookup(recordType);
           }
         } catch (UnexpectedResultException e) {
           continue;
@@ -114,35 +210,14 @@ public final class RecordUpdateNode extends ExpressionNode {
       }
     }
 
-    if (recordFields == null) {
+    if (recordShape == null) {
       throw new NoRecordException(recordType, this);
     } else {
-      if (originalRecordTuple.length() != recordFields.length + 1) {
+      if (originalRecordTuple.length() != recordShape.size()) {
         throw new InvalidRecordException(originalRecordTuple, this);
       }
 
-      Object[] resultFields = originalRecordTuple.toArray().clone();
-      for (RecordFieldValueNode field : fields) {
-        Tuple fieldTuple = field.executeTuple(frame);
-        setField(recordType, (String) fieldTuple.get(0), fieldTuple.get(1), recordFields, resultFields);
-      }
-
-      return new Tuple(resultFields);
-    }
-  }
-
-  private void setField(String recordType, String fieldName, Object fieldValue, String[] recordFields, Object[] resultFields) {
-    int fieldPos = -1;
-    for (int i = 0; i < recordFields.length; i++) {
-      if (fieldName.equals(recordFields[i])) {
-        fieldPos = i;
-      }
-    }
-
-    if (fieldPos == -1) {
-      throw new NoRecordFieldException(recordType, fieldName, this);
-    } else {
-      resultFields[fieldPos + 1] = fieldValue;
+      return updateRecord(frame, new Record(recordShape, originalRecordTuple.toArray()), fieldPositions(recordShape));
     }
   }
 }
@@ -6,7 +6,6 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 import yona.ast.ExpressionNode;
 import yona.runtime.DependencyUtils;
-import yona.runtime.Murmur3;
 import yona.runtime.Set;
 
 import java.util.Arrays;
@@ -56,11 +55,11 @@ public class SetNode extends ExpressionNode {
   }
 
   private Set execute(VirtualFrame frame) {
-    Set set = Set.empty(Murmur3.INSTANCE, 0L);
-    for (ExpressionNode expressionNode : expressions) {
-      set = set.add(expressionNode.executeGeneric(frame));
+    final Object[] values = new Object[expressions.length];
+    for (int i = 0; i < expressions.length; i++) {
+      values[i] = expressions[i].executeGeneric(frame);
     }
 
-    return set;
+    return Set.set(values);
   }
 }
@@ -1,24 +1,19 @@
 package yona.ast.expression.value;
 
 import com.oracle.truffle.api.CompilerDirectives;
-import yona.YonaLanguage;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import yona.YonaLanguage;
 import yona.runtime.Symbol;
 
 import java.util.Objects;
 
 @NodeInfo(shortName = "symbol")
-public class SymbolNode extends LiteralValueNode {
+public final class SymbolNode extends LiteralValueNode {
   public final String value;
-
-  /**
-   * Only to be used by CachedSymbolNode
-   */
-  SymbolNode() {
-    value = null;
-  }
+  @CompilerDirectives.CompilationFinal
+  private Symbol symbol;  // interned on the first execution, a constant in compiled code
 
   public SymbolNode(String value) {
     this.value = value;
@@ -46,18 +41,19 @@ public class SymbolNode extends LiteralValueNode {
 
   @Override
   public Object executeGeneric(VirtualFrame frame) {
-    return execute(frame);
+    return symbol();
   }
 
   @Override
   public Symbol executeSymbol(VirtualFrame frame) throws UnexpectedResultException {
-    return execute(frame);
+    return symbol();
   }
 
-  private Symbol execute(VirtualFrame frame) {
-    Symbol symbol = lookupContextReference(YonaLanguage.class).get().symbol(value);
-    CompilerDirectives.transferToInterpreterAndInvalidate();
-    this.replace(new CachedSymbolNode(symbol));
+  private Symbol symbol() {
+    if (symbol == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      symbol = lookupLanguageReference(YonaLanguage.class).get().symbols.intern(value);
+    }
     return symbol;
   }
 }
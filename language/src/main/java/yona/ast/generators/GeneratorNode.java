@@ -16,6 +16,13 @@ import yona.runtime.Context;
 import yona.runtime.Function;
 import yona.runtime.UninitializedFrameSlot;
 
+/**
+ * A generator is reduced as {@code Reducers::reduce (Transducers::map reducer Reducers::to_seq) source}, with
+ * {@code Transducers::filter} in front of the map for a condition, and {@code to_set} or {@code to_dict} for the other
+ * collections. Transducers applied to the sink of {@code to_seq} make a {@link yona.runtime.Pipeline}, which is
+ * reduced by a single loop collecting the elements into a {@link yona.runtime.Seq.SeqBuilder} (set, dict builder),
+ * so no intermediate collection is created per element.
+ */
 @NodeInfo(shortName = "generator")
 public final class GeneratorNode extends ExpressionNode {
   @Child
@@ -43,6 +43,11 @@ public final class AsDataStructureMatchNode extends MatchNode {
         '}';
   }
 
+  @Override
+  public Class<?> valueType() {
+    return matchNode.valueType();
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
     MatchResult matchResult = matchNode.match(value, frame);
@@ -0,0 +1,186 @@
+package yona.ast.pattern;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import yona.ast.ExpressionNode;
+import yona.ast.expression.value.FQNNode;
+import yona.ast.expression.value.LiteralValueNode;
+import yona.runtime.Symbol;
+import yona.runtime.Tuple;
+import yona.runtime.Unit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Clauses of a case expression that can match values of one runtime type (and, for tuples, of one size), in their
+ * original order. Clauses with a pattern of a different type or size are left out without being tried.
+ * <p>
+ * If at least two clauses compare the same position of the value against a literal (typically a symbol tag of a
+ * message, or of one of the function arguments), that position is read once and compared against the literals. Only
+ * the clauses with the matching literal, or without a literal at that position, are then tried.
+ */
+public final class DecisionTree {
+  public static final int NO_SWITCH = -2;
+  public static final int SWITCH_ON_VALUE = -1;
+
+  public final Class<?> valueType;
+  public final int tupleSize;  // -1 if the value is not a tuple
+  public final int switchPosition;  // position in the tuple, SWITCH_ON_VALUE or NO_SWITCH
+  @CompilationFinal(dimensions = 1)
+  public final Object[] keys;
+  @CompilationFinal(dimensions = 2)
+  public final int[][] keyedClauses;
+  @CompilationFinal(dimensions = 1)
+  public final int[] otherClauses;
+
+  private DecisionTree(Class<?> valueType, int tupleSize, int switchPosition, Object[] keys, int[][] keyedClauses, int[] otherClauses) {
+    this.valueType = valueType;
+    this.tupleSize = tupleSize;
+    this.switchPosition = switchPosition;
+    this.keys = keys;
+    this.keyedClauses = keyedClauses;
+    this.otherClauses = otherClauses;
+  }
+
+  public boolean accepts(Object value) {
+    return value.getClass() == valueType && (tupleSize < 0 || ((Tuple) value).size() == tupleSize);
+  }
+
+  public Object discriminant(Object value) {
+    if (switchPosition == SWITCH_ON_VALUE) {
+      return value;
+    } else {
+      return ((Tuple) value).get(switchPosition);
+    }
+  }
+
+  /**
+   * Keys are limited to types with a simple equals, that is symmetric with the equals used by ValueMatchNode.
+   */
+  static boolean isKey(Object value) {
+    return value instanceof Symbol || value instanceof Long || value instanceof Double || value instanceof Byte ||
+        value instanceof Integer || value instanceof Boolean || value instanceof Unit;
+  }
+
+  /**
+   * Builds the tree for values of the same type (and size) as the given one. Literals in the patterns are evaluated in
+   * the given frame.
+   */
+  public static DecisionTree build(PatternMatchable[] patterns, Object value, VirtualFrame frame) {
+    CompilerAsserts.neverPartOfCompilation();
+    Class<?> valueClass = value.getClass();
+    int tupleSize = value instanceof Tuple tuple ? tuple.size() : -1;
+
+    List<Integer> candidates = new ArrayList<>();
+    for (int i = 0; i < patterns.length; i++) {
+      MatchNode matchNode = patterns[i].getMatchExpression();
+      Class<?> patternType = matchNode.valueType();
+      if (patternType != null && !patternType.isAssignableFrom(valueClass)) {
+        continue;
+      }
+      if (tupleSize >= 0 && matchNode instanceof TupleMatchNode tupleMatchNode && tupleMatchNode.expressions.length != tupleSize) {
+        continue;
+      }
+      candidates.add(i);
+    }
+
+    int switchPosition = NO_SWITCH;
+    Object[] switchKeys = null;
+    int keyedCount = 1;  // at least two keyed clauses are needed for a switch
+    int lastPosition = tupleSize >= 0 ? tupleSize - 1 : SWITCH_ON_VALUE;
+    for (int position = tupleSize >= 0 ? 0 : SWITCH_ON_VALUE; position <= lastPosition; position++) {
+      Object[] positionKeys = new Object[candidates.size()];
+      int count = 0;
+      for (int i = 0; i < positionKeys.length; i++) {
+        positionKeys[i] = literalAt(patterns[candidates.get(i)].getMatchExpression(), position, frame);
+        if (positionKeys[i] != null) {
+          count++;
+        }
+      }
+      if (count > keyedCount) {
+        switchPosition = position;
+        switchKeys = positionKeys;
+        keyedCount = count;
+      }
+    }
+
+    if (switchPosition == NO_SWITCH) {
+      return new DecisionTree(valueClass, tupleSize, NO_SWITCH, new Object[0], new int[0][], toArray(candidates));
+    }
+
+    Map<Object, List<Integer>> keyed = new LinkedHashMap<>();
+    List<Integer> others = new ArrayList<>();
+    for (int i = 0; i < switchKeys.length; i++) {
+      if (switchKeys[i] != null) {
+        keyed.computeIfAbsent(switchKeys[i], k -> new ArrayList<>());
+      }
+    }
+    for (int i = 0; i < switchKeys.length; i++) {
+      Integer clause = candidates.get(i);
+      if (switchKeys[i] != null) {
+        keyed.get(switchKeys[i]).add(clause);
+      } else {
+        others.add(clause);
+        for (List<Integer> clauses : keyed.values()) {
+          clauses.add(clause);
+        }
+      }
+    }
+
+    Object[] keys = keyed.keySet().toArray();
+    int[][] keyedClauses = new int[keys.length][];
+    for (int i = 0; i < keys.length; i++) {
+      keyedClauses[i] = toArray(keyed.get(keys[i]));
+    }
+
+    return new DecisionTree(valueClass, tupleSize, switchPosition, keys, keyedClauses, toArray(others));
+  }
+
+  /**
+   * @return the literal that the pattern compares the value (or the tuple item at position) with, null if there is none
+   */
+  private static Object literalAt(MatchNode matchNode, int position, VirtualFrame frame) {
+    ExpressionNode expression;
+    if (position == SWITCH_ON_VALUE) {
+      expression = matchNode;
+    } else if (matchNode instanceof TupleMatchNode tupleMatchNode) {
+      expression = tupleMatchNode.expressions[position];
+    } else {
+      return null;
+    }
+
+    if (expression instanceof ValueMatchNode valueMatchNode) {
+      expression = valueMatchNode.getExpression();
+    }
+
+    if (expression instanceof LiteralValueNode && !(expression instanceof FQNNode)) {
+      Object literal = expression.executeGeneric(frame);
+      return isKey(literal) ? literal : null;
+    } else {
+      return null;
+    }
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] result = new int[list.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = list.get(i);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "DecisionTree{" +
+        "valueType=" + valueType.getSimpleName() +
+        ", tupleSize=" + tupleSize +
+        ", switchPosition=" + switchPosition +
+        ", keys=" + keys.length +
+        '}';
+  }
+}
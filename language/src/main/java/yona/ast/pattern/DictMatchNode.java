@@ -42,6 +42,11 @@ public final class DictMatchNode extends MatchNode {
         '}';
   }
 
+  @Override
+  public Class<?> valueType() {
+    return Dict.class;
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
     if (value instanceof Dict) {
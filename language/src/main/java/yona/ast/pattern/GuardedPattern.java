@@ -5,7 +5,7 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.ast.AliasNode;
 import yona.ast.ExpressionNode;
 import yona.ast.expression.ConditionNode;
-import yona.ast.expression.ThrowNode;
+import yona.ast.expression.value.AnyValueNode;
 import yona.runtime.DependencyUtils;
 
 import java.util.Objects;
@@ -19,7 +19,7 @@ public final class GuardedPattern extends PatternMatchable {
 
   public GuardedPattern(MatchNode matchExpression, ExpressionNode guardExpression, ExpressionNode valueExpression) {
     this.matchExpression = matchExpression;
-    this.conditionNode = new ConditionNode(guardExpression, valueExpression, new ThrowNode(MatchControlFlowException.INSTANCE));
+    this.conditionNode = new ConditionNode(guardExpression, valueExpression, new AnyValueNode(NO_MATCH));
   }
 
   @Override
@@ -51,7 +51,7 @@ public final class GuardedPattern extends PatternMatchable {
   }
 
   @Override
-  public Object patternMatch(Object value, VirtualFrame frame) throws MatchControlFlowException {
+  public Object patternMatch(Object value, VirtualFrame frame) {
     MatchResult matchResult = matchExpression.match(value, frame);
     if (matchResult.isMatches()) {
       for (AliasNode aliasNode : matchResult.getAliases()) {
@@ -59,10 +59,15 @@ public final class GuardedPattern extends PatternMatchable {
       }
       return conditionNode.executeGeneric(frame);
     } else {
-      throw MatchControlFlowException.INSTANCE;
+      return NO_MATCH;
     }
   }
 
+  @Override
+  public MatchNode getMatchExpression() {
+    return matchExpression;
+  }
+
   @Override
   public Object executeGeneric(VirtualFrame frame) {
     return null;
@@ -62,6 +62,11 @@ public final class HeadTailsHeadMatchNode extends MatchNode {
     return DependencyUtils.catenateRequiredIdentifiers(DependencyUtils.catenateRequiredIdentifiersWith(tailsNode, leftNodes), rightPatterns);
   }
 
+  @Override
+  public Class<?> valueType() {
+    return Seq.class;
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
     if (value instanceof Seq) {
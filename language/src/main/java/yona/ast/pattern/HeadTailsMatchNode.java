@@ -53,6 +53,11 @@ public final class HeadTailsMatchNode extends MatchNode {
     return tailsNode.getRequiredIdentifiers();
   }
 
+  @Override
+  public Class<?> valueType() {
+    return Seq.class;
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
     if (value instanceof Seq) {
@@ -10,4 +10,11 @@ public abstract class MatchNode extends AliasNode {
   }
 
   public abstract MatchResult match(Object value, VirtualFrame frame);
+
+  /**
+   * Values that are not instances of this type never match the pattern. Null if the pattern may match any value.
+   */
+  public Class<?> valueType() {
+    return null;
+  }
 }
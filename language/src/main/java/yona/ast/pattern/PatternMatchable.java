@@ -4,5 +4,21 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 import yona.ast.ExpressionNode;
 
 public abstract class PatternMatchable extends ExpressionNode {
-  public abstract Object patternMatch(Object value, VirtualFrame frame) throws MatchControlFlowException;
+  /**
+   * Returned by patternMatch if the pattern (or its guard) does not match. It never escapes the case or catch
+   * expression that the pattern belongs to.
+   */
+  public static final Object NO_MATCH = new Object() {
+    @Override
+    public String toString() {
+      return "NO_MATCH";
+    }
+  };
+
+  /**
+   * @return result of the pattern's value expression, or NO_MATCH
+   */
+  public abstract Object patternMatch(Object value, VirtualFrame frame);
+
+  public abstract MatchNode getMatchExpression();
 }
@@ -51,7 +51,7 @@ public class PatternNode extends PatternMatchable {
   }
 
   @Override
-  public Object patternMatch(Object value, VirtualFrame frame) throws MatchControlFlowException {
+  public Object patternMatch(Object value, VirtualFrame frame) {
     MatchResult matchResult = matchExpression.match(value, frame);
     if (matchResult.isMatches()) {
       for (AliasNode nameAliasNode : matchResult.getAliases()) {
@@ -59,10 +59,15 @@ public class PatternNode extends PatternMatchable {
       }
       return valueExpression.executeGeneric(frame);
     } else {
-      throw MatchControlFlowException.INSTANCE;
+      return NO_MATCH;
     }
   }
 
+  @Override
+  public MatchNode getMatchExpression() {
+    return matchExpression;
+  }
+
   @Override
   public Object executeGeneric(VirtualFrame frame) {
     return null;
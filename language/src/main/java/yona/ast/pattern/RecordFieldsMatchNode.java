@@ -1,5 +1,6 @@
 package yona.ast.pattern;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
@@ -8,6 +9,7 @@ import yona.YonaLanguage;
 import yona.ast.AliasNode;
 import yona.ast.ExpressionNode;
 import yona.runtime.*;
+import yona.runtime.Record;
 
 import java.util.Arrays;
 import java.util.Objects;
@@ -22,6 +24,12 @@ public final class RecordFieldsMatchNode extends MatchNode {
   public RecordPatternFieldNode[] fieldMatchNodes;
   @Children
   private final ExpressionNode[] moduleStack;  // FQNNode or AnyValueNode
+  @CompilationFinal
+  private boolean resolved = false;
+  @CompilationFinal
+  private Record.Shape shape;  // null if the record is not defined
+  @CompilationFinal
+  private Symbol recordTypeSymbol;
 
   public RecordFieldsMatchNode(String recordType, RecordPatternFieldNode[] fieldMatchNodes, ExpressionNode[] moduleStack) {
     this.recordType = recordType;
@@ -60,58 +68,76 @@ public final class RecordFieldsMatchNode extends MatchNode {
     return DependencyUtils.catenateRequiredIdentifiers(fieldMatchNodes);
   }
 
+  @Override
+  public Class<?> valueType() {
+    return Tuple.class;
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
-    if (value instanceof Tuple) {
-      Tuple tuple = (Tuple) value;
+    if (!resolved) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      resolve(frame);
+    }
 
-      String[] recordFields = null;
-      if (moduleStack.length > 0) {
-        for (int i = moduleStack.length - 1; i >= 0; i--) {
-          try {
-            YonaModule module = moduleStack[i].executeModule(frame);
-            if (module.getRecords().contains(recordType)) {
-              recordFields = (String[]) module.getRecords().lookup(recordType);
-            }
-          } catch (UnexpectedResultException e) {
-            continue;
-          } catch (YonaException e) {  // IO error
-            continue;
-          }
+    if (shape != null && value instanceof Tuple && isRecord((Tuple) value)) {
+      Tuple tuple = (Tuple) value;
+      Seq aliases = Seq.EMPTY;
+
+      boolean matched = false;
+      for (RecordPatternFieldNode fieldMatchNode : fieldMatchNodes) {
+        MatchResult matchResult = fieldMatchNode.match(new Object[]{tuple, shape}, frame);
+        if (!matchResult.isMatches()) {
+          continue;
+        } else {
+          matched = true;
+          aliases = Seq.catenate(aliases, Seq.sequence((Object[]) matchResult.getAliases()));
         }
       }
 
-      if (recordFields != null) {
-        Context context = lookupContextReference(YonaLanguage.class).get();
-        Symbol recordTypeSymbol = context.symbol(recordType);
-
-        if (tuple.get(0) instanceof Symbol && recordTypeSymbol.equals((tuple.get(0))) && recordFields.length + 1 == tuple.length()) {
-          Seq aliases = Seq.EMPTY;
-
-          boolean matched = false;
-          for (RecordPatternFieldNode fieldMatchNode : fieldMatchNodes) {
-            MatchResult matchResult = fieldMatchNode.match(new Object[]{tuple, recordFields}, frame);
-            if (!matchResult.isMatches()) {
-              continue;
-            } else {
-              matched = true;
-              aliases = Seq.catenate(aliases, Seq.sequence((Object[]) matchResult.getAliases()));
-            }
-          }
+      if (matched) {
+        aliases.foldLeft(null, (acc, alias) -> {
+          ((AliasNode) alias).executeGeneric(frame);
+          return null;
+        });
 
-          if (matched) {
-            aliases.foldLeft(null, (acc, alias) -> {
-              ((AliasNode) alias).executeGeneric(frame);
-              return null;
-            });
+        return MatchResult.TRUE;
+      }
+    }
+
+    return MatchResult.FALSE;
+  }
 
-            return MatchResult.TRUE;
+  /**
+   * Records of the shape of this pattern are matched by the shape check alone, other tuples by the type symbol and size.
+   */
+  private boolean isRecord(Tuple tuple) {
+    if (tuple instanceof Record && ((Record) tuple).shape == shape) {
+      return true;
+    }
+    return recordTypeSymbol.equals(tuple.get(0)) && shape.size() == tuple.length();
+  }
+
+  private void resolve(VirtualFrame frame) {
+    Record.Shape recordShape = null;
+    if (moduleStack.length > 0) {
+      for (int i = moduleStack.length - 1; i >= 0; i--) {
+        try {
+          YonaModule module = moduleStack[i].executeModule(frame);
+          if (module.getRecords().contains(recordType)) {
+            recordShape = (Record.Shape) module.getRecords().lookup(recordType);
           }
+        } catch (UnexpectedResultException e) {
+          continue;
+        } catch (YonaException e) {  // IO error
+          continue;
         }
       }
     }
 
-    return MatchResult.FALSE;
+    this.recordTypeSymbol = lookupContextReference(YonaLanguage.class).get().symbol(recordType);
+    this.shape = recordShape;
+    this.resolved = true;
   }
 
   @Override
@@ -124,6 +150,8 @@ public final class RecordFieldsMatchNode extends MatchNode {
     String fieldName;
     @Child
     MatchNode fieldValue;
+    @CompilationFinal
+    int fieldPos = 0;  // 0 until resolved, -1 if the record has no such field
 
     public RecordPatternFieldNode(String fieldName, MatchNode fieldValue) {
       this.fieldName = fieldName;
@@ -161,14 +189,10 @@ public final class RecordFieldsMatchNode extends MatchNode {
     public MatchResult match(Object value, VirtualFrame frame) {
       Object[] inputValues = (Object[]) value;
       Tuple tuple = (Tuple) inputValues[0];
-      String[] recordFields = (String[]) inputValues[1];
 
-      int fieldPos = -1;
-      for (int i = 0; i < recordFields.length; i++) {
-        if (fieldName.equals(recordFields[i])) {
-          fieldPos = i + 1;
-          break;
-        }
+      if (fieldPos == 0) {  // the shape is the same on every match
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        fieldPos = ((Record.Shape) inputValues[1]).position(fieldName);
       }
 
       if (fieldPos != -1) {
@@ -1,5 +1,6 @@
 package yona.ast.pattern;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
@@ -17,6 +18,8 @@ import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 public final class RecordTypeMatchNode extends MatchNode {
   @CompilationFinal private final String recordType;
   @Children private final ExpressionNode[] moduleStack;  // FQNNode or AnyValueNode
+  @CompilationFinal private boolean resolved = false;
+  @CompilationFinal private boolean recordDefined;
 
   public RecordTypeMatchNode(String recordType, ExpressionNode[] moduleStack) {
     this.recordType = recordType;
@@ -51,26 +54,45 @@ public final class RecordTypeMatchNode extends MatchNode {
     return new String[0];
   }
 
+  @Override
+  public Class<?> valueType() {
+    return Tuple.class;
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
     if (value instanceof Tuple) {
-      if (moduleStack.length > 0) {
-        for (int i = moduleStack.length - 1; i >= 0; i--) {
-          try {
-            YonaModule module = moduleStack[i].executeModule(frame);
-            if (module.getRecords().contains(recordType)) {
-              return MatchResult.TRUE;
-            }
-          } catch (UnexpectedResultException e) {
-            continue;
-          } catch (YonaException e) {  // IO error
-            continue;
+      if (!resolved) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        recordDefined = isRecordDefined(frame);
+        resolved = true;
+      }
+
+      if (recordDefined) {
+        return MatchResult.TRUE;
+      }
+    }
+
+    return MatchResult.FALSE;
+  }
+
+  private boolean isRecordDefined(VirtualFrame frame) {
+    if (moduleStack.length > 0) {
+      for (int i = moduleStack.length - 1; i >= 0; i--) {
+        try {
+          YonaModule module = moduleStack[i].executeModule(frame);
+          if (module.getRecords().contains(recordType)) {
+            return true;
           }
+        } catch (UnexpectedResultException e) {
+          continue;
+        } catch (YonaException e) {  // IO error
+          continue;
         }
       }
     }
 
-    return MatchResult.FALSE;
+    return false;
   }
 
   @Override
@@ -43,6 +43,11 @@ public final class SequenceMatchNode extends MatchNode {
     return DependencyUtils.catenateRequiredIdentifiers(matchNodes);
   }
 
+  @Override
+  public Class<?> valueType() {
+    return Seq.class;
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
     if (value instanceof Seq) {
@@ -53,6 +53,11 @@ public final class TailsHeadMatchNode extends MatchNode {
     return new String[0];
   }
 
+  @Override
+  public Class<?> valueType() {
+    return Seq.class;
+  }
+
   @Override
   public MatchResult match(Object value, VirtualFrame frame) {
     if (value instanceof Seq) {
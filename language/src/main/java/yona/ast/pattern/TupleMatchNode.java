@@ -7,7 +7,6 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import yona.ast.AliasNode;
 import yona.ast.ExpressionNode;
 import yona.runtime.DependencyUtils;
-import yona.runtime.Seq;
 import yona.runtime.Tuple;
 
 import java.util.Arrays;
@@ -48,11 +47,17 @@ public final class TupleMatchNode extends MatchNode {
   }
 
   @Override
+  public Class<?> valueType() {
+    return Tuple.class;
+  }
+
+  @Override
+  @ExplodeLoop
   public MatchResult match(Object value, VirtualFrame frame) {
     if (value instanceof Tuple tuple) {
 
       if (tuple.size() == expressions.length) {
-        Seq aliases = Seq.EMPTY;
+        AliasNode[][] aliases = new AliasNode[expressions.length][];
 
         for (int i = 0; i < expressions.length; i++) {
           if (expressions[i] instanceof MatchNode matchNode) {
@@ -61,7 +66,7 @@ public final class TupleMatchNode extends MatchNode {
             if (!nestedMatchResult.isMatches()) {
               return MatchResult.FALSE;
             } else {
-              aliases = Seq.catenate(aliases, Seq.sequence((Object[]) nestedMatchResult.getAliases()));
+              aliases[i] = nestedMatchResult.getAliases();
             }
           } else {
             Object exprVal = expressions[i].executeGeneric(frame);
@@ -72,10 +77,11 @@ public final class TupleMatchNode extends MatchNode {
           }
         }
 
-        aliases.foldLeft(null, (acc, alias) -> {
-          ((AliasNode) alias).executeGeneric(frame);
-          return null;
-        });
+        for (int i = 0; i < expressions.length; i++) {
+          if (aliases[i] != null) {
+            executeAliases(aliases[i], frame);
+          }
+        }
 
         return MatchResult.TRUE;
       }
@@ -84,6 +90,12 @@ public final class TupleMatchNode extends MatchNode {
     return MatchResult.FALSE;
   }
 
+  private static void executeAliases(AliasNode[] aliases, VirtualFrame frame) {
+    for (AliasNode alias : aliases) {
+      alias.executeGeneric(frame);
+    }
+  }
+
   @Override
   @ExplodeLoop
   protected String[] providedIdentifiers() {
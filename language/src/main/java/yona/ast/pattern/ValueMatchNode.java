@@ -9,6 +9,7 @@ import yona.ast.expression.IdentifierNode;
 import yona.ast.expression.NameAliasNode;
 import yona.ast.expression.value.AnyValueNode;
 import yona.ast.local.ReadLocalVariableNode;
+import yona.runtime.Symbol;
 import yona.runtime.exceptions.UninitializedFrameSlotException;
 
 import java.util.Objects;
@@ -77,6 +78,9 @@ public final class ValueMatchNode extends MatchNode {
       }
     } else {
       Object exprValue = expression.executeGeneric(frame);
+      if (exprValue instanceof Symbol) {  // interned
+        return value == exprValue ? MatchResult.TRUE : MatchResult.FALSE;
+      }
       return Objects.equals(value, exprValue) ? MatchResult.TRUE : MatchResult.FALSE;
     }
   }
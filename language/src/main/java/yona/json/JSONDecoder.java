@@ -0,0 +1,208 @@
+package yona.json;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.Node;
+import yona.runtime.Seq;
+import yona.runtime.exceptions.BadArgException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental parser of a stream of JSON documents, such as newline delimited JSON read from a file or a socket, in
+ * chunks of any size. Documents are separated by whitespace, or follow each other directly if they are objects, arrays
+ * or strings.
+ * <p>
+ * Decoders are immutable, decoding a chunk returns a new decoder, that holds only the unfinished document at the end
+ * of the chunk, together with the scanning state, so that only the new chunk is scanned. The unfinished document is
+ * kept as a list of its chunks, which are joined once, when the document is complete. Chunks are text or UTF-8 bytes,
+ * an incomplete multi-byte sequence at the end of a byte chunk is carried over to the next one.
+ */
+public final class JSONDecoder {
+  public static final JSONDecoder EMPTY = new JSONDecoder(null, false, false, 0, false, false, new byte[0]);
+
+  private final Pending pending;  // chunks of the unfinished document, null if there is none
+  private final boolean inDocument;
+  private final boolean scalar;  // number or literal, which only ends with whitespace or the start of another document
+  private final int depth;
+  private final boolean inString;
+  private final boolean escaped;
+  private final byte[] carry;
+
+  private JSONDecoder(Pending pending, boolean inDocument, boolean scalar, int depth, boolean inString, boolean escaped, byte[] carry) {
+    this.pending = pending;
+    this.inDocument = inDocument;
+    this.scalar = scalar;
+    this.depth = depth;
+    this.inString = inString;
+    this.escaped = escaped;
+    this.carry = carry;
+  }
+
+  /*
+   * Chunks of an unfinished document, the last one first. Shared by decoders, as they are never modified.
+   */
+  private record Pending(String chunk, Pending previous, int length) {
+    Pending append(String text) {
+      return new Pending(text, this, length + text.length());
+    }
+
+    /**
+     * @return the pending text followed by the given one
+     */
+    String join(String text, int end) {
+      final char[] chars = new char[length + end];
+      text.getChars(0, end, chars, length);
+      int offset = length;
+      for (Pending part = this; part != null; part = part.previous) {
+        offset -= part.chunk.length();
+        part.chunk.getChars(0, part.chunk.length(), chars, offset);
+      }
+      return new String(chars);
+    }
+  }
+
+  public static final class Result {
+    public final Seq documents;
+    public final JSONDecoder decoder;
+
+    Result(Seq documents, JSONDecoder decoder) {
+      this.documents = documents;
+      this.decoder = decoder;
+    }
+  }
+
+  /**
+   * @param endOfInput whether this is the last chunk, an unfinished document is an error then
+   * @return documents completed by the chunk, and the decoder for the next chunk
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Result decode(Seq chunk, boolean endOfInput, Node node) {
+    final String text;
+    final byte[] nextCarry;
+    if (chunk.isString()) {
+      text = chunk.asJavaString(node);
+      nextCarry = carry;
+    } else {
+      byte[] bytes = bytesWithCarry(chunk, node);
+      int complete = completeUtf8Length(bytes);
+      text = new String(bytes, 0, complete, StandardCharsets.UTF_8);
+      nextCarry = Arrays.copyOfRange(bytes, complete, bytes.length);
+    }
+
+    Pending pending = this.pending;  // set while the current document started in an earlier chunk
+    Seq.SeqBuilder documents = new Seq.SeqBuilder();
+
+    boolean inDocument = this.inDocument;
+    boolean scalar = this.scalar;
+    int depth = this.depth;
+    boolean inString = this.inString;
+    boolean escaped = this.escaped;
+    int start = 0;
+
+    int i = 0;
+    while (i < text.length()) {
+      char c = text.charAt(i);
+      if (!inDocument) {
+        if (!JSONReader.isWhitespace(c)) {
+          inDocument = true;
+          start = i;
+          if (c == '{' || c == '[') {
+            depth = 1;
+          } else if (c == '"') {
+            inString = true;
+          } else {
+            scalar = true;
+          }
+        }
+      } else if (scalar) {
+        if (JSONReader.isWhitespace(c) || c == '{' || c == '[' || c == '"') {
+          documents.add(read(pending, text, start, i, node));
+          pending = null;
+          inDocument = false;
+          scalar = false;
+          continue;  // the character may start the next document
+        }
+      } else if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          inString = false;
+          if (depth == 0) {
+            documents.add(read(pending, text, start, i + 1, node));
+            pending = null;
+            inDocument = false;
+          }
+        }
+      } else if (c == '"') {
+        inString = true;
+      } else if (c == '{' || c == '[') {
+        depth++;
+      } else if (c == '}' || c == ']') {
+        if (--depth == 0) {
+          documents.add(read(pending, text, start, i + 1, node));
+          pending = null;
+          inDocument = false;
+        }
+      }
+      i++;
+    }
+
+    if (endOfInput) {
+      if (nextCarry.length > 0) {
+        throw new BadArgException("Invalid JSON: incomplete UTF-8 sequence at the end of input", node);
+      } else if (inDocument && scalar) {
+        documents.add(read(pending, text, start, text.length(), node));
+      } else if (inDocument) {
+        final String rest = pending == null ? text.substring(start) : pending.join(text, text.length());
+        throw new BadArgException("Invalid JSON: incomplete document at the end of input: " + rest, node);
+      }
+      return new Result(documents.build(), EMPTY);
+    } else if (inDocument) {
+      final Pending rest = pending == null ? new Pending(text.substring(start), null, text.length() - start) : pending.append(text);
+      return new Result(documents.build(), new JSONDecoder(rest, true, scalar, depth, inString, escaped, nextCarry));
+    } else {
+      return new Result(documents.build(), new JSONDecoder(null, false, false, 0, false, false, nextCarry));
+    }
+  }
+
+  /*
+   * Reads a document that ends in the current chunk, and starts either in it, or in the pending chunks.
+   */
+  private static Object read(Pending pending, String text, int start, int end, Node node) {
+    if (pending == null) {
+      return JSONReader.read(text, start, end, node);
+    } else {
+      final String document = pending.join(text, end);
+      return JSONReader.read(document, 0, document.length(), node);
+    }
+  }
+
+  private byte[] bytesWithCarry(Seq chunk, Node node) {
+    byte[] bytes = chunk.asByteArray(node);
+    if (carry.length == 0) {
+      return bytes;
+    }
+    byte[] result = new byte[carry.length + bytes.length];
+    System.arraycopy(carry, 0, result, 0, carry.length);
+    System.arraycopy(bytes, 0, result, carry.length, bytes.length);
+    return result;
+  }
+
+  /*
+   * Length of the bytes without an incomplete UTF-8 sequence at their end.
+   */
+  private static int completeUtf8Length(byte[] bytes) {
+    final int end = bytes.length;
+    for (int i = end - 1; i >= Math.max(0, end - 4); i--) {
+      final byte b = bytes[i];
+      if ((b & 0xc0) != 0x80) {
+        final int length = b >= 0 ? 1 : (b & 0xe0) == 0xc0 ? 2 : (b & 0xf0) == 0xe0 ? 3 : (b & 0xf8) == 0xf0 ? 4 : 1;
+        return i + length <= end ? end : i;
+      }
+    }
+    return end;
+  }
+}
@@ -0,0 +1,264 @@
+package yona.json;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.Node;
+import yona.runtime.Dict;
+import yona.runtime.Seq;
+import yona.runtime.Unit;
+import yona.runtime.exceptions.BadArgException;
+
+/**
+ * Single pass JSON parser, reading Yona values straight from the text: objects to dictionaries with string keys,
+ * arrays to sequences, strings to strings, integers to integers (floats if they do not fit), other numbers to floats,
+ * booleans to booleans and null to unit.
+ */
+public final class JSONReader {
+  private final String text;
+  private final int end;
+  private final Node node;
+  private int pos;
+
+  private JSONReader(String text, int start, int end, Node node) {
+    this.text = text;
+    this.pos = start;
+    this.end = end;
+    this.node = node;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static Object read(String text, Node node) {
+    return read(text, 0, text.length(), node);
+  }
+
+  /**
+   * Read a single document from the given range of the text, surrounding whitespace is allowed.
+   */
+  @CompilerDirectives.TruffleBoundary
+  public static Object read(String text, int start, int end, Node node) {
+    JSONReader reader = new JSONReader(text, start, end, node);
+    reader.skipWhitespace();
+    Object value = reader.readValue();
+    reader.skipWhitespace();
+    if (reader.pos < end) {
+      throw reader.error("unexpected content after the end of document");
+    }
+    return value;
+  }
+
+  private Object readValue() {
+    if (pos >= end) {
+      throw error("unexpected end of input");
+    }
+    char c = text.charAt(pos);
+    switch (c) {
+      case '{':
+        return readObject();
+      case '[':
+        return readArray();
+      case '"':
+        return Seq.fromCharSequence(readString());
+      case 't':
+        readLiteral("true");
+        return Boolean.TRUE;
+      case 'f':
+        readLiteral("false");
+        return Boolean.FALSE;
+      case 'n':
+        readLiteral("null");
+        return Unit.INSTANCE;
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          return readNumber();
+        }
+        throw error("unexpected character '" + c + "'");
+    }
+  }
+
+  private Dict readObject() {
+    pos++;
+    Dict dict = Dict.EMPTY;
+    skipWhitespace();
+    if (peek() == '}') {
+      pos++;
+      return dict;
+    }
+    while (true) {
+      if (peek() != '"') {
+        throw error("expected a string key");
+      }
+      Seq key = Seq.fromCharSequence(readString());
+      skipWhitespace();
+      expect(':');
+      skipWhitespace();
+      dict = dict.add(key, readValue());
+      skipWhitespace();
+      if (peek() == ',') {
+        pos++;
+        skipWhitespace();
+      } else {
+        expect('}');
+        return dict;
+      }
+    }
+  }
+
+  private Seq readArray() {
+    pos++;
+    Seq.SeqBuilder builder = new Seq.SeqBuilder();
+    skipWhitespace();
+    if (peek() == ']') {
+      pos++;
+      return builder.build();
+    }
+    while (true) {
+      builder.add(readValue());
+      skipWhitespace();
+      if (peek() == ',') {
+        pos++;
+        skipWhitespace();
+      } else {
+        expect(']');
+        return builder.build();
+      }
+    }
+  }
+
+  private String readString() {
+    int start = ++pos;
+    // strings without escape sequences are taken as they are
+    while (pos < end) {
+      char c = text.charAt(pos);
+      if (c == '"') {
+        return text.substring(start, pos++);
+      } else if (c == '\\') {
+        break;
+      } else if (c < 0x20) {
+        throw error("unescaped control character in a string");
+      }
+      pos++;
+    }
+
+    StringBuilder sb = new StringBuilder(pos - start + 16).append(text, start, pos);
+    while (pos < end) {
+      char c = text.charAt(pos++);
+      if (c == '"') {
+        return sb.toString();
+      } else if (c == '\\') {
+        if (pos >= end) {
+          break;
+        }
+        char escaped = text.charAt(pos++);
+        switch (escaped) {
+          case '"', '\\', '/' -> sb.append(escaped);
+          case 'b' -> sb.append('\b');
+          case 'f' -> sb.append('\f');
+          case 'n' -> sb.append('\n');
+          case 'r' -> sb.append('\r');
+          case 't' -> sb.append('\t');
+          case 'u' -> sb.append(readUnicodeEscape());
+          default -> throw error("invalid escape sequence '\\" + escaped + "'");
+        }
+      } else if (c < 0x20) {
+        throw error("unescaped control character in a string");
+      } else {
+        sb.append(c);
+      }
+    }
+    throw error("unterminated string");
+  }
+
+  private char readUnicodeEscape() {
+    if (pos + 4 > end) {
+      throw error("invalid unicode escape sequence");
+    }
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      int digit = Character.digit(text.charAt(pos++), 16);
+      if (digit < 0) {
+        throw error("invalid unicode escape sequence");
+      }
+      value = (value << 4) | digit;
+    }
+    return (char) value;
+  }
+
+  private Object readNumber() {
+    int start = pos;
+    boolean integer = true;
+    if (peek() == '-') {
+      pos++;
+    }
+    if (peek() == '0') {
+      pos++;
+    } else if (!skipDigits()) {
+      throw error("invalid number");
+    }
+    if (peek() == '.') {
+      pos++;
+      integer = false;
+      if (!skipDigits()) {
+        throw error("invalid number");
+      }
+    }
+    if (peek() == 'e' || peek() == 'E') {
+      pos++;
+      integer = false;
+      if (peek() == '+' || peek() == '-') {
+        pos++;
+      }
+      if (!skipDigits()) {
+        throw error("invalid number");
+      }
+    }
+
+    String number = text.substring(start, pos);
+    if (integer) {
+      try {
+        return Long.parseLong(number);
+      } catch (NumberFormatException e) {
+        // too large for an integer
+      }
+    }
+    return Double.parseDouble(number);
+  }
+
+  private boolean skipDigits() {
+    int start = pos;
+    while (pos < end && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+      pos++;
+    }
+    return pos > start;
+  }
+
+  private void readLiteral(String literal) {
+    if (!text.startsWith(literal, pos) || pos + literal.length() > end) {
+      throw error("unexpected character '" + text.charAt(pos) + "'");
+    }
+    pos += literal.length();
+  }
+
+  private void skipWhitespace() {
+    while (pos < end && isWhitespace(text.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+  }
+
+  private int peek() {
+    return pos < end ? text.charAt(pos) : -1;
+  }
+
+  private void expect(char c) {
+    if (peek() != c) {
+      throw error(pos < end ? "expected '" + c + "'" : "unexpected end of input");
+    }
+    pos++;
+  }
+
+  private BadArgException error(String message) {
+    return new BadArgException("Invalid JSON at position " + pos + ": " + message, node);
+  }
+}
@@ -0,0 +1,146 @@
+package yona.json;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.Node;
+import yona.runtime.*;
+import yona.runtime.exceptions.NoMatchException;
+import yona.runtime.strings.StringUtil;
+
+/**
+ * Single pass JSON generator, writing Yona values to one buffer: strings, characters and symbols as strings,
+ * sequences, sets and tuples as arrays, dictionaries as objects and unit as null. Functions, modules and native objects
+ * cannot be serialized.
+ */
+public final class JSONWriter {
+  private final StringBuilder sb = new StringBuilder();
+  private final Node node;
+
+  private JSONWriter(Node node) {
+    this.node = node;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static Seq write(Object value, Node node) {
+    JSONWriter writer = new JSONWriter(node);
+    writer.writeValue(value);
+    return Seq.fromCharSequence(writer.sb);
+  }
+
+  private void writeValue(Object value) {
+    if (value == Unit.INSTANCE) {
+      sb.append("null");
+    } else if (value instanceof Integer) {
+      writeString(Character.toString((int) value));
+    } else if (value instanceof Seq) {
+      writeSeq((Seq) value);
+    } else if (value instanceof Tuple) {
+      writeElements(((Tuple) value).toArray());
+    } else if (value instanceof Dict) {
+      writeDict((Dict) value);
+    } else if (value instanceof Set) {
+      writeSet((Set) value);
+    } else if (value instanceof Symbol) {
+      writeString(((Symbol) value).asString());
+    } else if (value instanceof Function) {
+      throw new NoMatchException("Functions cannot be serialized to JSON", node);
+    } else if (value instanceof YonaModule) {
+      throw new NoMatchException("Modules cannot be serialized to JSON", node);
+    } else if (value instanceof NativeObject) {
+      throw new NoMatchException("Native objects cannot be serialized to JSON", node);
+    } else {
+      sb.append(StringUtil.yonaValueAsYonaString(value).asJavaString(node));
+    }
+  }
+
+  private void writeSeq(Seq seq) {
+    if (seq.isString()) {
+      writeString(seq.asJavaString(node));
+      return;
+    }
+
+    sb.append('[');
+    LeafCursor cursor = seq.leafCursor();
+    boolean first = true;
+    while (cursor.nextLeaf()) {
+      for (int i = 0; i < cursor.leafLength(); i++) {
+        if (!first) {
+          sb.append(", ");
+        }
+        writeValue(cursor.element(i));
+        first = false;
+      }
+    }
+    sb.append(']');
+  }
+
+  private void writeElements(Object[] elements) {
+    sb.append('[');
+    for (int i = 0; i < elements.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      writeValue(elements[i]);
+    }
+    sb.append(']');
+  }
+
+  private void writeDict(Dict dict) {
+    sb.append('{');
+    dict.fold(true, (first, key, value) -> {
+      if (!first) {
+        sb.append(", ");
+      }
+      writeKey(key);
+      sb.append(": ");
+      writeValue(value);
+      return false;
+    });
+    sb.append('}');
+  }
+
+  /*
+   * Object keys are always strings, keys of other types are written as their string representation.
+   */
+  private void writeKey(Object key) {
+    if (key instanceof Seq || key instanceof Symbol || key instanceof Integer) {
+      writeValue(key);
+    } else {
+      writeString(StringUtil.yonaValueAsYonaString(key).asJavaString(node));
+    }
+  }
+
+  private void writeSet(Set set) {
+    sb.append('[');
+    set.fold(true, (first, value) -> {
+      if (!first) {
+        sb.append(", ");
+      }
+      writeValue(value);
+      return false;
+    });
+    sb.append(']');
+  }
+
+  private void writeString(String str) {
+    sb.append('"');
+    int start = 0;
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c == '"' || c == '\\' || c < 0x20) {
+        sb.append(str, start, i);
+        start = i + 1;
+        switch (c) {
+          case '"' -> sb.append("\\\"");
+          case '\\' -> sb.append("\\\\");
+          case '\b' -> sb.append("\\b");
+          case '\f' -> sb.append("\\f");
+          case '\n' -> sb.append("\\n");
+          case '\r' -> sb.append("\\r");
+          case '\t' -> sb.append("\\t");
+          default -> sb.append(String.format("\\u%04x", (int) c));
+        }
+      }
+    }
+    sb.append(str, start, str.length()).append('"');
+  }
+}
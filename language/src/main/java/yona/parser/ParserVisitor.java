@@ -21,6 +21,7 @@ import yona.ast.local.ReadArgumentNode;
 import yona.ast.pattern.*;
 import yona.runtime.Context;
 import yona.runtime.Dict;
+import yona.runtime.Record;
 import yona.runtime.Seq;
 
 import java.util.*;
@@ -480,13 +481,14 @@ public final class ParserVisitor extends YonaParserBaseVisitor<ExpressionNode> {
 
     for (int i = 0; i < ctx.record().size(); i++) {
       YonaParser.RecordContext recordContext = ctx.record(i);
+      String recordName = recordContext.UPPERCASE_NAME().getText();
       String[] fields = new String[recordContext.identifier().size()];
 
       for (int j = 0; j < recordContext.identifier().size(); j++) {
         fields[j] = recordContext.identifier(j).getText();
       }
 
-      records = records.add(recordContext.UPPERCASE_NAME().getText(), fields);
+      records = records.add(recordName, new Record.Shape(recordName, fields));
     }
 
     for (int i = 0; i < functionPatternsCount; i++) {
@@ -11,7 +11,6 @@ import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.api.source.SourceSection;
 import yona.YonaException;
 import yona.YonaLanguage;
-import yona.ast.ExpressionNode;
 import yona.ast.FunctionRootNode;
 import yona.ast.JavaMethodRootNode;
 import yona.ast.builtin.*;
@@ -22,82 +21,113 @@ import yona.ast.builtin.modules.socket.SocketClientBuiltinModule;
 import yona.ast.builtin.modules.socket.SocketConnectionBuiltinModule;
 import yona.ast.builtin.modules.socket.SocketServerBuiltinModule;
 import yona.ast.call.BuiltinCallNode;
-import yona.ast.call.InvokeNode;
-import yona.ast.controlflow.YonaBlockNode;
-import yona.ast.expression.SimpleIdentifierNode;
-import yona.ast.expression.value.AnyValueNode;
-import yona.ast.local.ReadArgumentNode;
-import yona.ast.local.WriteLocalVariableNode;
-import yona.ast.local.WriteLocalVariableNodeGen;
 import yona.runtime.annotations.ExceptionSymbol;
 import yona.runtime.stdlib.BuiltinModules;
 import yona.runtime.stdlib.Builtins;
 import yona.runtime.stdlib.ExportedFunction;
+import yona.runtime.threading.IOExecutors;
 import yona.runtime.threading.Threading;
+import yona.runtime.threading.TimerWheel;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.lang.reflect.Method;
+import java.net.http.HttpClient;
 import java.nio.channels.Selector;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public final class Context {
   public static final Source JAVA_BUILTIN_SOURCE = Source.newBuilder("java", "", "Java builtin").internal(true).build();
   public static final SourceSection JAVA_SOURCE_SECTION = JAVA_BUILTIN_SOURCE.createUnavailableSection();
   //  private TruffleLogger LOGGER;
   public static final String YONA_PATH = "YONA_PATH";
+  private static final int REGEX_CACHE_SIZE = 256;
 
   /**
    * cached instance of identity function as it is used commonly across the board
    */
   public Function identityFunction;
 
-  private final TruffleLanguage.Env env;
-  private final BufferedReader input;
-  private final PrintWriter output;
+  private EnvState envState;  // replaced when a pre-initialized context is patched
   private final YonaLanguage language;
-  private final AllocationReporter allocationReporter;  // TODO use this
   public final Builtins builtins;
   public final BuiltinModules builtinModules;
-  private Dict symbols = Dict.empty(Murmur3.INSTANCE, 0L);
   private Dict moduleCache = Dict.empty(Murmur3.INSTANCE, 0L);
   public Threading threading;
   public ExecutorService ioExecutor;
-  public Dict globals = Dict.empty(Murmur3.INSTANCE, 0L);
+  public TimerWheel timerWheel;
+  public volatile Dict globals = Dict.empty(Murmur3.INSTANCE, 0L);
+  /**
+   * stdlib modules not loaded yet, by FQN. A module is loaded and merged into {@link #globals} once it is looked up. It
+   * stays here until it is merged, so that concurrent lookups wait for it.
+   */
+  private final Map<String, TruffleFile> stdlibModules = new ConcurrentHashMap<>();
+  private final java.util.Set<String> loadingStdlibModules = new HashSet<>();  // guarded by this context
   public final FrameDescriptor globalFrameDescriptor;
   public final MaterializedFrame globalFrame;
   private final Path stdlibHome;
   private final Path languageHome;
   public static final ThreadLocal<Dict> LOCAL_CONTEXTS = ThreadLocal.withInitial(Dict::empty);
-  private final boolean printAllResults;
   public Selector socketSelector;
+  /**
+   * http clients shared by the sessions of the same redirect policy, credentials are kept by the sessions
+   */
+  public final Map<HttpClient.Redirect, HttpClient> httpClients = new ConcurrentHashMap<>();
+  /**
+   * compiled regular expressions by their source, the least recently used ones are evicted
+   */
+  public final Map<String, Object> regexCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+      return size() > REGEX_CACHE_SIZE;
+    }
+  });
+  private final Map<Method, Function> javaInstanceFunctions = new ConcurrentHashMap<>();
 
   public Context(final YonaLanguage language, final TruffleLanguage.Env env, final Path languageHomePath, final Path stdlibHomePath) {
-    this.env = env;
-    this.input = new BufferedReader(new InputStreamReader(env.in()));
-    this.output = new PrintWriter(env.out(), true, StandardCharsets.UTF_8);
     this.language = language;
-    this.allocationReporter = env.lookup(AllocationReporter.class);
     this.builtins = new Builtins();
     this.builtinModules = new BuiltinModules();
     this.globalFrameDescriptor = new FrameDescriptor(UninitializedFrameSlot.INSTANCE);
     this.globalFrame = this.initGlobalFrame();
     this.languageHome = languageHomePath;
     this.stdlibHome = stdlibHomePath;
-    if (env.getEnvironment().containsKey("YONA_PRINT_ALL_RESULTS")) {
-      this.printAllResults = Boolean.parseBoolean(env.getEnvironment().get("YONA_PRINT_ALL_RESULTS"));
-    } else {
-      this.printAllResults = false;
+    this.envState = new EnvState(env);
+  }
+
+  /**
+   * State derived from the environment of the context, see {@link #patch(TruffleLanguage.Env, Path)}.
+   */
+  private static final class EnvState {
+    final TruffleLanguage.Env env;
+    final BufferedReader input;
+    final PrintWriter output;
+    final AllocationReporter allocationReporter;  // TODO use this
+    final boolean printAllResults;
+
+    EnvState(TruffleLanguage.Env env) {
+      this.env = env;
+      this.input = new BufferedReader(new InputStreamReader(env.in()));
+      this.output = new PrintWriter(env.out(), true, StandardCharsets.UTF_8);
+      this.allocationReporter = env.lookup(AllocationReporter.class);
+      if (env.getEnvironment().containsKey("YONA_PRINT_ALL_RESULTS")) {
+        this.printAllResults = Boolean.parseBoolean(env.getEnvironment().get("YONA_PRINT_ALL_RESULTS"));
+      } else {
+        this.printAllResults = false;
+      }
     }
   }
 
@@ -115,14 +145,6 @@ public final class Context {
       throw new IOException("Unable to locate language home. Please set up YONA_STDLIB_HOME environment variable to point to the GraalVM root folder.");
     }
 
-//    LOGGER.fine("Initializing threading");
-
-    this.socketSelector = Selector.open();
-
-    this.ioExecutor = Executors.newCachedThreadPool(runnable -> env.createThread(runnable, null, new ThreadGroup("yona-io")));
-    this.threading = new Threading(this);
-    threading.initialize();
-
     installBuiltins();
     installBuiltinModules();
     registerBuiltins();
@@ -130,9 +152,43 @@ public final class Context {
 
     identityFunction = lookupGlobalFunction(null, "identity");
 
+    if (envState.env.isPreInitialization()) {
+      // native image build: the whole stdlib goes to the image heap, threads are started once the image runs
+      loadStdlibModules();
+    } else {
+      initializeRuntime();
+    }
+
 //    LOGGER.config("Yona Context initialized");
   }
 
+  /**
+   * Reuses a context pre-initialized during a native image build, see {@link #initialize()}.
+   *
+   * @return false if the context has to be created again, because the stdlib is located elsewhere
+   */
+  public boolean patch(TruffleLanguage.Env newEnv, Path stdlibHomePath) throws Exception {
+    if (!stdlibHome.equals(stdlibHomePath)) {
+      return false;
+    }
+
+    this.envState = new EnvState(newEnv);
+    initializeRuntime();
+    return true;
+  }
+
+  private void initializeRuntime() throws IOException {
+//    LOGGER.fine("Initializing threading");
+
+    this.socketSelector = Selector.open();
+
+    this.ioExecutor = IOExecutors.create(this);
+    this.threading = Threading.create(this);
+    threading.initialize();
+    this.timerWheel = new TimerWheel(this);
+    timerWheel.start();
+  }
+
   private MaterializedFrame initGlobalFrame() {
     VirtualFrame frame = Truffle.getRuntime().createVirtualFrame(null, this.globalFrameDescriptor);
     return frame.materialize();
@@ -151,6 +207,8 @@ public final class Context {
     builtins.register(new ExportedFunction(TimesBuiltinFactory.getInstance()));
     builtins.register(new ExportedFunction(DropBuiltinFactory.getInstance()));
     builtins.register(new ExportedFunction(OrdBuiltinFactory.getInstance()));
+    builtins.register(new ExportedFunction(ScheduleBuiltinFactory.getInstance()));
+    builtins.register(new ExportedFunction(IntervalBuiltinFactory.getInstance()));
     builtins.register(new ExportedFunction(TimeoutBuiltinFactory.getInstance()) {
       @Override
       public boolean unwrapArgumentPromises() {
@@ -167,6 +225,7 @@ public final class Context {
     builtinModules.register(new IOBuiltinModule());
     builtinModules.register(new FileBuiltinModule());
     builtinModules.register(new TransducersBuiltinModule());
+    builtinModules.register(new ReducersBuiltinModule());
     builtinModules.register(new JSONBuiltinModule());
     builtinModules.register(new TupleBuiltinModule());
     builtinModules.register(new HttpClientBuiltinModule());
@@ -190,7 +249,7 @@ public final class Context {
 
     builtins.builtins.forEach((name, stdLibFunction) -> {
       int argumentsCount = stdLibFunction.node.getExecutionSignature().size();
-      FunctionRootNode rootNode = new FunctionRootNode(language, globalFrameDescriptor, new BuiltinCallNode(stdLibFunction.node), stdLibFunction.sourceSection(), fqn, name);
+      FunctionRootNode rootNode = new FunctionRootNode(language, new FrameDescriptor(UninitializedFrameSlot.INSTANCE), new BuiltinCallNode(stdLibFunction.node, stdLibFunction.unwrapArgumentPromises()), stdLibFunction.sourceSection(), fqn, name);
       if (stdLibFunction.isExported()) {
         exports.add(name);
       }
@@ -201,37 +260,15 @@ public final class Context {
     insertGlobal(fqn, module);
   }
 
+  /**
+   * Builtins are called by the call target of their function directly, partial application shares it, see
+   * {@link Function#partiallyApply(Object[])}.
+   */
   private void registerBuiltins() {
     builtins.builtins.forEach((name, stdLibFunction) -> {
       int cardinality = stdLibFunction.node.getExecutionSignature().size();
-
-      FunctionRootNode rootNode = new FunctionRootNode(language, globalFrameDescriptor, new BuiltinCallNode(stdLibFunction.node), stdLibFunction.sourceSection(), null, name);
-      Function function = new Function(null, name, Truffle.getRuntime().createCallTarget(rootNode), cardinality, stdLibFunction.unwrapArgumentPromises());
-
-      String partiallyAppliedFunctionName = "$partial-0/" + function.getCardinality() + "-" + function.getName();
-      ExpressionNode[] allArgumentNodes = new ExpressionNode[function.getCardinality()];
-
-      for (int i = 0; i < function.getCardinality(); i++) {
-        allArgumentNodes[i] = new ReadArgumentNode(i);
-      }
-
-      /*
-       * Partially applied function will just invoke the original function with arguments constructed as a combination
-       * of those which were provided when this closure was created and those to be read on the following application
-       */
-      InvokeNode invokeNode = new InvokeNode(language, new SimpleIdentifierNode(function.getName()), allArgumentNodes, null);
-
-      FrameDescriptor partialFrameDescriptor = new FrameDescriptor(UninitializedFrameSlot.INSTANCE);
-      /*
-       * We need to make sure that the original function is still accessible within the closure, even if the partially
-       * applied function already leaves the scope with the original function
-       */
-      WriteLocalVariableNode writeLocalVariableNode = WriteLocalVariableNodeGen.create(new AnyValueNode(function), partialFrameDescriptor.addFrameSlot(function.getName()));
-
-      YonaBlockNode blockNode = new YonaBlockNode(new ExpressionNode[]{writeLocalVariableNode, invokeNode});
-      FunctionRootNode partiallyAppliedFunctionRootNode = new FunctionRootNode(language, partialFrameDescriptor, blockNode, stdLibFunction.sourceSection(), null, partiallyAppliedFunctionName);
-
-      insertGlobal(name, new Function(null, partiallyAppliedFunctionName, Truffle.getRuntime().createCallTarget(partiallyAppliedFunctionRootNode), cardinality, stdLibFunction.unwrapArgumentPromises()));
+      FunctionRootNode rootNode = new FunctionRootNode(language, new FrameDescriptor(UninitializedFrameSlot.INSTANCE), new BuiltinCallNode(stdLibFunction.node, stdLibFunction.unwrapArgumentPromises()), stdLibFunction.sourceSection(), null, name);
+      insertGlobal(name, new Function(null, name, Truffle.getRuntime().createCallTarget(rootNode), cardinality, stdLibFunction.unwrapArgumentPromises()));
     });
   }
 
@@ -240,7 +277,7 @@ public final class Context {
 
 //    LOGGER.config("Installing globals from: " + stdlibHome);
     try {
-      env.getInternalTruffleFile(stdlibHome.toUri()).visit(new FileVisitor<>() {
+      envState.env.getInternalTruffleFile(stdlibHome.toUri()).visit(new FileVisitor<>() {
         @Override
         public FileVisitResult preVisitDirectory(TruffleFile dir, BasicFileAttributes attrs) {
           return FileVisitResult.CONTINUE;
@@ -251,13 +288,7 @@ public final class Context {
           String relativePath = stdlibHome.toUri().relativize(file.toUri()).getPath();
           if (relativePath.endsWith("." + YonaLanguage.ID)) {
             String moduleFQN = relativePath.substring(0, relativePath.lastIndexOf(".")).replaceAll("/", "\\\\");
-//            LOGGER.config("Loading stdlib module: " + moduleFQN);
-            try {
-              YonaModule module = loadStdModule(file, moduleFQN);
-              insertGlobal(moduleFQN, module);
-            } catch (IOException e) {
-//              LOGGER.config(e.getMessage());
-            }
+            stdlibModules.put(moduleFQN, file);
           }
           return FileVisitResult.CONTINUE;
         }
@@ -278,7 +309,7 @@ public final class Context {
   }
 
   public TruffleLanguage.Env getEnv() {
-    return env;
+    return envState.env;
   }
 
   /**
@@ -286,7 +317,7 @@ public final class Context {
    * testing, we do not use {@link System#in} directly.
    */
   public BufferedReader getInput() {
-    return input;
+    return envState.input;
   }
 
   /**
@@ -294,7 +325,7 @@ public final class Context {
    * testing, we do not use {@link System#out} directly.
    */
   public PrintWriter getOutput() {
-    return output;
+    return envState.output;
   }
 
   public static NodeInfo lookupNodeInfo(Class<?> clazz) {
@@ -352,6 +383,7 @@ public final class Context {
 
   @CompilerDirectives.TruffleBoundary
   private String[] getYonaPath() {
+    final TruffleLanguage.Env env = envState.env;
     if (env.getEnvironment().containsKey(YONA_PATH)) {
       return env.getEnvironment().get(YONA_PATH).split(env.getPathSeparator());
     } else {
@@ -370,7 +402,7 @@ public final class Context {
       for (String yonaPath : yonaPaths) {
         Path fullPath = Paths.get(yonaPath, path.toString());
         if (Files.exists(fullPath)) {
-          YonaModule module = loadModule(env.getPublicTruffleFile(fullPath.toUri()), FQN, node, true);
+          YonaModule module = loadModule(envState.env.getPublicTruffleFile(fullPath.toUri()), FQN, node, true);
           if (module != null) {
             return module;
           }
@@ -410,7 +442,7 @@ public final class Context {
   private YonaModule loadModule(TruffleFile file, String FQN, Node node, boolean cache) {
     try {
       Source source = Source.newBuilder(YonaLanguage.ID, file).build();
-      CallTarget callTarget = env.parseInternal(source);
+      CallTarget callTarget = envState.env.parseInternal(source);
       YonaModule module = (YonaModule) callTarget.call();
 
       if (!FQN.equals(module.getFqn())) {
@@ -437,7 +469,7 @@ public final class Context {
 
       for (Method method : methods) {
         exports.add(method.getName());
-        Function javaFunction = JavaMethodRootNode.buildFunction(language, method, globalFrameDescriptor, null);
+        Function javaFunction = JavaMethodRootNode.buildFunction(language, method, globalFrameDescriptor, false);
         functions.add(javaFunction);
       }
 
@@ -449,6 +481,14 @@ public final class Context {
     }
   }
 
+  /**
+   * @return function of the receiver followed by the arguments of the method, shared by all receivers
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Function javaInstanceFunction(Method method) {
+    return javaInstanceFunctions.computeIfAbsent(method, m -> JavaMethodRootNode.buildFunction(language, m, globalFrameDescriptor, true));
+  }
+
   @CompilerDirectives.TruffleBoundary
   public static String getFQN(String[] packageParts, String moduleName) {
     if (packageParts.length > 0) {
@@ -469,13 +509,49 @@ public final class Context {
   }
 
   public Symbol symbol(String name) {
-    Object symbol = symbols.lookup(name);
-    if (symbol == Unit.INSTANCE) {
-      symbol = new Symbol(name);
-      symbols = symbols.add(name, symbol);
+    return language.symbols.intern(name);
+  }
+
+  /**
+   * @return global function or module, loading the stdlib module of the given name first, if it is not loaded yet
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Object lookupGlobal(String name) {
+    if (stdlibModules.containsKey(name)) {
+      loadStdlibModule(name);
     }
+    return globals.lookup(name);
+  }
+
+  /**
+   * @return all globals, with the whole stdlib loaded
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Dict allGlobals() {
+    loadStdlibModules();
+    return globals;
+  }
+
+  private synchronized void loadStdlibModule(String fqn) {
+    // a module referring to itself while loading does not load again
+    TruffleFile file = stdlibModules.get(fqn);
+    if (file != null && loadingStdlibModules.add(fqn)) {
+//      LOGGER.config("Loading stdlib module: " + fqn);
+      try {
+        insertGlobal(fqn, loadStdModule(file, fqn));
+      } catch (IOException e) {
+//        LOGGER.config(e.getMessage());
+      } finally {
+        stdlibModules.remove(fqn);
+        loadingStdlibModules.remove(fqn);
+      }
+    }
+  }
 
-    return (Symbol) symbol;
+  private void loadStdlibModules() {
+    for (String fqn : stdlibModules.keySet()) {
+      loadStdlibModule(fqn);
+    }
   }
 
   public void insertGlobal(String functionName, Function function) {
@@ -493,10 +569,12 @@ public final class Context {
   }
 
   public Function lookupGlobalFunction(String fqn, String function) {
-    if (fqn != null && globals.contains(fqn)) {
-      YonaModule yonaModule = (YonaModule) globals.lookup(fqn);
-      return yonaModule.getFunctions().get(function);
-    } else if (fqn == null) {
+    if (fqn != null) {
+      Object module = lookupGlobal(fqn);
+      if (module != Unit.INSTANCE) {
+        return ((YonaModule) module).getFunctions().get(function);
+      }
+    } else {
       return (Function) globals.lookup(function);
     }
     return null;
@@ -505,15 +583,23 @@ public final class Context {
   @CompilerDirectives.TruffleBoundary
   public void dispose() {
 //    LOGGER.fine("Threading shutting down");
-    threading.dispose();
-    ioExecutor.shutdown();
-    assert ioExecutor.shutdownNow().isEmpty();
-    assert ioExecutor.isShutdown();
-    while (!ioExecutor.isTerminated()) {
-      try {
-        Thread.sleep(10);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
+    // the runtime is started by initializeRuntime, a pre-initialized context that was never patched has none of it
+    if (timerWheel != null) {
+      timerWheel.dispose();
+    }
+    if (threading != null) {
+      threading.dispose();
+    }
+    if (ioExecutor != null) {
+      ioExecutor.shutdown();
+      assert ioExecutor.shutdownNow().isEmpty();
+      assert ioExecutor.isShutdown();
+      while (!ioExecutor.isTerminated()) {
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          e.printStackTrace();
+        }
       }
     }
 //    LOGGER.fine("Threading shut down");
@@ -550,6 +636,6 @@ public final class Context {
   }
 
   public boolean isPrintAllResults() {
-    return printAllResults;
+    return envState.printAllResults;
   }
 }
@@ -8,8 +8,8 @@ import com.oracle.truffle.api.nodes.Node;
 import yona.common.TriFunction;
 import yona.runtime.async.Promise;
 import yona.runtime.exceptions.BadArgException;
-import yona.runtime.exceptions.TransducerDoneException;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -57,12 +57,6 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
 
   abstract Dict remove(Object key, long hash, int shift);
 
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public abstract Object reduce(Object[] reducer, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException;
-
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public abstract Object fold(Object initial, Function function, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException;
-
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public abstract <T> T fold(final T initial, final TriFunction<T, Object, Object, T> function);
 
@@ -85,6 +79,34 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
 
   abstract long calculateMurmur3Hash(long seed);
 
+  /**
+   * @return cursor over the entries of this dictionary, as (key, value) tuples, in the same order as fold
+   */
+  @CompilerDirectives.TruffleBoundary
+  public LeafCursor leafCursor() {
+    return new EntryCursor(this);
+  }
+
+  /**
+   * @return cursors over at most the given number of parts of this dictionary, the entries of the root node and each of its
+   * subtrees are distributed between them, in the same order as fold
+   */
+  @CompilerDirectives.TruffleBoundary
+  public LeafCursor[] splitCursors(final int parts) {
+    final Dict[] pieces = pieces();
+    final int count = Math.max(1, Math.min(parts, pieces.length));
+    final LeafCursor[] result = new LeafCursor[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = new EntryCursor(Arrays.copyOfRange(pieces, pieces.length * i / count, pieces.length * (i + 1) / count));
+    }
+    return result;
+  }
+
+  /**
+   * @return nodes that together hold all entries of this dictionary
+   */
+  abstract Dict[] pieces();
+
   abstract Object keyAt(int idx);
 
   abstract Object valueAt(int idx);
@@ -264,12 +286,12 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
     if (args.length % 2 != 0) {
       throw new BadArgException("Unable to build a dict from array " + Arrays.toString(args), node);
     }
-    Dict res = Dict.empty(hasher, seed);
+    final DictBuilder builder = new DictBuilder(hasher, seed);
     for (int i = 0; i < args.length; i += 2) {
-      res = res.add(args[i], args[i + 1]);
+      builder.add(args[i], args[i + 1]);
     }
 
-    return res;
+    return builder.build();
   }
 
   static long mask(final long hash, final int shift) {
@@ -411,35 +433,6 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
       return new Bitmap(hasher, seed, nodeBmp ^ pos, dataBmp | pos, newEntriesAndNodes);
     }
 
-    @Override
-    public Object reduce(Object[] reducer, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      final Function step = (Function) reducer[1];
-      final Function complete = (Function) reducer[2];
-      Object state = reducer[0];
-      try {
-        for (int i = 0; i < arity(dataBmp); i++) {
-          state = dispatch.execute(step, state, new Tuple(keyAt(i), valueAt(i)));
-        }
-        for (int i = 0; i < arity(nodeBmp); i++) {
-          state = nodeAt(i).fold(state, step, dispatch);
-        }
-      } catch (TransducerDoneException ignored) {
-      }
-      return dispatch.execute(complete, state);
-    }
-
-    @Override
-    public Object fold(final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      Object result = initial;
-      for (int i = 0; i < arity(dataBmp); i++) {
-        result = dispatch.execute(function, result, new Tuple(keyAt(i), valueAt(i)));
-      }
-      for (int i = 0; i < arity(nodeBmp); i++) {
-        result = nodeAt(i).fold(result, function, dispatch);
-      }
-      return result;
-    }
-
     @Override
     public <T> T fold(T initial, TriFunction<T, Object, Object, T> function) {
       T result = initial;
@@ -462,6 +455,21 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
       }
     }
 
+    @Override
+    Dict[] pieces() {
+      final int data = arity(dataBmp);
+      final int nodes = arity(nodeBmp);
+      final Dict[] result = new Dict[(data > 0 ? 1 : 0) + nodes];
+      int i = 0;
+      if (data > 0) {
+        result[i++] = nodes == 0 ? this : new Bitmap(hasher, seed, 0L, dataBmp, Arrays.copyOf(entriesAndNodes, data * 2));
+      }
+      for (int j = 0; j < nodes; j++) {
+        result[i++] = nodeAt(j);
+      }
+      return result;
+    }
+
     @Override
     public long size() {
       long result = arity(dataBmp);
@@ -587,14 +595,14 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
         if (key.equals(entries[i])) {
           final Object[] newEntries = entries.clone();
           newEntries[i + 1] = value;
-          return new Collision(hasher, hash, commonHash, newEntries);
+          return new Collision(hasher, seed, commonHash, newEntries);
         }
       }
       final Object[] newEntries = new Object[entries.length + 2];
       System.arraycopy(entries, 0, newEntries, 0, entries.length);
       newEntries[entries.length] = key;
       newEntries[entries.length + 1] = value;
-      return new Collision(hasher, hash, commonHash, newEntries);
+      return new Collision(hasher, seed, commonHash, newEntries);
     }
 
     @Override
@@ -626,29 +634,6 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
       return this;
     }
 
-    @Override
-    public Object reduce(Object[] reducer, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      final Function step = (Function) reducer[1];
-      final Function complete = (Function) reducer[2];
-      Object state = reducer[0];
-      try {
-        for (int i = 0; i < entries.length; i += 2) {
-          state = dispatch.execute(step, state, new Tuple(entries[i], entries[i + 1]));
-        }
-      } catch (TransducerDoneException ignored) {
-      }
-      return dispatch.execute(complete, state);
-    }
-
-    @Override
-    public Object fold(final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      Object result = initial;
-      for (int i = 0; i < entries.length; i += 2) {
-        result = dispatch.execute(function, result, new Tuple(entries[i], entries[2]));
-      }
-      return result;
-    }
-
     @Override
     public <T> T fold(T initial, TriFunction<T, Object, Object, T> function) {
       T result = initial;
@@ -665,6 +650,11 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
       }
     }
 
+    @Override
+    Dict[] pieces() {
+      return new Dict[]{this};
+    }
+
     @Override
     public long size() {
       return entries.length / 2;
@@ -731,45 +721,175 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
     }
   }
 
-  private static final class DictBuilder<K, V> {
-    private Dict dict;
+  /**
+   * Transient builder of a Dict, see {@link Set.SetBuilder}. Of entries with equal keys the first key is kept with the
+   * last value, as with {@link #add(Object, Object)}. A builder must not be shared between threads.
+   */
+  public static final class DictBuilder {
+    private final Hasher hasher;
+    private final long seed;
+    private Object[] keys = new Object[8];
+    private Object[] values = new Object[8];
+    private long[] hashes = new long[8];
+    private int size = 0;
 
     public DictBuilder() {
-      this.dict = Dict.empty();
+      this(Murmur3.INSTANCE, 0L);
+    }
+
+    public DictBuilder(final Hasher hasher, final long seed) {
+      this.hasher = hasher;
+      this.seed = seed;
     }
 
-    public void add(Map.Entry<K, V> obj) {
-      this.dict = this.dict.add(obj.getKey(), obj.getValue());
+    @CompilerDirectives.TruffleBoundary
+    public DictBuilder add(final Object key, final Object value) {
+      return add(key, hasher.hash(seed, key), value);
     }
 
-    public DictBuilder<K, V> catenate(DictBuilder<K, V> other) {
-      this.dict = this.dict.union(other.dict);
+    private DictBuilder add(final Object key, final long hash, final Object value) {
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+        hashes = Arrays.copyOf(hashes, size * 2);
+      }
+      keys[size] = key;
+      values[size] = value;
+      hashes[size] = hash;
+      size++;
+      return this;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    public DictBuilder addAll(final Dict dict) {
+      return dict.fold(this, DictBuilder::add);
+    }
+
+    public DictBuilder catenate(final DictBuilder other) {
+      final boolean sameHashes = hasher.equals(other.hasher) && seed == other.seed;
+      for (int i = 0; i < other.size; i++) {
+        add(other.keys[i], sameHashes ? other.hashes[i] : hasher.hash(seed, other.keys[i]), other.values[i]);
+      }
       return this;
     }
 
+    @CompilerDirectives.TruffleBoundary
     public Dict build() {
-      return this.dict;
+      if (size == 0) {
+        return empty(hasher, seed);
+      }
+      final int[] order = new int[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      return node(order, new int[size], 0, size, 0);
+    }
+
+    /*
+     * Builds the node for entries order[from] .. order[to - 1], which share the hash bits below shift. They are sorted
+     * by their mask at this level first, so that each child is built from a contiguous range.
+     */
+    private Dict node(final int[] order, final int[] aux, final int from, final int to, final int shift) {
+      if (shift > (1 << BITS)) {
+        final Object[] collided = new Object[(to - from) * 2];
+        for (int i = from; i < to; i++) {
+          collided[(i - from) * 2] = keys[order[i]];
+          collided[(i - from) * 2 + 1] = values[order[i]];
+        }
+        return new Collision(hasher, seed, hashes[order[from]], collided);
+      }
+
+      final int[] starts = new int[(1 << BITS) + 1];
+      for (int i = from; i < to; i++) {
+        starts[(int) mask(hashes[order[i]], shift) + 1]++;
+      }
+      for (int m = 0; m < 1 << BITS; m++) {
+        starts[m + 1] += starts[m];
+      }
+      final int[] offsets = Arrays.copyOf(starts, 1 << BITS);
+      for (int i = from; i < to; i++) {
+        aux[from + offsets[(int) mask(hashes[order[i]], shift)]++] = order[i];
+      }
+      System.arraycopy(aux, from, order, from, to - from);
+
+      long dataBmp = 0L;
+      long nodeBmp = 0L;
+      final Object[] data = new Object[2 << BITS];
+      final Dict[] nodes = new Dict[1 << BITS];
+      int dataCount = 0;
+      int nodeCount = 0;
+      for (int m = 0; m < 1 << BITS; m++) {
+        final int bucketFrom = from + starts[m];
+        int bucketTo = from + starts[m + 1];
+        if (bucketTo - bucketFrom > 1 && sameHashes(order, bucketFrom, bucketTo)) {
+          bucketTo = bucketFrom + distinct(order, bucketFrom, bucketTo);
+        }
+        if (bucketTo - bucketFrom == 1) {
+          dataBmp |= pos(m);
+          data[dataCount * 2] = keys[order[bucketFrom]];
+          data[dataCount * 2 + 1] = values[order[bucketFrom]];
+          dataCount++;
+        } else if (bucketTo - bucketFrom > 1) {
+          nodeBmp |= pos(m);
+          nodes[nodeCount++] = node(order, aux, bucketFrom, bucketTo, shift + BITS);
+        }
+      }
+
+      final Object[] entriesAndNodes = new Object[dataCount * 2 + nodeCount];
+      System.arraycopy(data, 0, entriesAndNodes, 0, dataCount * 2);
+      for (int i = 0; i < nodeCount; i++) {
+        entriesAndNodes[entriesAndNodes.length - 1 - i] = nodes[i];
+      }
+      return new Bitmap(hasher, seed, nodeBmp, dataBmp, entriesAndNodes);
+    }
+
+    private boolean sameHashes(final int[] order, final int from, final int to) {
+      for (int i = from + 1; i < to; i++) {
+        if (hashes[order[i]] != hashes[order[from]]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /*
+     * Moves the first occurrences of distinct keys to the beginning of the range, in their original order. The value of
+     * a later occurrence replaces the value of the first one.
+     */
+    private int distinct(final int[] order, final int from, final int to) {
+      int count = 0;
+      candidates:
+      for (int i = from; i < to; i++) {
+        for (int j = from; j < from + count; j++) {
+          if (keys[order[i]].equals(keys[order[j]])) {
+            values[order[j]] = values[order[i]];
+            continue candidates;
+          }
+        }
+        order[from + count++] = order[i];
+      }
+      return count;
     }
   }
 
-  private static final class DictCollector<K, V> implements Collector<Map.Entry<K, V>, DictBuilder<K, V>, Dict> {
+  private static final class DictCollector<K, V> implements Collector<Map.Entry<K, V>, DictBuilder, Dict> {
     @Override
-    public Supplier<DictBuilder<K, V>> supplier() {
+    public Supplier<DictBuilder> supplier() {
       return DictBuilder::new;
     }
 
     @Override
-    public BiConsumer<DictBuilder<K, V>, Map.Entry<K, V>> accumulator() {
-      return DictBuilder::add;
+    public BiConsumer<DictBuilder, Map.Entry<K, V>> accumulator() {
+      return (builder, entry) -> builder.add(entry.getKey(), entry.getValue());
     }
 
     @Override
-    public BinaryOperator<DictBuilder<K, V>> combiner() {
+    public BinaryOperator<DictBuilder> combiner() {
       return DictBuilder::catenate;
     }
 
     @Override
-    public java.util.function.Function<DictBuilder<K, V>, Dict> finisher() {
+    public java.util.function.Function<DictBuilder, Dict> finisher() {
       return DictBuilder::build;
     }
 
@@ -801,4 +921,48 @@ public abstract class Dict implements TruffleObject, Comparable<Dict> {
       return value;
     }
   }
+
+  static final class EntryCursor extends LeafCursor {
+    private final ArrayDeque<Dict> pending = new ArrayDeque<>();
+    private Object[] entries;  // keys and values of the current node, as in Bitmap and Collision
+    private int leafLength;
+
+    EntryCursor(final Dict... nodes) {
+      for (int i = nodes.length - 1; i >= 0; i--) {
+        pending.push(nodes[i]);
+      }
+    }
+
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public boolean nextLeaf() {
+      while (!pending.isEmpty()) {
+        final Dict node = pending.pop();
+        if (node instanceof Bitmap bitmap) {
+          for (int i = Bitmap.arity(bitmap.nodeBmp) - 1; i >= 0; i--) {
+            pending.push(bitmap.nodeAt(i));
+          }
+          entries = bitmap.entriesAndNodes;
+          leafLength = Bitmap.arity(bitmap.dataBmp);
+        } else {
+          entries = ((Collision) node).entries;
+          leafLength = entries.length / 2;
+        }
+        if (leafLength > 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int leafLength() {
+      return leafLength;
+    }
+
+    @Override
+    public Object element(final int i) {
+      return new Tuple(entries[i * 2], entries[i * 2 + 1]);
+    }
+  }
 }
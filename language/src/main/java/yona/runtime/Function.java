@@ -1,8 +1,10 @@
 package yona.runtime;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.library.ExportLibrary;
@@ -21,11 +23,14 @@ import com.oracle.truffle.api.source.SourceSection;
 @ExportLibrary(InteropLibrary.class)
 public final class Function implements TruffleObject {
   public static final int INLINE_CACHE_SIZE = 2;
+  private static final Object[] EMPTY_ARGUMENTS = new Object[0];
 
   /**
-   * The name of the function.
+   * The name of the function. Name of a partially applied function is derived from the function it applies when it is
+   * first needed, so that partial application on the compiled path does not concatenate strings.
    */
-  private final String name;
+  private String name;
+  private final Function partiallyApplied;
   private final String moduleFQN;
 
   private int cardinality;
@@ -37,19 +42,75 @@ public final class Function implements TruffleObject {
 
   private boolean unwrapArgumentPromises;
 
+  /**
+   * Arguments captured by partial application. They are prepended to the arguments of each call, so a partially
+   * applied function shares the call target (and therefore the inline cache entry) of the function it applies.
+   */
+  private final Object[] appliedArguments;
+
+  /**
+   * Frame a closure was created in. All closures created by the same lambda share one call target, the frame is passed
+   * to it as an extra last argument.
+   */
+  private final MaterializedFrame lexicalScope;
+
   public Function(String moduleFQN, String name, RootCallTarget callTarget, int cardinality, boolean unwrapArgumentPromises) {
+    this(moduleFQN, name, callTarget, cardinality, unwrapArgumentPromises, EMPTY_ARGUMENTS, null, null);
+  }
+
+  public Function(String moduleFQN, String name, RootCallTarget callTarget, int cardinality, boolean unwrapArgumentPromises, MaterializedFrame lexicalScope) {
+    this(moduleFQN, name, callTarget, cardinality, unwrapArgumentPromises, EMPTY_ARGUMENTS, lexicalScope, null);
+  }
+
+  private Function(String moduleFQN, String name, RootCallTarget callTarget, int cardinality, boolean unwrapArgumentPromises, Object[] appliedArguments, MaterializedFrame lexicalScope, Function partiallyApplied) {
     this.moduleFQN = moduleFQN;
     this.name = name;
+    this.partiallyApplied = partiallyApplied;
     this.callTarget = callTarget;
     this.cardinality = cardinality;
     this.unwrapArgumentPromises = unwrapArgumentPromises;
+    this.appliedArguments = appliedArguments;
+    this.lexicalScope = lexicalScope;
+  }
+
+  /**
+   * Partially apply this function to the first {@code arguments.length} arguments. The result is executed by the same
+   * call target as this function, with the captured arguments prepended to the remaining ones.
+   */
+  public Function partiallyApply(Object[] arguments) {
+    assert arguments.length < cardinality;
+    Object[] newAppliedArguments = new Object[appliedArguments.length + arguments.length];
+    System.arraycopy(appliedArguments, 0, newAppliedArguments, 0, appliedArguments.length);
+    System.arraycopy(arguments, 0, newAppliedArguments, appliedArguments.length, arguments.length);
+    return new Function(moduleFQN, null, callTarget, cardinality - arguments.length, unwrapArgumentPromises, newAppliedArguments, lexicalScope, this);
+  }
+
+  /**
+   * @return arguments of a call of the call target of this function
+   */
+  public Object[] applyArguments(Object[] arguments) {
+    if (appliedArguments.length == 0 && lexicalScope == null) {
+      return arguments;
+    }
+    final int scopeLength = lexicalScope == null ? 0 : 1;
+    Object[] allArguments = new Object[appliedArguments.length + arguments.length + scopeLength];
+    System.arraycopy(appliedArguments, 0, allArguments, 0, appliedArguments.length);
+    System.arraycopy(arguments, 0, allArguments, appliedArguments.length, arguments.length);
+    if (lexicalScope != null) {
+      allArguments[allArguments.length - 1] = lexicalScope;
+    }
+    return allArguments;
   }
 
   public String getModuleFQN() {
     return moduleFQN;
   }
 
+  @CompilerDirectives.TruffleBoundary
   public String getName() {
+    if (name == null) {
+      name = "$partial-" + (partiallyApplied.cardinality - cardinality) + "/" + partiallyApplied.cardinality + "-" + partiallyApplied.getName();
+    }
     return name;
   }
 
@@ -67,7 +128,7 @@ public final class Function implements TruffleObject {
    */
   @Override
   public String toString() {
-    return name + "/" + cardinality;
+    return getName() + "/" + cardinality;
   }
 
   /**
@@ -98,7 +159,7 @@ public final class Function implements TruffleObject {
 
   @ExportMessage
   String getExecutableName() {
-    return name;
+    return getName();
   }
 
   /**
@@ -145,7 +206,7 @@ public final class Function implements TruffleObject {
                                      @Cached("create(cachedTarget)") DirectCallNode callNode) {
 
       /* Inline cache hit, we are safe to execute the cached call target. */
-      return callNode.call(arguments);
+      return callNode.call(function.applyArguments(arguments));
     }
 
     /**
@@ -160,7 +221,7 @@ public final class Function implements TruffleObject {
        * SL has a quite simple call lookup: just ask the function for the current call target,
        * and call it.
        */
-      return callNode.call(function.getCallTarget(), arguments);
+      return callNode.call(function.getCallTarget(), function.applyArguments(arguments));
     }
   }
 }
@@ -0,0 +1,153 @@
+package yona.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+import yona.TypesGen;
+import yona.YonaException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Java method resolved to a method handle, that takes the receiver (ignored by static methods) and an array of the
+ * arguments. Yona values are converted to the declared parameter types: sequences to strings or arrays, dictionaries to
+ * maps, tuples to arrays and native objects to the wrapped objects. For parameters of other types, sequences are
+ * converted to strings if they contain only characters.
+ */
+public final class JavaMethod {
+  static final int ANY = 0;
+  static final int STRING = 1;
+  static final int ARRAY = 2;
+  static final int MAP = 3;
+
+  private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  public final Method method;
+  private final MethodHandle handle;
+  @CompilationFinal(dimensions = 1)
+  private final int[] parameterKinds;
+
+  private JavaMethod(Method method, MethodHandle handle, int[] parameterKinds) {
+    this.method = method;
+    this.handle = handle;
+    this.parameterKinds = parameterKinds;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static JavaMethod create(Method method) throws IllegalAccessException {
+    MethodHandle handle = unreflect(method).asFixedArity();
+    if (Modifier.isStatic(method.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    handle = handle.asSpreader(Object[].class, method.getParameterCount()).asType(GENERIC_TYPE);
+
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    int[] parameterKinds = new int[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      parameterKinds[i] = parameterKind(parameterTypes[i]);
+    }
+
+    return new JavaMethod(method, handle, parameterKinds);
+  }
+
+  private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+    try {
+      return MethodHandles.publicLookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      if (method.trySetAccessible()) {
+        return MethodHandles.lookup().unreflect(method);
+      } else {
+        throw e;
+      }
+    }
+  }
+
+  private static int parameterKind(Class<?> type) {
+    if (type == String.class || type == CharSequence.class) {
+      return STRING;
+    } else if (type.isArray()) {
+      return ARRAY;
+    } else if (Map.class.isAssignableFrom(type)) {
+      return MAP;
+    } else {
+      return ANY;
+    }
+  }
+
+  public int getArity() {
+    return parameterKinds.length;
+  }
+
+  /**
+   * @param receiver Java object, or null for static methods
+   * @return result converted to a Yona value
+   */
+  @ExplodeLoop
+  public Object invoke(Object receiver, Object[] arguments, Node node) {
+    Object[] javaArguments = new Object[parameterKinds.length];
+    for (int i = 0; i < parameterKinds.length; i++) {
+      javaArguments[i] = toJava(arguments[i], parameterKinds[i], node);
+    }
+
+    return invokeHandle(receiver, javaArguments, node);
+  }
+
+  private static Object toJava(Object argument, int kind, Node node) {
+    if (argument instanceof NativeObject) {
+      return ((NativeObject<?>) argument).getValue();
+    } else if (argument instanceof Seq) {
+      Seq seq = (Seq) argument;
+      if (kind == STRING || (kind == ANY && seq.isString())) {
+        return seq.asJavaString(node);
+      } else {
+        return seq.toArray();
+      }
+    } else if (argument instanceof Tuple) {
+      return ((Tuple) argument).toArray();
+    } else if (argument instanceof Dict) {
+      return ((Dict) argument).toMap();
+    } else {
+      return argument;
+    }
+  }
+
+  /*
+   * The handle is a compilation constant, so it is invoked on the compiled path, where it can be inlined. Only wrapping
+   * the exceptions and converting the result, which walks arrays reflectively, are behind boundaries.
+   */
+  private Object invokeHandle(Object receiver, Object[] javaArguments, Node node) {
+    final Object result;
+    try {
+      result = (Object) handle.invokeExact(receiver, javaArguments);
+    } catch (Throwable e) {
+      throw wrapException(e, node);
+    }
+    return toYona(result);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static YonaException wrapException(Throwable e, Node node) {
+    if (e instanceof YonaException yonaException) {
+      return yonaException;
+    } else {
+      return new YonaException(e, node);
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static Object toYona(Object result) {
+    return TypesGen.foreignResultToYonaType(result);
+  }
+
+  @Override
+  public String toString() {
+    return method.toString();
+  }
+}
@@ -0,0 +1,24 @@
+package yona.runtime;
+
+/**
+ * Iterates over the elements of a persistent collection leaf by leaf. Moving to the next leaf walks the tree of the
+ * collection and is done behind a boundary, reading the elements of the current leaf is cheap and can be compiled.
+ */
+public abstract class LeafCursor {
+  /**
+   * Moves to the next non-empty leaf.
+   *
+   * @return false if there are no more leaves
+   */
+  public abstract boolean nextLeaf();
+
+  /**
+   * @return number of elements in the current leaf
+   */
+  public abstract int leafLength();
+
+  /**
+   * @return element at index i of the current leaf, in the iteration order
+   */
+  public abstract Object element(int i);
+}
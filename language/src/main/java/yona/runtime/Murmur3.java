@@ -20,6 +20,8 @@ public final class Murmur3 extends Hasher {
       return hashInteger(seed, (Long) o);
     } else if (o instanceof Double) {
       return hashFloat(seed, (Double) o);
+    } else if (o instanceof Symbol) {
+      return hashInteger(seed, ((Symbol) o).murmur3Hash);
     } else if (o instanceof Object[]) {
       return hashTuple(seed, (Object[]) o);
     } else if (o instanceof Seq) {
@@ -81,6 +83,29 @@ public final class Murmur3 extends Hasher {
     return fMix64(hash ^ values.length);
   }
 
+  static long hashString(final long seed, final String value) {
+    long hash = seed;
+    final int length = value.length();
+    int i = 0;
+    for (; i + 4 <= length; i += 4) {
+      long k = value.charAt(i) | ((long) value.charAt(i + 1) << 16) | ((long) value.charAt(i + 2) << 32) | ((long) value.charAt(i + 3) << 48);
+      k *= C1;
+      k = Long.rotateLeft(k, 31);
+      k *= C2;
+      hash ^= k;
+      hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+    }
+    long k = 0;
+    for (int shift = 0; i < length; i++, shift += 16) {
+      k |= (long) value.charAt(i) << shift;
+    }
+    k *= C1;
+    k = Long.rotateLeft(k, 31);
+    k *= C2;
+    hash ^= k;
+    return fMix64(hash ^ length);
+  }
+
   static long fMix64(long hash) {
     hash ^= (hash >>> 33);
     hash *= 0xff51afd7ed558ccdL;
@@ -0,0 +1,187 @@
+package yona.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.Node;
+import yona.YonaException;
+
+import java.util.Arrays;
+
+/**
+ * Reducer created by the builtin transducers. Each element passes through the stages of the pipeline, in order, and
+ * then to the step function of the wrapped reducer, or is added to a collection (the sink). A transducer applied to a
+ * pipeline adds a stage to it instead of wrapping it, so a chain of transducers is reduced by a single loop, which keeps
+ * the state of all stages in mutable arrays.
+ * <p>
+ * To any other code, a pipeline is the usual reducer tuple (init, step, complete), which runs the stages one element at
+ * a time. Its state is then the accumulator itself, if none of the stages has a state, or a tuple of the states of the
+ * stages followed by the accumulator.
+ */
+public final class Pipeline extends Tuple {
+  public static final int MAP = 0;
+  public static final int FILTER = 1;
+  public static final int TAKE = 2;
+  public static final int DROP = 3;
+  public static final int DEDUPE = 4;
+  public static final int DISTINCT = 5;
+  public static final int CHUNK = 6;
+  public static final int SCAN = 7;
+
+  public static final int NO_SINK = 0;
+  public static final int SEQ_SINK = 1;
+  public static final int SET_SINK = 2;
+  public static final int DICT_SINK = 3;
+
+  public final int[] kinds;
+  public final Object[] arguments;  // function of map and filter, Long count of take, drop and chunk
+  public final Object init;
+  public final Object step;
+  public final Object complete;
+  public final int sink;
+
+  private Pipeline(int[] kinds, Object[] arguments, Object init, Object step, Object complete, int sink) {
+    this.kinds = kinds;
+    this.arguments = arguments;
+    this.init = init;
+    this.step = step;
+    this.complete = complete;
+    this.sink = sink;
+  }
+
+  /**
+   * @param stepFunction     function of the pipeline, the pipeline and state as the first two arguments
+   * @param completeFunction function of the pipeline and state, completing the state
+   * @return reducer that passes elements through a new first stage, before passing them to the given reducer
+   */
+  @CompilerDirectives.TruffleBoundary
+  public static Pipeline create(int kind, Object argument, Tuple reducer, Function stepFunction, Function completeFunction, Node node) {
+    final Pipeline result;
+    if (reducer instanceof Pipeline inner) {
+      result = new Pipeline(prepend(kind, inner.kinds), prepend(argument, inner.arguments), inner.init, inner.step, inner.complete, inner.sink);
+    } else if (reducer.size() == 3) {
+      result = new Pipeline(new int[]{kind}, new Object[]{argument}, reducer.get(0), reducer.get(1), reducer.get(2), NO_SINK);
+    } else {
+      throw YonaException.typeError(node, reducer);
+    }
+    result.initProtocol(stepFunction, completeFunction);
+    return result;
+  }
+
+  /**
+   * @return reducer that adds elements into a new Seq, Set or Dict (of key-value tuples)
+   */
+  @CompilerDirectives.TruffleBoundary
+  public static Pipeline sink(int sink, Function stepFunction, Function completeFunction) {
+    final Pipeline result = new Pipeline(new int[0], new Object[0], null, null, null, sink);
+    result.initProtocol(stepFunction, completeFunction);
+    return result;
+  }
+
+  private void initProtocol(Function stepFunction, Function completeFunction) {
+    this.items = new Object[]{
+        pack(initialCounts(), initialStates(), initialAccumulator(false)),
+        stepFunction.partiallyApply(new Object[]{this}),
+        completeFunction.partiallyApply(new Object[]{this})
+    };
+  }
+
+  private static int[] prepend(int value, int[] array) {
+    final int[] result = new int[array.length + 1];
+    result[0] = value;
+    System.arraycopy(array, 0, result, 1, array.length);
+    return result;
+  }
+
+  private static Object[] prepend(Object value, Object[] array) {
+    final Object[] result = new Object[array.length + 1];
+    result[0] = value;
+    System.arraycopy(array, 0, result, 1, array.length);
+    return result;
+  }
+
+  public static boolean hasState(int kind) {
+    return kind != MAP && kind != FILTER;
+  }
+
+  public long[] initialCounts() {
+    final long[] counts = new long[kinds.length];
+    for (int i = 0; i < kinds.length; i++) {
+      if (kinds[i] == TAKE || kinds[i] == DROP || kinds[i] == CHUNK) {
+        counts[i] = (Long) arguments[i];
+      }
+    }
+    return counts;
+  }
+
+  public Object[] initialStates() {
+    final Object[] states = new Object[kinds.length];
+    for (int i = 0; i < kinds.length; i++) {
+      switch (kinds[i]) {
+        case DEDUPE -> states[i] = Unit.INSTANCE;
+        case DISTINCT -> states[i] = Set.empty();
+        case CHUNK, SCAN -> states[i] = Seq.EMPTY;
+      }
+    }
+    return states;
+  }
+
+  /**
+   * @param isTransient whether the state is used only by a single reduction, in which case a sink is a builder
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Object initialAccumulator(boolean isTransient) {
+    return switch (sink) {
+      case SEQ_SINK -> isTransient ? new Seq.SeqBuilder() : Seq.EMPTY;
+      case SET_SINK -> isTransient ? new Set.SetBuilder() : Set.empty();
+      case DICT_SINK -> isTransient ? new Dict.DictBuilder() : Dict.EMPTY;
+      default -> init;
+    };
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public Object pack(long[] counts, Object[] states, Object accumulator) {
+    int stateful = 0;
+    for (int kind : kinds) {
+      if (hasState(kind)) {
+        stateful++;
+      }
+    }
+    if (stateful == 0) {
+      return accumulator;
+    }
+    final Object[] packed = new Object[stateful + 1];
+    int j = 0;
+    for (int i = 0; i < kinds.length; i++) {
+      switch (kinds[i]) {
+        case TAKE, DROP -> packed[j++] = counts[i];
+        case DEDUPE, DISTINCT, CHUNK, SCAN -> packed[j++] = states[i];
+      }
+    }
+    packed[j] = accumulator;
+    return new Tuple(packed);
+  }
+
+  /**
+   * Fills the counts and states of the stages from a packed state.
+   *
+   * @return the accumulator
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Object unpack(Object state, long[] counts, Object[] states) {
+    if (!(state instanceof Tuple) || Arrays.stream(kinds).noneMatch(Pipeline::hasState)) {
+      return state;
+    }
+    final Tuple packed = (Tuple) state;
+    int j = 0;
+    for (int i = 0; i < kinds.length; i++) {
+      switch (kinds[i]) {
+        case TAKE, DROP -> counts[i] = (Long) packed.get(j++);
+        case CHUNK -> {
+          counts[i] = (Long) arguments[i];
+          states[i] = packed.get(j++);
+        }
+        case DEDUPE, DISTINCT, SCAN -> states[i] = packed.get(j++);
+      }
+    }
+    return packed.get(j);
+  }
+}
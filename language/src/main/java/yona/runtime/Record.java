@@ -0,0 +1,79 @@
+package yona.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+import java.util.Arrays;
+
+import static com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Instance of a record, a tuple of the record type symbol followed by the values of the fields, in the order of their
+ * definition. The names and positions of the fields are kept in the shape, shared by all instances created from the
+ * same record definition. Nodes accessing records cache the shape and the position of a field, so that reading or
+ * updating a field is a check of the shape identity followed by an array access.
+ * <p>
+ * Records are equal to tuples with the same items, so code treating them as tuples keeps working.
+ */
+public final class Record extends Tuple {
+  public final Shape shape;
+
+  public Record(Shape shape, Object[] items) {
+    super(items);
+    this.shape = shape;
+  }
+
+  /**
+   * @return record of the same shape, sharing nothing with this one
+   */
+  public Record copy() {
+    return new Record(shape, items.clone());
+  }
+
+  /**
+   * Writes the field of a record, that was not yet exposed outside of the node creating it.
+   */
+  public void set(int position, Object value) {
+    items[position] = value;
+  }
+
+  /**
+   * Field names of a record definition. A new shape is created for each definition, by the parser, and its identity
+   * then stands for the definition.
+   */
+  public static final class Shape {
+    public final String type;
+    @CompilationFinal(dimensions = 1)
+    public final String[] fields;
+
+    public Shape(String type, String[] fields) {
+      this.type = type;
+      this.fields = fields;
+    }
+
+    /**
+     * @return position of the field in the record tuple (starting with 1, after the type symbol), -1 if there is none
+     */
+    @CompilerDirectives.TruffleBoundary
+    public int position(String fieldName) {
+      for (int i = 0; i < fields.length; i++) {
+        if (fields[i].equals(fieldName)) {
+          return i + 1;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * @return number of items of the record tuple, including the type symbol
+     */
+    public int size() {
+      return fields.length + 1;
+    }
+
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public String toString() {
+      return Arrays.toString(fields);
+    }
+  }
+}
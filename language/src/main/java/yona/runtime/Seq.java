@@ -2,17 +2,19 @@ package yona.runtime;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.interop.*;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.nodes.Node;
 import yona.runtime.async.Promise;
 import yona.runtime.exceptions.BadArgException;
-import yona.runtime.exceptions.TransducerDoneException;
+import yona.runtime.exceptions.NotACharacterException;
 
 import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -32,19 +34,30 @@ public final class Seq implements TruffleObject {
 
   public static final Seq EMPTY = new Seq(EMPTY_NODE, 0, EMPTY_NODE, 0L, EMPTY_NODE, 0, BITS);
 
+  /*
+   * Non-leaf nodes are always Object[] with the size index (long[] or null) in slot 0. Leaves (including prefix and
+   * suffix) come in several shapes, primitive ones keep the element count in slot 0:
+   *  - Object[]: boxed elements, slot 0 unused
+   *  - byte[] without the text flag: raw bytes
+   *  - byte[] with the text flag and one byte per element: Latin-1 code points
+   *  - byte[] with the text flag and a per-element offset table: UTF-8 code points, [n, off_0 .. off_n-1, utf8...]
+   *  - char[]: code points from the basic multilingual plane
+   * Packed leaves are preserved by all structural operations, they fall back to boxed form only when mixed with
+   * values that can't be represented in them.
+   */
   final byte prefixSize;
   final long rootSize;
   final byte suffixSize;
-  final Object[] prefix;
+  final Object prefix;
   final Object[] root;
-  final Object[] suffix;
+  final Object suffix;
   final byte shift;
 
   volatile long hash = 0L;
 
-  Seq(final Object[] prefix, final int prefixSize,
+  Seq(final Object prefix, final int prefixSize,
       final Object[] root, final long rootSize,
-      final Object[] suffix, final int suffixSize,
+      final Object suffix, final int suffixSize,
       final int shift) {
     this.prefixSize = (byte) prefixSize;
     this.rootSize = rootSize;
@@ -61,8 +74,20 @@ public final class Seq implements TruffleObject {
   }
 
   @ExportMessage
-  public final Object readArrayElement(long index) {
-    return lookup(index, null);
+  static final class ReadArrayElement {
+    /*
+     * Strings are read without boxing their characters, until an element that is not a character is read.
+     * Out of bounds indices fail the guard and are reported by the generic read.
+     */
+    @Specialization(guards = "receiver.isInBounds(index)", rewriteOn = NotACharacterException.class)
+    static int readCodePoint(Seq receiver, long index) throws NotACharacterException {
+      return receiver.lookupCodePoint(index);
+    }
+
+    @Specialization
+    static Object read(Seq receiver, long index) {
+      return receiver.lookup(index, null);
+    }
   }
 
   @ExportMessage
@@ -78,10 +103,28 @@ public final class Seq implements TruffleObject {
   @ExportMessage
   @CompilerDirectives.TruffleBoundary
   public boolean isString() {
-    CompilerAsserts.compilationConstant(length());
-    for (long i = 0; i < length(); i++) {
-      if (!(lookup(i, null) instanceof Integer)) {
-        return false;
+    return nodeIsString(prefix, 0) && nodeIsString(root, shift) && nodeIsString(suffix, 0);
+  }
+
+  static boolean nodeIsString(final Object node, final int shift) {
+    if (nodeIsText(node)) {
+      return true;
+    }
+    final int len = nodeLength(node);
+    if (shift == 0) {
+      if (!(node instanceof Object[])) {
+        return len == 0;
+      }
+      for (int i = 0; i < len; i++) {
+        if (!(nodeLookup(node, i) instanceof Integer)) {
+          return false;
+        }
+      }
+    } else {
+      for (int i = 0; i < len; i++) {
+        if (!nodeIsString(nodeLookup(node, i), shift - BITS)) {
+          return false;
+        }
       }
     }
     return true;
@@ -99,11 +142,11 @@ public final class Seq implements TruffleObject {
 
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public static Seq sequence(Object... values) {
-    Seq result = EMPTY;
+    final SeqBuilder builder = new SeqBuilder();
     for (Object value : values) {
-      result = result.insertLast(value);
+      builder.add(value);
     }
-    return result;
+    return builder.build();
   }
 
   @CompilerDirectives.TruffleBoundary
@@ -257,9 +300,9 @@ public final class Seq implements TruffleObject {
     }
     if (rootSize != 0) {
       final FirstAndRest separated = treeSeparateFirst(root, shift);
-      final Object[] firstLeaf = objectify(separated.first);
+      final Object firstLeaf = separated.first;
       final int firstLeafSize = nodeLength(firstLeaf);
-      final Object[] newPrefix = leafRemoveFirst(firstLeaf);
+      final Object newPrefix = leafRemoveFirst(firstLeaf);
       final int newPrefixSize = firstLeafSize - 1;
       if (shift == BITS) {
         return new Seq(newPrefix, newPrefixSize, separated.rest, rootSize - firstLeafSize, suffix, suffixSize, BITS);
@@ -305,9 +348,9 @@ public final class Seq implements TruffleObject {
     }
     if (rootSize != 0) {
       final InitAndLast separated = treeSeparateLast(root, shift);
-      final Object[] lastLeaf = objectify(separated.last);
+      final Object lastLeaf = separated.last;
       final int lastLeafSize = nodeLength(lastLeaf);
-      final Object[] newSuffix = leafRemoveLast(lastLeaf);
+      final Object newSuffix = leafRemoveLast(lastLeaf);
       final int newSuffixSize = lastLeafSize - 1;
       if (shift == BITS) {
         return new Seq(prefix, prefixSize, separated.init, rootSize - lastLeafSize, newSuffix, newSuffixSize, BITS);
@@ -353,9 +396,9 @@ public final class Seq implements TruffleObject {
     long i = index;
     if (i < prefixSize) {
       final Object[] pfxSplit = nodeSplitAt(prefix, (int) i, 0);
-      final Object[] pfxSplitLeft = (Object[]) pfxSplit[0];
+      final Object pfxSplitLeft = pfxSplit[0];
       final Object pfxSplitMedium = pfxSplit[1];
-      final Object[] pfxSplitRight = (Object[]) pfxSplit[2];
+      final Object pfxSplitRight = pfxSplit[2];
       final Seq left = new Seq(EMPTY_NODE, 0, EMPTY_NODE, 0, pfxSplitLeft, nodeLength(pfxSplitLeft), BITS);
       final Seq right = new Seq(pfxSplitRight, nodeLength(pfxSplitRight), root, rootSize, suffix, suffixSize, shift);
       return new Object[]{left, pfxSplitMedium, right};
@@ -368,25 +411,25 @@ public final class Seq implements TruffleObject {
       Object[] rightRoot = (Object[]) treeSplit[2];
       int leftShift = shift;
       int rightShift = shift;
-      final Object[] leftSuffix;
+      final Object leftSuffix;
       if (nodeLength(leftRoot) == 0) {
         leftShift = BITS;
         leftSuffix = EMPTY_NODE;
       } else {
         final InitAndLast leftRootAndSuffix = treeSeparateLast(leftRoot, leftShift);
         leftRoot = leftRootAndSuffix.init;
-        leftSuffix = objectify(leftRootAndSuffix.last);
+        leftSuffix = leftRootAndSuffix.last;
         if (nodeLength(leftRoot) == 0) {
           leftShift = BITS;
         }
       }
-      final Object[] rightPrefix;
+      final Object rightPrefix;
       if (nodeLength(rightRoot) == 0) {
         rightShift = BITS;
         rightPrefix = EMPTY_NODE;
       } else {
         final FirstAndRest rightPrefixAndRoot = treeSeparateFirst(rightRoot, rightShift);
-        rightPrefix = objectify(rightPrefixAndRoot.first);
+        rightPrefix = rightPrefixAndRoot.first;
         rightRoot = rightPrefixAndRoot.rest;
         if (nodeLength(rightRoot) == 0) {
           rightShift = BITS;
@@ -407,9 +450,9 @@ public final class Seq implements TruffleObject {
     i -= rootSize;
     if (i < suffixSize) {
       final Object[] sfxSplit = nodeSplitAt(suffix, (int) i, 0);
-      final Object[] sfxSplitLeft = (Object[]) sfxSplit[0];
+      final Object sfxSplitLeft = sfxSplit[0];
       final Object sfxSplitMedium = sfxSplit[1];
-      final Object[] sfxSplitRight = (Object[]) sfxSplit[2];
+      final Object sfxSplitRight = sfxSplit[2];
       final Seq left = new Seq(prefix, prefixSize, root, rootSize, sfxSplitLeft, nodeLength(sfxSplitLeft), shift);
       final Seq right = new Seq(sfxSplitRight, nodeLength(sfxSplitRight), EMPTY_NODE, 0, EMPTY_NODE, 0, BITS);
       return new Object[]{left, sfxSplitMedium, right};
@@ -494,6 +537,48 @@ public final class Seq implements TruffleObject {
     return nodeLookup(node, (int) (index & MASK));
   }
 
+  public boolean isInBounds(final long index) {
+    return index >= 0 && index < length();
+  }
+
+  /**
+   * Unboxed {@link #lookup(long, Node)} of a character, the index must be {@link #isInBounds(long) in bounds}.
+   *
+   * @throws NotACharacterException if the element is not a character
+   */
+  @CompilerDirectives.TruffleBoundary(allowInlining = true)
+  public int lookupCodePoint(final long index) throws NotACharacterException {
+    long i = index;
+    if (i < prefixSize) {
+      return nodeLookupCodePoint(prefix, (int) i);
+    }
+    i -= prefixSize;
+    if (i < rootSize) {
+      return treeLookupCodePoint(root, i, shift);
+    }
+    i -= rootSize;
+    return nodeLookupCodePoint(suffix, (int) i);
+  }
+
+  static int treeLookupCodePoint(Object tree, long i, int shift) throws NotACharacterException {
+    for (long[] meta = nodeMeta(tree); meta != null; meta = nodeMeta(tree)) {
+      int guess = (int) (i / elementSizeAt(shift));
+      while (meta[guess] <= i) {
+        guess++;
+      }
+      if (guess > 0) {
+        i -= meta[guess - 1];
+      }
+      tree = nodeLookup(tree, guess);
+      shift -= BITS;
+    }
+    while (shift > 0) {
+      tree = nodeLookup(tree, (int) ((i >>> shift) & MASK));
+      shift -= BITS;
+    }
+    return nodeLookupCodePoint(tree, (int) (i & MASK));
+  }
+
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public Seq[] split(final long idx, final Node caller) {
     final Object[] pt = splitAt(idx, caller);
@@ -524,37 +609,6 @@ public final class Seq implements TruffleObject {
     return catenate((Seq) pt[0], (Seq) pt[2]);
   }
 
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public Object reduceLeft(final Object[] reducer, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-    final Function step = (Function) reducer[1];
-    final Function complete = (Function) reducer[2];
-    Object state = reducer[0];
-    try {
-      for (int i = 0; i < prefixSize; i++) {
-        state = dispatch.execute(step, state, nodeLookup(prefix, i));
-      }
-      state = nodeFoldLeft(root, shift, state, step, dispatch);
-      for (int i = 0; i < suffixSize; i++) {
-        state = dispatch.execute(step, state, nodeLookup(suffix, i));
-      }
-    } catch (TransducerDoneException ignored) {
-    }
-    return dispatch.execute(complete, state);
-  }
-
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public Object foldLeft(final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-    Object result = initial;
-    for (int i = 0; i < prefixSize; i++) {
-      result = dispatch.execute(function, result, nodeLookup(prefix, i));
-    }
-    result = nodeFoldLeft(root, shift, result, function, dispatch);
-    for (int i = 0; i < suffixSize; i++) {
-      result = dispatch.execute(function, result, nodeLookup(suffix, i));
-    }
-    return result;
-  }
-
   public <T> T foldLeft(final T initial, final BiFunction<T, Object, T> function) {
     T result = initial;
     for (int i = 0; i < prefixSize; i++) {
@@ -567,37 +621,6 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public Object reduceRight(final Object[] reducer, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-    final Function step = (Function) reducer[1];
-    final Function complete = (Function) reducer[2];
-    Object state = reducer[0];
-    try {
-      for (int i = suffixSize - 1; i >= 0; i--) {
-        state = dispatch.execute(step, state, nodeLookup(suffix, i));
-      }
-      state = nodeFoldRight(root, shift, state, step, dispatch);
-      for (int i = prefixSize - 1; i >= 0; i--) {
-        state = dispatch.execute(step, state, nodeLookup(prefix, i));
-      }
-    } catch (TransducerDoneException ignored) {
-    }
-    return dispatch.execute(complete, state);
-  }
-
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public Object foldRight(final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-    Object result = initial;
-    for (int i = suffixSize - 1; i >= 0; i--) {
-      result = dispatch.execute(function, result, nodeLookup(suffix, i));
-    }
-    result = nodeFoldRight(root, shift, result, function, dispatch);
-    for (int i = prefixSize - 1; i >= 0; i--) {
-      result = dispatch.execute(function, result, nodeLookup(prefix, i));
-    }
-    return result;
-  }
-
   public <T> T foldRight(final T initial, final BiFunction<T, Object, T> function) {
     T result = initial;
     for (int i = suffixSize - 1; i >= 0; i--) {
@@ -610,14 +633,50 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
+  /**
+   * @return cursor over the elements of this sequence, from the first one to the last one
+   */
+  @CompilerDirectives.TruffleBoundary
+  public LeafCursor leafCursor() {
+    return new ElementCursor(this, false);
+  }
+
+  /**
+   * @return cursor over the elements of this sequence, from the last one to the first one
+   */
+  @CompilerDirectives.TruffleBoundary
+  public LeafCursor reverseLeafCursor() {
+    return new ElementCursor(this, true);
+  }
+
+  /**
+   * @return cursors over consecutive parts of this sequence of (nearly) the same length, parts must not be more than
+   * the length of this sequence
+   */
+  @CompilerDirectives.TruffleBoundary
+  public LeafCursor[] splitCursors(final int parts, final Node caller) {
+    final LeafCursor[] result = new LeafCursor[parts];
+    Seq rest = this;
+    long remaining = length();
+    for (int i = 0; i < parts - 1; i++) {
+      final long partLength = remaining / (parts - i);
+      final Object[] pt = rest.splitAt(partLength, caller);
+      result[i] = ((Seq) pt[0]).leafCursor();
+      rest = ((Seq) pt[2]).insertFirst(pt[1]);
+      remaining -= partLength;
+    }
+    result[parts - 1] = rest.leafCursor();
+    return result;
+  }
+
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public Seq map(final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-    return new Seq(nodeMap(prefix, 0, function, dispatch), prefixSize, nodeMap(root, shift, function, dispatch), rootSize, nodeMap(suffix, 0, function, dispatch), suffixSize, shift);
+    return new Seq(nodeMap(prefix, 0, function, dispatch), prefixSize, (Object[]) nodeMap(root, shift, function, dispatch), rootSize, nodeMap(suffix, 0, function, dispatch), suffixSize, shift);
   }
 
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public Seq map(final java.util.function.Function<Object, ?> function) {
-    return new Seq(nodeMap(prefix, 0, function), prefixSize, nodeMap(root, shift, function), rootSize, nodeMap(suffix, 0, function), suffixSize, shift);
+    return new Seq(nodeMap(prefix, 0, function), prefixSize, (Object[]) nodeMap(root, shift, function), rootSize, nodeMap(suffix, 0, function), suffixSize, shift);
   }
 
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
@@ -660,48 +719,107 @@ public final class Seq implements TruffleObject {
   }
 
   public byte[] asByteArray(Node caller) {
-    long len = length();
+    final long len = byteLength();
     if (len > Integer.MAX_VALUE) {
       throw new BadArgException("Sequence too long to be converted to Java byte array", caller);
     }
-    ByteBuffer byteBuffer = ByteBuffer.allocate((int) len);
-    if (asBytes(byteBuffer)) {
-      byteBuffer.limit(byteBuffer.position());
-      byteBuffer.position(0);
-      return byteBuffer.array();
-    } else {
+    if (len < 0) {
       throw new BadArgException("Unable to convert sequence to Java byte array", caller);
     }
+    final byte[] result = new byte[(int) len];
+    asBytes(ByteBuffer.wrap(result));
+    return result;
   }
 
   public ByteBuffer asByteBuffer(Node caller) {
-    long len = length();
+    final long len = byteLength();
     if (len > Integer.MAX_VALUE) {
       throw new BadArgException("Sequence too long to be converted to Java ByteBuffer", caller);
     }
-    ByteBuffer byteBuffer = ByteBuffer.allocate((int) len);
-    if (asBytes(byteBuffer)) {
-      byteBuffer.limit(byteBuffer.position());
-      byteBuffer.position(0);
-      return byteBuffer;
-    } else {
+    if (len < 0) {
       throw new BadArgException("Unable to convert sequence to Java ByteBuffer", caller);
     }
+    final ByteBuffer byteBuffer = ByteBuffer.allocate((int) len);
+    asBytes(byteBuffer);
+    byteBuffer.flip();
+    return byteBuffer;
   }
 
-  static boolean appendCodePoints(final CharBuffer buffer, final Object node, final int shift) {
+  /**
+   * @return number of bytes {@link #asBytes(ByteBuffer)} would produce (characters are UTF-8 encoded), or -1 if the
+   * sequence contains values other than bytes and characters
+   */
+  public long byteLength() {
+    final long prefixLength = nodeByteLength(prefix, 0);
+    final long rootLength = nodeByteLength(root, shift);
+    final long suffixLength = nodeByteLength(suffix, 0);
+    if (prefixLength < 0 || rootLength < 0 || suffixLength < 0) {
+      return -1;
+    }
+    return prefixLength + rootLength + suffixLength;
+  }
+
+  static long nodeByteLength(final Object node, final int shift) {
     final int len = nodeLength(node);
+    long result = 0;
     if (shift == 0) {
       if (node instanceof byte[]) {
         final byte[] bytes = (byte[]) node;
-        if (!decodeIsUtf8(bytes[0])) {
-          return false;
+        if (!decodeIsText(bytes[0])) {
+          return len;
+        } else if (textIsLatin1(bytes)) {
+          for (int i = 1; i <= len; i++) {
+            result += (bytes[i] & 0x80) == 0 ? 1 : 2;
+          }
+        } else {
+          return bytes.length - len - 1;
         }
-        int offset = 1;
+      } else {
         for (int i = 0; i < len; i++) {
-          final int codePoint = UnicodeUtils.utf8Decode(bytes, offset);
-          appendCodePoint(buffer, codePoint);
-          offset += UnicodeUtils.utf8Length(codePoint);
+          final Object o = nodeLookup(node, i);
+          if (o instanceof Integer) {
+            final int codePointLen = UnicodeUtils.utf8Length((Integer) o);
+            if (codePointLen == -1) {
+              return -1;
+            }
+            result += codePointLen;
+          } else if (o instanceof Byte) {
+            result++;
+          } else {
+            return -1;
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < len; i++) {
+        final long childLength = nodeByteLength(nodeLookup(node, i), shift - BITS);
+        if (childLength < 0) {
+          return -1;
+        }
+        result += childLength;
+      }
+    }
+    return result;
+  }
+
+  static boolean appendCodePoints(final CharBuffer buffer, final Object node, final int shift) {
+    final int len = nodeLength(node);
+    if (shift == 0) {
+      if (node instanceof char[]) {
+        buffer.put((char[]) node, 1, len);
+      } else if (node instanceof byte[]) {
+        final byte[] bytes = (byte[]) node;
+        if (!decodeIsText(bytes[0])) {
+          return false;
+        }
+        if (textIsLatin1(bytes)) {
+          for (int i = 1; i <= len; i++) {
+            buffer.put((char) (bytes[i] & 0xff));
+          }
+        } else {
+          for (int i = 0; i < len; i++) {
+            appendCodePoint(buffer, utf8Lookup(bytes, len, i));
+          }
         }
       } else {
         for (int i = 0; i < len; i++) {
@@ -750,7 +868,20 @@ public final class Seq implements TruffleObject {
     if (shift == 0) {
       if (node instanceof byte[]) {
         final byte[] bytes = (byte[]) node;
-        buffer.put(bytes, 1, bytes.length - 1);
+        if (!decodeIsText(bytes[0])) {
+          buffer.put(bytes, 1, len);
+        } else if (textIsLatin1(bytes)) {
+          for (int i = 1; i <= len; i++) {
+            UnicodeUtils.utf8Encode(buffer, bytes[i] & 0xff);
+          }
+        } else {
+          buffer.put(bytes, len + 1, bytes.length - len - 1);
+        }
+      } else if (node instanceof char[]) {
+        final char[] chars = (char[]) node;
+        for (int i = 1; i <= len; i++) {
+          UnicodeUtils.utf8Encode(buffer, chars[i]);
+        }
       } else {
         for (int i = 0; i < len; i++) {
           Object o = nodeLookup(node, i);
@@ -835,91 +966,116 @@ public final class Seq implements TruffleObject {
   }
 
   static Object[] objectify(final Object node) {
-    if (node instanceof byte[]) {
-      final byte[] bytes = (byte[]) node;
-      final Object[] result = new Object[nodeLength(node) + 1];
-      if (decodeIsUtf8(bytes[0])) {
-        for (int i = 1; i < result.length; i++) {
-          result[i] = UnicodeUtils.utf8Decode(bytes, UnicodeUtils.utf8Offset(bytes, 1, i - 1));
-        }
-      } else {
-        for (int i = 1; i < result.length; i++) {
-          result[i] = bytes[i];
-        }
-      }
-      return result;
-    } else {
+    if (node instanceof Object[]) {
       return (Object[]) node;
     }
+    final Object[] result = new Object[nodeLength(node) + 1];
+    for (int i = 1; i < result.length; i++) {
+      result[i] = nodeLookup(node, i - 1);
+    }
+    return result;
   }
 
   static int nodeLength(final Object node) {
-    return node instanceof byte[] ? decodeLength(((byte[]) node)[0]) : Array.getLength(node) - 1;
+    if (node instanceof Object[]) {
+      return ((Object[]) node).length - 1;
+    } else if (node instanceof byte[]) {
+      return decodeLength(((byte[]) node)[0]);
+    } else {
+      return ((char[]) node)[0];
+    }
   }
 
   static long[] nodeMeta(final Object node) {
-    return node instanceof Object[] ? (long[]) Array.get(node, 0) : null;
+    return node instanceof Object[] ? (long[]) ((Object[]) node)[0] : null;
   }
 
   static boolean nodeIsSpecial(final Object node) {
     return nodeLength(node) != MAX_NODE_LENGTH || nodeMeta(node) != null;
   }
 
+  static boolean nodeIsText(final Object node) {
+    return node instanceof char[] || (node instanceof byte[] && decodeIsText(((byte[]) node)[0]));
+  }
+
+  static boolean nodeIsBytes(final Object node) {
+    return node instanceof byte[] && !decodeIsText(((byte[]) node)[0]);
+  }
+
   static long nodeSize(final Object node, final int shift) {
     final long[] meta = nodeMeta(node);
     return meta != null ? meta[meta.length - 1] : nodeLength(node) * elementSizeAt(shift);
   }
 
   static Object[] nodeSplitAt(final Object node, final int i, final int shift) {
-    final Object[] src = objectify(node);
+    if (shift == 0) {
+      return new Object[]{leafSlice(node, 0, i), nodeLookup(node, i), leafSlice(node, i + 1, nodeLength(node))};
+    }
+    final Object[] src = (Object[]) node;
     Object[] left = new Object[i + 1];
     System.arraycopy(src, 1, left, 1, i);
-    if (shift != 0) {
-      buildIndex(left, shift - BITS);
-    }
+    buildIndex(left, shift - BITS);
     final int j = nodeLength(src) - i - 1;
     Object[] right = new Object[j + 1];
     System.arraycopy(src, i + 2, right, 1, j);
-    if (shift != 0) {
-      buildIndex(right, shift - BITS);
-    }
+    buildIndex(right, shift - BITS);
     return new Object[]{left, src[i + 1], right};
   }
 
   static Object nodeLookup(final Object node, final int i) {
-    if (node instanceof byte[]) {
+    if (node instanceof Object[]) {
+      return ((Object[]) node)[i + 1];
+    } else if (node instanceof byte[]) {
       final byte[] bytes = (byte[]) node;
-      if (decodeIsUtf8(bytes[0])) {
-        return UnicodeUtils.utf8Decode(bytes, UnicodeUtils.utf8Offset(bytes, 1, i));
+      if (decodeIsText(bytes[0])) {
+        return textLookup(bytes, i);
       } else {
         return bytes[i + 1];
       }
     } else {
-      return ((Object[]) node)[i + 1];
+      return (int) ((char[]) node)[i + 1];
     }
   }
 
-  static Object nodeFirst(final Object node) {
-    return nodeLookup(node, 0);
+  static int nodeLookupCodePoint(final Object node, final int i) throws NotACharacterException {
+    if (node instanceof char[]) {
+      return ((char[]) node)[i + 1];
+    } else if (node instanceof byte[]) {
+      final byte[] bytes = (byte[]) node;
+      if (decodeIsText(bytes[0])) {
+        return textLookup(bytes, i);
+      }
+    } else {
+      final Object o = ((Object[]) node)[i + 1];
+      if (o instanceof Integer) {
+        return (Integer) o;
+      }
+    }
+    throw NotACharacterException.INSTANCE;
   }
 
-  static Object nodeLast(final Object node) {
-    return nodeLookup(node, nodeLength(node) - 1);
+  static boolean textIsLatin1(final byte[] bytes) {
+    return bytes.length == decodeLength(bytes[0]) + 1;
   }
 
-  static Object nodeFoldLeft(final Object node, final int shift, final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-    final int len = nodeLength(node);
-    Object result = initial;
-    if (shift == 0) {
-      for (int i = 0; i < len; i++) {
-        result = dispatch.execute(function, result, nodeLookup(node, i));
-      }
+  static int textLookup(final byte[] bytes, final int i) {
+    if (textIsLatin1(bytes)) {
+      return bytes[i + 1] & 0xff;
     } else {
-      for (int i = 0; i < len; i++) {
-        result = nodeFoldLeft(nodeLookup(node, i), shift - BITS, result, function, dispatch);
-      }
+      return utf8Lookup(bytes, decodeLength(bytes[0]), i);
     }
-    return result;
+  }
+
+  static int utf8Lookup(final byte[] bytes, final int len, final int i) {
+    return UnicodeUtils.utf8Decode(bytes, len + 1 + (bytes[i + 1] & 0xff));
+  }
+
+  static Object nodeFirst(final Object node) {
+    return nodeLookup(node, 0);
+  }
+
+  static Object nodeLast(final Object node) {
+    return nodeLookup(node, nodeLength(node) - 1);
   }
 
   static <T> T nodeFoldLeft(final Object node, final int shift, final T initial, final BiFunction<T, Object, T> function) {
@@ -937,21 +1093,6 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
-  static Object nodeFoldRight(final Object node, final int shift, final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-    final int len = nodeLength(node);
-    Object result = initial;
-    if (shift == 0) {
-      for (int i = len - 1; i >= 0; i--) {
-        result = dispatch.execute(function, result, nodeLookup(node, i));
-      }
-    } else {
-      for (int i = len - 1; i >= 0; i--) {
-        result = nodeFoldRight(nodeLookup(node, i), shift - BITS, result, function, dispatch);
-      }
-    }
-    return result;
-  }
-
   static <T> T nodeFoldRight(final Object node, final int shift, final T initial, final BiFunction<T, Object, T> function) {
     final int len = nodeLength(node);
     T result = initial;
@@ -967,13 +1108,14 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
-  static Object[] nodeMap(final Object node, final int shift, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
+  static Object nodeMap(final Object node, final int shift, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
     final int len = nodeLength(node);
     Object[] result = new Object[len + 1];
     if (shift == 0) {
       for (int i = 0; i < len; i++) {
         result[i + 1] = dispatch.execute(function, nodeLookup(node, i));
       }
+      return compactLeaf(result);
     } else {
       result[0] = ((Object[]) node)[0];
       for (int i = 0; i < len; i++) {
@@ -983,13 +1125,14 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
-  static Object[] nodeMap(final Object node, final int shift, final java.util.function.Function<Object, ?> function) {
+  static Object nodeMap(final Object node, final int shift, final java.util.function.Function<Object, ?> function) {
     final int len = nodeLength(node);
     Object[] result = new Object[len + 1];
     if (shift == 0) {
       for (int i = 0; i < len; i++) {
         result[i + 1] = function.apply(nodeLookup(node, i));
       }
+      return compactLeaf(result);
     } else {
       result[0] = ((Object[]) node)[0];
       for (int i = 0; i < len; i++) {
@@ -999,7 +1142,12 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
-  static Object[] newLeaf(final Object value) {
+  static Object newLeaf(final Object value) {
+    if (value instanceof Integer) {
+      return textLeafInsert(EMPTY_NODE, 0, (Integer) value);
+    } else if (value instanceof Byte) {
+      return new byte[]{encode(1, false), (Byte) value};
+    }
     return new Object[]{null, value};
   }
 
@@ -1009,12 +1157,6 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
-  static byte[] newLeaf(final Utf8Source source, final int n) {
-    final byte[] result = source.next(1, n);
-    result[0] = encode(n, true);
-    return result;
-  }
-
   static Object[] leafInsertFirst(final Object[] leaf, final Object value) {
     final Object[] result = new Object[leaf.length + 1];
     result[1] = value;
@@ -1047,6 +1189,217 @@ public final class Seq implements TruffleObject {
     return result;
   }
 
+  static Object leafInsertFirst(final Object leaf, final Object value) {
+    if (value instanceof Integer && (nodeIsText(leaf) || nodeLength(leaf) == 0)) {
+      return textLeafInsert(leaf, 0, (Integer) value);
+    } else if (value instanceof Byte && (nodeIsBytes(leaf) || nodeLength(leaf) == 0)) {
+      return bytesLeafInsert(leaf, 0, (Byte) value);
+    }
+    return leafInsertFirst(objectify(leaf), value);
+  }
+
+  static Object leafInsertLast(final Object leaf, final Object value) {
+    if (value instanceof Integer && (nodeIsText(leaf) || nodeLength(leaf) == 0)) {
+      return textLeafInsert(leaf, nodeLength(leaf), (Integer) value);
+    } else if (value instanceof Byte && (nodeIsBytes(leaf) || nodeLength(leaf) == 0)) {
+      return bytesLeafInsert(leaf, nodeLength(leaf), (Byte) value);
+    }
+    return leafInsertLast(objectify(leaf), value);
+  }
+
+  static Object leafRemoveFirst(final Object leaf) {
+    return leafSlice(leaf, 1, nodeLength(leaf));
+  }
+
+  static Object leafRemoveLast(final Object leaf) {
+    return leafSlice(leaf, 0, nodeLength(leaf) - 1);
+  }
+
+  static Object leafSlice(final Object leaf, final int from, final int to) {
+    final int len = to - from;
+    if (len == 0) {
+      return EMPTY_NODE;
+    }
+    if (len == nodeLength(leaf)) {
+      return leaf;
+    }
+    if (leaf instanceof Object[]) {
+      final Object[] result = new Object[len + 1];
+      System.arraycopy(leaf, from + 1, result, 1, len);
+      return result;
+    } else if (leaf instanceof char[]) {
+      final char[] result = new char[len + 1];
+      result[0] = (char) len;
+      System.arraycopy(leaf, from + 1, result, 1, len);
+      return result;
+    } else {
+      final byte[] bytes = (byte[]) leaf;
+      if (!decodeIsText(bytes[0]) || textIsLatin1(bytes)) {
+        final byte[] result = new byte[len + 1];
+        result[0] = encode(len, decodeIsText(bytes[0]));
+        System.arraycopy(bytes, from + 1, result, 1, len);
+        return result;
+      }
+      final int[] codePoints = new int[len];
+      copyCodePoints(leaf, from, codePoints, 0, len);
+      return newTextLeaf(codePoints, 0, len);
+    }
+  }
+
+  static Object leafCatenate(final Object left, final Object right) {
+    final int leftLen = nodeLength(left);
+    final int rightLen = nodeLength(right);
+    if (leftLen == 0) {
+      return right;
+    }
+    if (rightLen == 0) {
+      return left;
+    }
+    if (nodeIsText(left) && nodeIsText(right)) {
+      final int[] codePoints = new int[leftLen + rightLen];
+      copyCodePoints(left, 0, codePoints, 0, leftLen);
+      copyCodePoints(right, 0, codePoints, leftLen, rightLen);
+      return newTextLeaf(codePoints, 0, codePoints.length);
+    }
+    if (nodeIsBytes(left) && nodeIsBytes(right)) {
+      final byte[] result = new byte[leftLen + rightLen + 1];
+      result[0] = encode(leftLen + rightLen, false);
+      System.arraycopy(left, 1, result, 1, leftLen);
+      System.arraycopy(right, 1, result, leftLen + 1, rightLen);
+      return result;
+    }
+    final Object[] result = new Object[leftLen + rightLen + 1];
+    System.arraycopy(objectify(left), 1, result, 1, leftLen);
+    System.arraycopy(objectify(right), 1, result, leftLen + 1, rightLen);
+    return result;
+  }
+
+  static Object textLeafInsert(final Object leaf, final int idx, final int codePoint) {
+    final int len = nodeLength(leaf);
+    if (leaf instanceof char[] && codePoint >= 0 && codePoint <= 0xffff) {
+      final char[] result = new char[len + 2];
+      result[0] = (char) (len + 1);
+      System.arraycopy(leaf, 1, result, 1, idx);
+      result[idx + 1] = (char) codePoint;
+      System.arraycopy(leaf, idx + 1, result, idx + 2, len - idx);
+      return result;
+    } else if (leaf instanceof byte[] && textIsLatin1((byte[]) leaf) && codePoint >= 0 && codePoint <= 0xff) {
+      final byte[] result = new byte[len + 2];
+      result[0] = encode(len + 1, true);
+      System.arraycopy(leaf, 1, result, 1, idx);
+      result[idx + 1] = (byte) codePoint;
+      System.arraycopy(leaf, idx + 1, result, idx + 2, len - idx);
+      return result;
+    } else {
+      final int[] codePoints = new int[len + 1];
+      copyCodePoints(leaf, 0, codePoints, 0, idx);
+      codePoints[idx] = codePoint;
+      copyCodePoints(leaf, idx, codePoints, idx + 1, len - idx);
+      return newTextLeaf(codePoints, 0, codePoints.length);
+    }
+  }
+
+  static byte[] bytesLeafInsert(final Object leaf, final int idx, final byte value) {
+    final int len = nodeLength(leaf);
+    final byte[] result = new byte[len + 2];
+    result[0] = encode(len + 1, false);
+    if (len != 0) {
+      System.arraycopy(leaf, 1, result, 1, idx);
+      System.arraycopy(leaf, idx + 1, result, idx + 2, len - idx);
+    }
+    result[idx + 1] = value;
+    return result;
+  }
+
+  static void copyCodePoints(final Object leaf, final int from, final int[] dst, final int dstOffset, final int n) {
+    for (int i = 0; i < n; i++) {
+      dst[dstOffset + i] = (int) nodeLookup(leaf, from + i);
+    }
+  }
+
+  static Object newTextLeaf(final int[] codePoints, final int from, final int to) {
+    final int len = to - from;
+    if (len == 0) {
+      return EMPTY_NODE;
+    }
+    int max = 0;
+    int min = 0;
+    int utf8Len = 0;
+    boolean isUtf8 = true;
+    for (int i = from; i < to; i++) {
+      final int codePoint = codePoints[i];
+      final int codePointLen = UnicodeUtils.utf8Length(codePoint);
+      if (codePointLen == -1) {
+        isUtf8 = false;
+      }
+      max = Math.max(max, codePoint);
+      min = Math.min(min, codePoint);
+      utf8Len += codePointLen;
+    }
+    if (min < 0 || (max > 0xffff && !isUtf8)) {
+      final Object[] result = new Object[len + 1];
+      for (int i = 0; i < len; i++) {
+        result[i + 1] = codePoints[from + i];
+      }
+      return result;
+    } else if (max <= 0xff) {
+      final byte[] result = new byte[len + 1];
+      result[0] = encode(len, true);
+      for (int i = 0; i < len; i++) {
+        result[i + 1] = (byte) codePoints[from + i];
+      }
+      return result;
+    } else if (max <= 0xffff) {
+      final char[] result = new char[len + 1];
+      result[0] = (char) len;
+      for (int i = 0; i < len; i++) {
+        result[i + 1] = (char) codePoints[from + i];
+      }
+      return result;
+    } else {
+      final byte[] result = new byte[len + 1 + utf8Len];
+      result[0] = encode(len, true);
+      final ByteBuffer buffer = ByteBuffer.wrap(result);
+      buffer.position(len + 1);
+      for (int i = 0; i < len; i++) {
+        result[i + 1] = (byte) (buffer.position() - len - 1);
+        UnicodeUtils.utf8Encode(buffer, codePoints[from + i]);
+      }
+      return result;
+    }
+  }
+
+  static Object compactLeaf(final Object[] leaf) {
+    final int len = nodeLength(leaf);
+    if (len == 0) {
+      return leaf;
+    }
+    if (leaf[1] instanceof Byte) {
+      final byte[] result = new byte[len + 1];
+      result[0] = encode(len, false);
+      for (int i = 0; i < len; i++) {
+        final Object o = leaf[i + 1];
+        if (!(o instanceof Byte)) {
+          return leaf;
+        }
+        result[i + 1] = (Byte) o;
+      }
+      return result;
+    }
+    if (!(leaf[1] instanceof Integer)) {
+      return leaf;
+    }
+    final int[] codePoints = new int[len];
+    for (int i = 0; i < len; i++) {
+      final Object o = leaf[i + 1];
+      if (!(o instanceof Integer)) {
+        return leaf;
+      }
+      codePoints[i] = (Integer) o;
+    }
+    return newTextLeaf(codePoints, 0, len);
+  }
+
   static Object[] newNonLeaf(final Object child, final int childShift) {
     long[] meta = null;
     if (nodeIsSpecial(child)) {
@@ -1257,15 +1610,15 @@ public final class Seq implements TruffleObject {
     return true;
   }
 
-  static byte encode(final int length, final boolean isUtf8) {
-    return (byte) ((length & 0x7f) | (isUtf8 ? 0x80 : 0x0));
+  static byte encode(final int length, final boolean isText) {
+    return (byte) ((length & 0x7f) | (isText ? 0x80 : 0x0));
   }
 
   static int decodeLength(final byte encoded) {
     return encoded & 0x7f;
   }
 
-  static boolean decodeIsUtf8(final byte encoded) {
+  static boolean decodeIsText(final byte encoded) {
     return (encoded & 0x80) != 0;
   }
 
@@ -1286,9 +1639,9 @@ public final class Seq implements TruffleObject {
       }
       root = newRoot;
     }
-    final Object[] suffix;
+    final Object suffix;
     if (source.remaining() != 0) {
-      suffix = objectify(newLeaf(source, source.remaining() % MAX_NODE_LENGTH));
+      suffix = newLeaf(source, source.remaining() % MAX_NODE_LENGTH);
     } else {
       suffix = EMPTY_NODE;
     }
@@ -1322,7 +1675,7 @@ public final class Seq implements TruffleObject {
 
   public static Seq fromByteBuffer(final ByteBuffer byteBuffer) {
     return fromByteSource(new ByteSource() {
-      int remaining = byteBuffer.limit();
+      int remaining = byteBuffer.remaining();
 
       @Override
       protected int remaining() {
@@ -1339,11 +1692,18 @@ public final class Seq implements TruffleObject {
     });
   }
 
-  public static Seq fromUtf8(final Utf8Source source) {
+  @CompilerDirectives.TruffleBoundary(allowInlining = true)
+  public static Seq fromCharSequence(final CharSequence source) {
+    return fromCodePoints(source.codePoints().toArray());
+  }
+
+  @CompilerDirectives.TruffleBoundary(allowInlining = true)
+  public static Seq fromCodePoints(final int[] codePoints) {
     int shift = BITS;
     Object[] root = EMPTY_NODE;
-    for (int remaining = source.remaining(); remaining / MAX_NODE_LENGTH != 0; remaining -= MAX_NODE_LENGTH) {
-      byte[] leaf = newLeaf(source, MAX_NODE_LENGTH);
+    int cursor = 0;
+    for (; codePoints.length - cursor >= MAX_NODE_LENGTH; cursor += MAX_NODE_LENGTH) {
+      Object leaf = newTextLeaf(codePoints, cursor, cursor + MAX_NODE_LENGTH);
       Object[] newRoot = treeTryInsertLast(root, leaf, shift);
       if (newRoot == null) {
         newRoot = newNonLeaf(root, wrap(leaf, 0, shift), shift);
@@ -1351,53 +1711,10 @@ public final class Seq implements TruffleObject {
       }
       root = newRoot;
     }
-    final Object[] suffix;
-    if (source.remaining() != 0) {
-      suffix = objectify(newLeaf(source, source.remaining() % MAX_NODE_LENGTH));
-    } else {
-      suffix = EMPTY_NODE;
-    }
+    final Object suffix = newTextLeaf(codePoints, cursor, codePoints.length);
     return new Seq(EMPTY_NODE, 0, root, nodeSize(root, shift), suffix, nodeLength(suffix), shift);
   }
 
-  public static abstract class Utf8Source {
-    abstract int remaining();
-
-    abstract byte[] next(final int offset, final int n);
-  }
-
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public static Seq fromCharSequence(final CharSequence source) {
-    final int[] codePoints = source.codePoints().toArray();
-    final ByteBuffer buffer = ByteBuffer.allocate(MAX_NODE_LENGTH * 4);
-    return fromUtf8(new Utf8Source() {
-      int cursor = 0;
-
-      @Override
-      int remaining() {
-        return codePoints.length - cursor;
-      }
-
-      @Override
-      byte[] next(final int offset, final int n) {
-        int bytes = 0;
-        for (int i = 0; i < n; i++) {
-          int codePoint = codePoints[cursor++];
-          int codePointLen = UnicodeUtils.utf8Length(codePoint);
-          if (codePointLen == -1) {
-            throw new AssertionError();
-          }
-          UnicodeUtils.utf8Encode(buffer, codePoint);
-          bytes += codePointLen;
-        }
-        final byte[] result = new byte[offset + bytes];
-        System.arraycopy(buffer.array(), 0, result, offset, bytes);
-        buffer.position(0);
-        return result;
-      }
-    });
-  }
-
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public static Seq catenate(final Seq left, final Seq right) {
     if (left.length() == 0) {
@@ -1406,6 +1723,10 @@ public final class Seq implements TruffleObject {
     if (right.length() == 0) {
       return left;
     }
+    if (left.rootSize == 0 && right.rootSize == 0 && left.length() + right.length() <= MAX_NODE_LENGTH) {
+      final Object leaf = leafCatenate(leafCatenate(left.prefix, left.suffix), leafCatenate(right.prefix, right.suffix));
+      return new Seq(EMPTY_NODE, 0, EMPTY_NODE, 0L, leaf, nodeLength(leaf), BITS);
+    }
     Object[] leftRoot = left.root;
     int leftShift = left.shift;
     if (nodeLength(left.prefix) != 0) {
@@ -1449,18 +1770,18 @@ public final class Seq implements TruffleObject {
     leftRoot = tiltRight(leftRoot, leftShift);
     rightRoot = tiltLeft(rightRoot, rightShift);
     final FirstAndRest prefixAndLeft = treeSeparateFirst(leftRoot, leftShift);
-    final Object[] newPrefix;
+    final Object newPrefix;
     if (nodeLength(prefixAndLeft.first) != MAX_NODE_LENGTH) {
-      newPrefix = objectify(prefixAndLeft.first);
+      newPrefix = prefixAndLeft.first;
       leftRoot = prefixAndLeft.rest;
     } else {
       newPrefix = EMPTY_NODE;
     }
     final InitAndLast rightAndSuffix = treeSeparateLast(rightRoot, rightShift);
-    final Object[] newSuffix;
+    final Object newSuffix;
     if (nodeLength(rightAndSuffix.last) != MAX_NODE_LENGTH) {
       rightRoot = rightAndSuffix.init;
-      newSuffix = objectify(rightAndSuffix.last);
+      newSuffix = rightAndSuffix.last;
     } else {
       newSuffix = EMPTY_NODE;
     }
@@ -1552,10 +1873,10 @@ public final class Seq implements TruffleObject {
       final Object[] dst = (Object[]) result[i + 1];
       int dstOffset = 0;
       while (srcIdx < parentLength) {
-        Object[] src = objectify(nodeLookup(parent, srcIdx));
+        final Object src = nodeLookup(parent, srcIdx);
         final int srcRemaining = nodeLength(src) - srcOffset;
         final int dstRemaining = nodeLength(dst) - dstOffset;
-        System.arraycopy(src, srcOffset + 1, dst, dstOffset + 1, Math.min(srcRemaining, dstRemaining));
+        nodeCopy(src, srcOffset, dst, dstOffset, Math.min(srcRemaining, dstRemaining));
         if (srcRemaining > dstRemaining) {
           srcOffset += dstRemaining;
           if (childShift != 0) {
@@ -1577,6 +1898,11 @@ public final class Seq implements TruffleObject {
       }
     }
     System.arraycopy(parent, srcIdx + 1, result, nodesToFill + 1, nodesToCopy);
+    if (childShift == 0) {
+      for (int i = 0; i < nodesToFill; i++) {
+        result[i + 1] = compactLeaf((Object[]) result[i + 1]);
+      }
+    }
     return buildIndex(result, childShift);
   }
 
@@ -1644,10 +1970,10 @@ public final class Seq implements TruffleObject {
       final Object[] dst = (Object[]) result[nodesToCopy + i + 1];
       int dstOffset = 0;
       while (srcIdx < parentLength) {
-        Object[] src = objectify(nodeLookup(parent, srcIdx));
+        final Object src = nodeLookup(parent, srcIdx);
         final int srcRemaining = nodeLength(src) - srcOffset;
         final int dstRemaining = nodeLength(dst) - dstOffset;
-        System.arraycopy(src, srcOffset + 1, dst, dstOffset + 1, Math.min(srcRemaining, dstRemaining));
+        nodeCopy(src, srcOffset, dst, dstOffset, Math.min(srcRemaining, dstRemaining));
         if (srcRemaining > dstRemaining) {
           srcOffset += dstRemaining;
           if (childShift != 0) {
@@ -1668,9 +1994,24 @@ public final class Seq implements TruffleObject {
         }
       }
     }
+    if (childShift == 0) {
+      for (int i = 0; i < nodesToFill; i++) {
+        result[nodesToCopy + i + 1] = compactLeaf((Object[]) result[nodesToCopy + i + 1]);
+      }
+    }
     return buildIndex(result, childShift);
   }
 
+  static void nodeCopy(final Object src, final int srcOffset, final Object[] dst, final int dstOffset, final int n) {
+    if (src instanceof Object[]) {
+      System.arraycopy(src, srcOffset + 1, dst, dstOffset + 1, n);
+    } else {
+      for (int i = 0; i < n; i++) {
+        dst[dstOffset + i + 1] = nodeLookup(src, srcOffset + i);
+      }
+    }
+  }
+
   static Object[] buildIndex(final Object[] nonLeaf, final int childShift) {
     final int len = nodeLength(nonLeaf);
     final long[] meta = new long[len];
@@ -1690,24 +2031,85 @@ public final class Seq implements TruffleObject {
     return nonLeaf;
   }
 
-  private static final class SeqBuilder {
+  /**
+   * Transient builder of a Seq. Elements are written in place into a leaf buffer, each full leaf is packed once and the
+   * tree is built bottom-up from the collected leaves by {@link #build()}, so no intermediate Seq is created. The
+   * builder can be used again after build, it then appends to the built Seq. It must not be shared between threads.
+   */
+  public static final class SeqBuilder {
     private Seq seq;
+    private Object[] leaf = new Object[MAX_NODE_LENGTH + 1];
+    private int leafLength = 0;
+    private Object[] leaves = new Object[8];
+    private int leavesCount = 0;
 
     public SeqBuilder() {
-      this.seq = Seq.EMPTY;
+      this(Seq.EMPTY);
     }
 
-    public void add(Object obj) {
-      this.seq = this.seq.insertLast(obj);
+    public SeqBuilder(final Seq seq) {
+      this.seq = seq;
     }
 
-    public SeqBuilder catenate(SeqBuilder other) {
-      this.seq = Seq.catenate(this.seq, other.seq);
+    @CompilerDirectives.TruffleBoundary
+    public SeqBuilder add(final Object obj) {
+      leaf[++leafLength] = obj;
+      if (leafLength == MAX_NODE_LENGTH) {
+        if (leavesCount == leaves.length) {
+          leaves = Arrays.copyOf(leaves, leavesCount * 2);
+        }
+        leaves[leavesCount++] = compactLeaf(leaf);
+        leaf = new Object[MAX_NODE_LENGTH + 1];
+        leafLength = 0;
+      }
       return this;
     }
 
+    @CompilerDirectives.TruffleBoundary
+    public SeqBuilder addAll(final Seq other) {
+      seq = Seq.catenate(build(), other);
+      return this;
+    }
+
+    public SeqBuilder catenate(final SeqBuilder other) {
+      return addAll(other.build());
+    }
+
+    @CompilerDirectives.TruffleBoundary
     public Seq build() {
-      return this.seq;
+      if (leavesCount == 0 && leafLength == 0) {
+        return seq;
+      }
+      final Object suffix;
+      if (leafLength != 0) {
+        suffix = compactLeaf(Arrays.copyOf(leaf, leafLength + 1));
+      } else {
+        suffix = leaves[--leavesCount];
+      }
+      Object[] root = EMPTY_NODE;
+      int shift = BITS;
+      if (leavesCount != 0) {
+        Object[] level = Arrays.copyOf(leaves, leavesCount);
+        int childShift = 0;
+        do {
+          final Object[] parents = new Object[(level.length + MAX_NODE_LENGTH - 1) / MAX_NODE_LENGTH];
+          for (int i = 0; i < parents.length; i++) {
+            final int from = i * MAX_NODE_LENGTH;
+            final Object[] parent = new Object[Math.min(MAX_NODE_LENGTH, level.length - from) + 1];
+            System.arraycopy(level, from, parent, 1, parent.length - 1);
+            parents[i] = buildIndex(parent, childShift);
+          }
+          level = parents;
+          childShift += BITS;
+        } while (level.length != 1);
+        root = (Object[]) level[0];
+        shift = childShift;
+      }
+      seq = Seq.catenate(seq, new Seq(EMPTY_NODE, 0, root, nodeSize(root, shift), suffix, nodeLength(suffix), shift));
+      leafLength = 0;
+      leaves = new Object[8];
+      leavesCount = 0;
+      return seq;
     }
   }
 
@@ -1741,4 +2143,105 @@ public final class Seq implements TruffleObject {
   public static SeqCollector collect() {
     return new SeqCollector();
   }
+
+  static final class ElementCursor extends LeafCursor {
+    private static final int BEFORE = 0;
+    private static final int FIRST_AFFIX = 1;
+    private static final int ROOT = 2;
+    private static final int LAST_AFFIX = 3;
+    private static final int DONE = 4;
+
+    private final Seq seq;
+    private final boolean reverse;
+    private final Object[] path;  // nodes of the root tree, from the root to the current leaf
+    private final int[] indexes;  // index of the next node on the path, in each node of the path
+    private int part = BEFORE;
+    private Object leaf;
+    private int leafLength;
+
+    ElementCursor(final Seq seq, final boolean reverse) {
+      this.seq = seq;
+      this.reverse = reverse;
+      this.path = new Object[seq.shift / BITS + 1];
+      this.indexes = new int[path.length];
+    }
+
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public boolean nextLeaf() {
+      while (advance()) {
+        if (leafLength > 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean advance() {
+      switch (part) {
+        case BEFORE:
+          part = FIRST_AFFIX;
+          return setAffix(reverse ? seq.suffix : seq.prefix, reverse ? seq.suffixSize : seq.prefixSize);
+        case FIRST_AFFIX:
+          if (seq.rootSize > 0) {
+            part = ROOT;
+            path[0] = seq.root;
+            indexes[0] = firstIndex(seq.root);
+            descend(0);
+            return true;
+          }
+          part = LAST_AFFIX;
+          return setAffix(reverse ? seq.prefix : seq.suffix, reverse ? seq.prefixSize : seq.suffixSize);
+        case ROOT:
+          if (nextRootLeaf()) {
+            return true;
+          }
+          part = LAST_AFFIX;
+          return setAffix(reverse ? seq.prefix : seq.suffix, reverse ? seq.prefixSize : seq.suffixSize);
+        default:
+          part = DONE;
+          return false;
+      }
+    }
+
+    private boolean setAffix(final Object affix, final int size) {
+      leaf = affix;
+      leafLength = size;
+      return true;
+    }
+
+    private int firstIndex(final Object node) {
+      return reverse ? nodeLength(node) - 1 : 0;
+    }
+
+    private void descend(final int level) {
+      for (int i = level; i < path.length - 1; i++) {
+        path[i + 1] = nodeLookup(path[i], indexes[i]);
+        indexes[i + 1] = firstIndex(path[i + 1]);
+      }
+      leaf = path[path.length - 1];
+      leafLength = nodeLength(leaf);
+    }
+
+    private boolean nextRootLeaf() {
+      for (int i = path.length - 2; i >= 0; i--) {
+        indexes[i] += reverse ? -1 : 1;
+        if (indexes[i] >= 0 && indexes[i] < nodeLength(path[i])) {
+          descend(i);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int leafLength() {
+      return leafLength;
+    }
+
+    @Override
+    public Object element(final int i) {
+      return nodeLookup(leaf, reverse ? leafLength - 1 - i : i);
+    }
+  }
 }
@@ -6,9 +6,10 @@ import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.nodes.Node;
 import yona.runtime.async.Promise;
-import yona.runtime.exceptions.TransducerDoneException;
 
 import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.function.*;
 import java.util.stream.Collector;
 
@@ -31,12 +32,12 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
 
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public static Set set(Object... args) {
-    Set set = Set.empty(Murmur3.INSTANCE, 0L);
+    final SetBuilder builder = new SetBuilder(Murmur3.INSTANCE, 0L);
     for (Object arg : args) {
-      set = set.add(arg);
+      builder.add(arg);
     }
 
-    return set;
+    return builder.build();
   }
 
   @CompilerDirectives.TruffleBoundary
@@ -94,12 +95,6 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
 
   abstract Set remove(Object value, long hash, int shift);
 
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public abstract Object reduce(Object[] reducer, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException;
-
-  @CompilerDirectives.TruffleBoundary(allowInlining = true)
-  public abstract Object fold(Object initial, Function function, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException;
-
   public abstract <T> T fold(final T initial, final BiFunction<T, Object, T> function);
 
   public abstract void forEach(final Consumer<? super Object> consumer);
@@ -135,35 +130,35 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
 
   @CompilerDirectives.TruffleBoundary
   public Set intersection(Set other) {
-    return other.fold(Set.set(), (acc, el) -> {
+    return other.fold(new SetBuilder(hasher, seed), (acc, el) -> {
       if (contains(el) && other.contains(el)) {
         return acc.add(el);
       } else {
         return acc;
       }
-    });
+    }).build();
   }
 
   @CompilerDirectives.TruffleBoundary
   public Set symmetricDifference(Set other) {
-    return union(other).fold(Set.set(), (acc, el) -> {
+    return union(other).fold(new SetBuilder(hasher, seed), (acc, el) -> {
       if ((contains(el) && !other.contains(el)) || (!contains(el) && other.contains(el))) {
         return acc.add(el);
       } else {
         return acc;
       }
-    });
+    }).build();
   }
 
   @CompilerDirectives.TruffleBoundary
   public Set difference(Set other) {
-    return fold(Set.set(), (acc, el) -> {
+    return fold(new SetBuilder(hasher, seed), (acc, el) -> {
       if (contains(el) && !other.contains(el)) {
         return acc.add(el);
       } else {
         return acc;
       }
-    });
+    }).build();
   }
 
   @Override
@@ -227,6 +222,34 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
 
   abstract Object dataAt(final int idx);
 
+  /**
+   * @return cursor over the elements of this set, in the same order as fold
+   */
+  @CompilerDirectives.TruffleBoundary
+  public LeafCursor leafCursor() {
+    return new ElementCursor(this);
+  }
+
+  /**
+   * @return cursors over at most the given number of parts of this set, the elements of the root node and each of its
+   * subtrees are distributed between them, in the same order as fold
+   */
+  @CompilerDirectives.TruffleBoundary
+  public LeafCursor[] splitCursors(final int parts) {
+    final Set[] pieces = pieces();
+    final int count = Math.max(1, Math.min(parts, pieces.length));
+    final LeafCursor[] result = new LeafCursor[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = new ElementCursor(Arrays.copyOfRange(pieces, pieces.length * i / count, pieces.length * (i + 1) / count));
+    }
+    return result;
+  }
+
+  /**
+   * @return nodes that together hold all elements of this set
+   */
+  abstract Set[] pieces();
+
   @CompilerDirectives.TruffleBoundary(allowInlining = true)
   public static Set empty(final Hasher hasher, final long seed) {
     return new Bitmap(hasher, seed, 0L, 0L, EMPTY_ARRAY);
@@ -379,35 +402,6 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
       return new Bitmap(hasher, seed, nodeBmp ^ pos, dataBmp | pos, newElements);
     }
 
-    @Override
-    public Object reduce(Object[] reducer, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      final Function step = (Function) reducer[1];
-      final Function complete = (Function) reducer[2];
-      Object state = reducer[0];
-      try {
-        for (int i = 0; i < arity(dataBmp); i++) {
-          state = dispatch.execute(step, state, dataAt(i));
-        }
-        for (int i = 0; i < arity(nodeBmp); i++) {
-          state = nodeAt(i).fold(state, step, dispatch);
-        }
-      } catch (TransducerDoneException ignored) {
-      }
-      return dispatch.execute(complete, state);
-    }
-
-    @Override
-    public Object fold(final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      Object result = initial;
-      for (int i = 0; i < arity(dataBmp); i++) {
-        result = dispatch.execute(function, result, dataAt(i));
-      }
-      for (int i = 0; i < arity(nodeBmp); i++) {
-        result = nodeAt(i).fold(result, function, dispatch);
-      }
-      return result;
-    }
-
     @Override
     public <T> T fold(final T initial, final BiFunction<T, Object, T> function) {
       T result = initial;
@@ -430,6 +424,21 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
       }
     }
 
+    @Override
+    Set[] pieces() {
+      final int data = arity(dataBmp);
+      final int nodes = arity(nodeBmp);
+      final Set[] result = new Set[(data > 0 ? 1 : 0) + nodes];
+      int i = 0;
+      if (data > 0) {
+        result[i++] = nodes == 0 ? this : new Bitmap(hasher, seed, 0L, dataBmp, Arrays.copyOf(elements, data));
+      }
+      for (int j = 0; j < nodes; j++) {
+        result[i++] = nodeAt(j);
+      }
+      return result;
+    }
+
     @Override
     public long size() {
       long result = arity(dataBmp);
@@ -560,29 +569,6 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
       return this;
     }
 
-    @Override
-    public Object reduce(Object[] reducer, InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      final Function step = (Function) reducer[1];
-      final Function complete = (Function) reducer[2];
-      Object state = reducer[0];
-      try {
-        for (Object val : values) {
-          state = dispatch.execute(step, state, val);
-        }
-      } catch (TransducerDoneException ignored) {
-      }
-      return dispatch.execute(complete, state);
-    }
-
-    @Override
-    public Object fold(final Object initial, final Function function, final InteropLibrary dispatch) throws UnsupportedMessageException, ArityException, UnsupportedTypeException {
-      Object result = initial;
-      for (Object val : values) {
-        result = dispatch.execute(function, result, val);
-      }
-      return result;
-    }
-
     @Override
     public <T> T fold(final T initial, final BiFunction<T, Object, T> function) {
       T result = initial;
@@ -599,6 +585,11 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
       }
     }
 
+    @Override
+    Set[] pieces() {
+      return new Set[]{this};
+    }
+
     @Override
     public long size() {
       return values.length;
@@ -649,24 +640,148 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
     }
   }
 
-  private static final class SetBuilder {
-    private Set set;
+  /**
+   * Transient builder of a Set. Elements and their hashes are collected into flat arrays and {@link #build()} creates
+   * the trie bottom-up, allocating each node once in its final size, instead of copying the path to an element for
+   * each one added. Of equal elements the first one is kept, as with {@link #add(Object)}. A builder must not be
+   * shared between threads.
+   */
+  public static final class SetBuilder {
+    private final Hasher hasher;
+    private final long seed;
+    private Object[] values = new Object[8];
+    private long[] hashes = new long[8];
+    private int size = 0;
 
     public SetBuilder() {
-      this.set = empty();
+      this(Murmur3.INSTANCE, 0L);
+    }
+
+    public SetBuilder(final Hasher hasher, final long seed) {
+      this.hasher = hasher;
+      this.seed = seed;
     }
 
-    public void add(Object obj) {
-      this.set = this.set.add(obj);
+    @CompilerDirectives.TruffleBoundary
+    public SetBuilder add(final Object value) {
+      return add(value, hasher.hash(seed, value));
     }
 
-    public SetBuilder catenate(SetBuilder other) {
-      this.set = this.set.union(other.set);
+    private SetBuilder add(final Object value, final long hash) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+        hashes = Arrays.copyOf(hashes, size * 2);
+      }
+      values[size] = value;
+      hashes[size] = hash;
+      size++;
       return this;
     }
 
+    @CompilerDirectives.TruffleBoundary
+    public SetBuilder addAll(final Set set) {
+      return set.fold(this, SetBuilder::add);
+    }
+
+    public SetBuilder catenate(final SetBuilder other) {
+      final boolean sameHashes = hasher.equals(other.hasher) && seed == other.seed;
+      for (int i = 0; i < other.size; i++) {
+        add(other.values[i], sameHashes ? other.hashes[i] : hasher.hash(seed, other.values[i]));
+      }
+      return this;
+    }
+
+    @CompilerDirectives.TruffleBoundary
     public Set build() {
-      return this.set;
+      if (size == 0) {
+        return empty(hasher, seed);
+      }
+      final int[] order = new int[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      return node(order, new int[size], 0, size, 0);
+    }
+
+    /*
+     * Builds the node for elements order[from] .. order[to - 1], which share the hash bits below shift. They are sorted
+     * by their mask at this level first, so that each child is built from a contiguous range.
+     */
+    private Set node(final int[] order, final int[] aux, final int from, final int to, final int shift) {
+      if (shift > (1 << BITS)) {
+        final Object[] collided = new Object[to - from];
+        for (int i = from; i < to; i++) {
+          collided[i - from] = values[order[i]];
+        }
+        return new Collision(hasher, seed, hashes[order[from]], collided);
+      }
+
+      final int[] starts = new int[(1 << BITS) + 1];
+      for (int i = from; i < to; i++) {
+        starts[(int) mask(hashes[order[i]], shift) + 1]++;
+      }
+      for (int m = 0; m < 1 << BITS; m++) {
+        starts[m + 1] += starts[m];
+      }
+      final int[] offsets = Arrays.copyOf(starts, 1 << BITS);
+      for (int i = from; i < to; i++) {
+        aux[from + offsets[(int) mask(hashes[order[i]], shift)]++] = order[i];
+      }
+      System.arraycopy(aux, from, order, from, to - from);
+
+      long dataBmp = 0L;
+      long nodeBmp = 0L;
+      final Object[] data = new Object[1 << BITS];
+      final Set[] nodes = new Set[1 << BITS];
+      int dataCount = 0;
+      int nodeCount = 0;
+      for (int m = 0; m < 1 << BITS; m++) {
+        final int bucketFrom = from + starts[m];
+        int bucketTo = from + starts[m + 1];
+        if (bucketTo - bucketFrom > 1 && sameHashes(order, bucketFrom, bucketTo)) {
+          bucketTo = bucketFrom + distinct(order, bucketFrom, bucketTo);
+        }
+        if (bucketTo - bucketFrom == 1) {
+          dataBmp |= pos(m);
+          data[dataCount++] = values[order[bucketFrom]];
+        } else if (bucketTo - bucketFrom > 1) {
+          nodeBmp |= pos(m);
+          nodes[nodeCount++] = node(order, aux, bucketFrom, bucketTo, shift + BITS);
+        }
+      }
+
+      final Object[] elements = new Object[dataCount + nodeCount];
+      System.arraycopy(data, 0, elements, 0, dataCount);
+      for (int i = 0; i < nodeCount; i++) {
+        elements[elements.length - 1 - i] = nodes[i];
+      }
+      return new Bitmap(hasher, seed, nodeBmp, dataBmp, elements);
+    }
+
+    private boolean sameHashes(final int[] order, final int from, final int to) {
+      for (int i = from + 1; i < to; i++) {
+        if (hashes[order[i]] != hashes[order[from]]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /*
+     * Moves the first occurrences of distinct elements to the beginning of the range, in their original order.
+     */
+    private int distinct(final int[] order, final int from, final int to) {
+      int count = 0;
+      candidates:
+      for (int i = from; i < to; i++) {
+        for (int j = from; j < from + count; j++) {
+          if (values[order[i]].equals(values[order[j]])) {
+            continue candidates;
+          }
+        }
+        order[from + count++] = order[i];
+      }
+      return count;
     }
   }
 
@@ -700,4 +815,48 @@ public abstract class Set implements TruffleObject, Comparable<Set> {
   public static SetCollector collect() {
     return new SetCollector();
   }
+
+  static final class ElementCursor extends LeafCursor {
+    private final ArrayDeque<Set> pending = new ArrayDeque<>();
+    private Object[] elements;  // elements of the current node, as in Bitmap and Collision
+    private int leafLength;
+
+    ElementCursor(final Set... nodes) {
+      for (int i = nodes.length - 1; i >= 0; i--) {
+        pending.push(nodes[i]);
+      }
+    }
+
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public boolean nextLeaf() {
+      while (!pending.isEmpty()) {
+        final Set node = pending.pop();
+        if (node instanceof Bitmap bitmap) {
+          for (int i = Bitmap.arity(bitmap.nodeBmp) - 1; i >= 0; i--) {
+            pending.push(bitmap.nodeAt(i));
+          }
+          elements = bitmap.elements;
+          leafLength = Bitmap.arity(bitmap.dataBmp);
+        } else {
+          elements = ((Collision) node).values;
+          leafLength = elements.length;
+        }
+        if (leafLength > 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int leafLength() {
+      return leafLength;
+    }
+
+    @Override
+    public Object element(final int i) {
+      return elements[i];
+    }
+  }
 }
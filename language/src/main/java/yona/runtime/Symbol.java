@@ -5,27 +5,30 @@ import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 
-import java.util.Objects;
-
+/**
+ * Symbols are interned by the {@link SymbolTable} of the language, there is a single instance per name, so they are
+ * compared by identity. The table is shared by all contexts of the language, so symbols can be cached in the AST.
+ */
 @ExportLibrary(InteropLibrary.class)
-public class Symbol implements TruffleObject {
+public final class Symbol implements TruffleObject {
   private final String name;
+  private final int hashCode;
+  final long murmur3Hash;  // of the name, with seed 0
 
-  public Symbol(String name) {
+  Symbol(String name) {
     this.name = name;
+    this.hashCode = name.hashCode();
+    this.murmur3Hash = Murmur3.hashString(0L, name);
   }
 
   @Override
   public boolean equals(Object o) {
-    if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
-    Symbol symbol = (Symbol) o;
-    return Objects.equals(name, symbol.name);
+    return this == o;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name);
+    return hashCode;
   }
 
   @Override
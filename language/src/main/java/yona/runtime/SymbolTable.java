@@ -0,0 +1,61 @@
+package yona.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned symbols of a language instance, see {@link yona.YonaLanguage#symbols}. Symbols are held weakly, a symbol no
+ * longer referenced by any value or AST is removed, so symbols created from input data do not accumulate. While a
+ * symbol is referenced, it is the only one of its name.
+ */
+public final class SymbolTable {
+  private final ConcurrentHashMap<String, Entry> symbols = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Symbol> collected = new ReferenceQueue<>();
+
+  private static final class Entry extends WeakReference<Symbol> {
+    final String name;
+
+    Entry(Symbol symbol, ReferenceQueue<Symbol> queue) {
+      super(symbol, queue);
+      this.name = symbol.asString();
+    }
+  }
+
+  /**
+   * @return the only symbol of this name
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Symbol intern(String name) {
+    removeCollected();
+    while (true) {
+      final Entry entry = symbols.get(name);
+      final Symbol symbol = entry == null ? null : entry.get();
+      if (symbol != null) {
+        return symbol;
+      }
+
+      final Symbol newSymbol = new Symbol(name);
+      final Entry newEntry = new Entry(newSymbol, collected);
+      if (entry == null ? symbols.putIfAbsent(name, newEntry) == null : symbols.replace(name, entry, newEntry)) {
+        return newSymbol;
+      }
+    }
+  }
+
+  int size() {
+    removeCollected();
+    return symbols.size();
+  }
+
+  private void removeCollected() {
+    Reference<? extends Symbol> reference;
+    while ((reference = collected.poll()) != null) {
+      final Entry entry = (Entry) reference;
+      symbols.remove(entry.name, entry);
+    }
+  }
+}
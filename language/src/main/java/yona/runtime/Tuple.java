@@ -28,8 +28,7 @@ public class Tuple implements TruffleObject {
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
-    Tuple tuple = (Tuple) o;
+    if (!(o instanceof Tuple tuple)) return false;  // records are equal to plain tuples
     return Arrays.equals(items, tuple.items);
   }
 
@@ -17,7 +17,7 @@ public final class YonaModule implements TruffleObject {
   final String fqn;
   final Set<String> exports;
   final Map<String, Function> functions = new HashMap<>();
-  final Dict records; // <String, String[]>
+  final Dict records; // <String, Record.Shape>
 
   public YonaModule(String fqn, Set<String> exports, List<Function> functionsList, Dict records) {
     this.fqn = fqn;
@@ -37,7 +37,7 @@ public final class YonaModule implements TruffleObject {
     records.fold(recordsSB, (acc, key, val) -> {
       acc.append(key);
       acc.append('=');
-      acc.append(Arrays.toString((String[]) val));
+      acc.append(val);
       acc.append(", ");
       return acc;
     });
@@ -8,7 +8,6 @@ import yona.ast.call.TailCallException;
 import yona.runtime.exceptions.UndefinedNameException;
 
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
@@ -267,20 +266,6 @@ public final class Promise implements TruffleObject {
     return throwIfThrowable(promise.value);
   }
 
-  @CompilerDirectives.TruffleBoundary
-  public static boolean timeout(Promise promise, final long millis) throws InterruptedException {
-    CountDownLatch latch = new CountDownLatch(1);
-    Object snapshot;
-    Object update;
-    do {
-      snapshot = promise.value;
-      if (snapshot instanceof Callback) {
-        update = new Callback.Consume(o -> latch.countDown(), e -> latch.countDown(), (Callback) snapshot);
-      } else return true;
-    } while (!UPDATER.compareAndSet(promise, snapshot, update));
-    return latch.await(millis, TimeUnit.MILLISECONDS);
-  }
-
   private static Object throwIfThrowable(Object value) throws Throwable {
     if (value instanceof Throwable) throw (Throwable) value;
     return value;
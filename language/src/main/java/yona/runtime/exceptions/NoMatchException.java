@@ -12,6 +12,11 @@ public final class NoMatchException extends YonaException {
     super("NoMatchException", location);
   }
 
+  @CompilerDirectives.TruffleBoundary
+  public NoMatchException(String message, Node location) {
+    super(message, location);
+  }
+
   @CompilerDirectives.TruffleBoundary
   public NoMatchException(Throwable cause, Node location) {
     super(cause, location);
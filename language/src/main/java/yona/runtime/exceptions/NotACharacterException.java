@@ -0,0 +1,10 @@
+package yona.runtime.exceptions;
+
+import com.oracle.truffle.api.nodes.ControlFlowException;
+
+public final class NotACharacterException extends ControlFlowException {
+  public static final NotACharacterException INSTANCE = new NotACharacterException();
+
+  private NotACharacterException() {
+  }
+}
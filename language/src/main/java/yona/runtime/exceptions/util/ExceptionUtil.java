@@ -17,4 +17,16 @@ public final class ExceptionUtil {
       return new Tuple(context.symbol(throwable.getClass().getSimpleName()), Seq.fromCharSequence(throwable.getMessage()), YonaException.stacktraceToSequence(throwable));
     }
   }
+
+  /**
+   * @return type and message of the throwable on the first line, followed by its stack trace, a line per frame
+   */
+  @CompilerDirectives.TruffleBoundary
+  public static String throwableToString(final Throwable throwable, final Context context) {
+    final Tuple tuple = throwableToTuple(throwable, context);
+    final StringBuilder sb = new StringBuilder();
+    sb.append("(").append(tuple.get(0)).append("): ").append(tuple.get(1)).append("\r\n");
+    ((Seq) tuple.get(2)).foldLeft(sb, (acc, el) -> acc.append(el).append("\r\n"));
+    return sb.toString();
+  }
 }
@@ -0,0 +1,432 @@
+package yona.runtime.network;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import yona.YonaException;
+import yona.runtime.*;
+import yona.runtime.async.Promise;
+import yona.runtime.exceptions.BadArgException;
+import yona.runtime.exceptions.util.ExceptionUtil;
+import yona.runtime.strings.StringUtil;
+import yona.runtime.threading.TimerWheel;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection of a {@link HttpServerChannel}. Requests are parsed by the selector thread as their bytes arrive and
+ * handled on the worker threads. Pipelined requests are handled concurrently, their responses are written in the order
+ * of the requests, each one as soon as it and all responses before it are ready. At most
+ * {@link #MAX_PIPELINED_REQUESTS} requests are handled at a time, the socket is not read while there are more, or while
+ * the write queue is over its high water mark.
+ * <p>
+ * Responses are written through a {@link TCPConnection}, whose read side is left unused. The connection is kept alive
+ * unless the request asks otherwise, see {@link HttpRequestParser.Request#keepAlive()}, and closed once no request has
+ * been in flight for {@link HttpServerChannel#idleTimeoutMillis}. Bytes of an incomplete request do not keep it open.
+ */
+public final class HttpConnection implements HttpRequestParser.Listener {
+  private static final int MAX_PIPELINED_REQUESTS = 16;
+  private static final Seq CONTINUE = Seq.fromBytes("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+
+  final HttpServerChannel server;
+  final TCPConnection tcpConnection;
+  private final SelectionKey selectionKey;
+  private final Seq localAddress;
+  private final Seq remoteAddress;
+  private final HttpRequestParser parser;
+
+  // guarded by this connection
+  private final ArrayDeque<Response> responses = new ArrayDeque<>();
+  private boolean closing;  // no more requests are read, the connection is closed once the responses are written
+  private boolean closed;
+  private boolean writeBlocked;
+  private boolean readInterest = true;
+  private TimerWheel.Timer idleTimer;  // set while no request is in flight
+  private long receivedRequests;
+
+  private static final class Response {
+    final boolean keepAlive;
+    Seq head;
+    Seq body;
+
+    Response(boolean keepAlive) {
+      this.keepAlive = keepAlive;
+    }
+  }
+
+  HttpConnection(HttpServerChannel server, SelectionKey selectionKey, SocketChannel socketChannel) throws IOException {
+    this.server = server;
+    this.selectionKey = selectionKey;
+    this.tcpConnection = new TCPConnection(selectionKey, InteropLibrary.getFactory().getUncached(), server.context, server.node);
+    this.localAddress = Seq.fromCharSequence(socketChannel.getLocalAddress().toString());
+    this.remoteAddress = Seq.fromCharSequence(socketChannel.getRemoteAddress().toString());
+    this.parser = new HttpRequestParser(server.maxBodySize);
+    synchronized (this) {
+      startIdleTimer();
+    }
+  }
+
+  /**
+   * Called by the selector thread when the socket is readable.
+   */
+  synchronized void readFrom(SocketChannel channel, ByteBuffer buffer) {
+    if (!closing) {
+      try {
+        buffer.clear();
+        if (channel.read(buffer) < 0) {
+          // the client sends no more requests, responses to those received are still written
+          closing = true;
+        } else {
+          buffer.flip();
+          parser.feed(buffer, this);
+        }
+      } catch (HttpRequestParser.BadRequestException e) {
+        closing = true;
+        final Response response = new Response(false);
+        responses.addLast(response);
+        respond(response, null, e.status, Dict.EMPTY, Seq.fromCharSequence(e.getMessage()), server.node);
+        return;
+      } catch (IOException e) {
+        abort();
+        return;
+      }
+    }
+    flush();
+  }
+
+  @Override
+  public void continueExpected() {
+    // the interim response must not get in between responses to pipelined requests
+    if (responses.isEmpty()) {
+      write(CONTINUE);
+    }
+  }
+
+  @Override
+  public void received(HttpRequestParser.Request request) {
+    if (closing) {
+      return;
+    }
+    cancelIdleTimer();
+    receivedRequests++;
+    final Response response = new Response(request.keepAlive());
+    responses.addLast(response);
+    closing = !request.keepAlive();
+    server.context.threading.submit(new Promise(), promise -> handle(request, response));
+  }
+
+  private void handle(HttpRequestParser.Request request, Response response) {
+    final String path;
+    try {
+      path = URI.create(request.uri()).getPath();
+    } catch (IllegalArgumentException e) {
+      respond(response, request, 400, Dict.EMPTY, Seq.fromCharSequence("Invalid request URI"), server.node);
+      return;
+    }
+
+    final HttpServerChannel.Route route = path == null ? null : server.route(path);
+    if (route == null) {
+      respond(response, request, 404, Dict.EMPTY, Seq.fromCharSequence("No context found for request"), server.node);
+      return;
+    }
+
+    try {
+      final Dict exchangeParams = Dict.EMPTY
+          .add(Seq.fromCharSequence("local_address"), localAddress)
+          .add(Seq.fromCharSequence("protocol"), Seq.fromCharSequence(request.protocol()))
+          .add(Seq.fromCharSequence("remote_address"), remoteAddress)
+          .add(Seq.fromCharSequence("method"), server.context.symbol(request.method()))
+          .add(Seq.fromCharSequence("uri"), Seq.fromCharSequence(request.uri()));
+      final Seq body = route.binaryBody() ? Seq.fromBytes(request.body()) : Seq.fromCharSequence(new String(request.body(), StandardCharsets.UTF_8));
+      final Object result = route.dispatch().execute(route.handler(), exchangeParams, headersToDict(request.headers()), body);
+      complete(response, request, route.node(), result);
+    } catch (Throwable e) {
+      failed(response, request, e, route.node());
+    }
+  }
+
+  /*
+   * The handler may return a promise of the response, or a triple with promises in it.
+   */
+  private void complete(Response response, HttpRequestParser.Request request, Node node, Object result) {
+    try {
+      if (result instanceof Promise resultPromise) {
+        resultPromise.map(value -> {
+          complete(response, request, node, value);
+          return Unit.INSTANCE;
+        }, error -> {
+          failed(response, request, error, node);
+          return Unit.INSTANCE;
+        }, node);
+        return;
+      } else if (result instanceof Tuple resultTuple && resultTuple.length() == 3) {
+        final Object unwrappedResultTuple = resultTuple.unwrapPromises(node);
+        if (unwrappedResultTuple instanceof Promise unwrappedResultTuplePromise) {
+          complete(response, request, node, unwrappedResultTuplePromise.map(elements -> new Tuple((Object[]) elements), node));
+          return;
+        }
+        final Object[] elements = (Object[]) unwrappedResultTuple;
+        if (elements[0] instanceof Long status && elements[1] instanceof Dict headers && elements[2] instanceof Seq body) {
+          respond(response, request, status, headers, body, node);
+          return;
+        }
+      }
+      throw new BadArgException("Invalid return value of an HTTP handler. It must return a triple (status_code, headers, body).", node);
+    } catch (Throwable e) {
+      failed(response, request, e, node);
+    }
+  }
+
+  private void failed(Response response, HttpRequestParser.Request request, Throwable e, Node node) {
+    final String errorMsg = "Internal Server Error: " + ExceptionUtil.throwableToString(e, server.context);
+    respond(response, request, 500, Dict.EMPTY, Seq.fromCharSequence(errorMsg), node);
+  }
+
+  /**
+   * @param request null if the request could not be parsed
+   */
+  private void respond(Response response, HttpRequestParser.Request request, long status, Dict headers, Seq body, Node node) {
+    Seq head;
+    try {
+      head = encodeHead(response, request, status, headers, body, node);
+    } catch (YonaException e) {
+      final Seq errorBody = Seq.fromCharSequence("Internal Server Error: " + ExceptionUtil.throwableToString(e, server.context));
+      head = encodeHead(response, request, 500, Dict.EMPTY, errorBody, node);
+      body = errorBody;
+    }
+
+    synchronized (this) {
+      response.head = head;
+      response.body = bodyAllowed(request, status) ? body : null;
+      flush();
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private Seq encodeHead(Response response, HttpRequestParser.Request request, long status, Dict headers, Seq body, Node node) {
+    if (status < 100 || status > 999) {
+      throw new BadArgException("Invalid response code, it must have three digits: " + status, node);
+    }
+    final StringBuilder head = new StringBuilder(256);
+    head.append("HTTP/1.1 ").append(status).append(' ').append(reasonPhrase((int) status)).append("\r\n");
+    headers.forEach((k, v) -> {
+      final String name = StringUtil.yonaValueAsYonaString(k).asJavaString(node);
+      final String value = StringUtil.yonaValueAsYonaString(v).asJavaString(node);
+      if (name.isEmpty() || hasLineBreak(name) || hasLineBreak(value)) {
+        throw new BadArgException("Invalid response header: " + name, node);
+      }
+      // framing and connection headers are set by the server
+      if (!name.equalsIgnoreCase("Content-Length") && !name.equalsIgnoreCase("Transfer-Encoding") && !name.equalsIgnoreCase("Connection")) {
+        head.append(name).append(": ").append(value).append("\r\n");
+      }
+    });
+    if (status >= 200 && status != 204 && status != 304) {
+      final long length = body.byteLength();
+      if (length < 0) {
+        throw new BadArgException("Response body must be a string or a byte sequence", node);
+      }
+      head.append("Content-Length: ").append(length).append("\r\n");
+    }
+    if (!response.keepAlive) {
+      head.append("Connection: close\r\n");
+    } else if (request.protocol().equals("HTTP/1.0")) {
+      head.append("Connection: keep-alive\r\n");
+    }
+    head.append("Date: ").append(server.date()).append("\r\n\r\n");
+    return Seq.fromBytes(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+  }
+
+  private static boolean bodyAllowed(HttpRequestParser.Request request, long status) {
+    return status >= 200 && status != 204 && status != 304 && (request == null || !request.method().equals("HEAD"));
+  }
+
+  private static boolean hasLineBreak(String str) {
+    return str.indexOf('\r') >= 0 || str.indexOf('\n') >= 0;
+  }
+
+  /*
+   * Write the ready responses at the head of the queue, close the connection if it is done.
+   */
+  private void flush() {
+    while (!closed && !responses.isEmpty() && responses.peekFirst().head != null) {
+      final Response response = responses.removeFirst();
+      write(response.head);
+      if (response.body != null) {
+        write(response.body);
+      }
+      if (!response.keepAlive) {
+        responses.clear();
+      }
+    }
+    if (closing && responses.isEmpty()) {
+      close();
+    } else {
+      if (responses.isEmpty() && idleTimer == null) {
+        startIdleTimer();
+      }
+      updateReadInterest();
+    }
+  }
+
+  private void startIdleTimer() {
+    final long received = receivedRequests;
+    idleTimer = server.context.timerWheel.schedule(server.idleTimeoutMillis, () -> idleTimeout(received));
+  }
+
+  private void cancelIdleTimer() {
+    if (idleTimer != null) {
+      idleTimer.cancel();
+      idleTimer = null;
+    }
+  }
+
+  /*
+   * Called by the ticking thread of the timer wheel. The timer may have expired just as a request was received, then the
+   * connection is no longer idle since it was started.
+   */
+  private synchronized void idleTimeout(long received) {
+    if (received == receivedRequests && responses.isEmpty()) {
+      idleTimer = null;
+      closing = true;
+      flush();
+    }
+  }
+
+  private void write(Seq data) {
+    try {
+      if (tcpConnection.submitWrite(data, server.node) instanceof Promise writtenPromise) {
+        writeBlocked = true;
+        writtenPromise.map(value -> {
+          writeUnblocked();
+          return Unit.INSTANCE;
+        }, error -> {
+          abort();
+          return Unit.INSTANCE;
+        }, server.node);
+      }
+    } catch (YonaException e) {
+      abort();
+    }
+  }
+
+  private synchronized void writeUnblocked() {
+    writeBlocked = false;
+    updateReadInterest();
+  }
+
+  private void updateReadInterest() {
+    final boolean interest = !closing && !writeBlocked && responses.size() < MAX_PIPELINED_REQUESTS;
+    if (interest != readInterest) {
+      try {
+        if (interest) {
+          selectionKey.interestOpsOr(SelectionKey.OP_READ);
+          selectionKey.selector().wakeup();
+        } else {
+          selectionKey.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+        readInterest = interest;
+      } catch (CancelledKeyException e) {
+        readInterest = false;
+      }
+    }
+  }
+
+  /**
+   * Read no more requests, close the connection once the responses to those already received are written.
+   */
+  synchronized void shutdown() {
+    closing = true;
+    flush();
+  }
+
+  /**
+   * Close the connection, after the queued writes are flushed.
+   */
+  private synchronized void close() {
+    if (!closed) {
+      closed = true;
+      readInterest = false;
+      cancelIdleTimer();
+      server.connections.remove(this);
+      try {
+        selectionKey.interestOpsAnd(~SelectionKey.OP_READ);
+        tcpConnection.close();
+      } catch (CancelledKeyException | IOException ignored) {
+        // already closed by the client
+      }
+    }
+  }
+
+  /**
+   * Close the connection right away, without waiting for responses.
+   */
+  synchronized void abort() {
+    closed = true;
+    closing = true;
+    responses.clear();
+    cancelIdleTimer();
+    server.connections.remove(this);
+    try {
+      selectionKey.channel().close();
+    } catch (IOException ignored) {
+    }
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  private static Dict headersToDict(Map<String, List<String>> headers) {
+    Dict headersDict = Dict.EMPTY;
+    for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+      Seq value = Seq.EMPTY;
+      for (String val : entry.getValue()) {
+        value = value.insertLast(Seq.fromCharSequence(val));
+      }
+      headersDict = headersDict.add(Seq.fromCharSequence(entry.getKey()), value);
+    }
+    return headersDict;
+  }
+
+  private static String reasonPhrase(int status) {
+    return switch (status) {
+      case 100 -> "Continue";
+      case 101 -> "Switching Protocols";
+      case 200 -> "OK";
+      case 201 -> "Created";
+      case 202 -> "Accepted";
+      case 204 -> "No Content";
+      case 206 -> "Partial Content";
+      case 301 -> "Moved Permanently";
+      case 302 -> "Found";
+      case 303 -> "See Other";
+      case 304 -> "Not Modified";
+      case 307 -> "Temporary Redirect";
+      case 308 -> "Permanent Redirect";
+      case 400 -> "Bad Request";
+      case 401 -> "Unauthorized";
+      case 403 -> "Forbidden";
+      case 404 -> "Not Found";
+      case 405 -> "Method Not Allowed";
+      case 408 -> "Request Timeout";
+      case 409 -> "Conflict";
+      case 413 -> "Payload Too Large";
+      case 415 -> "Unsupported Media Type";
+      case 429 -> "Too Many Requests";
+      case 431 -> "Request Header Fields Too Large";
+      case 500 -> "Internal Server Error";
+      case 501 -> "Not Implemented";
+      case 502 -> "Bad Gateway";
+      case 503 -> "Service Unavailable";
+      case 504 -> "Gateway Timeout";
+      case 505 -> "HTTP Version Not Supported";
+      default -> "";
+    };
+  }
+}
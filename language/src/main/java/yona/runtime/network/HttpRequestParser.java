@@ -0,0 +1,320 @@
+package yona.runtime.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Incremental parser of HTTP/1.x requests, fed with bytes as they are received, in chunks of any size. One chunk may
+ * hold several pipelined requests, or a part of one, the parser keeps its state between chunks, so every byte is
+ * scanned once. Request bodies are delimited by {@code Content-Length} or by the chunked transfer encoding. The body
+ * buffer grows as the bytes of the body arrive, not by the announced length, up to the maximum body size.
+ * <p>
+ * Header names are normalized the same way {@link com.sun.net.httpserver.Headers} does it, the first character upper
+ * case and the rest lower case, so that handlers see the same headers regardless of the server engine.
+ * <p>
+ * Only the methods of RFC 7231 and PATCH are accepted, others get a 501 response, so that arbitrary method tokens
+ * are not interned as symbols.
+ * <p>
+ * A parser that threw {@link BadRequestException} must not be fed anymore, the connection is to be closed after the
+ * error response.
+ */
+public final class HttpRequestParser {
+  public static final int MAX_HEAD_LENGTH = 64 * 1024;
+
+  private static final byte[] EMPTY_BODY = new byte[0];
+  private static final Set<String> METHODS = Set.of("GET", "HEAD", "POST", "PUT", "DELETE", "CONNECT", "OPTIONS", "TRACE", "PATCH");
+  private static final int MIN_BODY_CAPACITY = 1024;
+
+  public interface Listener {
+    /**
+     * Headers of a request with {@code Expect: 100-continue} were received, the client waits before sending its body.
+     */
+    void continueExpected();
+
+    void received(Request request);
+  }
+
+  public static final record Request(String method, String uri, String protocol, Map<String, List<String>> headers, byte[] body, boolean keepAlive) {
+  }
+
+  public static final class BadRequestException extends Exception {
+    public final int status;
+
+    BadRequestException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+  }
+
+  private enum State {
+    REQUEST_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS
+  }
+
+  private final int maxBodySize;
+  private State state = State.REQUEST_LINE;
+
+  // current line, without the line terminator
+  private byte[] line = new byte[256];
+  private int lineLength;
+  private int headLength;  // bytes of the request line and headers, or of the current chunk size line
+
+  private String method;
+  private String uri;
+  private String protocol;
+  private Map<String, List<String>> headers;
+  private boolean keepAlive;
+  private byte[] body = EMPTY_BODY;
+  private int bodyLength;
+  private long remaining;  // bytes of the body or of the current chunk not received yet
+
+  public HttpRequestParser(int maxBodySize) {
+    this.maxBodySize = maxBodySize;
+  }
+
+  public void feed(ByteBuffer bytes, Listener listener) throws BadRequestException {
+    while (bytes.hasRemaining()) {
+      if (state == State.BODY || state == State.CHUNK_DATA) {
+        readBody(bytes, listener);
+      } else if (readLine(bytes)) {
+        final String text = new String(line, 0, lineLength, StandardCharsets.ISO_8859_1);
+        lineLength = 0;
+        processLine(text, listener);
+      }
+    }
+  }
+
+  /**
+   * @return whether a whole line was read
+   */
+  private boolean readLine(ByteBuffer bytes) throws BadRequestException {
+    while (bytes.hasRemaining()) {
+      final byte b = bytes.get();
+      if (++headLength > MAX_HEAD_LENGTH) {
+        throw new BadRequestException(431, "Request header fields too large");
+      }
+      if (b == '\n') {
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+          lineLength--;
+        }
+        return true;
+      }
+      if (lineLength == line.length) {
+        line = Arrays.copyOf(line, line.length * 2);
+      }
+      line[lineLength++] = b;
+    }
+    return false;
+  }
+
+  private void processLine(String text, Listener listener) throws BadRequestException {
+    switch (state) {
+      case REQUEST_LINE -> {
+        // empty lines before a request are ignored
+        if (!text.isEmpty()) {
+          requestLine(text);
+        }
+      }
+      case HEADERS -> {
+        if (text.isEmpty()) {
+          headersEnd(listener);
+        } else {
+          header(text);
+        }
+      }
+      case CHUNK_SIZE -> chunkSize(text);
+      case CHUNK_END -> {
+        if (!text.isEmpty()) {
+          throw new BadRequestException(400, "Invalid chunk terminator");
+        }
+        state = State.CHUNK_SIZE;
+        headLength = 0;
+      }
+      case TRAILERS -> {
+        // trailer fields are not passed to handlers
+        if (text.isEmpty()) {
+          complete(listener);
+        }
+      }
+    }
+  }
+
+  private void requestLine(String text) throws BadRequestException {
+    final String[] parts = text.split(" ", -1);
+    if (parts.length != 3 || parts[0].isEmpty() || parts[1].isEmpty()) {
+      throw new BadRequestException(400, "Invalid request line");
+    }
+    if (!parts[2].startsWith("HTTP/1.")) {
+      throw new BadRequestException(505, "HTTP version not supported");
+    }
+    if (!METHODS.contains(parts[0])) {
+      throw new BadRequestException(501, "Method not implemented");
+    }
+    method = parts[0];
+    uri = parts[1];
+    protocol = parts[2];
+    headers = new LinkedHashMap<>();
+    state = State.HEADERS;
+  }
+
+  private void header(String text) throws BadRequestException {
+    final int colon = text.indexOf(':');
+    if (colon <= 0) {
+      throw new BadRequestException(400, "Invalid header");
+    }
+    final String name = text.substring(0, colon);
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) <= ' ') {
+        throw new BadRequestException(400, "Invalid header name");
+      }
+    }
+    headers.computeIfAbsent(normalize(name), key -> new ArrayList<>(1)).add(text.substring(colon + 1).trim());
+  }
+
+  private void headersEnd(Listener listener) throws BadRequestException {
+    if (protocol.equals("HTTP/1.0")) {
+      keepAlive = hasToken("Connection", "keep-alive");
+    } else {
+      keepAlive = !hasToken("Connection", "close");
+    }
+
+    final List<String> transferEncoding = headers.get("Transfer-encoding");
+    final List<String> contentLength = headers.get("Content-length");
+    if (transferEncoding != null) {
+      if (contentLength != null) {
+        throw new BadRequestException(400, "Both Content-Length and Transfer-Encoding are present");
+      }
+      if (!tokens(transferEncoding).equals(List.of("chunked"))) {
+        throw new BadRequestException(501, "Unsupported transfer encoding");
+      }
+      expectContinue(listener);
+      state = State.CHUNK_SIZE;
+      headLength = 0;
+    } else if (contentLength != null) {
+      final long length = contentLength(contentLength);
+      if (length == 0) {
+        complete(listener);
+      } else {
+        remaining = length;
+        expectContinue(listener);
+        state = State.BODY;
+      }
+    } else {
+      complete(listener);
+    }
+  }
+
+  private long contentLength(List<String> values) throws BadRequestException {
+    String length = null;
+    for (String value : tokens(values)) {
+      if (value.isEmpty() || (length != null && !length.equals(value))) {
+        throw new BadRequestException(400, "Invalid Content-Length");
+      }
+      for (int i = 0; i < value.length(); i++) {
+        if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+          throw new BadRequestException(400, "Invalid Content-Length");
+        }
+      }
+      length = value;
+    }
+    if (length.length() > 10 || Long.parseLong(length) > maxBodySize) {
+      throw new BadRequestException(413, "Request body too large");
+    }
+    return Long.parseLong(length);
+  }
+
+  private void expectContinue(Listener listener) {
+    if (!protocol.equals("HTTP/1.0") && hasToken("Expect", "100-continue")) {
+      listener.continueExpected();
+    }
+  }
+
+  private void chunkSize(String text) throws BadRequestException {
+    final int semicolon = text.indexOf(';');
+    // chunk extensions are ignored
+    final String size = (semicolon < 0 ? text : text.substring(0, semicolon)).trim();
+    if (size.isEmpty() || size.length() > 8) {
+      throw new BadRequestException(size.isEmpty() ? 400 : 413, "Invalid chunk size");
+    }
+    for (int i = 0; i < size.length(); i++) {
+      if (Character.digit(size.charAt(i), 16) < 0) {
+        throw new BadRequestException(400, "Invalid chunk size");
+      }
+    }
+
+    final long length = Long.parseLong(size, 16);
+    if (length == 0) {
+      state = State.TRAILERS;
+      headLength = 0;
+    } else {
+      if (bodyLength + length > maxBodySize) {
+        throw new BadRequestException(413, "Request body too large");
+      }
+      remaining = length;
+      state = State.CHUNK_DATA;
+    }
+  }
+
+  private void readBody(ByteBuffer bytes, Listener listener) {
+    final int n = (int) Math.min(remaining, bytes.remaining());
+    if (bodyLength + n > body.length) {
+      // the received length is within the maximum body size, checked against the announced one
+      body = Arrays.copyOf(body, (int) Math.min(maxBodySize, Math.max(bodyLength + n, Math.max(MIN_BODY_CAPACITY, 2L * body.length))));
+    }
+    bytes.get(body, bodyLength, n);
+    bodyLength += n;
+    remaining -= n;
+    if (remaining == 0) {
+      if (state == State.BODY) {
+        complete(listener);
+      } else {
+        state = State.CHUNK_END;
+      }
+    }
+  }
+
+  private void complete(Listener listener) {
+    final byte[] requestBody = bodyLength == body.length ? body : Arrays.copyOf(body, bodyLength);
+    final Request request = new Request(method, uri, protocol, headers, requestBody, keepAlive);
+    state = State.REQUEST_LINE;
+    headLength = 0;
+    headers = null;
+    body = EMPTY_BODY;
+    bodyLength = 0;
+    listener.received(request);
+  }
+
+  private boolean hasToken(String header, String token) {
+    final List<String> values = headers.get(header);
+    if (values != null) {
+      for (String value : tokens(values)) {
+        if (value.equalsIgnoreCase(token)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /*
+   * Comma separated values of all occurrences of the header.
+   */
+  private static List<String> tokens(List<String> values) {
+    final List<String> result = new ArrayList<>();
+    for (String value : values) {
+      for (String token : value.split(",", -1)) {
+        result.add(token.trim().toLowerCase(Locale.ROOT));
+      }
+    }
+    return result;
+  }
+
+  private static String normalize(String name) {
+    final char[] chars = name.toCharArray();
+    chars[0] = Character.toUpperCase(chars[0]);
+    for (int i = 1; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(chars[i]);
+    }
+    return new String(chars);
+  }
+}
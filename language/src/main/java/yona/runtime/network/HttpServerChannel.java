@@ -0,0 +1,145 @@
+package yona.runtime.network;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import yona.YonaLanguage;
+import yona.runtime.Context;
+import yona.runtime.Function;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Non-blocking engine of {@code http\Server}, selected by the {@code yona.http_server} option, see
+ * {@link YonaLanguage#HTTP_SERVER}. Connections are accepted and read by the selector thread, handlers run on the worker
+ * threads, so neither an idle connection nor a handler waiting for a promise holds a thread. Idle connections are closed
+ * after the {@code yona.http_idle_timeout_millis} option, see {@link YonaLanguage#HTTP_IDLE_TIMEOUT_MILLIS}.
+ */
+public final class HttpServerChannel {
+  public final Context context;
+  public final ServerSocketChannel serverSocketChannel;
+  public final Node node;
+  final long idleTimeoutMillis;
+  final int maxBodySize;
+
+  final Set<HttpConnection> connections = ConcurrentHashMap.newKeySet();
+  private final List<Route> routes = new CopyOnWriteArrayList<>();
+  private volatile boolean stopped;
+  private volatile CachedDate date = new CachedDate(0, "");
+
+  record Route(String path, boolean binaryBody, Function handler, InteropLibrary dispatch, Node node) {
+  }
+
+  private record CachedDate(long second, String formatted) {
+  }
+
+  private HttpServerChannel(Context context, ServerSocketChannel serverSocketChannel, Node node) {
+    this.context = context;
+    this.serverSocketChannel = serverSocketChannel;
+    this.node = node;
+    this.idleTimeoutMillis = context.getEnv().getOptions().get(YonaLanguage.HTTP_IDLE_TIMEOUT_MILLIS);
+    this.maxBodySize = context.getEnv().getOptions().get(YonaLanguage.HTTP_MAX_BODY_SIZE);
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public static HttpServerChannel bind(Context context, String host, int port, int backlog, Node node) throws IOException {
+    final ServerSocketChannel serverSocketChannel = context.socketSelector.provider().openServerSocketChannel();
+    try {
+      serverSocketChannel.configureBlocking(false);
+      serverSocketChannel.bind(new InetSocketAddress(host, port), backlog);
+    } catch (IOException e) {
+      serverSocketChannel.close();
+      throw e;
+    }
+    return new HttpServerChannel(context, serverSocketChannel, node);
+  }
+
+  /**
+   * Requests are handled by the route with the longest path that is a prefix of the request path.
+   */
+  @CompilerDirectives.TruffleBoundary
+  public void handle(String path, boolean binaryBody, Function handler, InteropLibrary dispatch, Node node) {
+    routes.add(new Route(path, binaryBody, handler, dispatch, node));
+  }
+
+  Route route(String path) {
+    Route result = null;
+    for (Route route : routes) {
+      if (path.startsWith(route.path()) && (result == null || route.path().length() > result.path().length())) {
+        result = route;
+      }
+    }
+    return result;
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public void start() throws IOException {
+    serverSocketChannel.register(context.socketSelector, SelectionKey.OP_ACCEPT, this);
+    context.socketSelector.wakeup();
+  }
+
+  /**
+   * Stops accepting connections. Open connections are closed once the responses to the requests received so far are
+   * written, or after the delay, whichever comes first.
+   */
+  @CompilerDirectives.TruffleBoundary
+  public void stop(long delayMillis) throws IOException {
+    stopped = true;
+    serverSocketChannel.close();
+    context.socketSelector.wakeup();
+    for (HttpConnection connection : connections) {
+      connection.shutdown();
+    }
+    if (!connections.isEmpty()) {
+      context.timerWheel.schedule(delayMillis, () -> {
+        for (HttpConnection connection : connections) {
+          connection.abort();
+        }
+      });
+    }
+  }
+
+  /**
+   * Called by the selector thread when connections are pending.
+   */
+  void accept() throws IOException {
+    SocketChannel socketChannel;
+    while ((socketChannel = serverSocketChannel.accept()) != null) {
+      if (stopped) {
+        socketChannel.close();
+        continue;
+      }
+      socketChannel.configureBlocking(false);
+      socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      final SelectionKey selectionKey = socketChannel.register(context.socketSelector, SelectionKey.OP_READ);
+      final HttpConnection connection = new HttpConnection(this, selectionKey, socketChannel);
+      selectionKey.attach(connection);
+      connections.add(connection);
+    }
+  }
+
+  /**
+   * Value of the Date header, formatted at most once a second.
+   */
+  String date() {
+    final long second = System.currentTimeMillis() / 1000;
+    CachedDate cached = date;
+    if (cached.second() != second) {
+      cached = new CachedDate(second, DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochSecond(second).atOffset(ZoneOffset.UTC)));
+      date = cached;
+    }
+    return cached.formatted();
+  }
+}
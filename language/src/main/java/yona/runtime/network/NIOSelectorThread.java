@@ -1,30 +1,28 @@
 package yona.runtime.network;
 
-import com.oracle.truffle.api.interop.ArityException;
-import com.oracle.truffle.api.interop.UnsupportedMessageException;
-import com.oracle.truffle.api.interop.UnsupportedTypeException;
-import yona.TypesGen;
-import yona.YonaException;
-import yona.ast.builtin.modules.socket.ConnectionContextManager;
+import com.oracle.truffle.api.nodes.Node;
+import yona.YonaLanguage;
 import yona.runtime.Context;
-import yona.runtime.Seq;
 import yona.runtime.async.Promise;
-import yona.runtime.exceptions.BadArgException;
-import yona.runtime.threading.ExecutableFunction;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 
 public final class NIOSelectorThread extends Thread {
-  protected static final int SOCKET_READ_BUFFER_SIZE = 128;
-
   private final Context context;
 
+  /*
+   * All sockets are read on this thread, so they share one direct buffer, sized by the yona.socket_read_buffer_size
+   * option. Received bytes are copied out of it into the connection's read buffer.
+   */
+  private final ByteBuffer readBuffer;
+
   private volatile boolean closing = false;
 
   public NIOSelectorThread(Context context) {
     this.context = context;
+    this.readBuffer = ByteBuffer.allocateDirect(context.getEnv().getOptions().get(YonaLanguage.SOCKET_READ_BUFFER_SIZE));
     this.setName("yona-nio-selector");
   }
 
@@ -34,22 +32,40 @@ public final class NIOSelectorThread extends Thread {
       try {
         if (context.socketSelector.select() >= 0) {
           for (SelectionKey key : context.socketSelector.selectedKeys()) {
-            if (key.isValid()) {
-              if (key.isAcceptable()) {
-                accept((TCPServerChannel) key.attachment(), key);
-              } else if (key.isConnectable()) {
-                connect((TCPClientChannel) key.attachment(), key);
-              } else {
-                SelectableChannel selectableChannel = key.channel();
-
-                if (key.isReadable()) {
-                  read((TCPConnection) key.attachment(), (SocketChannel) selectableChannel, key);
-                }
-
-                if (key.isValid() && key.isWritable()) {
-                  write((TCPConnection) key.attachment(), (SocketChannel) selectableChannel, key);
+            try {
+              if (key.isValid()) {
+                if (key.isAcceptable()) {
+                  if (key.attachment() instanceof HttpServerChannel httpServerChannel) {
+                    httpServerChannel.accept();
+                  } else {
+                    accept((TCPServerChannel) key.attachment(), key);
+                  }
+                } else if (key.isConnectable()) {
+                  connect((TCPClientChannel) key.attachment(), key);
+                } else if (key.attachment() instanceof HttpConnection httpConnection) {
+                  SocketChannel socketChannel = (SocketChannel) key.channel();
+
+                  if (key.isReadable()) {
+                    httpConnection.readFrom(socketChannel, readBuffer);
+                  }
+
+                  if (key.isValid() && key.isWritable()) {
+                    httpConnection.tcpConnection.writeTo(socketChannel);
+                  }
+                } else {
+                  SelectableChannel selectableChannel = key.channel();
+
+                  if (key.isReadable()) {
+                    ((TCPConnection) key.attachment()).readFrom((SocketChannel) selectableChannel, readBuffer);
+                  }
+
+                  if (key.isValid() && key.isWritable()) {
+                    ((TCPConnection) key.attachment()).writeTo((SocketChannel) selectableChannel);
+                  }
                 }
               }
+            } catch (CancelledKeyException ignored) {
+              // channel was closed by another thread
             }
           }
           context.socketSelector.selectedKeys().clear();
@@ -81,12 +97,12 @@ public final class NIOSelectorThread extends Thread {
       try {
         SocketChannel socketChannel = serverSocketChannel.accept();
         socketChannel.configureBlocking(false);
-        SelectionKey readKey = socketChannel.register(context.socketSelector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        SelectionKey readKey = socketChannel.register(context.socketSelector, 0);
         TCPConnection connection = new TCPConnection(readKey, TCPServerChannel.dispatch, TCPServerChannel.context, TCPServerChannel.node);
         readKey.attach(connection);
-        promise.fulfil(connection, connection.node);
+        fulfil(promise, connection, connection.node);
       } catch (IOException e) {
-        promise.fulfil(new yona.runtime.exceptions.IOException(e, TCPServerChannel.node), TCPServerChannel.node);
+        fulfil(promise, new yona.runtime.exceptions.IOException(e, TCPServerChannel.node), TCPServerChannel.node);
       }
     }
   }
@@ -100,88 +116,18 @@ public final class NIOSelectorThread extends Thread {
         while (socketChannel.isConnectionPending()) {
           socketChannel.finishConnect();
         }
-        SelectionKey readKey = socketChannel.register(context.socketSelector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        SelectionKey readKey = socketChannel.register(context.socketSelector, 0);
         TCPConnection connection = new TCPConnection(readKey, channel.dispatch, channel.context, channel.node);
-        channel.yonaConnectionPromise.fulfil(connection, connection.node);
         readKey.attach(connection);
+        fulfil(channel.yonaConnectionPromise, connection, connection.node);
       }
     } catch (IOException e) {
-      channel.yonaConnectionPromise.fulfil(new yona.runtime.exceptions.IOException(e, channel.node), channel.node);
-    }
-  }
-
-  private void read(TCPConnection connection, SocketChannel client, SelectionKey key) throws IOException, InterruptedException {
-    TCPConnection.ReadRequest readRequest = connection.readQueue.consume();
-    if (readRequest == null) {
-      return;
-    }
-    Seq result = Seq.EMPTY;
-    Object finalResult;
-    try {
-      client.configureBlocking(false);
-      ByteBuffer bf = ByteBuffer.allocate(SOCKET_READ_BUFFER_SIZE);
-      int read;
-      while (true) {
-        bf.clear();
-        read = client.read(bf);
-        if (read <= 0) {
-          break;
-        }
-        Object untilCallbackResult = connection.dispatch.execute(readRequest.untilCallback(), read);
-        if (!(untilCallbackResult instanceof Boolean) && !(untilCallbackResult instanceof Promise)) {
-          throw YonaException.typeError(connection.node, untilCallbackResult);
-        }
-
-        boolean keepReading;
-        if (untilCallbackResult instanceof Promise untilCallbackResultPromise) {
-          // this waiting is within the context of the NIO Selector thread. Not ideal, but probably the least harmful solution.
-          // Actually mapping a promise at this point simply be too complicated to handle...
-          Promise.await(untilCallbackResultPromise);
-          keepReading = TypesGen.expectBoolean(untilCallbackResultPromise.unwrapOrThrow());
-        } else {
-          keepReading = (Boolean) untilCallbackResult;
-        }
-
-        if (!keepReading) {
-          break;
-        }
-
-        bf.flip();
-        result = Seq.catenate(result, Seq.fromByteBuffer(bf));
-      }
-
-      finalResult = result;
-    } catch (ClosedChannelException ignored) {
-      finalResult = result;
-    } catch (IOException e) {
-      e.printStackTrace();
-      finalResult = new yona.runtime.exceptions.IOException(e, connection.node);
-    } catch (UnsupportedMessageException | UnsupportedTypeException | ArityException e) {
-      finalResult = new BadArgException("Callback in read_until function must accept byte and return boolean (true if continue reading).", e, connection.node);
-    } catch (Throwable e) {
-      finalResult = new YonaException(e, connection.node);
+      fulfil(channel.yonaConnectionPromise, new yona.runtime.exceptions.IOException(e, channel.node), channel.node);
     }
-    readRequest.resultPromise().fulfil(finalResult, connection.node);
   }
 
-  private void write(TCPConnection connection, SocketChannel client, SelectionKey key) throws IOException {
-    TCPConnection.WriteRequest writeRequest = connection.writeQueue.consume();
-    if (writeRequest == null) {
-      return;
-    }
-    Object result;
-    try {
-      client.configureBlocking(false);
-      Seq writeBuffer = writeRequest.buffer();
-      client.write(writeBuffer.asByteBuffer(connection.node));
-      result = writeBuffer;
-    } catch (ClosedChannelException ignored) {
-      result = Seq.EMPTY;
-    } catch (IOException e) {
-      e.printStackTrace();
-      result = new yona.runtime.exceptions.IOException(e, connection.node);
-    }
-
-    writeRequest.completedPromise().fulfil(result, connection.node);
+  // continuations of the promise must not run on this thread
+  private void fulfil(Promise promise, Object result, Node node) {
+    context.threading.submit(promise, p -> p.fulfil(result, node));
   }
 }
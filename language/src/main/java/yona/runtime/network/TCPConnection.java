@@ -1,37 +1,428 @@
 package yona.runtime.network;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.interop.ArityException;
 import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.nodes.Node;
+import yona.YonaException;
 import yona.runtime.Context;
 import yona.runtime.Function;
 import yona.runtime.Seq;
+import yona.runtime.Unit;
 import yona.runtime.async.Promise;
+import yona.runtime.exceptions.BadArgException;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
 
+/**
+ * Writes are queued and flushed by the selector thread with gathering writes, so small writes issued in a row go out in
+ * one system call. A write completes as soon as it is queued, unless the bytes queued before it exceed
+ * {@link #WRITE_HIGH_WATER_MARK}, in which case it completes once enough of them were written. Closing the connection
+ * waits for the queued writes to be flushed.
+ * <p>
+ * So the completion of a write does not mean its bytes were written to the socket. A write to a connection already known
+ * to be closed or failed raises an error right away, but if the socket fails while the bytes are queued, the error is
+ * only raised by the writes submitted after that.
+ * <p>
+ * Read requests are served one at a time, in order of submission, from a buffer of bytes received but not consumed yet.
+ * The socket is only read while the current request needs more data, so a connection nobody reads from is not polled.
+ * Native framing (exact length, delimiter) runs on the thread that received the bytes, {@code read_until} callbacks
+ * run on the worker threads. Results are always delivered on the worker threads, so no user code runs on the selector.
+ */
 public class TCPConnection {
-  private final static int MAX_RW_QUEUE_LENGTH = 16;
+  private final static int MAX_READ_QUEUE_LENGTH = 16;
+  public final static long WRITE_HIGH_WATER_MARK = 1 << 20;
 
   public final SelectionKey selectionKey;
   public final InteropLibrary dispatch;
   public final Context context;
   public final Node node;
 
-  public final NIOQueue<WriteRequest> writeQueue;
   public final NIOQueue<ReadRequest> readQueue;
 
+  // write state, guarded by pendingWrites
+  private final ArrayDeque<WriteRequest> pendingWrites = new ArrayDeque<>();
+  private final ArrayDeque<WriteRequest> blockedWrites = new ArrayDeque<>();
+  private long queuedBytes;
+  private long writtenBytes;
+  private YonaException writeFailure;
+  private boolean closeAfterWrites;
+
+  // read state, guarded by this connection
+  private Seq readBuffer = Seq.EMPTY;
+  private ReadRequest activeRead;
+  private long scannedBytes;
+  private boolean callbackRunning;
+  private boolean endOfStream;
+  private boolean readInterest;
+
   public TCPConnection(SelectionKey selectionKey, InteropLibrary dispatch, Context context, Node node) {
     this.selectionKey = selectionKey;
     this.dispatch = dispatch;
     this.context = context;
     this.node = node;
-    this.writeQueue = new NIOQueue<>(WriteRequest.class, MAX_RW_QUEUE_LENGTH);
-    this.readQueue = new NIOQueue<>(ReadRequest.class, MAX_RW_QUEUE_LENGTH);
+    this.readQueue = new NIOQueue<>(ReadRequest.class, MAX_READ_QUEUE_LENGTH);
+  }
+
+  /**
+   * @param start position of the first byte of this write in the stream of all bytes queued on the connection
+   */
+  private static final record WriteRequest(Seq data, ByteBuffer bytes, long start, Promise completedPromise) {
+  }
+
+  public interface ReadRequest {
+    Promise resultPromise();
+  }
+
+  /**
+   * Read until the callback returns false for a byte. The result includes that byte.
+   */
+  public static final record ReadUntilRequest(Function untilCallback, Promise resultPromise) implements ReadRequest {
+  }
+
+  public static final record ReadExactlyRequest(long length, Promise resultPromise) implements ReadRequest {
+  }
+
+  /**
+   * Read until the delimiter is received. The result includes the delimiter.
+   */
+  public static final record ReadUntilDelimiterRequest(byte[] delimiter, Promise resultPromise) implements ReadRequest {
+  }
+
+  /**
+   * @return the written data if the write completed right away, a {@link Promise} of it otherwise
+   * @throws yona.runtime.exceptions.IOException if the connection is closed or an earlier write failed
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Object submitWrite(Seq data, Node caller) {
+    final ByteBuffer bytes = data.asByteBuffer(caller);
+    synchronized (pendingWrites) {
+      if (writeFailure != null) {
+        throw writeFailure;
+      }
+      if (closeAfterWrites || !selectionKey.channel().isOpen()) {
+        throw closedFailure(caller);
+      }
+      if (!bytes.hasRemaining()) {
+        return data;
+      }
+      final boolean idle = pendingWrites.isEmpty();
+      final boolean blocked = queuedBytes - writtenBytes > WRITE_HIGH_WATER_MARK;
+      final WriteRequest request = new WriteRequest(data, bytes, queuedBytes, blocked ? new Promise(dispatch) : null);
+      queuedBytes += bytes.remaining();
+      pendingWrites.addLast(request);
+      if (blocked) {
+        blockedWrites.addLast(request);
+      }
+      if (idle) {
+        try {
+          selectionKey.interestOpsOr(SelectionKey.OP_WRITE);
+          selectionKey.selector().wakeup();
+        } catch (CancelledKeyException e) {
+          failWrites(closedFailure(caller));
+          throw writeFailure;
+        }
+      }
+      return blocked ? request.completedPromise() : data;
+    }
+  }
+
+  private static yona.runtime.exceptions.IOException closedFailure(Node node) {
+    return new yona.runtime.exceptions.IOException("Connection is closed", node);
+  }
+
+  /**
+   * Called by the selector thread when the socket is writable.
+   */
+  void writeTo(SocketChannel channel) {
+    synchronized (pendingWrites) {
+      try {
+        final ByteBuffer[] buffers = new ByteBuffer[pendingWrites.size()];
+        int i = 0;
+        for (WriteRequest request : pendingWrites) {
+          buffers[i++] = request.bytes();
+        }
+
+        long written;
+        do {
+          written = channel.write(buffers);
+          writtenBytes += written;
+        } while (written > 0 && buffers[buffers.length - 1].hasRemaining());
+
+        while (!pendingWrites.isEmpty() && !pendingWrites.peekFirst().bytes().hasRemaining()) {
+          pendingWrites.removeFirst();
+        }
+        while (!blockedWrites.isEmpty() && blockedWrites.peekFirst().start() - writtenBytes <= WRITE_HIGH_WATER_MARK) {
+          final WriteRequest request = blockedWrites.removeFirst();
+          complete(request.completedPromise(), request.data());
+        }
+
+        if (pendingWrites.isEmpty()) {
+          selectionKey.interestOpsAnd(~SelectionKey.OP_WRITE);
+          if (closeAfterWrites) {
+            channel.close();
+            closed();
+          }
+        }
+      } catch (ClosedChannelException | CancelledKeyException e) {
+        failWrites(closedFailure(node));
+      } catch (IOException e) {
+        e.printStackTrace();
+        failWrites(new yona.runtime.exceptions.IOException(e, node));
+      }
+    }
+  }
+
+  private void failWrites(YonaException failure) {
+    writeFailure = failure;
+    pendingWrites.clear();
+    try {
+      selectionKey.interestOpsAnd(~SelectionKey.OP_WRITE);
+    } catch (CancelledKeyException ignored) {
+    }
+    while (!blockedWrites.isEmpty()) {
+      complete(blockedWrites.removeFirst().completedPromise(), failure);
+    }
+  }
+
+  /**
+   * Close the connection once all queued writes are flushed.
+   */
+  @CompilerDirectives.TruffleBoundary
+  public void close() throws IOException {
+    synchronized (pendingWrites) {
+      if (pendingWrites.isEmpty()) {
+        selectionKey.channel().close();
+        closed();
+      } else {
+        closeAfterWrites = true;
+      }
+    }
+  }
+
+  // pending reads get what was received before the close
+  private synchronized void closed() {
+    endOfStream = true;
+    serve();
+  }
+
+  @CompilerDirectives.TruffleBoundary
+  public void submitRead(ReadRequest request) {
+    readQueue.submit(request);
+    synchronized (this) {
+      serve();
+    }
+  }
+
+  /**
+   * Called by the selector thread when the socket is readable.
+   */
+  synchronized void readFrom(SocketChannel channel, ByteBuffer buffer) {
+    if (awaitingData()) {
+      try {
+        buffer.clear();
+        if (channel.read(buffer) < 0) {
+          endOfStream = true;
+        } else {
+          buffer.flip();
+          // the buffer is shared by all connections of the selector, so the bytes are copied out of it once, into byte
+          // leaves, catenate shares the leaves of the bytes received before
+          readBuffer = Seq.catenate(readBuffer, Seq.fromByteBuffer(buffer));
+        }
+      } catch (IOException e) {
+        if (channel.isOpen()) {
+          e.printStackTrace();
+          complete(new yona.runtime.exceptions.IOException(e, node));
+        }
+        endOfStream = true;
+      }
+    }
+    serve();
+  }
+
+  private boolean awaitingData() {
+    return activeRead != null && !callbackRunning && !endOfStream;
+  }
+
+  private void serve() {
+    while (true) {
+      if (activeRead == null) {
+        activeRead = readQueue.consume();
+        scannedBytes = 0;
+        if (activeRead == null) {
+          break;
+        }
+      }
+      if (!frame()) {
+        break;
+      }
+    }
+    updateReadInterest();
+  }
+
+  /**
+   * @return whether the active request was completed
+   */
+  private boolean frame() {
+    if (activeRead instanceof ReadExactlyRequest request) {
+      if (readBuffer.length() >= request.length()) {
+        complete(consume(request.length()));
+        return true;
+      }
+    } else if (activeRead instanceof ReadUntilDelimiterRequest request) {
+      final long end = findDelimiter(request.delimiter());
+      if (end >= 0) {
+        complete(consume(end));
+        return true;
+      }
+    } else {
+      final ReadUntilRequest request = (ReadUntilRequest) activeRead;
+      if (callbackRunning) {
+        return false;
+      }
+      if (scannedBytes < readBuffer.length()) {
+        callbackRunning = true;
+        final Seq bytes = readBuffer;
+        final long from = scannedBytes;
+        context.threading.submit(new Promise(), promise -> runCallback(request, bytes, from));
+        return false;
+      }
+    }
+
+    if (endOfStream) {
+      complete(consume(readBuffer.length()));
+      return true;
+    }
+    return false;
+  }
+
+  private long findDelimiter(final byte[] delimiter) {
+    final long from = Math.max(0, scannedBytes - delimiter.length + 1);
+    final byte[] bytes = consumable(from).asByteArray(node);
+    scannedBytes = readBuffer.length();
+    for (int i = 0; i <= bytes.length - delimiter.length; i++) {
+      int j = 0;
+      while (j < delimiter.length && bytes[i + j] == delimiter[j]) {
+        j++;
+      }
+      if (j == delimiter.length) {
+        return from + i + delimiter.length;
+      }
+    }
+    return -1;
+  }
+
+  private Seq consumable(final long from) {
+    return from == 0 ? readBuffer : from == readBuffer.length() ? Seq.EMPTY : readBuffer.drop(from, node);
+  }
+
+  private Seq consume(final long n) {
+    final Seq result = n == readBuffer.length() ? readBuffer : n == 0 ? Seq.EMPTY : readBuffer.take(n, node);
+    readBuffer = consumable(n);
+    return result;
+  }
+
+  private void complete(final Object result) {
+    final Promise resultPromise = activeRead.resultPromise();
+    activeRead = null;
+    complete(resultPromise, result);
+  }
+
+  private void complete(final Promise resultPromise, final Object result) {
+    context.threading.submit(resultPromise, promise -> promise.fulfil(result, node));
+  }
+
+  private void updateReadInterest() {
+    final boolean interest = awaitingData();
+    if (interest != readInterest) {
+      try {
+        if (interest) {
+          selectionKey.interestOpsOr(SelectionKey.OP_READ);
+          selectionKey.selector().wakeup();
+        } else {
+          selectionKey.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+        readInterest = interest;
+      } catch (CancelledKeyException e) {
+        // connection was closed, serve the rest from what was received
+        readInterest = false;
+        if (!endOfStream) {
+          endOfStream = true;
+          serve();
+        }
+      }
+    }
+  }
+
+  private void runCallback(final ReadUntilRequest request, final Seq bytes, final long from) {
+    try {
+      for (long i = from; i < bytes.length(); i++) {
+        Object keepReading = dispatch.execute(request.untilCallback(), bytes.lookup(i, node));
+        if (keepReading instanceof Promise keepReadingPromise) {
+          if (!keepReadingPromise.isFulfilled()) {
+            final long index = i;
+            keepReadingPromise.map(value -> {
+              if (keepReading(value, index)) {
+                context.threading.submit(new Promise(), promise -> runCallback(request, bytes, index + 1));
+              }
+              return Unit.INSTANCE;
+            }, error -> {
+              callbackFailed(error);
+              return Unit.INSTANCE;
+            }, node);
+            return;
+          }
+          keepReading = keepReadingPromise.unwrapOrThrow();
+        }
+        if (!keepReading(keepReading, i)) {
+          return;
+        }
+      }
+      callbackExhausted(bytes.length());
+    } catch (UnsupportedMessageException | UnsupportedTypeException | ArityException e) {
+      callbackFailed(new BadArgException("Callback in read_until function must accept byte and return boolean (true if continue reading).", e, node));
+    } catch (Throwable e) {
+      callbackFailed(e);
+    }
+  }
+
+  private boolean keepReading(final Object value, final long index) {
+    if (!(value instanceof Boolean)) {
+      callbackFailed(YonaException.typeError(node, value));
+      return false;
+    } else if (!(Boolean) value) {
+      callbackStopped(index + 1);
+      return false;
+    }
+    return true;
+  }
+
+  private synchronized void callbackStopped(final long consumed) {
+    callbackRunning = false;
+    complete(consume(consumed));
+    serve();
   }
 
-  public static final record WriteRequest(Seq buffer, Promise completedPromise) {
+  private synchronized void callbackFailed(final Object error) {
+    callbackRunning = false;
+    complete(error);
+    serve();
   }
 
-  public static final record ReadRequest(Function untilCallback, Promise resultPromise) {
+  /**
+   * The callback accepted all bytes received so far, more are needed.
+   */
+  private synchronized void callbackExhausted(final long scanned) {
+    callbackRunning = false;
+    scannedBytes = scanned;
+    serve();
   }
 }
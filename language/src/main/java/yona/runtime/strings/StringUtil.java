@@ -5,6 +5,8 @@ import yona.runtime.NativeObject;
 import yona.runtime.Seq;
 import yona.runtime.Symbol;
 
+import java.util.Arrays;
+
 public final class StringUtil {
   @CompilerDirectives.TruffleBoundary
   public static Seq yonaValueAsYonaString(boolean val) {
@@ -30,6 +32,21 @@ public final class StringUtil {
     return Seq.sequence(val);
   }
 
+  @CompilerDirectives.TruffleBoundary
+  public static Seq pad(Seq val, long width) {
+    final long padding = Math.abs(width) - val.length();
+    if (padding <= 0) {
+      return val;
+    }
+    final int[] spaces = new int[(int) padding];
+    Arrays.fill(spaces, ' ');
+    if (width > 0) {
+      return Seq.catenate(Seq.fromCodePoints(spaces), val);
+    } else {
+      return Seq.catenate(val, Seq.fromCodePoints(spaces));
+    }
+  }
+
   public static Seq yonaValueAsYonaString(Object val) {
     if (val instanceof Seq && ((Seq) val).isString()) return (Seq) val;
     else if (val instanceof Boolean) return yonaValueAsYonaString((boolean) val);
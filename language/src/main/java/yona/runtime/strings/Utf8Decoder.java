@@ -0,0 +1,51 @@
+package yona.runtime.strings;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import yona.runtime.Seq;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental UTF-8 decoder producing a text {@link Seq} per chunk of input. Multi-byte sequences split across chunks
+ * are carried over to the next call. Malformed input is replaced, same as {@code new String(bytes, UTF_8)}.
+ */
+public final class Utf8Decoder {
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private ByteBuffer carry = EMPTY;
+
+  /**
+   * Decode the next chunk. The chunk is fully consumed. Pass {@code endOfInput} with the last chunk (which may be
+   * empty) to flush any incomplete trailing sequence.
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Seq decode(ByteBuffer chunk, boolean endOfInput) {
+    ByteBuffer in = chunk;
+    if (carry.hasRemaining()) {
+      in = ByteBuffer.allocate(carry.remaining() + chunk.remaining());
+      in.put(carry).put(chunk).flip();
+    }
+
+    CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+    decoder.decode(in, out, endOfInput);
+    if (endOfInput) {
+      decoder.flush(out);
+      decoder.reset();
+      carry = EMPTY;
+    } else if (in.hasRemaining()) {
+      carry = ByteBuffer.allocate(in.remaining()).put(in).flip();
+    } else {
+      carry = EMPTY;
+    }
+
+    out.flip();
+    return Seq.fromCodePoints(out.codePoints().toArray());
+  }
+}
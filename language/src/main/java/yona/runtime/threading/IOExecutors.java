@@ -0,0 +1,61 @@
+package yona.runtime.threading;
+
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.TruffleLanguage;
+import yona.YonaLanguage;
+import yona.runtime.Context;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executors for blocking operations of builtins ({@link Context#ioExecutor}), selected by the {@code yona.io_threads}
+ * option, see {@link YonaLanguage#IO_THREADS}.
+ */
+public final class IOExecutors {
+  private IOExecutors() {
+  }
+
+  public static ExecutorService create(final Context context) {
+    final TruffleLanguage.Env env = context.getEnv();
+    final String ioThreads = env.getOptions().get(YonaLanguage.IO_THREADS);
+    return switch (ioThreads) {
+      case "platform" -> Executors.newCachedThreadPool(runnable -> env.createThread(runnable, null, new ThreadGroup("yona-io")));
+      case "virtual" -> newVirtualThreadPerTaskExecutor(env.getContext());
+      default -> throw new IllegalArgumentException("Unknown io threads: " + ioThreads + ". Supported io threads are platform and virtual.");
+    };
+  }
+
+  /*
+   * The JDK API is looked up reflectively, because the language is compiled for a release without virtual threads.
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor(final TruffleContext truffleContext) {
+    try {
+      final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      final ThreadFactory virtualThreads = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+      final Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+      return (ExecutorService) newThreadPerTaskExecutor.invoke(null, enteringThreads(virtualThreads, truffleContext));
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      throw new IllegalStateException("Virtual io threads require a JDK with virtual threads (21 or newer)", e);
+    }
+  }
+
+  /*
+   * Threads created by Env.createThread are entered into the context for their whole life, threads of other factories,
+   * such as virtual threads, are not created through Truffle, so each task enters the context itself. This keeps promise
+   * callbacks, which run on the thread that fulfils the promise, executing within the context.
+   */
+  static ThreadFactory enteringThreads(final ThreadFactory threads, final TruffleContext truffleContext) {
+    return runnable -> threads.newThread(() -> {
+      final Object previous = truffleContext.enter(null);
+      try {
+        runnable.run();
+      } finally {
+        truffleContext.leave(null, previous);
+      }
+    });
+  }
+}
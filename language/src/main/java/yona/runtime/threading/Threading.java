@@ -1,165 +1,56 @@
 package yona.runtime.threading;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import yona.YonaLanguage;
 import yona.runtime.Context;
-import yona.runtime.Dict;
-import yona.runtime.network.NIOSelectorThread;
 import yona.runtime.async.Promise;
+import yona.runtime.network.NIOSelectorThread;
 
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.LockSupport;
-import java.util.concurrent.locks.ReentrantLock;
-
-public final class Threading {
-  static final AtomicIntegerFieldUpdater<Threading> WAITERS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Threading.class, "waiters");
 
+/**
+ * Runs async tasks on a fixed set of worker threads. The implementation is selected by the {@code yona.scheduler}
+ * option, see {@link YonaLanguage#SCHEDULER}.
+ */
+public abstract class Threading {
   public static final int CPU_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
   public static final ThreadLocal<Integer> CPU_THREAD_ID = new ThreadLocal<>();
 
   static final AtomicInteger CPU_THREAD_ID_COUNTER = new AtomicInteger();
-  static final int BUFFER_SIZE = 1024;
-  static final int PRODUCE_SPIN_MAX_ATTEMPTS = 1000;
-  static final int CONSUME_YIELD_MAX_ATTEMPTS = 10;
-  static final int CONSUME_PARK_MAX_ATTEMPTS = 100;
 
   final NIOSelectorThread NIOSelectorThread;
-  final Thread[] threads;
-  final Task[] ringBuffer;
-  final MultiProducerMultiConsumerCursors ringBufferCursors;
-  final MultiConsumer[] consumers;
-  final Lock lock = new ReentrantLock();
-  final Condition condition = lock.newCondition();
-
-  volatile int waiters = 0;
 
-  public Threading(final Context context) {
+  Threading(final Context context) {
     NIOSelectorThread = new NIOSelectorThread(context);
-    ringBuffer = new Task[BUFFER_SIZE];
-    for (int i = 0; i < ringBuffer.length; i++) {
-      ringBuffer[i] = new Task();
-    }
-    ringBufferCursors = new MultiProducerMultiConsumerCursors(BUFFER_SIZE);
-    consumers = ringBufferCursors.subscribe(CPU_THREADS);
-    threads = new Thread[CPU_THREADS];
-    for (int i = 0; i < CPU_THREADS; i++) {
-      MultiConsumer consumer = consumers[i];
-      threads[i] = context.getEnv().createThread(() -> {
-        CPU_THREAD_ID.set(CPU_THREAD_ID_COUNTER.incrementAndGet());
-        final MultiConsumer.Callback callback = new MultiConsumer.Callback() {
-          Promise promise;
-          ExecutableFunction function;
-          Dict localContexts;
-
-          @Override
-          public void prepare(final long token) {
-            final Task task = ringBuffer[ringBufferCursors.index(token)];
-            promise = task.promise;
-            function = task.function;
-            localContexts = task.localContexts;
-          }
+  }
 
-          @Override
-          public void execute() {
-            Context.LOCAL_CONTEXTS.set(localContexts);
-            try {
-              Threading.execute(promise, function);
-            } finally {
-              promise = null;
-              function = null;
-              Context.LOCAL_CONTEXTS.remove();
-            }
-          }
-        };
-        int yields = 0;
-        int parks = 0;
-        while (true) {
-          if (!consumer.consume(callback)) {
-            if (yields != CONSUME_YIELD_MAX_ATTEMPTS) {
-              Thread.yield();
-              yields++;
-              continue;
-            }
-            yields = 0;
-            if (parks != CONSUME_PARK_MAX_ATTEMPTS) {
-              LockSupport.parkNanos(1L);
-              parks++;
-              continue;
-            }
-            parks = 0;
-            lock.lock();
-            WAITERS_UPDATER.incrementAndGet(this);
-            try {
-              condition.await();
-            } catch (InterruptedException e) {
-              break;
-            } finally {
-              WAITERS_UPDATER.decrementAndGet(this);
-              lock.unlock();
-            }
-          }
-        }
-      }, null, new ThreadGroup("yona-worker"));
-    }
+  public static Threading create(final Context context) {
+    final String scheduler = context.getEnv().getOptions().get(YonaLanguage.SCHEDULER);
+    return switch (scheduler) {
+      case "ring_buffer" -> new RingBufferThreading(context);
+      case "work_stealing" -> new WorkStealingThreading(context);
+      default -> throw new IllegalArgumentException("Unknown scheduler: " + scheduler + ". Supported schedulers are ring_buffer and work_stealing.");
+    };
   }
 
   public void initialize() {
-    for (int i = 0; i < CPU_THREADS; i++) {
-      threads[i].start();
-    }
+    startWorkers();
     NIOSelectorThread.start();
   }
 
-  @CompilerDirectives.TruffleBoundary
-  public Promise submit(final Promise promise, final ExecutableFunction function) {
-    int spins = 0;
-    long token;
-    while (true) {
-      token = ringBufferCursors.tryClaim(1);
-      if (token == -1) {
-        if (spins != PRODUCE_SPIN_MAX_ATTEMPTS) {
-          Thread.onSpinWait();
-          spins++;
-          continue;
-        }
-        execute(promise, function);
-        return promise;
-      } else {
-        break;
-      }
-    }
-    Task task = ringBuffer[ringBufferCursors.index(token)];
-    task.promise = promise;
-    task.function = function;
-    task.localContexts = Context.LOCAL_CONTEXTS.get();
-    ringBufferCursors.release(token, token);
-    if (waiters != 0) {
-      lock.lock();
-      try {
-        condition.signal();
-      } finally {
-        lock.unlock();
-      }
-    }
+  abstract void startWorkers();
 
-    return promise;
-  }
+  @CompilerDirectives.TruffleBoundary
+  public abstract Promise submit(final Promise promise, final ExecutableFunction function);
 
   static void execute(final Promise promise, final ExecutableFunction function) {
     function.execute(promise);
   }
 
+  abstract void stopWorkers();
+
   public void dispose() {
-    for (int i = 0; i < CPU_THREADS; i++) {
-      try {
-        threads[i].interrupt();
-        threads[i].join();
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      }
-    }
+    stopWorkers();
     try {
       NIOSelectorThread.close();
       NIOSelectorThread.interrupt();
@@ -0,0 +1,213 @@
+package yona.runtime.threading;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import yona.YonaLanguage;
+import yona.runtime.Context;
+import yona.runtime.Dict;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel, runs delayed tasks of builtins (sleep, timeout, schedule, interval) on a single ticking thread,
+ * instead of blocking a thread per delay. The tick duration is set by the {@code yona.timer_tick_millis} option, see
+ * {@link YonaLanguage#TIMER_TICK_MILLIS}, delays are rounded up to whole ticks.
+ * <p>
+ * New timers are queued and moved into the buckets of the wheel by the ticking thread, so scheduling does not lock.
+ * A timer is put into the bucket of its deadline (modulo the size of the wheel), with the number of full rotations of
+ * the wheel left before it expires. Cancelled timers are removed once their bucket is reached. While there are no timers,
+ * the thread parks until the next one is scheduled.
+ * <p>
+ * Tasks run on the ticking thread, so they must not block. Typically they only submit the continuation to
+ * {@link Threading}.
+ */
+public final class TimerWheel {
+  static final int WHEEL_SIZE = 512;
+  static final int MAX_TIMERS_PER_TICK = 100_000;
+
+  private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+  private final ConcurrentLinkedQueue<Timer> scheduled = new ConcurrentLinkedQueue<>();
+  private final AtomicLong pendingTimers = new AtomicLong();
+  private final long tickNanos;
+  private final Thread thread;
+
+  private volatile long startTime;
+  private volatile boolean closing = false;
+  private long tick = 0;  // accessed only by the ticking thread
+
+  public TimerWheel(final Context context) {
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(context.getEnv().getOptions().get(YonaLanguage.TIMER_TICK_MILLIS));
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.thread = context.getEnv().createThread(this::run, null, new ThreadGroup("yona-timer"));
+    this.thread.setName("yona-timer");
+  }
+
+  public void start() {
+    startTime = System.nanoTime();
+    thread.start();
+  }
+
+  /**
+   * Runs the task on the ticking thread, once the delay elapses, with the local contexts of the calling thread.
+   *
+   * @return timer that can be cancelled until the task runs
+   */
+  @CompilerDirectives.TruffleBoundary
+  public Timer schedule(final long delayMillis, final Runnable task) {
+    final Timer timer = new Timer(System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)), task, Context.LOCAL_CONTEXTS.get());
+    scheduled.offer(timer);
+    if (pendingTimers.getAndIncrement() == 0) {
+      LockSupport.unpark(thread);
+    }
+    return timer;
+  }
+
+  private void run() {
+    while (!closing) {
+      if (pendingTimers.get() == 0) {
+        LockSupport.park(this);
+        // buckets are empty, so the ticks missed while parked need no processing
+        tick = Math.max(tick, (System.nanoTime() - startTime) / tickNanos);
+        continue;
+      }
+
+      final long deadline = (tick + 1) * tickNanos;
+      final long sleepNanos = deadline - (System.nanoTime() - startTime);
+      if (sleepNanos > 0) {
+        LockSupport.parkNanos(this, sleepNanos);
+        continue;
+      }
+
+      transferScheduled();
+      expire(wheel[(int) (tick & (WHEEL_SIZE - 1))]);
+      tick++;
+    }
+  }
+
+  private void transferScheduled() {
+    for (int i = 0; i < MAX_TIMERS_PER_TICK; i++) {
+      final Timer timer = scheduled.poll();
+      if (timer == null) {
+        break;
+      }
+      if (timer.state.get() == Timer.CANCELLED) {
+        pendingTimers.decrementAndGet();
+        continue;
+      }
+
+      final long expirationTick = Math.max(timer.deadline / tickNanos, tick);
+      timer.remainingRounds = (expirationTick - tick) / WHEEL_SIZE;
+      wheel[(int) (expirationTick & (WHEEL_SIZE - 1))].add(timer);
+    }
+  }
+
+  private void expire(final Bucket bucket) {
+    Timer timer = bucket.head;
+    while (timer != null) {
+      final Timer next = timer.next;
+      if (timer.state.get() == Timer.CANCELLED) {
+        bucket.remove(timer);
+        pendingTimers.decrementAndGet();
+      } else if (timer.remainingRounds <= 0) {
+        bucket.remove(timer);
+        pendingTimers.decrementAndGet();
+        timer.expire();
+      } else {
+        timer.remainingRounds--;
+      }
+      timer = next;
+    }
+  }
+
+  /**
+   * Stops the ticking thread, pending timers never expire.
+   */
+  public void dispose() {
+    closing = true;
+    LockSupport.unpark(thread);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      e.printStackTrace();
+    }
+  }
+
+  public static final class Timer {
+    static final int WAITING = 0;
+    static final int EXPIRED = 1;
+    static final int CANCELLED = 2;
+
+    final long deadline;  // nanos since the start of the wheel
+    final Runnable task;
+    final Dict localContexts;
+    final AtomicInteger state = new AtomicInteger(WAITING);
+    long remainingRounds;
+    Timer prev;
+    Timer next;
+
+    Timer(final long deadline, final Runnable task, final Dict localContexts) {
+      this.deadline = deadline;
+      this.task = task;
+      this.localContexts = localContexts;
+    }
+
+    /**
+     * @return true if the task has not run yet and never will
+     */
+    public boolean cancel() {
+      return state.compareAndSet(WAITING, CANCELLED);
+    }
+
+    void expire() {
+      if (state.compareAndSet(WAITING, EXPIRED)) {
+        Context.LOCAL_CONTEXTS.set(localContexts);
+        try {
+          task.run();
+        } catch (Throwable t) {
+          t.printStackTrace();
+        } finally {
+          Context.LOCAL_CONTEXTS.remove();
+        }
+      }
+    }
+  }
+
+  /*
+   * Doubly linked list of timers, modified only by the ticking thread.
+   */
+  static final class Bucket {
+    Timer head;
+    Timer tail;
+
+    void add(final Timer timer) {
+      timer.prev = tail;
+      timer.next = null;
+      if (tail == null) {
+        head = timer;
+      } else {
+        tail.next = timer;
+      }
+      tail = timer;
+    }
+
+    void remove(final Timer timer) {
+      if (timer.prev == null) {
+        head = timer.next;
+      } else {
+        timer.prev.next = timer.next;
+      }
+      if (timer.next == null) {
+        tail = timer.prev;
+      } else {
+        timer.next.prev = timer.prev;
+      }
+      timer.prev = null;
+      timer.next = null;
+    }
+  }
+}
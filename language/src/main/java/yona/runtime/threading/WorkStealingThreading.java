@@ -0,0 +1,169 @@
+package yona.runtime.threading;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import yona.runtime.Context;
+import yona.runtime.async.Promise;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scheduler with a deque per worker. Tasks submitted from a worker (typically continuations of promises fulfilled on
+ * that worker) go to the front of its own deque and are executed by it first, while they are still hot in its cache.
+ * Tasks submitted from other threads are distributed round-robin to the back of the deques. A worker that runs out of
+ * tasks steals from the back of other workers' deques, and parks once there is nothing to steal. Parked workers cost no
+ * CPU and are woken up one at a time as tasks are submitted.
+ */
+public final class WorkStealingThreading extends Threading {
+  static final int STEAL_SPIN_MAX_ATTEMPTS = 64;
+
+  private static final ThreadLocal<Worker> CURRENT_WORKER = new ThreadLocal<>();
+
+  final Worker[] workers;
+  final AtomicInteger idleWorkers = new AtomicInteger();
+  final AtomicInteger nextWorker = new AtomicInteger();
+
+  public WorkStealingThreading(final Context context) {
+    super(context);
+    workers = new Worker[CPU_THREADS];
+    for (int i = 0; i < CPU_THREADS; i++) {
+      final Worker worker = new Worker();
+      worker.thread = context.getEnv().createThread(() -> {
+        CPU_THREAD_ID.set(CPU_THREAD_ID_COUNTER.incrementAndGet());
+        CURRENT_WORKER.set(worker);
+        run(worker);
+      }, null, new ThreadGroup("yona-worker"));
+      workers[i] = worker;
+    }
+  }
+
+  static final class Worker {
+    final ConcurrentLinkedDeque<Task> deque = new ConcurrentLinkedDeque<>();
+    final AtomicBoolean parked = new AtomicBoolean();
+    Thread thread;
+  }
+
+  @Override
+  void startWorkers() {
+    for (Worker worker : workers) {
+      worker.thread.start();
+    }
+  }
+
+  @Override
+  @CompilerDirectives.TruffleBoundary
+  public Promise submit(final Promise promise, final ExecutableFunction function) {
+    final Task task = new Task();
+    task.promise = promise;
+    task.function = function;
+    task.localContexts = Context.LOCAL_CONTEXTS.get();
+
+    final Worker current = CURRENT_WORKER.get();
+    if (current != null) {
+      current.deque.offerFirst(task);
+    } else {
+      workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)].deque.offerLast(task);
+    }
+
+    if (idleWorkers.get() != 0) {
+      wakeUpOne();
+    }
+
+    return promise;
+  }
+
+  private void wakeUpOne() {
+    for (Worker worker : workers) {
+      if (worker.parked.compareAndSet(true, false)) {
+        LockSupport.unpark(worker.thread);
+        return;
+      }
+    }
+  }
+
+  private void run(final Worker worker) {
+    int spins = 0;
+    while (!Thread.currentThread().isInterrupted()) {
+      Task task = worker.deque.pollFirst();
+      if (task == null) {
+        task = steal(worker);
+      }
+
+      if (task != null) {
+        spins = 0;
+        Context.LOCAL_CONTEXTS.set(task.localContexts);
+        try {
+          Threading.execute(task.promise, task.function);
+        } finally {
+          Context.LOCAL_CONTEXTS.remove();
+        }
+      } else if (spins != STEAL_SPIN_MAX_ATTEMPTS) {
+        Thread.onSpinWait();
+        spins++;
+      } else {
+        spins = 0;
+        park(worker);
+      }
+    }
+  }
+
+  private Task steal(final Worker thief) {
+    final int start = ThreadLocalRandom.current().nextInt(workers.length);
+    for (int i = 0; i < workers.length; i++) {
+      final Worker victim = workers[(start + i) % workers.length];
+      if (victim != thief) {
+        final Task task = victim.deque.pollLast();
+        if (task != null) {
+          return task;
+        }
+      }
+    }
+    return null;
+  }
+
+  /*
+   * The parked flag is published before the final check for work, and submit publishes the task before it checks for
+   * idle workers, so either the worker sees the task, or the submitter sees the parked worker.
+   */
+  private void park(final Worker worker) {
+    worker.parked.set(true);
+    idleWorkers.incrementAndGet();
+    try {
+      if (!hasWork()) {
+        while (worker.parked.get() && !Thread.currentThread().isInterrupted()) {
+          LockSupport.park(this);
+          if (hasWork()) {
+            break;
+          }
+        }
+      }
+    } finally {
+      worker.parked.set(false);
+      idleWorkers.decrementAndGet();
+    }
+  }
+
+  private boolean hasWork() {
+    for (Worker worker : workers) {
+      if (!worker.deque.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  void stopWorkers() {
+    for (Worker worker : workers) {
+      try {
+        worker.thread.interrupt();
+        worker.thread.join();
+      } catch (InterruptedException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+}
@@ -23,12 +23,32 @@ public class AsyncTest extends CommonTest {
     assertEquals(4L, ret);
   }
 
+  @Test
+  public void asyncGuardFallthroughTest() {
+    long ret = context.eval(YonaLanguage.ID, "case (1, 2) of\n" +
+        "(a, b)\n" +
+        "| async \\-> a > b -> 5\n" +
+        "(1, b) -> b\n" +
+        "_      -> 3\n" +
+        "end\n").asLong();
+    assertEquals(2L, ret);
+  }
+
   @Test
   public void functionCallWithAsyncArgTest() {
     long ret = context.eval(YonaLanguage.ID, "let fun = \\argone argtwo -> argone + argtwo in fun 1 (async \\-> 2)").asLong();
     assertEquals(3L, ret);
   }
 
+  @Test
+  public void partialApplicationWithAsyncArgTest() {
+    long ret = context.eval(YonaLanguage.ID, "let\n" +
+        "    fun = \\argone argtwo argthree -> argone + argtwo + argthree\n" +
+        "    partial = fun (async \\-> 1)\n" +
+        "in partial 2 (async \\-> 3)").asLong();
+    assertEquals(6L, ret);
+  }
+
   @Test
   public void functionCallWithMultipleAsyncArgTest() {
     long ret = context.eval(YonaLanguage.ID, "let fun = \\argone argtwo -> argone + argtwo in fun (async \\-> 1) (async \\-> 2)").asLong();
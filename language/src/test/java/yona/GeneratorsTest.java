@@ -6,6 +6,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import yona.ast.generators.GeneratedCollection;
 
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -34,6 +36,8 @@ public class GeneratorsTest extends CommonTest {
         new SeqGeneratorTestCase("async \\-> x * 2", "x <- [1, 2, 3]", 3, 2L, 4L, 6L),
         new SeqGeneratorTestCase("x * 2", "x <- [1, 2, 3]", "x < 3", 2, 2L, 4L),
         new SeqGeneratorTestCase("x * 2", "x <- [1, 2, 3]", "async \\-> x < 3", 2, 2L, 4L),
+        new SeqGeneratorTestCase("x * 2", "x <- [1..1000]", 999, LongStream.range(1, 1000).map(x -> x * 2).boxed().toArray()),
+        new SeqGeneratorTestCase("x * 2", "x <- [1..1000]", "x > 200", 799, LongStream.range(201, 1000).map(x -> x * 2).boxed().toArray()),
 
         // SET -> SEQ
         new SeqGeneratorTestCase("x * 2", "x <- {1, 2, 3}", 3, 2L, 4L, 6L),
@@ -68,6 +72,7 @@ public class GeneratorsTest extends CommonTest {
         new SetDictGeneratorTestCase(SET, "async \\-> x * 2", "x <- [1, 2, 3]", "{2, 6, 4}"),
         new SetDictGeneratorTestCase(SET, "x * 2", "x <- [1, 2, 3]", "x < 3", "{2, 4}"),
         new SetDictGeneratorTestCase(SET, "x * 2", "x <- [1, 2, 3]", "async \\-> x < 3", "{2, 4}"),
+        new SetDictGeneratorTestCase(SET, "x * 2", "x <- [1..1000]", LongStream.range(1, 1000).mapToObj(x -> Long.toString(x * 2)).collect(Collectors.joining(", ", "{", "}"))),
 
         // SET -> SET
         new SetDictGeneratorTestCase(SET, "x * 2", "x <- {1, 2, 3}", "{2, 6, 4}"),
@@ -103,6 +108,7 @@ public class GeneratorsTest extends CommonTest {
         new SetDictGeneratorTestCase(DICT, "async \\-> x = async \\-> x * 2", "x <- [1, 2, 3]", "{1 = 2, 2 = 4, 3 = 6}"),
         new SetDictGeneratorTestCase(DICT, "x = x * 2", "x <- [1, 2, 3]", "x < 3", "{1 = 2, 2 = 4}"),
         new SetDictGeneratorTestCase(DICT, "x = x * 2", "x <- [1, 2, 3]", "async \\-> x < 3", "{1 = 2, 2 = 4}"),
+        new SetDictGeneratorTestCase(DICT, "x = x * 2", "x <- [1..1000]", "x > 200", LongStream.range(201, 1000).mapToObj(x -> x + " = " + x * 2).collect(Collectors.joining(", ", "{", "}"))),
 
         // SET -> DICT
         new SetDictGeneratorTestCase(DICT, "x = x * 2", "x <- {1, 2, 3}", "{1 = 2, 2 = 4, 3 = 6}"),
@@ -0,0 +1,65 @@
+package yona;
+
+import org.graalvm.polyglot.Value;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * http\Server on the default engine, see {@link NIOHttpServerTest} for the nio engine.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class HttpServerTest extends CommonTest {
+  @Test
+  public void handleTest() {
+    Value ret = context.eval(YonaLanguage.ID, """
+      do
+        server = http\\Server::create "127.0.0.1" 5580 16
+          |> http\\Server::handle "/echo" :text (\\params headers body -> (201, {"content-type" = "text/plain"}, (Dict::lookup "uri" params) ++ " " ++ body))
+          |> http\\Server::handle "/method" :text (\\params headers body -> (200, {}, if (Dict::lookup "method" params) == :POST then "post" else "other"))
+          |> http\\Server::start
+        session = http\\Client::session {}
+        (status, _, echo) = http\\Client::post session "http://127.0.0.1:5580/echo/path" {} "hello"
+        (_, _, method) = http\\Client::post session "http://127.0.0.1:5580/method" {} ""
+        http\\Server::stop server (:seconds, 0)
+        (status, echo, method)
+      end""");
+    assertEquals(201L, ret.getArrayElement(0).asLong());
+    assertEquals("/echo/path hello", ret.getArrayElement(1).asString());
+    assertEquals("post", ret.getArrayElement(2).asString());
+  }
+
+  @Test
+  public void asyncHandlerTest() {
+    Value ret = context.eval(YonaLanguage.ID, """
+      do
+        server = http\\Server::create "127.0.0.1" 5581 16
+          |> http\\Server::handle "/" :text (\\params headers body -> let _ = sleep (:millis, 10) in (200, {}, "later"))
+          |> http\\Server::start
+        session = http\\Client::session {}
+        (status, _, body) = http\\Client::get session "http://127.0.0.1:5581/" {}
+        http\\Server::stop server (:seconds, 0)
+        (status, body)
+      end""");
+    assertEquals(200L, ret.getArrayElement(0).asLong());
+    assertEquals("later", ret.getArrayElement(1).asString());
+  }
+
+  @Test
+  public void invalidHandlerResultTest() {
+    Value ret = context.eval(YonaLanguage.ID, """
+      do
+        server = http\\Server::create "127.0.0.1" 5582 16
+          |> http\\Server::handle "/" :text (\\params headers body -> 1)
+          |> http\\Server::start
+        session = http\\Client::session {}
+        (status, _, body) = http\\Client::get session "http://127.0.0.1:5582/" {}
+        http\\Server::stop server (:seconds, 0)
+        (status, body)
+      end""");
+    assertEquals(500L, ret.getArrayElement(0).asLong());
+    assertTrue(ret.getArrayElement(1).asString().startsWith("Internal Server Error: "));
+  }
+}
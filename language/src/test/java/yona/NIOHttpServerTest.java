@@ -0,0 +1,111 @@
+package yona;
+
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the http\Server tests with the nio engine, and tests what is specific to it on raw connections.
+ */
+public class NIOHttpServerTest extends HttpServerTest {
+  @BeforeAll
+  public static void initEngine() {
+    context = Context.newBuilder().allowAllAccess(true).environment("YONA_STDLIB_HOME", "lib-yona").option("yona.http_server", "nio").build();
+  }
+
+  private String exchange(int port, String request) {
+    return context.eval(YonaLanguage.ID, """
+      do
+        server = http\\Server::create "127.0.0.1" %d 16
+          |> http\\Server::handle "/" :text (\\params headers body -> let
+              uri = Dict::lookup "uri" params
+            in
+              if uri == "/slow" then
+                let _ = sleep (:millis, 50) in (200, {}, uri)
+              else
+                (200, {"x-uri" = uri}, uri ++ body))
+          |> http\\Server::start
+        response = with socket\\tcp\\Client::connect "127.0.0.1" %d as connection
+          do
+            socket\\tcp\\Connection::write connection "%s"
+            socket\\tcp\\Connection::read_until connection (\\b -> true)
+          end
+        end
+        http\\Server::stop server (:seconds, 0)
+        Seq::decode response
+      end""".formatted(port, port, request.replace("\r", "\\r").replace("\n", "\\n"))).asString();
+  }
+
+  @Test
+  public void pipelinedRequestsTest() {
+    String ret = exchange(5583, "GET /slow HTTP/1.1\r\n\r\nGET /fast HTTP/1.1\r\n\r\nGET /last HTTP/1.1\r\nConnection: close\r\n\r\n");
+    String[] responses = ret.split("HTTP/1\\.1 ");
+    assertEquals(4, responses.length);
+    assertTrue(responses[1].startsWith("200 OK\r\n"));
+    assertTrue(responses[1].endsWith("\r\n\r\n/slow"));
+    assertTrue(responses[2].contains("x-uri: /fast\r\n"));
+    assertTrue(responses[2].endsWith("\r\n\r\n/fast"));
+    assertTrue(responses[3].contains("Connection: close\r\n"));
+    assertTrue(responses[3].endsWith("\r\n\r\n/last"));
+  }
+
+  @Test
+  public void chunkedRequestTest() {
+    String ret = exchange(5584, "POST /chunked HTTP/1.1\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n\r\n5\r\nhello\r\n6;ext=1\r\n world\r\n0\r\n\r\n");
+    assertTrue(ret.startsWith("HTTP/1.1 200 OK\r\n"));
+    assertTrue(ret.contains("Content-Length: 19\r\n"));
+    assertTrue(ret.endsWith("\r\n\r\n/chunkedhello world"));
+  }
+
+  @Test
+  public void headRequestTest() {
+    String ret = exchange(5585, "HEAD /head HTTP/1.1\r\nConnection: close\r\n\r\n");
+    assertTrue(ret.contains("Content-Length: 5\r\n"));
+    assertTrue(ret.endsWith("\r\n\r\n"));
+  }
+
+  @Test
+  public void badRequestTest() {
+    String ret = exchange(5586, "GET /first HTTP/1.1\r\n\r\nNONSENSE\r\n\r\n");
+    String[] responses = ret.split("HTTP/1\\.1 ");
+    assertEquals(3, responses.length);
+    assertTrue(responses[1].endsWith("\r\n\r\n/first"));
+    assertTrue(responses[2].startsWith("400 Bad Request\r\n"));
+    assertTrue(responses[2].contains("Connection: close\r\n"));
+  }
+
+  @Test
+  public void bodyTooLargeTest() {
+    String ret = exchange(5588, "POST /large HTTP/1.1\r\nContent-Length: 2000000000\r\n\r\n");
+    assertTrue(ret.startsWith("HTTP/1.1 413 Payload Too Large\r\n"));
+    assertTrue(ret.contains("Connection: close\r\n"));
+  }
+
+  @Test
+  public void idleTimeoutTest() {
+    try (Context idleContext = Context.newBuilder().allowAllAccess(true).environment("YONA_STDLIB_HOME", "lib-yona").option("yona.http_server", "nio").option("yona.http_idle_timeout_millis", "200").build()) {
+      String ret = idleContext.eval(YonaLanguage.ID, """
+        do
+          server = http\\Server::create "127.0.0.1" 5587 16
+            |> http\\Server::handle "/" :text (\\params headers body -> (200, {}, "idle"))
+            |> http\\Server::start
+          response = with socket\\tcp\\Client::connect "127.0.0.1" 5587 as connection
+            do
+              socket\\tcp\\Connection::write connection "GET /idle HTTP/1.1\\r\\n\\r\\n"
+              socket\\tcp\\Connection::read_until connection (\\b -> true)
+            end
+          end
+          http\\Server::stop server (:seconds, 0)
+          Seq::decode response
+        end""").asString();
+      // the response is read until the server closes the kept alive connection
+      assertTrue(ret.startsWith("HTTP/1.1 200 OK\r\n"));
+      assertFalse(ret.contains("Connection: close\r\n"));
+      assertTrue(ret.endsWith("\r\n\r\nidle"));
+    }
+  }
+}
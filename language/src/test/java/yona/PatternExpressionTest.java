@@ -442,6 +442,44 @@ public class PatternExpressionTest extends CommonTest {
     assertEquals("zero", ret);
   }
 
+  @Test
+  public void symbolTagPatternTest() {
+    Value ret = context.eval(YonaLanguage.ID, "let\n" +
+        "  fun = \\arg -> case arg of\n" +
+        "    (:a, x) -> x\n" +
+        "    (_, 0)  -> 100\n" +
+        "    (:b, x) -> x * 2\n" +
+        "    (:a, _) -> -1\n" +
+        "    (_, x)  -> x * 1000\n" +
+        "    _       -> 0\n" +
+        "    end\n" +
+        "in (fun (:a, 1), fun (:b, 0), fun (:b, 3), fun (:c, 4), fun (:a, 0), fun 5)");
+    assertEquals(1L, ret.getArrayElement(0).asLong());
+    assertEquals(100L, ret.getArrayElement(1).asLong());
+    assertEquals(6L, ret.getArrayElement(2).asLong());
+    assertEquals(4000L, ret.getArrayElement(3).asLong());
+    assertEquals(0L, ret.getArrayElement(4).asLong());
+    assertEquals(0L, ret.getArrayElement(5).asLong());
+  }
+
+  @Test
+  public void manyValueTypesPatternTest() {
+    Value ret = context.eval(YonaLanguage.ID, "let\n" +
+        "  fun = \\arg -> case arg of\n" +
+        "    1       -> 1\n" +
+        "    :one    -> 2\n" +
+        "    1.5     -> 3\n" +
+        "    (1, 2)  -> 4\n" +
+        "    [1, 2]  -> 5\n" +
+        "    \"one\"   -> 6\n" +
+        "    _       -> 7\n" +
+        "    end\n" +
+        "in (fun 1, fun :one, fun 1.5, fun (1, 2), fun [1, 2], fun \"one\", fun 2, fun :two)");
+    for (int i = 0; i < 8; i++) {
+      assertEquals(i == 7 ? 7L : i + 1L, ret.getArrayElement(i).asLong());
+    }
+  }
+
   @Test
   public void multipleHeadsOneTailPatternTest() {
     Value sequence = context.eval(YonaLanguage.ID, "\\arg -> case arg of\n" +
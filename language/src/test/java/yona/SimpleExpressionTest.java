@@ -163,6 +163,17 @@ public class SimpleExpressionTest extends CommonTest {
     assertEquals(7L, modVal.getMember("other_fun").execute().asLong());
   }
 
+  @Test
+  public void moduleMainTest() {
+    String src = "module Test exports main as\n" +
+        "main = other_fun + 1\n" +
+        "other_fun = 7\n" +
+        "end";
+    long ret = context.eval(YonaLanguage.ID, src).asLong();
+
+    assertEquals(8L, ret);
+  }
+
   @Test
   public void letOneAliasTest() {
     long ret = context.eval(YonaLanguage.ID, "\\test -> let alias = test in alias").execute(5).asLong();
@@ -183,6 +194,24 @@ public class SimpleExpressionTest extends CommonTest {
     assertEquals(6L, array[1]);
   }
 
+  @Test
+  public void letBatchedAliasesTest() {
+    Value ret = context.eval(YonaLanguage.ID, "\\test -> let\n" +
+        "    a = test\n" +
+        "    b = 6\n" +
+        "    c = a + b\n" +
+        "    d = b * 2\n" +
+        "in\n" +
+        "(a, b, c, d)").execute(5L);
+    assertEquals(4, ret.getArraySize());
+
+    Object[] array = ret.as(Object[].class);
+    assertEquals(5L, array[0]);
+    assertEquals(6L, array[1]);
+    assertEquals(11L, array[2]);
+    assertEquals(12L, array[3]);
+  }
+
   @Test
   public void letNotInFunctionTest() {
     long ret = context.eval(YonaLanguage.ID, "let alias = 6 in alias").asLong();
@@ -389,6 +418,17 @@ public class SimpleExpressionTest extends CommonTest {
     assertEquals(9L, ret);
   }
 
+  @Test
+  public void repeatedPartialApplicationTest() {
+    long ret = context.eval(YonaLanguage.ID, "let\n" +
+        "    func = \\aa bb cc -> aa - bb - cc\n" +
+        "    once = func 10\n" +
+        "    twice = once 3\n" +
+        "in (twice 2) + (once 1 1) + (twice 4)").asLong();
+
+    assertEquals(16L, ret);
+  }
+
   @Test
   public void logicalNotTrueTest() {
     boolean ret = context.eval(YonaLanguage.ID, "!true").asBoolean();
@@ -639,6 +679,40 @@ public class SimpleExpressionTest extends CommonTest {
     assertEquals(2L, ret);
   }
 
+  @Test
+  public void polymorphicRecordFieldAccessTest() {
+    long ret = context.eval(YonaLanguage.ID, "module RecordModule exports funone as\n" +
+        "record RecordOne = (argone, argtwo)\n" +
+        "record RecordTwo = (argtwo)\n" +
+        "gettwo rec = rec.argtwo\n" +
+        "settwo rec = rec(argtwo = 3)\n" +
+        "funone = (gettwo (RecordOne(argtwo = 1))) + (gettwo (RecordTwo(argtwo = 2))) + (gettwo (settwo (RecordTwo(argtwo = 2))))\n" +
+        "end").getMember("funone").execute().asLong();
+
+    assertEquals(6L, ret);
+  }
+
+  @Test
+  public void tupleRecordFieldAccessTest() {
+    long ret = context.eval(YonaLanguage.ID, "module RecordModule exports funone as\n" +
+        "record TestRecord = (argone, argtwo)\n" +
+        "funone = let rec = (:TestRecord, 1, 2) in\n" +
+        "let rectwo = rec(argone = 3) in rec.argtwo + rectwo.argone\n" +
+        "end").getMember("funone").execute().asLong();
+
+    assertEquals(5L, ret);
+  }
+
+  @Test
+  public void recordEqualsTupleTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "module RecordModule exports funone as\n" +
+        "record TestRecord = (argone, argtwo)\n" +
+        "funone = TestRecord(argone = 1, argtwo = 2) == (:TestRecord, 1, 2)\n" +
+        "end").getMember("funone").execute().asBoolean();
+
+    assertTrue(ret);
+  }
+
   @Test
   public void closureTest() {
     long ret = context.eval(YonaLanguage.ID, "\\a b -> let\n" +
@@ -648,6 +722,42 @@ public class SimpleExpressionTest extends CommonTest {
     assertEquals(3L, ret);
   }
 
+  @Test
+  public void closuresOfOneLambdaTest() {
+    Value closures = context.eval(YonaLanguage.ID, "let\n" +
+        "make_adder = \\a -> \\b -> a + b\n" +
+        "in (make_adder 1, make_adder 10)");
+    Value one = closures.getArrayElement(0);
+    Value ten = closures.getArrayElement(1);
+
+    assertEquals(3L, one.execute(2L).asLong());
+    assertEquals(12L, ten.execute(2L).asLong());
+    assertEquals(3L, one.execute(2L).asLong());
+  }
+
+  @Test
+  public void closuresOfOneLambdaInParallelTest() {
+    long ret = context.eval(YonaLanguage.ID, "let\n" +
+        "make_adder = \\a -> let c = a * 2 in \\b -> a + b + c\n" +
+        "xs = [0..10000]\n" +
+        "adders = [make_adder x | x <- xs]\n" +
+        "in Seq::par_fold (\\acc adder -> acc + adder 1) (\\fst snd -> fst + snd) 0 adders").asLong();
+
+    assertEquals(149995000L, ret);
+  }
+
+  @Test
+  public void partiallyAppliedFunctionNameTest() {
+    Value ret = context.eval(YonaLanguage.ID, "let\n" +
+        "fun = \\a b c -> a\n" +
+        "once = fun 1\n" +
+        "in (once, once 2)");
+
+    assertTrue(ret.getArrayElement(0).toString().startsWith("$partial-1/3-"));
+    assertTrue(ret.getArrayElement(1).toString().startsWith("$partial-1/2-$partial-1/3-"));
+    assertEquals(1L, ret.getArrayElement(1).execute(3L).asLong());
+  }
+
   @Test
   public void calculatePiTest() {
     double ret = context.eval(YonaLanguage.ID, "let\n" +
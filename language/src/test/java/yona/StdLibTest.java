@@ -7,6 +7,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 
@@ -31,6 +35,48 @@ public class StdLibTest extends CommonTest {
     assertEquals(6L, ret);
   }
 
+  @Test
+  public void sequenceFoldLeftLargeTest() {
+    long ret = context.eval(YonaLanguage.ID, "Seq::foldl (\\acc val -> if acc == val then val + 1 else -1) 0 [0..10000]").asLong();
+    assertEquals(10000L, ret);
+  }
+
+  @Test
+  public void sequenceFoldRightLargeTest() {
+    long ret = context.eval(YonaLanguage.ID, "Seq::foldr (\\acc val -> if acc == val + 1 then val else -1) 10000 [0..10000]").asLong();
+    assertEquals(0L, ret);
+  }
+
+  @Test
+  public void sequenceReduceLeftLargeTest() {
+    long ret = context.eval(YonaLanguage.ID, "Seq::reducel (Transducers::take 5000 (0, \\acc val -> acc + val, identity)) [0..10000]").asLong();
+    assertEquals(12497500L, ret);
+  }
+
+  @Test
+  public void sequenceParallelFoldTest() {
+    long ret = context.eval(YonaLanguage.ID, "Seq::par_fold (\\acc val -> acc + val) (\\fst snd -> fst + snd) 0 [0..100000]").asLong();
+    assertEquals(4999950000L, ret);
+  }
+
+  @Test
+  public void sequenceParallelFoldOrderTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "Seq::par_fold (\\acc val -> acc |- val) (\\fst snd -> fst ++ snd) [] [0..10000] == [0..10000]").asBoolean();
+    assertTrue(ret);
+  }
+
+  @Test
+  public void sequenceParallelReduceTest() {
+    long ret = context.eval(YonaLanguage.ID, "Seq::par_reduce (Transducers::filter \\val -> val % 2 == 0 (0, \\acc val -> acc + val, \\acc -> acc * 2)) (\\fst snd -> fst + snd) [0..10000]").asLong();
+    assertEquals(49990000L, ret);
+  }
+
+  @Test
+  public void sequenceParallelReduceStatefulTest() {
+    assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, "Seq::par_reduce (Transducers::take 5 (0, \\acc val -> acc + val, identity)) (\\fst snd -> fst + snd) [0..10000]"));
+    assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, "Set::par_reduce (Transducers::map \\val -> val % 10 (Transducers::distinct (0, \\acc val -> acc + val, identity))) (\\fst snd -> fst + snd) (let xs = [0..10000] in {x | x <- xs})"));
+  }
+
   @Test
   public void sequenceFoldLeftWithinLetTest() {
     long ret = context.eval(YonaLanguage.ID, "let xx = 5 in Seq::foldl (\\acc val -> acc + val + xx) 0 [1, 2, 3]").asLong();
@@ -91,6 +137,48 @@ public class StdLibTest extends CommonTest {
     assertEquals(10L, ret);
   }
 
+  @Test
+  public void sequenceReduceLeftFusedTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "Seq::reducel (Transducers::drop 1 (Transducers::filter (\\val -> val % 2 == 0) (Transducers::map (\\val -> val * 10) (Transducers::dedupe (Transducers::take 3 (Transducers::chunk 2 (Reducers::to_seq))))))) [1, 2, 2, 3, 4, 6, 8, 10] == [[20, 40], [60]]").asBoolean();
+    assertTrue(ret);
+  }
+
+  @Test
+  public void sequenceReduceLeftTakeShortTest() {
+    long ret = context.eval(YonaLanguage.ID, "Seq::reducel (Transducers::take 10 (0, \\acc val -> acc + val, \\acc -> acc * 2)) [1, 2, 3]").asLong();
+    assertEquals(12L, ret);
+  }
+
+  @Test
+  public void sequenceReduceLeftPipelineAsTupleTest() {
+    long ret = context.eval(YonaLanguage.ID, "let (init, step, complete) = Transducers::drop 1 (Transducers::distinct (0, \\acc val -> acc + val, identity)) in complete (Seq::foldl step init [3, 3, 4, 5])").asLong();
+    assertEquals(12L, ret);
+  }
+
+  @Test
+  public void builtinStepOverPromisesTest() {
+    long ret = context.eval(YonaLanguage.ID, "Seq::reducel (Transducers::map (\\val -> async \\-> val) (Transducers::map int (0, \\acc val -> acc + val, identity))) [1.0, 2.0, 3.0]").asLong();
+    assertEquals(6L, ret);
+  }
+
+  @Test
+  public void pipelineEqualsTupleTest() {
+    boolean ret = context.eval(YonaLanguage.ID, """
+        let
+          pipeline = Transducers::drop 1 (0, \\acc val -> acc + val, identity)
+          (init, step, complete) = pipeline
+          tuple = (init, step, complete)
+        in
+          pipeline == tuple && tuple == pipeline && pipeline == pipeline""").asBoolean();
+    assertTrue(ret);
+  }
+
+  @Test
+  public void reducersReduceTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "Reducers::reduce (Transducers::map (\\val -> val % 3) (Reducers::to_set)) [1..10] == {0, 1, 2} && Reducers::reduce (Transducers::map (\\(k, v) -> (v, k)) (Reducers::to_dict)) {'a' = 1} == {1 = 'a'}").asBoolean();
+    assertTrue(ret);
+  }
+
   @Test
   public void dictFoldTest() {
     long ret = context.eval(YonaLanguage.ID, "Dict::fold (\\acc _ -> acc + 1) 0 {'a' = 1, 'b' = 2, 'c' = 3}").asLong();
@@ -103,12 +191,36 @@ public class StdLibTest extends CommonTest {
     assertEquals(6L, ret);
   }
 
+  @Test
+  public void dictFoldLargeTest() {
+    long ret = context.eval(YonaLanguage.ID, "Dict::fold (\\acc entry -> let (k, v) = entry in acc + k * v) 0 (let xs = [0..1000] in {x = x | x <- xs})").asLong();
+    assertEquals(332833500L, ret);
+  }
+
+  @Test
+  public void dictParallelFoldTest() {
+    long ret = context.eval(YonaLanguage.ID, "Dict::par_fold (\\acc entry -> let (k, v) = entry in acc + k * v) (\\fst snd -> fst + snd) 0 (let xs = [0..1000] in {x = x | x <- xs})").asLong();
+    assertEquals(332833500L, ret);
+  }
+
   @Test
   public void setFoldTest() {
     long ret = context.eval(YonaLanguage.ID, "Set::fold (\\acc val -> acc + val) 0 {1, 2, 3}").asLong();
     assertEquals(6L, ret);
   }
 
+  @Test
+  public void setFoldLargeTest() {
+    long ret = context.eval(YonaLanguage.ID, "Set::fold (\\acc val -> acc + val) 0 (let xs = [0..1000] in {x | x <- xs})").asLong();
+    assertEquals(499500L, ret);
+  }
+
+  @Test
+  public void setParallelReduceTest() {
+    long ret = context.eval(YonaLanguage.ID, "Set::par_reduce (Transducers::map \\val -> val + 1 (0, \\state val -> state + val, \\state -> state * 2)) (\\fst snd -> fst + snd) (let xs = [0..1000] in {x | x <- xs})").asLong();
+    assertEquals(1001000L, ret);
+  }
+
   @Test
   public void setReduceFilterTest() {
     long ret = context.eval(YonaLanguage.ID, "Set::reduce (Transducers::filter \\val -> val < 0 (0, \\state val -> state + val, \\state -> state * 2)) {-2,-1,0,1,2}").asLong();
@@ -287,6 +399,32 @@ public class StdLibTest extends CommonTest {
     assertEquals(1L, ret);
   }
 
+  @Test
+  public void javaCallManyReceiversTest() {
+    long ret = context.eval(YonaLanguage.ID, """
+      do
+          one = Java::new (Java::type "java.util.ArrayList") []
+          two = Java::new (Java::type "java.util.ArrayList") []
+          one::add 1
+          two::add 2
+          two::add 3
+          size = \\list -> list::size
+          (size one) + (size two)
+      end""").asLong();
+    assertEquals(3L, ret);
+  }
+
+  @Test
+  public void javaCallManyReceiverClassesTest() {
+    long ret = context.eval(YonaLanguage.ID, """
+      let
+          long_value = \\number -> number::longValue
+          big_integer = Java::new (Java::type "java.math.BigInteger") ["2"]
+          big_decimal = Java::new (Java::type "java.math.BigDecimal") ["3"]
+      in (long_value big_integer) + (long_value big_decimal) + (long_value big_integer)""").asLong();
+    assertEquals(7L, ret);
+  }
+
   @Test
   public void javaCallDictArgTest() {
     long ret = context.eval(YonaLanguage.ID, "yona\\TestUtil::mapSize {:one = 1, :two = 2}").asLong();
@@ -413,6 +551,95 @@ public class StdLibTest extends CommonTest {
     assertEquals("\"x\"", ret);
   }
 
+  @Test
+  public void escapedStringJsonGenerateTest() {
+    String ret = context.eval(YonaLanguage.ID, "JSON::generate \"a\\\"b\\n\"").asString();
+    assertEquals("\"a\\\"b\\n\"", ret);
+  }
+
+  @Test
+  public void escapedStringJsonParseTest() {
+    String ret = context.eval(YonaLanguage.ID, "JSON::parse \"\\\"a\\\\\\\"b\\\\u00e9\\\"\"").asString();
+    assertEquals("a\"bé", ret);
+  }
+
+  @Test
+  public void numbersJsonParseTest() {
+    Value ret = context.eval(YonaLanguage.ID, "JSON::parse \"[-1, 2.5, 1e2, 12345678901234567890]\"");
+    assertEquals(-1L, ret.getArrayElement(0).asLong());
+    assertEquals(2.5d, ret.getArrayElement(1).asDouble());
+    assertEquals(100d, ret.getArrayElement(2).asDouble());
+    assertEquals(12345678901234567890d, ret.getArrayElement(3).asDouble());
+  }
+
+  @Test
+  public void nestedJsonRoundTripTest() {
+    boolean ret = context.eval(YonaLanguage.ID, """
+        let
+          value = {"a" = [1, 2.5, "x\\"y"], "b" = {"c" = ()}, "d" = [], "e" = {}}
+        in
+          JSON::parse (JSON::generate value) == value""").asBoolean();
+    assertTrue(ret);
+  }
+
+  @Test
+  public void invalidJsonParseTest() {
+    assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, "JSON::parse \"[1, 2\""));
+    assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, "JSON::parse \"{{1: 2}}\""));
+  }
+
+  @Test
+  public void streamJsonDecodeTest() {
+    Value ret = context.eval(YonaLanguage.ID, """
+        let
+          (first, decoder) = JSON::decode "{{\\"a\\": [1, \\"}}\\"]}} [1, " (JSON::decoder)
+          (second, decoder2) = JSON::decode "2]\\n3" decoder
+          (third, _) = JSON::decode :eof decoder2
+        in
+          (Seq::len first, Seq::len second, third)""");
+    assertEquals(1L, ret.getArrayElement(0).asLong());
+    assertEquals(1L, ret.getArrayElement(1).asLong());
+    assertEquals(3L, ret.getArrayElement(2).getArrayElement(0).asLong());
+  }
+
+  @Test
+  public void multiChunkStreamJsonDecodeTest() {
+    Value ret = context.eval(YonaLanguage.ID, """
+        let
+          (first, decoder) = JSON::decode "[1, {{\\"x\\": \\"" (JSON::decoder)
+          (second, decoder2) = JSON::decode "}}\\"}}, " decoder
+          (third, decoder3) = JSON::decode "3] 4" decoder2
+          (fourth, _) = JSON::decode :eof decoder3
+        in
+          (Seq::len first, Seq::len second, third, fourth)""");
+    assertEquals(0L, ret.getArrayElement(0).asLong());
+    assertEquals(0L, ret.getArrayElement(1).asLong());
+    assertEquals(3L, ret.getArrayElement(2).getArrayElement(0).getArrayElement(2).asLong());
+    assertEquals(4L, ret.getArrayElement(3).getArrayElement(0).asLong());
+  }
+
+  @Test
+  public void byteStreamJsonDecodeTest() {
+    // Seq::encode keeps the low byte of each character, these are the UTF-8 bytes of "é", split between the chunks
+    String ret = context.eval(YonaLanguage.ID, """
+        let
+          bytes = Seq::encode "\\"\u00c3\u00a9\\""
+          (first, decoder) = JSON::decode (Seq::take 2 bytes) (JSON::decoder)
+          (second, _) = JSON::decode (Seq::drop 2 bytes) decoder
+        in
+          first ++ second""").getArrayElement(0).asString();
+    assertEquals("é", ret);
+  }
+
+  @Test
+  public void incompleteStreamJsonDecodeTest() {
+    assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, """
+        let
+          (_, decoder) = JSON::decode "[1, 2" (JSON::decoder)
+        in
+          JSON::decode :eof decoder"""));
+  }
+
   @Test
   public void timeoutPromiseTest() {
     long ret = context.eval(YonaLanguage.ID, "timeout (:millis, 500) (let _ = sleep (:millis, 100) in 1)").asLong();
@@ -431,6 +658,56 @@ public class StdLibTest extends CommonTest {
     assertEquals(1L, ret);
   }
 
+  @Test
+  public void scheduleTest() {
+    long ret = context.eval(YonaLanguage.ID, "schedule (:millis, 100) \\-> 1 + 1").asLong();
+    assertEquals(2L, ret);
+  }
+
+  @Test
+  public void intervalTest() {
+    Value ret = context.eval(YonaLanguage.ID, "interval (:millis, 10) \\-> false");
+    assertTrue(ret.isNull());
+  }
+
+  @Test
+  public void intervalCountTest() throws IOException, InterruptedException {
+    Path dir = Files.createTempDirectory("interval_");
+    try {
+      long start = System.nanoTime();
+      Value ret = context.eval(YonaLanguage.ID, """
+          let
+            dir = "%s"
+          in
+            interval (:millis, 10) \\-> let
+                count = Seq::len (File::list_dir dir)
+                _ = with File::open (dir ++ "/" ++ str count) {:write, :create_new} as out
+                  File::write out "x"
+                end
+              in
+                count + 1 < 5""".formatted(dir));
+      long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+      assertTrue(ret.isNull());
+      assertTrue(elapsedMillis >= 40, "elapsed " + elapsedMillis + "ms");
+      Thread.sleep(50);
+      try (var files = Files.list(dir)) {
+        assertEquals(5, files.count());
+      }
+    } finally {
+      try (var files = Files.list(dir)) {
+        for (Path file : files.toList()) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+
+  @Test
+  public void intervalErrorTest() {
+    assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, "interval (:millis, 10) \\-> 1"));
+  }
+
   @Test
   public void httpClientTest() {
     long ret = context.eval(YonaLanguage.ID, """
@@ -572,6 +849,131 @@ public class StdLibTest extends CommonTest {
     assertTrue(ret > 0);
   }
 
+  private Value readChunks(byte[] content, String options, int size) throws IOException {
+    Path file = Files.createTempFile("test_", ".txt");
+    try {
+      Files.write(file, content);
+      return context.eval(YonaLanguage.ID, """
+          let
+            reader = module ChunkReader exports read_all as
+              read_all file size acc =
+                case File::read_chunk file size of
+                  (:ok, chunk, new_file) -> read_all new_file size (acc |- chunk)
+                  :eof -> acc
+                end
+            end
+          in
+            with File::open "%s" %s as source_file
+              reader::read_all source_file %d []
+            end""".formatted(file, options, size));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void fileReadChunkBinaryTest() throws IOException {
+    byte[] content = new byte[]{0, 1, 2, 3, 4, 5, 6, 7, -1, -128};
+    for (int size : new int[]{4, 5, 10, 64}) {
+      Value chunks = readChunks(content, "{:read, :binary}", size);
+      assertEquals((content.length + size - 1) / size, chunks.getArraySize());
+      int position = 0;
+      for (int i = 0; i < chunks.getArraySize(); i++) {
+        Value chunk = chunks.getArrayElement(i);
+        assertEquals(Math.min(size, content.length - position), chunk.getArraySize());
+        for (int j = 0; j < chunk.getArraySize(); j++) {
+          assertEquals(content[position++], chunk.getArrayElement(j).asByte());
+        }
+      }
+      assertEquals(content.length, position);
+    }
+  }
+
+  @Test
+  public void fileReadChunkTextTest() throws IOException {
+    String content = "čeština, ελληνικά, 日本語, 😀🎉";
+    for (int size : new int[]{4, 5, 7, 1024}) {
+      Value chunks = readChunks(content.getBytes(StandardCharsets.UTF_8), "{:read}", size);
+      StringBuilder text = new StringBuilder();
+      for (int i = 0; i < chunks.getArraySize(); i++) {
+        String chunk = chunks.getArrayElement(i).asString();
+        // characters are never split between chunks, a chunk ends before an incomplete one
+        assertFalse(chunk.isEmpty());
+        assertTrue(chunk.getBytes(StandardCharsets.UTF_8).length <= size);
+        text.append(chunk);
+      }
+      assertEquals(content, text.toString());
+    }
+  }
+
+  @Test
+  public void fileReadChunkEmptyTest() throws IOException {
+    assertEquals(0, readChunks(new byte[0], "{:read}", 4).getArraySize());
+    assertThrows(PolyglotException.class, () -> readChunks(new byte[0], "{:read}", 3));
+  }
+
+  @Test
+  public void fileReadWriteOnlyTest() throws IOException {
+    Path file = Files.createTempFile("test_", ".txt");
+    try {
+      Files.writeString(file, "secret");
+      assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, """
+          with File::open "%s" {:write} as file
+            File::read file
+          end""".formatted(file)));
+      assertEquals("secret", context.eval(YonaLanguage.ID, """
+          with File::open "%s" {:read} as file
+            File::read file
+          end""".formatted(file)).asString());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private List<String> readLines(String content) throws IOException {
+    Path file = Files.createTempFile("test_", ".txt");
+    try {
+      Files.writeString(file, content);
+      Value lines = context.eval(YonaLanguage.ID, """
+          let
+            reader = module LineReader exports read_all as
+              read_all file acc =
+                case File::read_line file of
+                  (:ok, line, new_file) -> read_all new_file (acc |- line)
+                  :eof -> acc
+                end
+            end
+          in
+            with File::open "%s" {:read} as source_file
+              reader::read_all source_file []
+            end""".formatted(file));
+      String[] result = new String[(int) lines.getArraySize()];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = lines.getArrayElement(i).asString();
+      }
+      return List.of(result);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void fileReadLineTest() throws IOException {
+    assertEquals(List.of("first", "second", "", "čtvrtý", "last"), readLines("first\r\nsecond\n\nčtvrtý\nlast"));
+    assertEquals(List.of("first", "last"), readLines("first\r\nlast\r\n"));
+    assertEquals(List.of(), readLines(""));
+    assertEquals(List.of(""), readLines("\n"));
+  }
+
+  @Test
+  public void fileReadLongLineTest() throws IOException {
+    // lines longer than the read-ahead buffer, and a CRLF split between two reads of the file
+    String longLine = "x".repeat(3 * 65536 + 7);
+    String splitLine = "y".repeat(65536 - "x\n".length() - 1);
+    assertEquals(List.of(longLine, "short", longLine), readLines(longLine + "\nshort\n" + longLine));
+    assertEquals(List.of("x", splitLine, "last"), readLines("x\n" + splitLine + "\r\nlast"));
+  }
+
   @Test
   public void byteToIntTest() {
     long ret = context.eval(YonaLanguage.ID, "5b |> int").asLong();
@@ -626,6 +1028,13 @@ public class StdLibTest extends CommonTest {
     assertEquals(6L, ret);
   }
 
+  @Test
+  public void seqLookupStringTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "let lookup = \\idx seq -> Seq::lookup idx seq in\n" +
+        "[lookup 1 \"abc\", lookup 1 \"ščř\", lookup 1 [5, 6, 7]] == ['b', 'č', 6]").asBoolean();
+    assertTrue(ret);
+  }
+
   @Test
   public void seqZipTest() {
     boolean ret = context.eval(YonaLanguage.ID, "[(1, 4), (2, 5), (3, 6)] == Seq::zip [1, 2, 3] [4, 5, 6]").asBoolean();
@@ -678,12 +1087,42 @@ public class StdLibTest extends CommonTest {
     assertEquals("I love HTML and JavaScript", ret.asString());
   }
 
+  @Test
+  public void regexpReplaceManyTest() {
+    Value ret = context.eval(YonaLanguage.ID, "Regexp::compile \"[0-9]+\" {:global} |> Regexp::replace \"a1b22c333\" \"<$&>\"");
+    assertEquals("a<1>b<22>c<333>", ret.asString());
+  }
+
+  @Test
+  public void regexpExecEmptyMatchTest() {
+    Value ret = context.eval(YonaLanguage.ID, "Regexp::compile \"x*\" {:global} |> Regexp::exec \"abc\"");
+    assertEquals(4, ret.getArraySize());
+  }
+
+  @Test
+  public void regexpReduceTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "(Regexp::compile \"(a|(b))(\\\\d)\" {:global} |> Regexp::reduce (Reducers::to_seq) \"a1 b2\") == [[\"a1\", \"a\", (), \"1\"], [\"b2\", \"b\", \"b\", \"2\"]]").asBoolean();
+    assertTrue(ret);
+  }
+
+  @Test
+  public void regexpReduceTakeTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "(Regexp::compile \"\\\\d\" {:global} |> Regexp::reduce (Transducers::take 2 (Transducers::map (Seq::lookup 0) (Reducers::to_seq))) \"1 2 3 4\") == [\"1\", \"2\"]").asBoolean();
+    assertTrue(ret);
+  }
+
   @Test
   public void reflectionModulesTest() {
     boolean ret = context.eval(YonaLanguage.ID, "let mods = Reflect::modules in (\"File\" in mods)").asBoolean();
     assertTrue(ret);
   }
 
+  @Test
+  public void reflectionFunctionsStdlibTest() {
+    boolean ret = context.eval(YonaLanguage.ID, "let funs = Reflect::functions \"Test\" in (\"assert\" in funs)").asBoolean();
+    assertTrue(ret);
+  }
+
   @Test
   public void reflectionFunctionsTest() {
     boolean ret = context.eval(YonaLanguage.ID, "let funs = Reflect::functions \"File\" in (\"path\" in funs)").asBoolean();
@@ -740,4 +1179,81 @@ public class StdLibTest extends CommonTest {
     String ret = context.eval(YonaLanguage.ID, "Seq::trim \" ahoj  hallo \n\t\r\"").asString();
     assertEquals("ahoj  hallo", ret);
   }
+
+  @Test
+  public void socketReadFramingTest() {
+    Value ret = context.eval(YonaLanguage.ID, """
+      with socket\\tcp\\Server::channel (:tcp, "127.0.0.1", 5557) as channel
+        let
+          server = async \\-> with socket\\tcp\\Server::accept channel as connection
+            let
+              header = socket\\tcp\\Connection::read_exactly connection 3
+              line = socket\\tcp\\Connection::read_until_delimiter connection "\\r\\n"
+              word = socket\\tcp\\Connection::read_until connection (\\b -> b != 33b)
+              rest = socket\\tcp\\Connection::read_until connection (\\b -> async \\-> true)
+            in
+              (Seq::decode header, Seq::decode line, Seq::decode word, Seq::decode rest)
+          end
+          client = with socket\\tcp\\Client::connect "127.0.0.1" 5557 as connection
+            socket\\tcp\\Connection::write connection "abcline\\r\\nxyz!tail"
+          end
+        in
+          (server, client)
+      end""").getArrayElement(0);
+    assertEquals("abc", ret.getArrayElement(0).asString());
+    assertEquals("line\r\n", ret.getArrayElement(1).asString());
+    assertEquals("xyz!", ret.getArrayElement(2).asString());
+    assertEquals("tail", ret.getArrayElement(3).asString());
+  }
+
+  @Test
+  public void socketWriteQueueTest() {
+    Value ret = context.eval(YonaLanguage.ID, """
+      let
+        grow = \\s n -> if n == 0 then s else grow (s ++ s) (n - 1)
+        big = grow "0123456789abcdef" 18
+      in
+      with socket\\tcp\\Server::channel (:tcp, "127.0.0.1", 5558) as channel
+        let
+          server = async \\-> with socket\\tcp\\Server::accept channel as connection
+            let
+              small = socket\\tcp\\Connection::read_exactly connection 6
+              large = socket\\tcp\\Connection::read_exactly connection (Seq::len big)
+              rest = socket\\tcp\\Connection::read_until connection (\\b -> true)
+            in
+              (Seq::decode small, large == (Seq::encode big), Seq::len rest)
+          end
+          client = with socket\\tcp\\Client::connect "127.0.0.1" 5558 as connection
+            do
+              socket\\tcp\\Connection::write connection "ab"
+              socket\\tcp\\Connection::write connection "cd"
+              socket\\tcp\\Connection::write connection "ef"
+              socket\\tcp\\Connection::write connection big
+              socket\\tcp\\Connection::write connection big
+              socket\\tcp\\Connection::write connection "end"
+            end
+          end
+        in
+          (server, client)
+      end""").getArrayElement(0);
+    assertEquals("abcdef", ret.getArrayElement(0).asString());
+    assertTrue(ret.getArrayElement(1).asBoolean());
+    assertEquals(4194307L, ret.getArrayElement(2).asLong());
+  }
+
+  @Test
+  public void socketWriteClosedTest() {
+    assertThrows(PolyglotException.class, () -> context.eval(YonaLanguage.ID, """
+      with socket\\tcp\\Server::channel (:tcp, "127.0.0.1", 5559) as channel
+        let
+          server = async \\-> with socket\\tcp\\Server::accept channel as connection
+            socket\\tcp\\Connection::read_until connection (\\b -> true)
+          end
+          closed = with socket\\tcp\\Client::connect "127.0.0.1" 5559 as connection
+            connection
+          end
+        in
+          socket\\tcp\\Connection::write closed "late"
+      end"""));
+  }
 }
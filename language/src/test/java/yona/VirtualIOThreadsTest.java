@@ -0,0 +1,65 @@
+package yona;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Blocking builtins with io operations running on virtual threads, each of these submits its blocking part to the io
+ * executor. Skipped on JDKs without virtual threads, entering the context from the io threads is covered by
+ * {@link yona.runtime.threading.IOExecutorsTest} on platform threads.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class VirtualIOThreadsTest extends CommonTest {
+  @BeforeAll
+  public static void initEngine() {
+    boolean hasVirtualThreads;
+    try {
+      Thread.class.getMethod("ofVirtual");
+      hasVirtualThreads = true;
+    } catch (NoSuchMethodException e) {
+      hasVirtualThreads = false;
+    }
+    assumeTrue(hasVirtualThreads);
+    context = Context.newBuilder().allowAllAccess(true).environment("YONA_STDLIB_HOME", "lib-yona").option("yona.io_threads", "virtual").build();
+  }
+
+  @Test
+  public void systemRunTest() {
+    Value ret = context.eval(YonaLanguage.ID, "System::run [\"echo\", \"ahoj\"]");
+    assertEquals(0L, ret.getArrayElement(0).asLong());
+    assertEquals("ahoj", ret.getArrayElement(1).getArrayElement(0).asString());
+  }
+
+  @Test
+  public void fileReadTest() throws IOException {
+    String ret = context.eval(YonaLanguage.ID, "with File::open \"tests/Keys.txt\" {:read} as file File::read file end").asString();
+    assertEquals(Files.readString(Path.of("tests/Keys.txt")), ret);
+  }
+
+  @Test
+  public void httpExchangeTest() {
+    // the default server engine and the client both run on the io executor
+    Value ret = context.eval(YonaLanguage.ID, """
+      do
+        server = http\\Server::create "127.0.0.1" 5589 16
+          |> http\\Server::handle "/" :text (\\params headers body -> (200, {}, "virtual " ++ body))
+          |> http\\Server::start
+        session = http\\Client::session {}
+        (status, _, body) = http\\Client::post session "http://127.0.0.1:5589/" {} "hello"
+        http\\Server::stop server (:seconds, 0)
+        (status, body)
+      end""");
+    assertEquals(200L, ret.getArrayElement(0).asLong());
+    assertEquals("virtual hello", ret.getArrayElement(1).asString());
+  }
+}
@@ -1,6 +1,7 @@
 package yona.ast.expression;
 
 import org.junit.jupiter.api.Test;
+import yona.ast.AliasNode;
 import yona.ast.ExpressionNode;
 import yona.ast.StringPartsNode;
 import yona.ast.call.ModuleCallNode;
@@ -9,7 +10,7 @@ import yona.ast.pattern.ValueMatchNode;
 import yona.runtime.Seq;
 import yona.runtime.Set;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class PatternLetNodeTest {
   @Test
@@ -47,4 +48,30 @@ public class PatternLetNodeTest {
 
     assertEquals(expectedAliasTree.toString(), aliasTree.toString());
   }
+
+  @Test
+  public void foldAliasNodesTest() {
+    PatternAliasNode a = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "a", null)), new IntegerNode(1L));
+    PatternAliasNode b = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "b", null)), new IntegerNode(2L));
+    PatternAliasNode c = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "c", null)), new IdentifierNode(null, "a", null));
+    PatternAliasNode d = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "d", null)), new IdentifierNode(null, "c", null));
+
+    PatternLetNode.AliasTree aliasTree = PatternLetNode.resolveDependencies(Seq.sequence(a, b, c, d), Set.empty());
+
+    assertEquals(Seq.sequence(a, b, c, d), aliasTree.foldAliasNodes());
+  }
+
+  @Test
+  public void executionOrderTest() {
+    PatternAliasNode a = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "a", null)), new IntegerNode(1L));
+    PatternAliasNode b = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "b", null)), new IntegerNode(2L));
+    PatternAliasNode c = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "c", null)), new IdentifierNode(null, "a", null));
+    PatternAliasNode d = new PatternAliasNode(new ValueMatchNode(new IdentifierNode(null, "d", null)), new IdentifierNode(null, "b", null));
+    AliasNode[] patternAliases = new AliasNode[]{a, b, c, d};
+
+    PatternLetNode.AliasTree aliasTree = PatternLetNode.resolveDependencies(Seq.sequence(a, b, c, d), Set.empty());
+
+    assertArrayEquals(new int[]{0, 1, 2, 3}, PatternLetNode.executionOrder(patternAliases, aliasTree));
+    assertThrows(AssertionError.class, () -> PatternLetNode.executionOrder(new AliasNode[]{a, b, c}, aliasTree));
+  }
 }
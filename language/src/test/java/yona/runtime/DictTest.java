@@ -157,6 +157,29 @@ public class DictTest {
     }
   }
 
+  @ParameterizedTest
+  @ValueSource(longs = {0L, 0xaaaaaaaaaaaaaaaaL, 0xffffffffffffffffL})
+  public void testBuilder(final long seed) {
+    Dict dict = Dict.empty(Murmur3.INSTANCE, seed);
+    Dict.DictBuilder builder = new Dict.DictBuilder(Murmur3.INSTANCE, seed);
+    for (int i = 0; i < M; i++) {
+      dict = dict.add(new K(i), "").add(new K(i + (1L << 32)), "");
+      builder.add(new K(i), "").add(new K(i + (1L << 32)), "");
+    }
+    for (int i = 0; i < M; i += 2) {
+      dict = dict.add(new K(i), i);
+      builder.add(new K(i), i);
+    }
+    Dict built = builder.build();
+    Assertions.assertEquals(dict, built);
+    Assertions.assertEquals(dict.murmur3Hash(seed), built.murmur3Hash(seed));
+    assertEquals(2L * M, built.size());
+    for (int i = 0; i < M; i++) {
+      assertEquals(i % 2 == 0 ? i : "", built.lookup(new K(i)));
+      assertEquals("", built.lookup(new K(i + (1L << 32))));
+    }
+  }
+
   @Test
   public void testDictCollector() {
     Map<?, ?> input = Map.of("a", 1L, "b", 2L, "c", 3L);
@@ -3,13 +3,16 @@ package yona.runtime;
 
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import yona.runtime.exceptions.NotACharacterException;
 
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.util.List;
 import java.util.PrimitiveIterator;
+import java.util.function.Predicate;
 
 import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static yona.runtime.Seq.*;
 
 @Tag("slow")
@@ -431,6 +434,36 @@ public class SeqTest {
     }
   }
 
+  @Test
+  public void testBuilder() {
+    SeqBuilder builder = new SeqBuilder();
+    for (long i = 0; i < N; i++) {
+      builder.add(i);
+    }
+    Seq seq = builder.build();
+    assertEquals(N, seq.length());
+    for (long i = 0; i < N; i++) {
+      assertEquals(i, seq.lookup(i, null));
+    }
+    builder.add(-1L);
+    Seq longer = builder.build();
+    assertEquals(N, seq.length());
+    assertEquals(N + 1, longer.length());
+    assertEquals(-1L, longer.last(null));
+  }
+
+  @Test
+  public void testBuilderPacked() {
+    SeqBuilder builder = new SeqBuilder(fromCharSequence("ab"));
+    for (int codePoint : CODE_POINTS) {
+      builder.add(codePoint);
+    }
+    Seq seq = builder.build();
+    assertEquals(CODE_POINTS.length + 2, seq.length());
+    assertEquals("ab" + new String(CODE_POINTS, 0, CODE_POINTS.length), seq.asJavaString(null));
+    assertPacked(seq);
+  }
+
   @Test
   public void testRemoveFirst() {
     Seq seq = Seq.EMPTY;
@@ -493,6 +526,108 @@ public class SeqTest {
     assertOfIntEquals(sb.codePoints().iterator(), buffer.codePoints().iterator());
   }
 
+  @Test
+  public void testNewTextLeaf() throws NotACharacterException {
+    assertTrue(newTextLeaf(new int[]{'a', 0xe1}, 0, 2) instanceof byte[]);
+    assertTrue(textIsLatin1((byte[]) newTextLeaf(new int[]{'a', 0xe1}, 0, 2)));
+    assertTrue(newTextLeaf(new int[]{'a', 0x10d}, 0, 2) instanceof char[]);
+    assertTrue(newTextLeaf(new int[]{'a', 0x1f600}, 0, 2) instanceof byte[]);
+    assertFalse(textIsLatin1((byte[]) newTextLeaf(new int[]{'a', 0x1f600}, 0, 2)));
+    assertTrue(newTextLeaf(new int[]{0xd800, 0x1f600}, 0, 2) instanceof Object[]);
+    int[] codePoints = new int[]{'a', 0xe1, 0x10d, 0x1f600, 'z'};
+    Object leaf = newTextLeaf(codePoints, 0, codePoints.length);
+    for (int i = 0; i < codePoints.length; i++) {
+      assertEquals(codePoints[i], nodeLookup(leaf, i));
+      assertEquals(codePoints[i], nodeLookupCodePoint(leaf, i));
+    }    assertThrows(NotACharacterException.class, () -> nodeLookupCodePoint(newLeaf(1L), 0));
+  }
+
+  @Test
+  public void testPackedText() throws NotACharacterException {
+    final int[] codePoints = new int[M];
+    for (int i = 0; i < M; i++) {
+      codePoints[i] = CODE_POINTS[(i * 7919) % CODE_POINTS.length];
+    }
+    Seq seq = EMPTY;
+    for (int codePoint : codePoints) {
+      seq = seq.insertLast(codePoint);
+      assertTrue(nodeIsText(seq.suffix));
+    }
+    assertPacked(seq);
+    for (long j = 0; j < seq.length(); j += 61) {
+      Seq[] seqs = seq.split(j, null);
+      assertPacked(seqs[0]);
+      assertPacked(seqs[1]);
+      Seq newSeq = catenate(seqs[0], seqs[1]);
+      assertPacked(newSeq);
+      assertEquals(seq, newSeq);
+      seq = newSeq;
+    }
+    for (int i = 0; i < M; i++) {
+      assertEquals(codePoints[i], seq.lookup(i, null));
+      assertEquals(codePoints[i], seq.lookupCodePoint(i));
+    }
+    assertTrue(seq.isString());
+    assertEquals(seq, fromCodePoints(codePoints));
+    assertEquals(new String(codePoints, 0, M), seq.asJavaString(null));
+  }
+
+  @Test
+  public void testPackedBytes() {
+    final byte[] bytes = new byte[M];
+    for (int i = 0; i < M; i++) {
+      bytes[i] = BYTES[(i * 31) % BYTES.length];
+    }
+    Seq seq = EMPTY;
+    for (byte b : bytes) {
+      seq = seq.insertLast(b);
+      assertTrue(nodeIsBytes(seq.suffix));
+    }
+    assertPacked(seq, Seq::nodeIsBytes);
+    for (long j = 0; j < seq.length(); j += 61) {
+      Seq[] seqs = seq.split(j, null);
+      assertPacked(seqs[0], Seq::nodeIsBytes);
+      assertPacked(seqs[1], Seq::nodeIsBytes);
+      Seq newSeq = catenate(seqs[0], seqs[1]);
+      assertPacked(newSeq, Seq::nodeIsBytes);
+      assertEquals(seq, newSeq);
+      seq = newSeq;
+    }
+    assertPacked(seq.take(100, null), Seq::nodeIsBytes);
+    assertPacked(seq.drop(100, null), Seq::nodeIsBytes);
+    assertEquals(M, seq.byteLength());
+    assertArrayEquals(bytes, seq.asByteArray(null));
+    assertEquals(seq, fromBytes(bytes));
+    assertEquals(seq, fromByteBuffer(ByteBuffer.wrap(bytes)));
+  }
+
+  @Test
+  public void testByteLength() {
+    assertEquals(9, fromCharSequence("a\u00e1\u010d\ud83d\ude00").byteLength());
+    assertEquals(-1, sequence(1L).byteLength());
+    assertArrayEquals("a\u00e1\u010d\ud83d\ude00".getBytes(java.nio.charset.StandardCharsets.UTF_8), fromCharSequence("a\u00e1\u010d\ud83d\ude00").asByteArray(null));
+  }
+
+  static void assertPacked(Seq seq) {
+    assertPacked(seq, Seq::nodeIsText);
+  }
+
+  static void assertPacked(Seq seq, Predicate<Object> isPacked) {
+    assertTrue(nodeLength(seq.prefix) == 0 || isPacked.test(seq.prefix));
+    assertPacked(seq.root, seq.shift, isPacked);
+    assertTrue(nodeLength(seq.suffix) == 0 || isPacked.test(seq.suffix));
+  }
+
+  static void assertPacked(Object node, int shift, Predicate<Object> isPacked) {
+    for (int i = 0; i < nodeLength(node); i++) {
+      if (shift == BITS) {
+        assertTrue(isPacked.test(nodeLookup(node, i)));
+      } else {
+        assertPacked(nodeLookup(node, i), shift - BITS, isPacked);
+      }
+    }
+  }
+
   static void assertOfIntEquals(PrimitiveIterator.OfInt expected, PrimitiveIterator.OfInt actual) {
     while (expected.hasNext() && actual.hasNext()) {
       assertEquals(expected.nextInt(), actual.nextInt());
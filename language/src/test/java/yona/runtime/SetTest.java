@@ -109,6 +109,26 @@ public class SetTest {
     }
   }
 
+  @ParameterizedTest
+  @ValueSource(longs = {0L, 0xaaaaaaaaaaaaaaaaL, 0xffffffffffffffffL})
+  public void testBuilder(final long seed) {
+    Set set = Set.empty(Murmur3.INSTANCE, seed);
+    Set.SetBuilder builder = new Set.SetBuilder(Murmur3.INSTANCE, seed);
+    for (int i = 0; i < M; i++) {
+      set = set.add(new O(i)).add(new O(i + (1L << 32)));
+      builder.add(new O(i)).add(new O(i + (1L << 32))).add(new O(i));
+    }
+    Set built = builder.build();
+    assertEquals(set, built);
+    assertEquals(set.murmur3Hash(seed), built.murmur3Hash(seed));
+    assertEquals(2L * M, built.size());
+    for (int i = 0; i < M; i++) {
+      assertTrue(built.contains(new O(i)));
+      assertTrue(built.contains(new O(i + (1L << 32))));
+      assertFalse(built.contains(new O(i + M)));
+    }
+  }
+
   @Test
   public void testSetCollector() {
     java.util.Set<Long> input = java.util.Set.of(1L, 2L, 3L);
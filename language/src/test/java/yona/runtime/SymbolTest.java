@@ -0,0 +1,75 @@
+package yona.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymbolTest {
+  private static final int N = 4;
+  private static final int M = 10000;
+
+  private final SymbolTable table = new SymbolTable();
+
+  @Test
+  public void testInterned() {
+    assertSame(table.intern("ok"), table.intern(new String(new char[]{'o', 'k'})));
+    assertNotSame(table.intern("ok"), table.intern("error"));
+    assertNotEquals(table.intern("ok"), table.intern("error"));
+  }
+
+  @Test
+  public void testUnreferencedRemoved() throws InterruptedException {
+    final Symbol kept = table.intern("kept");
+    for (int i = 0; i < M; i++) {
+      table.intern("dropped" + i);
+    }
+    for (int i = 0; i < 100 && table.size() > 1; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertEquals(1, table.size());
+    assertSame(kept, table.intern("kept"));
+  }
+
+  @Test
+  public void testConcurrentInterning() throws InterruptedException {
+    final Symbol[][] symbols = new Symbol[N][M];
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] threads = new Thread[N];
+    for (int i = 0; i < N; i++) {
+      final int thread = i;
+      threads[i] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int j = 0; j < M; j++) {
+          symbols[thread][j] = table.intern("concurrent" + j);
+        }
+      });
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (int j = 0; j < M; j++) {
+      for (int i = 1; i < N; i++) {
+        assertSame(symbols[0][j], symbols[i][j]);
+      }
+    }
+  }
+
+  @Test
+  public void testMurmur3Hash() {
+    assertEquals(Murmur3.INSTANCE.hash(1L, table.intern("ok")), Murmur3.INSTANCE.hash(1L, table.intern("ok")));
+    assertNotEquals(Murmur3.INSTANCE.hash(1L, table.intern("ok")), Murmur3.INSTANCE.hash(2L, table.intern("ok")));
+    assertNotEquals(Murmur3.INSTANCE.hash(1L, table.intern("ok")), Murmur3.INSTANCE.hash(1L, table.intern("error")));
+    assertNotEquals(Murmur3.hashString(0L, "abcd"), Murmur3.hashString(0L, "abcde"));
+  }
+}
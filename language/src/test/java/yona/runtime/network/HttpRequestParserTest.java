@@ -0,0 +1,101 @@
+package yona.runtime.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpRequestParserTest {
+  private static final int MAX_BODY_SIZE = 4096;
+
+  private static final class Collector implements HttpRequestParser.Listener {
+    final List<HttpRequestParser.Request> requests = new ArrayList<>();
+    int continues;
+
+    @Override
+    public void continueExpected() {
+      continues++;
+    }
+
+    @Override
+    public void received(HttpRequestParser.Request request) {
+      requests.add(request);
+    }
+  }
+
+  private static Collector parse(String input, int chunkSize) throws HttpRequestParser.BadRequestException {
+    final byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+    final HttpRequestParser parser = new HttpRequestParser(MAX_BODY_SIZE);
+    final Collector collector = new Collector();
+    for (int i = 0; i < bytes.length; i += chunkSize) {
+      parser.feed(ByteBuffer.wrap(bytes, i, Math.min(chunkSize, bytes.length - i)), collector);
+    }
+    return collector;
+  }
+
+  @Test
+  public void testPipelinedRequests() throws HttpRequestParser.BadRequestException {
+    final String input = "GET /a HTTP/1.1\r\nHost: localhost\r\nACCEPT: text/plain\r\naccept: text/html\r\n\r\n" +
+        "POST /b?x=1 HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello" +
+        "GET /c HTTP/1.0\r\n\r\n";
+    for (int chunkSize : new int[]{1, 7, input.length()}) {
+      final List<HttpRequestParser.Request> requests = parse(input, chunkSize).requests;
+      assertEquals(3, requests.size());
+      assertEquals("GET", requests.get(0).method());
+      assertEquals("/a", requests.get(0).uri());
+      assertEquals(List.of("text/plain", "text/html"), requests.get(0).headers().get("Accept"));
+      assertEquals(0, requests.get(0).body().length);
+      assertTrue(requests.get(0).keepAlive());
+      assertEquals("/b?x=1", requests.get(1).uri());
+      assertEquals("hello", new String(requests.get(1).body(), StandardCharsets.ISO_8859_1));
+      assertEquals("HTTP/1.0", requests.get(2).protocol());
+      assertFalse(requests.get(2).keepAlive());
+    }
+  }
+
+  @Test
+  public void testChunkedBody() throws HttpRequestParser.BadRequestException {
+    final String input = "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nExpect: 100-continue\r\n\r\n" +
+        "4\r\nWiki\r\nA;name=value\r\npedia in\r\n\r\n0\r\nTrailer: ignored\r\n\r\n";
+    for (int chunkSize : new int[]{1, 5, input.length()}) {
+      final Collector collector = parse(input, chunkSize);
+      assertEquals(1, collector.continues);
+      assertEquals(1, collector.requests.size());
+      assertEquals("Wikipedia in\r\n", new String(collector.requests.get(0).body(), StandardCharsets.ISO_8859_1));
+    }
+  }
+
+  @Test
+  public void testBodySize() throws HttpRequestParser.BadRequestException {
+    final String body = "x".repeat(MAX_BODY_SIZE);
+    for (int chunkSize : new int[]{100, 8192}) {
+      assertEquals(body, new String(parse("POST / HTTP/1.1\r\nContent-Length: " + MAX_BODY_SIZE + "\r\n\r\n" + body, chunkSize).requests.get(0).body(), StandardCharsets.ISO_8859_1));
+    }
+    assertEquals(413, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("POST / HTTP/1.1\r\nContent-Length: " + (MAX_BODY_SIZE + 1) + "\r\n\r\n", 64)).status);
+    assertEquals(413, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n800\r\n" + "x".repeat(0x800) + "\r\n801\r\n", 8192)).status);
+  }
+
+  @Test
+  public void testConnectionClose() throws HttpRequestParser.BadRequestException {
+    assertFalse(parse("GET / HTTP/1.1\r\nConnection: close\r\n\r\n", 64).requests.get(0).keepAlive());
+    assertTrue(parse("GET / HTTP/1.0\r\nConnection: Keep-Alive\r\n\r\n", 64).requests.get(0).keepAlive());
+  }
+
+  @Test
+  public void testBadRequests() {
+    assertEquals(400, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("GET /\r\n\r\n", 64)).status);
+    assertEquals(505, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("GET / HTTP/2.0\r\n\r\n", 64)).status);
+    assertEquals(501, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("FROBNICATE / HTTP/1.1\r\n\r\n", 64)).status);
+    assertEquals(400, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("GET / HTTP/1.1\r\nBad Header: x\r\n\r\n", 64)).status);
+    assertEquals(400, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("POST / HTTP/1.1\r\nContent-Length: 1, 2\r\n\r\n", 64)).status);
+    assertEquals(400, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("POST / HTTP/1.1\r\nContent-Length: 1\r\nTransfer-Encoding: chunked\r\n\r\n", 64)).status);
+    assertEquals(501, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("POST / HTTP/1.1\r\nTransfer-Encoding: gzip\r\n\r\n", 64)).status);
+    assertEquals(400, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\nxyz\r\n", 64)).status);
+    assertEquals(413, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("POST / HTTP/1.1\r\nContent-Length: 99999999999\r\n\r\n", 64)).status);
+    assertEquals(431, assertThrows(HttpRequestParser.BadRequestException.class, () -> parse("GET / HTTP/1.1\r\nX: " + "x".repeat(HttpRequestParser.MAX_HEAD_LENGTH) + "\r\n\r\n", 4096)).status);
+  }
+}
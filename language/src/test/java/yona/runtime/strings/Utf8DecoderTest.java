@@ -0,0 +1,46 @@
+package yona.runtime.strings;
+
+import org.junit.jupiter.api.Test;
+import yona.runtime.Seq;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Utf8DecoderTest {
+  private static final String TEXT = "ascii, čeština, ελληνικά, 日本語, 😀🎉";
+
+  @Test
+  public void testSplitAtEveryOffset() {
+    final byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+    for (int split = 0; split <= bytes.length; split++) {
+      final Utf8Decoder decoder = new Utf8Decoder();
+      Seq result = decoder.decode(ByteBuffer.wrap(bytes, 0, split), false);
+      result = Seq.catenate(result, decoder.decode(ByteBuffer.wrap(bytes, split, bytes.length - split), false));
+      result = Seq.catenate(result, decoder.decode(ByteBuffer.allocate(0), true));
+      assertEquals(TEXT, result.asJavaString(null));
+    }
+  }
+
+  @Test
+  public void testSingleBytes() {
+    final byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+    final Utf8Decoder decoder = new Utf8Decoder();
+    Seq result = Seq.EMPTY;
+    for (byte b : bytes) {
+      result = Seq.catenate(result, decoder.decode(ByteBuffer.wrap(new byte[]{b}), false));
+    }
+    result = Seq.catenate(result, decoder.decode(ByteBuffer.allocate(0), true));
+    assertEquals(TEXT, result.asJavaString(null));
+  }
+
+  @Test
+  public void testTruncatedInput() {
+    final byte[] bytes = "a€".getBytes(StandardCharsets.UTF_8);
+    final Utf8Decoder decoder = new Utf8Decoder();
+    Seq result = decoder.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 1), false);
+    result = Seq.catenate(result, decoder.decode(ByteBuffer.allocate(0), true));
+    assertEquals(new String(bytes, 0, bytes.length - 1, StandardCharsets.UTF_8), result.asJavaString(null));
+  }
+}
@@ -0,0 +1,46 @@
+package yona.runtime.threading;
+
+import com.oracle.truffle.api.TruffleContext;
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import yona.YonaLanguage;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class IOExecutorsTest {
+  private Context context;
+
+  @BeforeEach
+  public void initEngine() {
+    context = Context.newBuilder().allowAllAccess(true).environment("YONA_STDLIB_HOME", "lib-yona").build();
+    context.initialize(YonaLanguage.ID);
+    context.enter();
+  }
+
+  @AfterEach
+  public void closeEngine() {
+    context.leave();
+    context.close();
+  }
+
+  @Test
+  public void testEnteringPlatformThreads() throws ExecutionException, InterruptedException {
+    final yona.runtime.Context yonaContext = yona.runtime.Context.getCurrent();
+    final TruffleContext truffleContext = yonaContext.getEnv().getContext();
+    final ExecutorService executor = Executors.newCachedThreadPool(IOExecutors.enteringThreads(Executors.defaultThreadFactory(), truffleContext));
+    try {
+      assertSame(yonaContext, executor.submit(yona.runtime.Context::getCurrent).get());
+      assertSame(yonaContext, executor.submit(yona.runtime.Context::getCurrent).get());
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+  }
+}
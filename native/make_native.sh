@@ -6,6 +6,7 @@ fi
 "$JAVA_HOME"/bin/native-image \
     --enable-http --enable-https --enable-all-security-services --report-unsupported-elements-at-runtime \
     --macro:truffle --no-fallback --initialize-at-build-time --language:regex --language:js \
+    -Dpolyglot.image-build-time.PreinitializeContexts=yona \
     -H:ReflectionConfigurationFiles=reflection-config.json -H:ResourceConfigurationFiles=resource-config.json \
     -H:IncludeResourceBundles=net.sourceforge.argparse4j.internal.ArgumentParserImpl \
     -cp ../language/target/language.jar:../launcher/target/yona-launcher.jar:$JAVA_HOME/lib/src.zip:$JAVA_HOME/lib/graalvm/launcher-common.jar \
@@ -1,74 +0,0 @@
-grammar JSON;
-
-TRUE : 'true' ;
-FALSE : 'false' ;
-NULL : 'null' ;
-
-json
-   : value
-   ;
-
-obj
-   : '{' pair (',' pair)* '}'
-   | '{' '}'
-   ;
-
-pair
-   : STRING ':' value
-   ;
-
-arr
-   : '[' value (',' value)* ']'
-   | '[' ']'
-   ;
-
-value
-   : STRING
-   | NUMBER
-   | obj
-   | arr
-   | bool
-   | NULL
-   ;
-
-bool : TRUE | FALSE ;
-
-
-STRING
-   : '"' (ESC | SAFECODEPOINT)* '"'
-   ;
-
-fragment ESC
-   : '\\' (["\\/bfnrt] | UNICODE)
-   ;
-fragment UNICODE
-   : 'u' HEX HEX HEX HEX
-   ;
-fragment HEX
-   : [0-9a-fA-F]
-   ;
-fragment SAFECODEPOINT
-   : ~ ["\\\u0000-\u001F]
-   ;
-
-
-NUMBER
-   : '-'? INT ('.' [0-9] +)? EXP?
-   ;
-
-
-fragment INT
-   : '0' | [1-9] [0-9]*
-   ;
-
-// no leading zeros
-
-fragment EXP
-   : [Ee] [+\-]? INT
-   ;
-
-// \- since - means "range" inside [...]
-
-WS
-   : [ \t\n\r] + -> skip
-   ;